@@ -9,10 +9,22 @@ public class Bootstrap {
         CommonClassLoader commonClassLoader = new CommonClassLoader();
         Thread.currentThread().setContextClassLoader(commonClassLoader);
 
+        Class<?> supervisorClazz = commonClassLoader.loadClass("server.catalina.Supervisor");
+        if (args.length > 0) {  //命令行客户端，例如Bootstrap roll，向prefork模式的管理进程发送命令
+            supervisorClazz.getMethod("sendCommand", String.class).invoke(null, args[0]);
+            return;
+        }
+        if ((boolean) supervisorClazz.getMethod("isEnabled").invoke(null)) {    //prefork模式，当前进程只管理工作进程
+            Object supervisorObject = supervisorClazz.getDeclaredConstructor().newInstance();
+            supervisorClazz.getMethod("start").invoke(supervisorObject);
+            return;
+        }
+
         Class<?> serverClazz = commonClassLoader.loadClass("server.catalina.Server");
         Object serverObject = serverClazz.getDeclaredConstructor().newInstance();
 
         Method m = serverClazz.getMethod("start");
         m.invoke(serverObject);
+        supervisorClazz.getMethod("workerStarted").invoke(null);
     }
 }
\ No newline at end of file
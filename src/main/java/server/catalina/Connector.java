@@ -3,24 +3,99 @@ package server.catalina;
 import cn.hutool.log.LogFactory;
 import server.http.Request;
 import server.http.Response;
+import server.http2.Http2UpgradeHandler;
+import server.net.BioEndpoint;
+import server.net.Nio2Endpoint;
+import server.net.NioEndpoint;
+import server.net.ProtocolHandler;
+import server.net.ProtocolStats;
+import server.net.QuicEndpoint;
+import server.net.SSLHostConfig;
+import server.net.SSLSupport;
+import server.net.SocketProperties;
+import server.net.SocketWrapper;
+import server.net.UdsEndpoint;
+import server.net.UpgradeHandler;
+import server.util.ClientLimiter;
+import server.util.CoDelLimiter;
+import server.util.Constant;
+import server.util.LimitLatch;
 import server.util.ThreadPoolUtil;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
 /**
 * 服务器连接器，接收Socket并构建request和response
 * @author cn-wumo
 * @since 2021/4/15
 */
-public class Connector implements Runnable {
+public class Connector {
+    private static final Map<String, Function<Connector, ProtocolHandler>> protocolHandlers = new HashMap<>();
     private final int port;
+    private String path;
     private final Service service;
+    private String protocol;
+    private int acceptorThreadCount;
+    private int pollerThreadCount;
+    private int maxKeepAliveRequests;
+    private int keepAliveTimeout;
+    private int connectionTimeout;
+    private int headerReadTimeout;
+    private int bodyReadTimeout;
+    private int maxHttpHeaderSize;
+    private int maxPostSize;
+    private int webSocketIdleTimeout;
+    private int webSocketMaxMessageSize;
+    private int eventStreamMaxQueueSize;
+    private int maxInflatedBodySize;
+    private boolean h2c;
+    private boolean useVirtualThreads;
+    private String executorName;
+    private Executor executor;
     private String compression;
     private int compressionMinSize;
     private String noCompressionUserAgents;
     private String compressibleMimeType;
+    private int maxConnections;
+    private final SocketProperties socketProperties;
+    private LimitLatch connectionLimitLatch;
+    private int maxConnectionsPerClient;
+    private int maxRequestsPerClient;
+    private int clientRequestRate;
+    private int clientRequestBurst;
+    private ClientLimiter clientLimiter;
+    private int admissionTarget;
+    private int admissionInterval;
+    private CoDelLimiter coDelLimiter;
+    private boolean secure;
+    private final List<SSLHostConfig> sslHostConfigs;
+    private int sessionCacheSize;
+    private int sessionTimeout;
+    private boolean sessionTickets;
+    private SSLSupport sslSupport;
+    private ProtocolHandler protocolHandler;
+    private volatile boolean draining;
+    private final Set<SocketWrapper> connections;   //已接入的连接，排空时逐个通知
+
+    static {
+        protocolHandlers.put("bio", BioEndpoint::new);
+        protocolHandlers.put("nio", NioEndpoint::new);
+        protocolHandlers.put("nio2", Nio2Endpoint::new);
+        protocolHandlers.put("uds", UdsEndpoint::new);
+        protocolHandlers.put("h3", QuicEndpoint::new);
+    }
 
     /**
     * 链接service服务实例，选择服务端口
@@ -32,11 +107,77 @@ public class Connector implements Runnable {
     public Connector(Service service,int port) {
         this.service = service;
         this.port = port;
+        this.protocol = "bio";
+        this.acceptorThreadCount = 1;
+        this.pollerThreadCount = Math.min(2, Runtime.getRuntime().availableProcessors());
+        this.maxKeepAliveRequests = 100;
+        this.keepAliveTimeout = 20 * 1000;
+        this.connectionTimeout = 20 * 1000;
+        this.headerReadTimeout = 20 * 1000;
+        this.bodyReadTimeout = 60 * 1000;
+        this.maxHttpHeaderSize = 8192;
+        this.maxPostSize = 2 * 1024 * 1024;
+        this.webSocketIdleTimeout = 5 * 60 * 1000;
+        this.webSocketMaxMessageSize = 1024 * 1024;
+        this.eventStreamMaxQueueSize = 64 * 1024;
+        this.maxInflatedBodySize = 10 * 1024 * 1024;
+        this.maxConnections = 10000;
+        this.maxConnectionsPerClient = -1;
+        this.maxRequestsPerClient = -1;
+        this.clientRequestRate = -1;
+        this.clientRequestBurst = -1;
+        this.admissionTarget = -1;
+        this.admissionInterval = 100;
+        this.socketProperties = new SocketProperties();
+        this.sslHostConfigs = new ArrayList<>();
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.sessionCacheSize = 20480;
+        this.sessionTimeout = 86400;
+        this.sessionTickets = true;
     }
 
+    /**
+    * 启动Connector，由init中选定的协议处理器绑定端口并开始接收连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
     public void start() {
-        LogFactory.get().info("启动协议处理器 [http-bio-{}]", port);
-        new Thread(this).start();
+        LogFactory.get().info("启动协议处理器 [{}]", protocolHandler.getName());
+        try {
+            protocolHandler.start();
+        } catch (IOException e) {
+            LogFactory.get().error(e);
+        }
+    }
+
+    /**
+    * 进入排空状态：停止接收新连接，已建立的连接上的请求照常处理，但响应带上Connection: close，处理完即关闭连接。
+    * 正在等待下一个请求的保持连接立即关闭，升级后的连接由各自的协议通知客户端（h2c发送GOAWAY，WebSocket发送1001关闭帧，SSE结束事件流）
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void stop() {
+        draining = true;
+        LogFactory.get().info("停止协议处理器 [{}]", protocolHandler.getName());
+        try {
+            protocolHandler.stop();
+        } catch (IOException e) {
+            LogFactory.get().error(e);
+        }
+        for (SocketWrapper socketWrapper : connections)
+            socketWrapper.drain();
+    }
+
+    /**
+    * 排空结束后释放协议处理器的资源，仍未关闭的连接随之断开
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void destroy() {
+        LogFactory.get().info("销毁协议处理器 [{}]", protocolHandler.getName());
+        for (SocketWrapper socketWrapper : connections)
+            socketWrapper.close();
+        protocolHandler.destroy();
     }
 
     /**
@@ -45,43 +186,476 @@ public class Connector implements Runnable {
     * @since 2021/4/15
     */
     public void init() {
-        LogFactory.get().info("初始化协议处理器 [http-bio-{}]", port);
+        LogFactory.get().info("初始化协议处理器 [http-{}-{}]", protocol, port);
+        if (useVirtualThreads)  //每个连接运行在各自的虚拟线程上
+            this.executor = ThreadPoolUtil.getVirtualThreadExecutor();
+        else if (null != executorName) {    //引用Server.xml中的有界执行器，名称写错时不能悄悄退回无界的共享线程池
+            this.executor = service.getExecutor(executorName);
+            if (null == this.executor)
+                throw new IllegalStateException("Connector引用的执行器不存在 [" + executorName + "]");
+        } else
+            this.executor = ThreadPoolUtil.getThreadPool();
+        this.connectionLimitLatch = new LimitLatch(maxConnections);    //-1表示不限制连接数
+        if (ClientLimiter.isEnabled(maxConnectionsPerClient, maxRequestsPerClient, clientRequestRate))
+            this.clientLimiter = new ClientLimiter(maxConnectionsPerClient, maxRequestsPerClient, clientRequestRate, clientRequestBurst);
+        if (admissionTarget > 0)
+            this.coDelLimiter = new CoDelLimiter(admissionTarget, admissionInterval);
+        if (secure) {
+            try {
+                this.sslSupport = new SSLSupport(this);
+            } catch (GeneralSecurityException | IOException e) {
+                throw new IllegalStateException("加载TLS证书失败 [" + port + "]", e);
+            }
+        }
+        this.protocolHandler = this.createProtocolHandler();
+    }
+
+    /**
+    * 按protocol属性创建协议处理器，内置的bio、nio、nio2、uds和h3不区分大小写，配置了path时TCP协议换成uds，
+    * 其他取值作为ProtocolHandler实现类的全限定名，通过以Connector为参数的构造方法创建
+    * @return server.net.ProtocolHandler
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private ProtocolHandler createProtocolHandler() {
+        String name = protocol.toLowerCase();
+        if (null != path && protocolHandlers.containsKey(name) && !"h3".equals(name)) //Unix域套接字只有SocketChannel支持
+            name = "uds";
+        Function<Connector, ProtocolHandler> factory = protocolHandlers.get(name);
+        if (null != factory)
+            return factory.apply(this);
+        try {
+            Class<? extends ProtocolHandler> clazz = Class.forName(protocol).asSubclass(ProtocolHandler.class);
+            return clazz.getConstructor(Connector.class).newInstance(this);
+        } catch (ClassNotFoundException | ClassCastException | NoSuchMethodException | InstantiationException
+                | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("无法创建协议处理器 [" + protocol + "]", e);
+        }
     }
     
     /**
-    * 自旋获取客户端发送的Socket，具体业务在HttpProcessor中处理
+    * 新连接接入后由端点调用，客户端的连接数已达maxConnectionsPerClient时写出预先生成的429响应并关闭连接，
+    * 不读取任何请求数据。Unix域套接字没有客户端地址，不做限制。接受的连接记录下来，直到关闭，
+    * 与stop同时接入的连接直接关闭
+    * @param socketWrapper 客户端连接
+    * @return boolean 是否接受该连接
     * @author cn-wumo
-    * @since 2021/4/15
+    * @since 2026/10/18
     */
-    @Override
-    @SuppressWarnings("InfiniteLoopStatement")
-    public void run() {
-        try (
-                ServerSocket serverSocket = new ServerSocket(port)
-        ) {
-            while (true) {
-                Socket socket = serverSocket.accept();
-                Runnable r = () -> {
-                    try {
-                        Request request = new Request(socket, Connector.this);
-                        Response response = new Response();
-                        HttpProcessor processor = new HttpProcessor();
-                        processor.execute(socket, request, response);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                };
-                ThreadPoolUtil.run(r);
+    public boolean admit(SocketWrapper socketWrapper) {
+        InetSocketAddress remoteAddress = null == clientLimiter ? null : socketWrapper.getRemoteAddress();
+        if (null != remoteAddress) {
+            ClientLimiter.Client client = clientLimiter.tryAcquireConnection(remoteAddress.getAddress());
+            if (null == client) {
+                this.getStats().getClientRejectedCount().increment();
+                socketWrapper.reject(Constant.response_429);
+                return false;
             }
-        } catch (IOException e) {
-            LogFactory.get().error(e);
+            socketWrapper.setClient(client);
+        }
+        connections.add(socketWrapper);
+        if (draining) {
+            socketWrapper.close();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+    * 连接关闭时由SocketWrapper调用
+    * @param socketWrapper 已关闭的连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void removeConnection(SocketWrapper socketWrapper) {
+        connections.remove(socketWrapper);
+    }
+
+    /**
+    * 把连接交给执行器处理，执行器已满时立即返回预先生成的503响应并关闭连接
+    * @param socketWrapper 客户端连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void dispatch(SocketWrapper socketWrapper) {
+        long dispatchTime = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                if (!this.isShed(socketWrapper, System.nanoTime() - dispatchTime))
+                    this.process(socketWrapper);
+            });
+        } catch (RejectedExecutionException e) {
+            this.getStats().getRejectedCount().increment();
+            socketWrapper.reject(Constant.response_503);
+        }
+    }
+
+    /**
+    * 工作线程取到连接时记录排队时间，配置了admissionTarget时由CoDel判断是否丢弃，丢弃的连接返回预先生成的503后关闭。
+    * 已升级的连接承载着WebSocket等长期会话，只计入排队时间，不丢弃
+    * @param socketWrapper 客户端连接
+ 	* @param sojourn 排队的纳秒数
+    * @return boolean 是否已丢弃
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private boolean isShed(SocketWrapper socketWrapper, long sojourn) {
+        this.getStats().getSojournTime().record(sojourn);
+        if (null == coDelLimiter || !coDelLimiter.isDrop(sojourn) || socketWrapper.isUpgraded())
+            return false;
+        this.getStats().getShedCount().increment();
+        socketWrapper.reject(Constant.response_503);
+        return true;
+    }
+
+    /**
+    * 在工作线程中处理客户端请求，BIO和NIO共用此流程。连接保持时在同一连接上继续处理后续请求，
+    * 直到客户端要求关闭、达到maxKeepAliveRequests或者连接被交还给端点。升级为WebSocket等协议的连接交给其UpgradeHandler处理。
+    * 流水线上已到达缓冲区的请求连续解析处理，它们的响应暂存在输出队列，等缓冲区中没有完整请求时再合并写出
+    * @param socketWrapper 客户端连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void process(SocketWrapper socketWrapper) {
+        try {
+            do {
+                UpgradeHandler upgradeHandler = socketWrapper.getUpgradeHandler();
+                if (null != upgradeHandler) {   //已升级的连接，BIO等阻塞端点在这里等待完整的处理单元
+                    while (!socketWrapper.isRequestComplete()) {
+                        if (socketWrapper.fill(true) < 0) {
+                            socketWrapper.close();
+                            return;
+                        }
+                    }
+                    upgradeHandler.process(socketWrapper);
+                    if (socketWrapper.isClosed())
+                        return;
+                    socketWrapper.updateTimeout();
+                    continue;
+                }
+                if (h2c && socketWrapper.startsWith(Http2UpgradeHandler.PREFACE)) {  //直接以HTTP/2连接前言开始
+                    socketWrapper.flush();
+                    new Http2UpgradeHandler(socketWrapper, this).process(null);
+                    return;
+                }
+                ClientLimiter.Client client = socketWrapper.getClient();
+                Request request;
+                Response response;
+                try {
+                    request = new Request(socketWrapper, this);
+                    if (null == request.getUri() && 0 == request.getErrorStatus()) { //客户端已关闭连接
+                        socketWrapper.flush();
+                        socketWrapper.close();
+                        return;
+                    }
+                    if (null != client && !clientLimiter.tryAcquireRequest(client)) {   //报文头到达后才占用请求数，空闲的保持连接不占用
+                        client = null;  //没有占用请求数，不需要归还
+                        this.getStats().getClientRejectedCount().increment();
+                        socketWrapper.write(Constant.response_429);
+                        socketWrapper.flush();
+                        socketWrapper.close();
+                        return;
+                    }
+                    if (h2c && !socketWrapper.isSecure() && Http2UpgradeHandler.isUpgradeRequest(request)) { //TLS上的HTTP/2由ALPN协商
+                        if (null != client) {   //升级后的连接不再占用请求数
+                            clientLimiter.releaseRequest(client);
+                            client = null;
+                        }
+                        socketWrapper.flush();
+                        new Http2UpgradeHandler(socketWrapper, this).upgrade(request);
+                        return;
+                    }
+                    this.getStats().getRequestCount().increment();
+                    response = new Response();
+                    response.setKeepAlive(this.isKeepAlive(request, socketWrapper));
+                    HttpProcessor processor = new HttpProcessor();
+                    processor.execute(socketWrapper, request, response);
+                    request.recycle();
+                } finally {
+                    if (null != client)
+                        clientLimiter.releaseRequest(client);
+                }
+                if (!response.isKeepAlive()) {
+                    socketWrapper.flush();
+                    socketWrapper.close();
+                    return;
+                }
+                if (!socketWrapper.isRequestComplete())  //流水线上没有已到达的请求，写出合并的响应
+                    socketWrapper.flush();
+                socketWrapper.updateTimeout();
+            } while (socketWrapper.awaitNextRequest());
+        } catch (IOException e) {   //读取超时或者客户端异常断开
+            socketWrapper.close();
         }
     }
 
+    /**
+    * 判断响应后是否保持连接，客户端要求关闭、连接上的请求数达到maxKeepAliveRequests或者正在排空时关闭连接
+    * @param request 客户端的请求
+ 	* @param socketWrapper 客户端连接
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private boolean isKeepAlive(Request request, SocketWrapper socketWrapper) {
+        if (draining || !request.isKeepAlive())
+            return false;
+        int count = socketWrapper.incrementKeepAliveCount();
+        return maxKeepAliveRequests < 0 || count < maxKeepAliveRequests;    //-1表示不限制请求数
+    }
+
     public Service getService() {
         return service;
     }
 
+    public int getPort() {
+        return port;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    public boolean isSecure() {
+        return secure;
+    }
+
+    public void setSecure(boolean secure) {
+        this.secure = secure;
+    }
+
+    public List<SSLHostConfig> getSslHostConfigs() {
+        return sslHostConfigs;
+    }
+
+    public void addSslHostConfig(SSLHostConfig sslHostConfig) {
+        this.sslHostConfigs.add(sslHostConfig);
+    }
+
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    public void setSessionTimeout(int sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    public boolean isSessionTickets() {
+        return sessionTickets;
+    }
+
+    public void setSessionTickets(boolean sessionTickets) {
+        this.sessionTickets = sessionTickets;
+    }
+
+    public SSLSupport getSslSupport() {
+        return sslSupport;
+    }
+
+    public ProtocolHandler getProtocolHandler() {
+        return protocolHandler;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public int getConnectionCount() {
+        return protocolHandler.getConnectionCount();
+    }
+
+    public ProtocolStats getStats() {
+        return protocolHandler.getStats();
+    }
+
+    public boolean isH2c() {
+        return h2c;
+    }
+
+    public void setH2c(boolean h2c) {
+        this.h2c = h2c;
+    }
+
+    public int getAcceptorThreadCount() {
+        return acceptorThreadCount;
+    }
+
+    public void setAcceptorThreadCount(int acceptorThreadCount) {
+        this.acceptorThreadCount = acceptorThreadCount;
+    }
+
+    public int getPollerThreadCount() {
+        return pollerThreadCount;
+    }
+
+    public void setPollerThreadCount(int pollerThreadCount) {
+        this.pollerThreadCount = pollerThreadCount;
+    }
+
+    public int getMaxKeepAliveRequests() {
+        return maxKeepAliveRequests;
+    }
+
+    public void setMaxKeepAliveRequests(int maxKeepAliveRequests) {
+        this.maxKeepAliveRequests = maxKeepAliveRequests;
+    }
+
+    public int getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    public void setKeepAliveTimeout(int keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(int connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public int getHeaderReadTimeout() {
+        return headerReadTimeout;
+    }
+
+    public void setHeaderReadTimeout(int headerReadTimeout) {
+        this.headerReadTimeout = headerReadTimeout;
+    }
+
+    public int getBodyReadTimeout() {
+        return bodyReadTimeout;
+    }
+
+    public void setBodyReadTimeout(int bodyReadTimeout) {
+        this.bodyReadTimeout = bodyReadTimeout;
+    }
+
+    /**
+    * 请求行和报文头的最大字节数，超过时应答431并关闭连接，不大于0时不限制
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getMaxHttpHeaderSize() {
+        return maxHttpHeaderSize;
+    }
+
+    public void setMaxHttpHeaderSize(int maxHttpHeaderSize) {
+        this.maxHttpHeaderSize = maxHttpHeaderSize;
+    }
+
+    /**
+    * getParameter读取的POST表单的最大字节数，超过时应答413，负数表示不限制。servlet自行读取的请求体不受此限制
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getMaxPostSize() {
+        return maxPostSize;
+    }
+
+    public void setMaxPostSize(int maxPostSize) {
+        this.maxPostSize = maxPostSize;
+    }
+
+    /**
+    * WebSocket连接的空闲超时，单位毫秒，不大于0时不超时
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getWebSocketIdleTimeout() {
+        return webSocketIdleTimeout;
+    }
+
+    public void setWebSocketIdleTimeout(int webSocketIdleTimeout) {
+        this.webSocketIdleTimeout = webSocketIdleTimeout;
+    }
+
+    /**
+    * WebSocket单个消息（分片合并、解压之后）的大小上限，超过时以1009关闭连接
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getWebSocketMaxMessageSize() {
+        return webSocketMaxMessageSize;
+    }
+
+    public void setWebSocketMaxMessageSize(int webSocketMaxMessageSize) {
+        this.webSocketMaxMessageSize = webSocketMaxMessageSize;
+    }
+
+    /**
+    * SSE连接上等待写出的事件的字节数上限，超过时视为慢速客户端并断开连接
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getEventStreamMaxQueueSize() {
+        return eventStreamMaxQueueSize;
+    }
+
+    public void setEventStreamMaxQueueSize(int eventStreamMaxQueueSize) {
+        this.eventStreamMaxQueueSize = eventStreamMaxQueueSize;
+    }
+
+    /**
+    * gzip或deflate编码的请求体解压后的字节数上限，超过时读取请求体抛出IOException
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getMaxInflatedBodySize() {
+        return maxInflatedBodySize;
+    }
+
+    public void setMaxInflatedBodySize(int maxInflatedBodySize) {
+        this.maxInflatedBodySize = maxInflatedBodySize;
+    }
+
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public String getExecutorName() {
+        return executorName;
+    }
+
+    public void setExecutorName(String executorName) {
+        this.executorName = executorName;
+    }
+
     public String getCompression() {
         return compression;
     }
@@ -106,6 +680,114 @@ public class Connector implements Runnable {
         this.noCompressionUserAgents = noCompressionUserAgents;
     }
 
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public SocketProperties getSocketProperties() {
+        return socketProperties;
+    }
+
+    /**
+    * 每个客户端地址的最大并发连接数，-1表示不限制
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getMaxConnectionsPerClient() {
+        return maxConnectionsPerClient;
+    }
+
+    public void setMaxConnectionsPerClient(int maxConnectionsPerClient) {
+        this.maxConnectionsPerClient = maxConnectionsPerClient;
+    }
+
+    /**
+    * 每个客户端地址同时处理中的最大请求数，-1表示不限制
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getMaxRequestsPerClient() {
+        return maxRequestsPerClient;
+    }
+
+    public void setMaxRequestsPerClient(int maxRequestsPerClient) {
+        this.maxRequestsPerClient = maxRequestsPerClient;
+    }
+
+    /**
+    * 每个客户端地址每秒的请求数，-1表示不限制
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getClientRequestRate() {
+        return clientRequestRate;
+    }
+
+    public void setClientRequestRate(int clientRequestRate) {
+        this.clientRequestRate = clientRequestRate;
+    }
+
+    /**
+    * 每个客户端地址允许的突发请求数，即令牌桶的容量，默认等于clientRequestRate
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getClientRequestBurst() {
+        return clientRequestBurst;
+    }
+
+    public void setClientRequestBurst(int clientRequestBurst) {
+        this.clientRequestBurst = clientRequestBurst;
+    }
+
+    /**
+    * 连接在执行器中排队时间的目标毫秒数，配置后启用CoDel丢弃排队过久的连接，-1表示不启用
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getAdmissionTarget() {
+        return admissionTarget;
+    }
+
+    public void setAdmissionTarget(int admissionTarget) {
+        this.admissionTarget = admissionTarget;
+    }
+
+    /**
+    * CoDel统计最短排队时间的周期毫秒数，未过载时排队超过该时间的连接也被丢弃
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getAdmissionInterval() {
+        return admissionInterval;
+    }
+
+    public void setAdmissionInterval(int admissionInterval) {
+        this.admissionInterval = admissionInterval;
+    }
+
+    public CoDelLimiter getCoDelLimiter() {
+        return coDelLimiter;
+    }
+
+    public ClientLimiter getClientLimiter() {
+        return clientLimiter;
+    }
+
+    public LimitLatch getConnectionLimitLatch() {
+        return connectionLimitLatch;
+    }
+
     public String getCompressibleMimeType() {
         return compressibleMimeType;
     }
@@ -19,6 +19,7 @@ import server.http.ApplicationContext;
 import server.http.StandardServletConfig;
 import server.util.ContextXMLUtil;
 import server.watcher.ContextFileChangeWatcher;
+import server.websocket.WebSocketEndpoint;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServlet;
@@ -57,6 +58,7 @@ public class Context {
     private final Map<String, Filter> filterPool; //Filter的对象池
 
     private List<ServletContextListener> listeners; //web应用程序的监听器
+    private final Map<String, WebSocketEndpoint> url_webSocketEndpoint;   //url和WebSocket端点之间的映射
 
 
     /**
@@ -94,6 +96,7 @@ public class Context {
         this.loadOnStartupServletClassNames = new ArrayList<>();
 
         this.listeners = new ArrayList<>();
+        this.url_webSocketEndpoint = new HashMap<>();
 
         ClassLoader commonClassLoader = Thread.currentThread().getContextClassLoader();
         this.webappClassLoader = new WebappClassLoader(docBase, commonClassLoader);
@@ -110,6 +113,7 @@ public class Context {
     */
     private void deploy() {
         this.loadListeners();
+        this.loadWebSocketEndpoints();
         this.init();
         if(reloadable){
             this.contextFileChangeWatcher = new ContextFileChangeWatcher(this);
@@ -315,10 +319,11 @@ public class Context {
     * @since 2021/4/18
     */
     public void stop() {
-        this.webappClassLoader.stop();  //摧毁类加载器
-        this.contextFileChangeWatcher.stop();   //摧毁文件改变监听器
-        this.destroyServlets(); //摧毁servlet类
+        if (null != contextFileChangeWatcher)   //不可重载的应用没有监听器
+            this.contextFileChangeWatcher.stop();   //摧毁文件改变监听器
+        this.destroyServlets(); //摧毁servlet类，destroy中可能还要加载应用的类
         this.fireEvent("destroy");
+        this.webappClassLoader.stop();  //最后摧毁类加载器
     }
 
     /**
@@ -511,6 +516,34 @@ public class Context {
         }
     }
 
+    /**
+    * 将web.xml中的websocket-endpoint映射压入到web应用程序中，每个端点类在其url-pattern上只有一个实例
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void loadWebSocketEndpoints() {
+        try {
+            if(!contextWebXmlFile.exists())
+                return;
+            String xml = FileUtil.readUtf8String(contextWebXmlFile);
+            Document d = Jsoup.parse(xml);
+
+            Elements es = d.select("websocket-endpoint");
+            for (Element e : es) {
+                String endpointClassName = e.select("endpoint-class").text();
+                String urlPattern = e.select("url-pattern").text();
+
+                Class<?> clazz = webappClassLoader.loadClass(endpointClassName);
+                WebSocketEndpoint endpoint = (WebSocketEndpoint) clazz.getDeclaredConstructor().newInstance();
+                addWebSocketEndpoint(urlPattern, endpoint);
+            }
+        } catch (IORuntimeException | ClassNotFoundException | InstantiationException |
+                IllegalAccessException | NoSuchMethodException | SecurityException |
+                InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
     * 触发监听器事件
     * @param type 事件类型
@@ -566,4 +599,19 @@ public class Context {
     public void addListener(ServletContextListener listener){
         listeners.add(listener);
     }
+
+    /**
+    * 在uri上注册WebSocket端点，与servlet一样按uri精确匹配
+    * @param uri 端点的路径，不含web应用程序的路径
+ 	* @param endpoint WebSocket端点
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void addWebSocketEndpoint(String uri, WebSocketEndpoint endpoint) {
+        url_webSocketEndpoint.put(uri, endpoint);
+    }
+
+    public WebSocketEndpoint getWebSocketEndpoint(String uri) {
+        return url_webSocketEndpoint.get(uri);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package server.catalina;
+
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+* prefork控制通道上的一行命令，以空格分隔，最后一项总是管理进程的令牌：ready pid token为工作进程的就绪报告，
+* status token、roll token、stop token由命令行客户端发送
+* @author cn-wumo
+* @since 2026/10/18
+*/
+class ControlCommand {
+    static final String READY = "ready";
+    static final String STATUS = "status";
+    static final String ROLL = "roll";
+    static final String STOP = "stop";
+    private final String name;
+    private final long pid;
+
+    private ControlCommand(String name, long pid) {
+        this.name = name;
+        this.pid = pid;
+    }
+
+    /**
+    * 解析并校验一行命令，令牌以固定时间比较，不因比较提前结束而泄露令牌的前缀
+    * @param line 控制连接上读到的一行
+ 	* @param token 管理进程的令牌
+    * @return server.catalina.ControlCommand 命令不合法时抛出IllegalArgumentException，异常信息回复给客户端
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static ControlCommand parse(String line, String token) {
+        List<String> args = StrUtil.splitTrim(StrUtil.nullToEmpty(line), ' ');
+        String name = args.isEmpty() ? "" : args.get(0);
+        int argCount = switch (name) {
+            case READY -> 3;
+            case STATUS, ROLL, STOP -> 2;
+            default -> throw new IllegalArgumentException("未知的命令 [" + name + "]，可用的命令：status roll stop");
+        };
+        if (args.size() != argCount)
+            throw new IllegalArgumentException("命令格式错误，用法：status|roll|stop <token>");
+        if (!MessageDigest.isEqual(args.get(argCount - 1).getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8)))
+            throw new IllegalArgumentException("令牌不符");
+        if (!READY.equals(name))
+            return new ControlCommand(name, -1);
+        if (!NumberUtil.isLong(args.get(1)))
+            throw new IllegalArgumentException("进程号不合法 [" + args.get(1) + "]");
+        return new ControlCommand(name, Long.parseLong(args.get(1)));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+    * 就绪报告中的进程号，其他命令返回-1
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public long getPid() {
+        return pid;
+    }
+}
@@ -38,6 +38,16 @@ public class Engine {
             throw new RuntimeException("默认端口" + engine.defaultHost + " 不存在！");
     }
 
+    /**
+    * 停止所有虚拟主机上的web应用
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void stop() {
+        for (Host host : hostList)
+            host.stop();
+    }
+
     /**
     * 获取该引擎的默认虚拟主机，如若没有则返回null
     * @return server.catalina.Host
@@ -173,6 +173,21 @@ public class Host {
         contextMap.put(context.getPath(), context);
     }
 
+    /**
+    * 停止该虚拟主机上的所有web应用，单个应用停止失败不影响其他应用
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void stop() {
+        for (Context context : contextMap.values()) {
+            try {
+                context.stop();
+            } catch (RuntimeException e) {
+                LogFactory.get().error(e);
+            }
+        }
+    }
+
     public String getName() {
         return name;
     }
@@ -5,19 +5,21 @@ import cn.hutool.core.util.StrUtil;
 import cn.hutool.core.util.ZipUtil;
 import cn.hutool.log.LogFactory;
 import server.http.Request;
+import server.exception.HttpStatusException;
 import server.http.Response;
+import server.net.SocketWrapper;
 import server.servlets.DefaultServlet;
 import server.servlets.InvokerServlet;
 import server.servlets.JspServlet;
 import server.util.Constant;
 import server.util.SessionManager;
+import server.websocket.WebSocketEndpoint;
+import server.websocket.WebSocketProcessor;
 
 import javax.servlet.Filter;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
@@ -30,17 +32,30 @@ public class HttpProcessor {
 
     /**
     * 执行http协议处理器
-    * @param socket 服务器和客户端之间的socket
+    * @param socketWrapper 服务器和客户端之间的连接
  	* @param request 客户端的请求
  	* @param response 服务器的响应
     * @author cn-wumo
     * @since 2021/4/18
     */
-    public void execute(Socket socket, Request request, Response response){
+    public void execute(SocketWrapper socketWrapper, Request request, Response response){
         try{
+            if (0 != request.getErrorStatus()) {    //报文头不合法，请求的边界无法确定，应答错误后关闭连接
+                response.setStatus(request.getErrorStatus());
+                response.setKeepAlive(false);
+                handleStatus(socketWrapper, response);
+                return;
+            }
             String uri = request.getUri();
             LogFactory.get().info(request.getLocalAddr()+" visit uri:"+uri);    //调试用，打印访客信息
             Context context = request.getContext();
+            if (WebSocketProcessor.isUpgradeRequest(request)) {
+                WebSocketEndpoint endpoint = context.getWebSocketEndpoint(uri);
+                if (null != endpoint) {   //握手成功后连接由WebSocketProcessor接管，不经过过滤器和servlet
+                    WebSocketProcessor.upgrade(socketWrapper, request, response, endpoint);
+                    return;
+                }
+            }
             this.prepareSession(request, response);
 
             String servletClassName = context.getServletClassName(uri); //根据web应用程序的web.xml配置，寻找url对应的servlet-name
@@ -59,84 +74,166 @@ public class HttpProcessor {
             ApplicationFilterChain filterChain = new ApplicationFilterChain(filters, workingServlet);
             filterChain.doFilter(request, response);
 
-            if(request.isForwarded())
+            if(request.isForwarded() || null != response.getEventStream())  //SSE的响应头已由EventStream写出
                 return;
+            if(!request.finishBody())   //servlet没有读完请求体且余下的部分还未到达，不再接收请求体，响应后关闭连接
+                response.setKeepAlive(false);
+            if(socketWrapper.getConnector().isDraining())   //servlet执行期间服务器开始排空
+                response.setKeepAlive(false);
             //根据response的状态，进入不同的流程
             switch (response.getStatus()) {
-                case Constant.CODE_200 -> handle200(socket, request, response);
-                case Constant.CODE_404 -> handle404(socket, uri);
-                case Constant.CODE_302 -> handle302(socket,response);
+                case 0, Constant.CODE_200 -> handle200(socketWrapper, request, response);  //过滤器没有调用servlet时状态码未设置，按默认的200处理
+                case Constant.CODE_404 -> handle404(socketWrapper, uri, response);
+                case Constant.CODE_302 -> handle302(socketWrapper,response);
+                default -> handleStatus(socketWrapper, response);
             }
         } catch (Exception e) {
+            HttpStatusException statusException = HttpProcessor.getStatusException(e);
+            if (null != statusException) {  //例如表单超过maxPostSize，请求体没有读完，应答后关闭连接
+                request.finishBody();
+                response.setStatus(statusException.getStatus());
+                response.setBody(new byte[0]);  //丢弃servlet已写出的部分内容
+                response.setKeepAlive(false);
+                try {
+                    handleStatus(socketWrapper, response);
+                } catch (IOException e1) {
+                    LogFactory.get().error(e1);
+                }
+                return;
+            }
             LogFactory.get().error(e);
-            handle500(socket,e);
+            if(!request.finishBody() || socketWrapper.getConnector().isDraining())
+                response.setKeepAlive(false);
+            handle500(socketWrapper, e, response);
+        }
+    }
+
+    /**
+    * 沿异常链查找指定了响应状态码的HttpStatusException，servlet或过滤器可能把它包装在其他异常中
+    * @param e 处理请求时抛出的异常
+    * @return server.exception.HttpStatusException 没有找到时返回null
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static HttpStatusException getStatusException(Throwable e) {
+        for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+            if (cause instanceof HttpStatusException)
+                return (HttpStatusException) cause;
         }
+        return null;
     }
 
     /**
-    * 返回200响应报文
-    * @param socket 服务器和客户端之间的socket
+    * 返回200响应报文，报文带有Content-Length，连接可以继续承载后续请求
+    * @param socketWrapper 服务器和客户端之间的连接
  	* @param request 客户端的请求报文
  	* @param response 服务器的响应报文
     * @author cn-wumo
     * @since 2021/4/20
     */
-    private void handle200(Socket socket, Request request, Response response)
+    private void handle200(SocketWrapper socketWrapper, Request request, Response response)
             throws IOException {
-        try(
-                OutputStream os = socket.getOutputStream()
-                ){
-            String contentType = response.getContentType();
-            byte[] body = response.getBody();
-            String cookiesHeader = response.getCookiesHeader();
-            boolean gzip = isGzip(request, body, contentType);  //是否采用gzip压缩
-
-            String headTextFormat;
-            if (gzip) {
-                headTextFormat = Constant.response_head_200_gzip;
-                body = ZipUtil.gzip(body);
-            }else
-                headTextFormat = Constant.response_head_200;
-
-            String headText = StrUtil.format(headTextFormat, contentType, cookiesHeader);
-            byte[] head = headText.getBytes();
-            byte[] responseBytes = new byte[head.length + body.length];
-            ArrayUtil.copy(head, 0, responseBytes, 0, head.length); //写入报文头
-            ArrayUtil.copy(body, 0, responseBytes, head.length, body.length);   //写入报文体
-
-            os.write(responseBytes,0,responseBytes.length);
-        }
+        String contentType = response.getContentType();
+        byte[] body = response.getBody();
+        String cookiesHeader = response.getCookiesHeader();
+        boolean gzip = isGzip(request, body, contentType);  //是否采用gzip压缩
+
+        String headTextFormat;
+        if (gzip) {
+            headTextFormat = Constant.response_head_200_gzip;
+            body = ZipUtil.gzip(body);
+        }else
+            headTextFormat = Constant.response_head_200;
+
+        String headText = StrUtil.format(headTextFormat, contentType, cookiesHeader, body.length, getConnection(response));
+        byte[] head = headText.getBytes();
+        byte[] responseBytes = new byte[head.length + body.length];
+        ArrayUtil.copy(head, 0, responseBytes, 0, head.length); //写入报文头
+        ArrayUtil.copy(body, 0, responseBytes, head.length, body.length);   //写入报文体
+
+        socketWrapper.write(responseBytes);
+    }
+
+    /**
+    * 返回其他状态码的响应报文，例如servlet通过sendError设置的错误，报文体为servlet写出的内容
+    * @param socketWrapper 服务器和客户端之间的连接
+ 	* @param response 服务器的响应报文
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void handleStatus(SocketWrapper socketWrapper, Response response) throws IOException {
+        byte[] body = response.getBody();
+        String head = StrUtil.format(Constant.response_head_status, response.getStatus(),
+                HttpProcessor.getReasonPhrase(response.getStatus()), response.getContentType(),
+                response.getCookiesHeader(), body.length, getConnection(response));
+        socketWrapper.write(ArrayUtil.addAll(head.getBytes(StandardCharsets.UTF_8), body));
+    }
+
+    /**
+    * 状态码对应的原因短语，未收录的状态码按类别给出
+    * @param status 状态码
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static String getReasonPhrase(int status) {
+        return switch (status) {
+            case 201 -> "Created";
+            case 202 -> "Accepted";
+            case 204 -> "No Content";
+            case 301 -> "Moved Permanently";
+            case 303 -> "See Other";
+            case 304 -> "Not Modified";
+            case 307 -> "Temporary Redirect";
+            case 308 -> "Permanent Redirect";
+            case 400 -> "Bad Request";
+            case 401 -> "Unauthorized";
+            case 403 -> "Forbidden";
+            case 405 -> "Method Not Allowed";
+            case 408 -> "Request Timeout";
+            case 409 -> "Conflict";
+            case 410 -> "Gone";
+            case 411 -> "Length Required";
+            case 413 -> "Payload Too Large";
+            case 414 -> "URI Too Long";
+            case 415 -> "Unsupported Media Type";
+            case 417 -> "Expectation Failed";
+            case 429 -> "Too Many Requests";
+            case 431 -> "Request Header Fields Too Large";
+            case 500 -> "Internal Server Error";
+            case 501 -> "Not Implemented";
+            case 502 -> "Bad Gateway";
+            case 503 -> "Service Unavailable";
+            case 504 -> "Gateway Timeout";
+            default -> status < 300 ? "OK" : status < 400 ? "Redirection" : status < 500 ? "Client Error" : "Server Error";
+        };
     }
 
     /**
     * 返回404响应报文
-    * @param socket 服务器和客户端之间的socket
+    * @param socketWrapper 服务器和客户端之间的连接
  	* @param uri 客户端访问的uri
+ 	* @param response 服务器的响应报文
     * @author cn-wumo
     * @since 2021/4/20
     */
-    private void handle404(Socket socket, String uri) throws IOException {
-        try(
-                OutputStream os = socket.getOutputStream()
-                ){
-            String responseText = StrUtil.format(Constant.textFormat_404, uri, uri);
-            responseText = Constant.response_head_404 + responseText;
-            byte[] responseByte = responseText.getBytes(StandardCharsets.UTF_8);
-            os.write(responseByte);
-        }
+    private void handle404(SocketWrapper socketWrapper, String uri, Response response) throws IOException {
+        String responseText = StrUtil.format(Constant.textFormat_404, uri, uri);
+        byte[] body = responseText.getBytes(StandardCharsets.UTF_8);
+        String head = StrUtil.format(Constant.response_head_404, body.length, getConnection(response));
+        socketWrapper.write(ArrayUtil.addAll(head.getBytes(StandardCharsets.UTF_8), body));
     }
 
     /**
     * 返回500响应报文
-    * @param socket 服务器和客户端之间的socket
+    * @param socketWrapper 服务器和客户端之间的连接
  	* @param e 服务器的错误类型
+ 	* @param response 服务器的响应报文
     * @author cn-wumo
     * @since 2021/4/20
     */
-    private void handle500(Socket socket, Exception e) {
-        try(
-                OutputStream os = socket.getOutputStream()
-        ) {
+    private void handle500(SocketWrapper socketWrapper, Exception e, Response response) {
+        try {
             StackTraceElement[] traceElements = e.getStackTrace();
             StringBuilder stringBuilder = new StringBuilder();
             stringBuilder.append(e);
@@ -153,10 +250,9 @@ public class HttpProcessor {
                 msg = msg.substring(0, 19);
 
             String text = StrUtil.format(Constant.textFormat_500, msg, e.toString(), stringBuilder.toString());
-            text = Constant.response_head_500 + text;
-            
-            byte[] responseBytes = text.getBytes(StandardCharsets.UTF_8);
-            os.write(responseBytes);
+            byte[] body = text.getBytes(StandardCharsets.UTF_8);
+            String head = StrUtil.format(Constant.response_head_500, body.length, getConnection(response));
+            socketWrapper.write(ArrayUtil.addAll(head.getBytes(StandardCharsets.UTF_8), body));
         } catch (IOException e1) {
             LogFactory.get().error(e1);
         }
@@ -164,21 +260,28 @@ public class HttpProcessor {
 
     /**
     * 返回302响应报文
-    * @param socket 服务器和客户端之间的socket
+    * @param socketWrapper 服务器和客户端之间的连接
     * @param response 服务器的响应报文
     * @author cn-wumo
     * @since 2021/4/24
     */
-    private void handle302(Socket socket, Response response) throws IOException {
-        try(
-                OutputStream os = socket.getOutputStream()
-                ){
-            String redirectPath = response.getRedirectPath();
-            String head_text = Constant.response_head_302;
-            String header = StrUtil.format(head_text, redirectPath);
-            byte[] responseBytes = header.getBytes(StandardCharsets.UTF_8);
-            os.write(responseBytes);
-        }
+    private void handle302(SocketWrapper socketWrapper, Response response) throws IOException {
+        String redirectPath = response.getRedirectPath();
+        String head_text = Constant.response_head_302;
+        String header = StrUtil.format(head_text, redirectPath, getConnection(response));
+        byte[] responseBytes = header.getBytes(StandardCharsets.UTF_8);
+        socketWrapper.write(responseBytes);
+    }
+
+    /**
+    * 获取响应报文的Connection报头
+    * @param response 服务器的响应报文
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static String getConnection(Response response) {
+        return response.isKeepAlive() ? "keep-alive" : "close";
     }
 
     /**
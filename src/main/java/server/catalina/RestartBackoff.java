@@ -0,0 +1,48 @@
+package server.catalina;
+
+/**
+* 工作进程意外退出后的重启退避：启动后crashWindow内就退出视为启动失败，连续第n次失败后延迟n秒再重启，最长30秒，
+* 避免配置错误时反复拉起进程；正常运行过一段时间的进程退出后立即重启，并清零失败次数
+* @author cn-wumo
+* @since 2026/10/18
+*/
+class RestartBackoff {
+    static final long crashWindow = 10 * 1000;
+    private static final long maxDelay = 30 * 1000;
+
+    /**
+    * 进程是否在启动后很快退出
+    * @param startTime 启动时间
+ 	* @param exitTime 发现退出的时间
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static boolean isCrash(long startTime, long exitTime) {
+        return exitTime - startTime < crashWindow;
+    }
+
+    /**
+    * 从发现退出到重启之间应等待的毫秒数
+    * @param crashed 是否启动失败
+ 	* @param restarts 此前连续启动失败的次数
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static long getDelay(boolean crashed, int restarts) {
+        return crashed ? Math.min(maxDelay, (restarts + 1) * 1000L) : 0;
+    }
+
+    /**
+    * 重启后新进程记录的连续失败次数
+    * @param crashed 旧进程是否启动失败
+ 	* @param restarts 旧进程记录的连续失败次数
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static int nextRestarts(boolean crashed, int restarts) {
+        return crashed ? restarts + 1 : 0;
+    }
+}
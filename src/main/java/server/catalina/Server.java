@@ -4,6 +4,7 @@ import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.date.TimeInterval;
 import cn.hutool.log.LogFactory;
 import cn.hutool.system.SystemUtil;
+import server.util.ServerXMLUtil;
 
 import java.util.Date;
 import java.util.LinkedHashMap;
@@ -16,9 +17,11 @@ import java.util.Map;
 */
 public class Server {
     private final Service service;
+    private final long drainTimeout;
 
     public Server(){
         this.service = new Service(this);
+        this.drainTimeout = ServerXMLUtil.getDrainTimeout();
     }
 
     /**
@@ -30,8 +33,21 @@ public class Server {
         TimeInterval timeInterval = DateUtil.timer();
         Server.logVM();
         this.init();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "Server-Shutdown"));  //收到SIGTERM时排空后再退出
         LogFactory.get().info("服务器在{}毫秒内启动",timeInterval.intervalMs());
     }
+
+    /**
+    * 服务器的停止接口，由关闭钩子调用：停止接收新连接，等待进行中的请求处理完毕，最多等待drainTimeout毫秒，返回后虚拟机退出
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void stop() {
+        TimeInterval timeInterval = DateUtil.timer();
+        LogFactory.get().info("服务器开始排空连接，最多等待{}毫秒", drainTimeout);
+        service.stop(drainTimeout);
+        LogFactory.get().info("服务器在{}毫秒内停止", timeInterval.intervalMs());
+    }
     
     /**
     * 服务器的初始化
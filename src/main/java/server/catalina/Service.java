@@ -6,6 +6,8 @@ import cn.hutool.log.LogFactory;
 import server.util.ServerXMLUtil;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
 * JavaServer-Alpha服务实例，建造connectors多线程以提供服务器的多端口链接
@@ -17,10 +19,12 @@ public class Service {
     private final Engine engine;
     private final Server server;
     private final List<Connector> connectors;
+    private final Map<String, StandardExecutor> executors;
 
     public Service(Server server){
         this.server = server;
         this.name = ServerXMLUtil.getServiceName();
+        this.executors = ServerXMLUtil.getExecutors();    //从XML文件里读取线程池配置
         this.connectors = ServerXMLUtil.getConnectors(this);    //从XML文件里读取端口配置
         this.engine = new Engine(this);
     }
@@ -43,6 +47,54 @@ public class Service {
             c.start();
     }
 
+    /**
+    * 排空并停止服务：所有Connector停止接收新连接，等待已建立的连接处理完请求后关闭，最多等待drainTimeout毫秒，
+    * 之后销毁各Connector的协议处理器并停止所有web应用。web应用在排空之后才停止，不会在请求处理途中销毁类加载器
+    * @param drainTimeout 最多等待的毫秒数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void stop(long drainTimeout) {
+        for (Connector c : connectors)
+            c.stop();
+        long deadline = System.currentTimeMillis() + drainTimeout;
+        int remaining = this.getConnectionCount();
+        while (remaining > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException e) {
+                break;
+            }
+            remaining = this.getConnectionCount();
+        }
+        if (remaining > 0)
+            LogFactory.get().warn("排空超时，仍有{}个连接未关闭", remaining);
+        for (Connector c : connectors)
+            c.destroy();
+        engine.stop();
+    }
+
+    private int getConnectionCount() {
+        int count = 0;
+        for (Connector c : connectors)
+            count += Math.max(0, c.getConnectionCount());   //自定义的ProtocolHandler可能不统计连接数
+        return count;
+    }
+
+    public StandardExecutor getExecutor(String name) {
+        return executors.get(name);
+    }
+
+    /**
+    * 在Server.xml之外注册执行器，须在引用它的Connector初始化之前调用
+    * @param executor 执行器
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void addExecutor(StandardExecutor executor) {
+        executors.put(executor.getName(), executor);
+    }
+
     public Engine getEngine() {
         return engine;
     }
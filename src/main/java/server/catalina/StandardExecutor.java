@@ -0,0 +1,52 @@
+package server.catalina;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import server.util.TaskQueue;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+* Server.xml中的Executor，Connector按名称引用。线程数和队列长度都有上限，队列满时拒绝任务，
+* 由Connector直接返回503，而不是无限排队
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class StandardExecutor implements Executor {
+    private final String name;
+    private final ThreadPoolExecutor threadPool;
+
+    /**
+    * 创建有界的线程池
+    * @param name 执行器名称，Connector的executor属性引用该名称
+ 	* @param minThreads 常驻线程数
+ 	* @param maxThreads 最大线程数
+ 	* @param queueCapacity 等待队列的容量
+ 	* @param keepAliveTime 空闲线程的存活毫秒数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public StandardExecutor(String name, int minThreads, int maxThreads, int queueCapacity, long keepAliveTime) {
+        this.name = name;
+        TaskQueue taskQueue = new TaskQueue(queueCapacity);
+        this.threadPool = new ThreadPoolExecutor(minThreads, maxThreads, keepAliveTime, TimeUnit.MILLISECONDS,
+                taskQueue, new NamedThreadFactory(name + "-exec-", false), new TaskQueue.RetryPolicy());
+        taskQueue.setParent(threadPool);
+    }
+
+    /**
+    * 执行任务，线程数和队列都已满时抛出RejectedExecutionException
+    * @param command 待执行的任务
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void execute(Runnable command) {
+        threadPool.execute(command);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
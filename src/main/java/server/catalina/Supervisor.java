@@ -0,0 +1,500 @@
+package server.catalina;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.log.LogFactory;
+import server.util.Constant;
+import server.util.ServerXMLUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+* prefork模式的管理进程，Server.xml的Server元素上配置workers大于0时由Bootstrap启动。管理进程自身不部署应用也不监听Connector，
+* 只负责启动workers个工作进程，每个工作进程是一个完整的服务器，以SO_REUSEPORT监听相同的端口，由内核在进程之间分配新连接，
+* 单个进程的堆更小，GC停顿更短。工作进程意外退出时自动重启，controlPort上的控制通道支持逐个滚动重启工作进程。
+* 控制通道只监听回环地址，每条命令都必须带有管理进程随机生成的令牌。令牌经环境变量传给工作进程，
+* 同时写入权限为0600的work/control.token，只有启动服务器的用户能读取它并通过Bootstrap的命令行参数发送status、roll、stop，
+* 本机的其他用户无法停止服务器，也无法伪造就绪报告让滚动重启提前停止旧进程
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Supervisor {
+    public static final String WORKER_PROPERTY = "server.worker";
+    public static final String CONTROL_PORT_PROPERTY = "server.worker.controlPort";
+    public static final String CONTROL_TOKEN_ENV = "SERVER_WORKER_CONTROL_TOKEN";
+    private static final int controlReadTimeout = 10 * 1000;
+    private static final long readyTimeout = 60 * 1000;
+    private final int workerCount;
+    private final long stopTimeout;
+    private final int controlPort;
+    private final List<String> workerOptions;
+    private final String mainClass;
+    private final File tokenFile;
+    private final String controlToken;
+    private final Worker[] workers;
+    private final Map<Long, Worker> launched; //按pid索引所有启动过且尚未退出的进程，滚动重启时新进程还不在workers中
+    private final Object rollLock;
+    private volatile ServerSocket controlSocket;
+    private volatile boolean stopping;
+
+    public Supervisor() {
+        this(ServerXMLUtil.getWorkers(), ServerXMLUtil.getDrainTimeout() + 5000,    //工作进程收到SIGTERM后先排空连接
+                ServerXMLUtil.getControlPort(), StrUtil.splitTrim(ServerXMLUtil.getWorkerOptions(), ' '),
+                "server.Bootstrap", Constant.controlTokenFile);
+    }
+
+    /**
+    * 不读取Server.xml的构造器，测试时以其他主类作为工作进程
+    * @param workerCount 工作进程数
+ 	* @param stopTimeout 停止一个工作进程时等待的毫秒数
+ 	* @param controlPort 控制通道的端口，不大于0时不开启
+ 	* @param workerOptions 工作进程的虚拟机参数
+ 	* @param mainClass 工作进程的主类
+ 	* @param tokenFile 令牌文件
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    Supervisor(int workerCount, long stopTimeout, int controlPort, List<String> workerOptions, String mainClass, File tokenFile) {
+        this.workerCount = workerCount;
+        this.controlPort = controlPort;
+        this.stopTimeout = stopTimeout;
+        this.workerOptions = workerOptions;
+        this.mainClass = mainClass;
+        this.tokenFile = tokenFile;
+        this.controlToken = IdUtil.simpleUUID();    //基于SecureRandom
+        this.workers = new Worker[workerCount];
+        this.launched = new ConcurrentHashMap<>();
+        this.rollLock = new Object();
+    }
+
+    /**
+    * 是否配置了prefork模式
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static boolean isEnabled() {
+        return !Supervisor.isWorker() && ServerXMLUtil.getWorkers() > 0;
+    }
+
+    /**
+    * 当前进程是否是管理进程启动的工作进程，工作进程的监听Socket总是开启SO_REUSEPORT
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static boolean isWorker() {
+        return Supervisor.getWorkerIndex() >= 0;
+    }
+
+    /**
+    * 工作进程的序号，不是工作进程时返回-1
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static int getWorkerIndex() {
+        return Integer.getInteger(WORKER_PROPERTY, -1);
+    }
+
+    /**
+    * 工作进程启动完成后调用：管理进程退出时工作进程随之退出，并通过控制通道报告已就绪。不是工作进程时什么都不做
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static void workerStarted() {
+        if (!Supervisor.isWorker())
+            return;
+        ProcessHandle.current().parent().ifPresent(parent -> parent.onExit().thenRun(() -> {
+            LogFactory.get().warn("管理进程已退出，工作进程 [{}] 随之退出", Supervisor.getWorkerIndex());
+            System.exit(0);
+        }));
+        int port = Integer.getInteger(CONTROL_PORT_PROPERTY, -1);
+        String token = System.getenv(CONTROL_TOKEN_ENV);
+        if (port <= 0 || null == token)
+            return;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("ready " + ProcessHandle.current().pid() + " " + token + "\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+        } catch (IOException e) {
+            LogFactory.get().warn("无法向管理进程报告就绪：{}", e.getMessage());
+        }
+    }
+
+    /**
+    * 启动所有工作进程、控制通道和监视线程
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void start() throws IOException {
+        LogFactory.get().info("prefork模式，启动{}个工作进程", workerCount);
+        if (controlPort > 0) {
+            Supervisor.writeToken(tokenFile, controlToken);
+            ServerSocket serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), controlPort));
+            controlSocket = serverSocket;
+            Thread thread = new Thread(() -> this.listen(serverSocket), "Supervisor-Control");
+            thread.setDaemon(true);
+            thread.start();
+            LogFactory.get().info("控制通道监听 [127.0.0.1:{}]", controlPort);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stopWorkers, "Supervisor-Shutdown"));
+        for (int i = 0; i < workerCount; i++)
+            workers[i] = this.launch(i);
+        new Thread(this::monitor, "Supervisor-Monitor").start();
+    }
+
+    /**
+    * 写出控制通道的令牌，文件创建时即为0600，不存在其他用户可读的时间窗口，不支持POSIX权限的文件系统上按默认权限创建
+    * @param file 令牌文件
+ 	* @param token 令牌
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static void writeToken(File file, String token) throws IOException {
+        Path path = file.toPath();
+        FileUtil.mkParentDirs(file);
+        Files.deleteIfExists(path);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        else
+            Files.createFile(path);
+        Files.write(path, token.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+    * 命令行客户端，读取令牌文件后向本机管理进程的控制通道发送命令，并把回复打印到标准输出
+    * @param command status、roll或者stop
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static void sendCommand(String command) throws IOException {
+        int port = ServerXMLUtil.getControlPort();
+        if (port <= 0)
+            throw new IllegalStateException("Server.xml没有配置controlPort");
+        if (!Constant.controlTokenFile.isFile())
+            throw new IllegalStateException("令牌文件不存在，管理进程可能没有启动 [" + Constant.controlTokenFile + "]");
+        String token = FileUtil.readString(Constant.controlTokenFile, StandardCharsets.ISO_8859_1).trim();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            OutputStream out = socket.getOutputStream();
+            out.write((command + " " + token + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            for (String line = in.readLine(); null != line; line = in.readLine())
+                System.out.println(line);
+        }
+    }
+
+    /**
+    * 启动一个工作进程，使用与管理进程相同的虚拟机、类路径和工作目录，标准输出和标准错误继承管理进程的，
+    * 就绪报告的令牌放在环境变量中，不出现在其他用户可见的命令行上
+    * @param index 工作进程的序号
+    * @return server.catalina.Supervisor.Worker
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private Worker launch(int index) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(workerOptions);
+        command.add("-D" + WORKER_PROPERTY + "=" + index);
+        if (controlPort > 0)
+            command.add("-D" + CONTROL_PORT_PROPERTY + "=" + controlPort);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass);
+        ProcessBuilder processBuilder = new ProcessBuilder(command)
+                .directory(new File(System.getProperty("user.dir")))
+                .inheritIO();
+        processBuilder.environment().put(CONTROL_TOKEN_ENV, controlToken);
+        Process process = processBuilder.start();
+        LogFactory.get().info("工作进程 [{}] 已启动，pid {}", index, process.pid());
+        Worker worker = new Worker(index, process);
+        launched.put(process.pid(), worker);
+        process.onExit().thenRun(() -> launched.remove(process.pid()));
+        return worker;
+    }
+
+    /**
+    * 监视线程，发现意外退出的工作进程后重启，启动后很快就退出的进程延迟重启，避免配置错误时反复拉起
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void monitor() {
+        while (!stopping) {
+            for (int i = 0; i < workerCount; i++) {
+                Worker worker;
+                synchronized (workers) {
+                    worker = workers[i];
+                }
+                if (stopping || worker.retired || worker.process.isAlive())
+                    continue;
+                long now = System.currentTimeMillis();
+                if (0 == worker.exitTime)
+                    worker.exitTime = now;
+                boolean crashed = RestartBackoff.isCrash(worker.startTime, worker.exitTime);
+                if (now - worker.exitTime < RestartBackoff.getDelay(crashed, worker.restarts))
+                    continue;
+                LogFactory.get().warn("工作进程 [{}] pid {} 已退出，退出码 {}，重新启动", i, worker.process.pid(), worker.process.exitValue());
+                try {
+                    Worker replacement = this.launch(i);
+                    replacement.restarts = RestartBackoff.nextRestarts(crashed, worker.restarts);
+                    synchronized (workers) {
+                        if (workers[i] == worker && !stopping) {
+                            workers[i] = replacement;
+                            continue;
+                        }
+                    }
+                    replacement.retired = true; //滚动重启已经换上了新进程，或者正在停止
+                    replacement.stop(stopTimeout);
+                } catch (IOException e) {
+                    LogFactory.get().error(e);
+                }
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(500);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+    * 逐个滚动重启工作进程：先启动新进程并等待它就绪，新进程已经在同一端口上接受连接后再停止旧进程，
+    * 任何时刻都至少有workers个进程在服务
+    * @param out 控制通道的输出，报告每个进程的替换结果
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void roll(PrintWriter out) throws IOException {
+        synchronized (rollLock) {
+            for (int i = 0; i < workerCount && !stopping; i++) {
+                Worker replacement = this.launch(i);
+                if (!replacement.awaitReady(readyTimeout)) {
+                    replacement.retired = true;
+                    replacement.stop(stopTimeout);
+                    out.println("worker " + i + " 新进程未能就绪，停止滚动");
+                    return;
+                }
+                Worker old;
+                synchronized (workers) {
+                    old = workers[i];
+                    old.retired = true;
+                    workers[i] = replacement;
+                }
+                old.stop(stopTimeout);
+                out.println("worker " + i + " pid " + old.process.pid() + " -> " + replacement.process.pid());
+                out.flush();
+            }
+            out.println("ok");
+        }
+    }
+
+    /**
+    * 停止所有工作进程，管理进程退出时调用
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void stopWorkers() {
+        stopping = true;
+        IoUtil.close(controlSocket);    //不再接受命令，控制线程随之退出
+        List<Worker> current = new ArrayList<>();
+        synchronized (workers) {
+            for (Worker worker : workers) {
+                if (null != worker) {
+                    worker.retired = true;
+                    current.add(worker);
+                }
+            }
+        }
+        current.forEach(worker -> worker.process.destroy());
+        current.forEach(worker -> worker.stop(stopTimeout));
+        if (controlPort > 0)
+            FileUtil.del(tokenFile);
+    }
+
+    /**
+    * 控制通道只监听回环地址，每个连接一个线程，滚动重启期间仍能接收新进程的就绪报告。
+    * accept持续失败时（例如文件描述符耗尽）从100毫秒起成倍退避，最长5秒，成功后恢复，监听Socket关闭后退出
+    * @param serverSocket 控制通道的监听Socket
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void listen(ServerSocket serverSocket) {
+        long backoff = 0;
+        while (!stopping && !serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                backoff = 0;
+                Thread thread = new Thread(() -> this.control(socket), "Supervisor-Control-" + socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (stopping || serverSocket.isClosed())
+                    return;
+                backoff = Math.min(Math.max(100, backoff * 2), 5000);
+                LogFactory.get().error("控制通道accept失败，{}毫秒后重试：{}", backoff, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+    * 处理控制通道上的一行命令：ready pid token为工作进程的就绪报告，status token列出工作进程，roll token滚动重启，
+    * stop token停止所有进程。格式不对或者令牌不符的命令只回复错误并记录警告，不执行
+    * @param socket 控制连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void control(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(s.getOutputStream(), false, StandardCharsets.UTF_8)) {
+            s.setSoTimeout(controlReadTimeout); //不发送命令的连接不长期占用线程
+            String line = in.readLine();
+            if (null == line)
+                return;
+            ControlCommand command;
+            try {
+                command = ControlCommand.parse(line, controlToken);
+            } catch (IllegalArgumentException e) {
+                LogFactory.get().warn("控制通道收到的命令已忽略：{}", e.getMessage());
+                out.println(e.getMessage());
+                out.flush();
+                return;
+            }
+            switch (command.getName()) {
+                case ControlCommand.READY -> this.ready(command.getPid());
+                case ControlCommand.STATUS -> this.status(out);
+                case ControlCommand.ROLL -> this.roll(out);
+                case ControlCommand.STOP -> {
+                    out.println("ok");
+                    out.flush();
+                    System.exit(0); //由关闭钩子停止工作进程
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            LogFactory.get().warn("控制连接异常：{}", e.getMessage());
+        }
+    }
+
+    /**
+    * 工作进程的就绪报告，pid必须是本管理进程启动的进程，其他进程的报告被忽略
+    * @param pid 报告中的进程号
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void ready(long pid) {
+        Worker worker = launched.get(pid);
+        if (null == worker) {
+            LogFactory.get().warn("忽略未知进程 [{}] 的就绪报告", pid);
+            return;
+        }
+        worker.markReady();
+    }
+
+    private void status(PrintWriter out) {
+        Worker[] current;
+        synchronized (workers) {
+            current = workers.clone();
+        }
+        for (Worker worker : current) {
+            if (null == worker)
+                continue;
+            out.println("worker " + worker.index + " pid " + worker.process.pid()
+                    + (worker.process.isAlive() ? (worker.ready ? " ready" : " starting") : " exited")
+                    + " uptime " + (System.currentTimeMillis() - worker.startTime) / 1000 + "s");
+        }
+    }
+
+    /**
+    * 管理进程记录的工作进程
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static class Worker {
+        private final int index;
+        private final Process process;
+        private final long startTime;
+        private int restarts;
+        private long exitTime;
+        private volatile boolean ready;
+        private volatile boolean retired;   //被替换或者正在停止，不再由监视线程重启
+
+        private Worker(int index, Process process) {
+            this.index = index;
+            this.process = process;
+            this.startTime = System.currentTimeMillis();
+        }
+
+        private synchronized void markReady() {
+            ready = true;
+            this.notifyAll();
+        }
+
+        /**
+        * 等待工作进程报告就绪，进程提前退出或者超时返回false
+        * @param timeout 毫秒数
+        * @return boolean
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        private synchronized boolean awaitReady(long timeout) {
+            long deadline = System.currentTimeMillis() + timeout;
+            try {
+                while (!ready && process.isAlive()) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0)
+                        return false;
+                    this.wait(Math.min(remaining, 500));
+                }
+            } catch (InterruptedException e) {
+                return false;
+            }
+            return ready;
+        }
+
+        /**
+        * 先请求进程正常退出，工作进程排空连接后退出，超时后强制结束
+        * @param stopTimeout 等待的毫秒数
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        private void stop(long stopTimeout) {
+            process.destroy();
+            try {
+                if (!process.waitFor(stopTimeout, TimeUnit.MILLISECONDS))
+                    process.destroyForcibly().waitFor();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package server.exception;
+
+import java.io.IOException;
+
+/**
+* HTTP/2协议错误，streamId为0时是连接错误，需要发送GOAWAY并关闭连接，否则只重置对应的流
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Http2Exception extends IOException {
+    public static final int NO_ERROR = 0x0;
+    public static final int PROTOCOL_ERROR = 0x1;
+    public static final int INTERNAL_ERROR = 0x2;
+    public static final int FLOW_CONTROL_ERROR = 0x3;
+    public static final int STREAM_CLOSED = 0x5;
+    public static final int FRAME_SIZE_ERROR = 0x6;
+    public static final int REFUSED_STREAM = 0x7;
+    public static final int CANCEL = 0x8;
+    public static final int COMPRESSION_ERROR = 0x9;
+    public static final int ENHANCE_YOUR_CALM = 0xb;
+
+    private final int streamId;
+    private final int errorCode;
+
+    public Http2Exception(String msg, int errorCode) {
+        this(msg, 0, errorCode);
+    }
+
+    public Http2Exception(String msg, int streamId, int errorCode) {
+        super(msg);
+        this.streamId = streamId;
+        this.errorCode = errorCode;
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    public boolean isConnectionError() {
+        return 0 == streamId;
+    }
+}
@@ -0,0 +1,53 @@
+package server.exception;
+
+import java.io.IOException;
+
+/**
+* HTTP/3协议错误（RFC 9114第8节），streamId为-1时是连接错误，以应用层的CONNECTION_CLOSE帧关闭连接，
+* 否则只重置对应的请求流
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Http3Exception extends IOException {
+    public static final long H3_NO_ERROR = 0x100;
+    public static final long H3_GENERAL_PROTOCOL_ERROR = 0x101;
+    public static final long H3_INTERNAL_ERROR = 0x102;
+    public static final long H3_STREAM_CREATION_ERROR = 0x103;
+    public static final long H3_CLOSED_CRITICAL_STREAM = 0x104;
+    public static final long H3_FRAME_UNEXPECTED = 0x105;
+    public static final long H3_FRAME_ERROR = 0x106;
+    public static final long H3_EXCESSIVE_LOAD = 0x107;
+    public static final long H3_ID_ERROR = 0x108;
+    public static final long H3_SETTINGS_ERROR = 0x109;
+    public static final long H3_MISSING_SETTINGS = 0x10a;
+    public static final long H3_REQUEST_REJECTED = 0x10b;
+    public static final long H3_REQUEST_CANCELLED = 0x10c;
+    public static final long H3_REQUEST_INCOMPLETE = 0x10d;
+    public static final long H3_MESSAGE_ERROR = 0x10e;
+    public static final long QPACK_DECOMPRESSION_FAILED = 0x200;
+
+    private final long streamId;
+    private final long errorCode;
+
+    public Http3Exception(String msg, long errorCode) {
+        this(msg, -1, errorCode);
+    }
+
+    public Http3Exception(String msg, long streamId, long errorCode) {
+        super(msg);
+        this.streamId = streamId;
+        this.errorCode = errorCode;
+    }
+
+    public long getStreamId() {
+        return streamId;
+    }
+
+    public long getErrorCode() {
+        return errorCode;
+    }
+
+    public boolean isConnectionError() {
+        return -1 == streamId;
+    }
+}
@@ -0,0 +1,22 @@
+package server.exception;
+
+import java.io.IOException;
+
+/**
+* 请求不能按正常流程处理时抛出，携带应答的状态码，例如表单超过maxPostSize时为413，
+* 由HttpProcessor从异常链中找出并应答对应的状态，而不是500
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class HttpStatusException extends IOException {
+    private final int status;
+
+    public HttpStatusException(String msg, int status) {
+        super(msg);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
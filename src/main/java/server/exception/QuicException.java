@@ -0,0 +1,58 @@
+package server.exception;
+
+import java.io.IOException;
+
+/**
+* QUIC传输层的连接错误（RFC 9000第20节），以CONNECTION_CLOSE帧通知对端后关闭连接，
+* TLS握手失败时错误码为CRYPTO_ERROR加上TLS告警码
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class QuicException extends IOException {
+    public static final long NO_ERROR = 0x0;
+    public static final long INTERNAL_ERROR = 0x1;
+    public static final long CONNECTION_REFUSED = 0x2;
+    public static final long FLOW_CONTROL_ERROR = 0x3;
+    public static final long STREAM_LIMIT_ERROR = 0x4;
+    public static final long STREAM_STATE_ERROR = 0x5;
+    public static final long FINAL_SIZE_ERROR = 0x6;
+    public static final long FRAME_ENCODING_ERROR = 0x7;
+    public static final long TRANSPORT_PARAMETER_ERROR = 0x8;
+    public static final long PROTOCOL_VIOLATION = 0xa;
+    public static final long CRYPTO_BUFFER_EXCEEDED = 0xd;
+    public static final long CRYPTO_ERROR = 0x100;
+
+    public static final int ALERT_UNEXPECTED_MESSAGE = 10;
+    public static final int ALERT_HANDSHAKE_FAILURE = 40;
+    public static final int ALERT_BAD_CERTIFICATE = 42;
+    public static final int ALERT_ILLEGAL_PARAMETER = 47;
+    public static final int ALERT_DECODE_ERROR = 50;
+    public static final int ALERT_DECRYPT_ERROR = 51;
+    public static final int ALERT_PROTOCOL_VERSION = 70;
+    public static final int ALERT_INTERNAL_ERROR = 80;
+    public static final int ALERT_MISSING_EXTENSION = 109;
+    public static final int ALERT_NO_APPLICATION_PROTOCOL = 120;
+
+    private final long errorCode;
+
+    public QuicException(String msg, long errorCode) {
+        super(msg);
+        this.errorCode = errorCode;
+    }
+
+    /**
+    * TLS握手错误，错误码为CRYPTO_ERROR加上告警码
+    * @param msg 错误信息
+ 	* @param alert TLS告警码
+    * @return server.exception.QuicException
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static QuicException alert(String msg, int alert) {
+        return new QuicException(msg, CRYPTO_ERROR + alert);
+    }
+
+    public long getErrorCode() {
+        return errorCode;
+    }
+}
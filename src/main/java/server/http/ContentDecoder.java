@@ -0,0 +1,135 @@
+package server.http;
+
+import cn.hutool.core.util.StrUtil;
+import server.exception.HttpStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+* 请求体的内容解码，按Content-Encoding在读取时边读边解压gzip和deflate，不在内存中保留解压后的完整数据，
+* 解压后的字节数超过上限时抛出413的HttpStatusException，防止压缩炸弹。解码流持有本地内存中的Inflater，请求回收时必须关闭
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class ContentDecoder {
+
+    /**
+    * 按Content-Encoding包装请求体的输入流，未压缩时原样返回，不支持的编码抛出415的HttpStatusException。
+    * 解码器在第一次读取时才创建，调用本方法不会从连接上读取数据，带有Expect: 100-continue的请求不会因此提前回复100
+    * @param in 原始的请求体
+ 	* @param contentEncoding 请求的Content-Encoding，可以为null
+ 	* @param maxSize 解压后的最大字节数
+    * @return java.io.InputStream
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static InputStream decode(InputStream in, String contentEncoding, long maxSize) throws IOException {
+        String encoding = StrUtil.trim(contentEncoding);
+        if (StrUtil.isEmpty(encoding) || "identity".equalsIgnoreCase(encoding))
+            return in;
+        if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding))
+            return new DecodingInputStream(in, true, maxSize);
+        if ("deflate".equalsIgnoreCase(encoding))
+            return new DecodingInputStream(in, false, maxSize);
+        throw new HttpStatusException("不支持的Content-Encoding：" + encoding, 415);
+    }
+
+    /**
+    * deflate按规范是带zlib头的数据，但不少客户端发送的是裸deflate，根据前两个字节判断
+    * @param in 已退回前两个字节的请求体
+ 	* @param header 请求体的前两个字节
+ 	* @param length header中有效的字节数
+    * @return java.io.InputStream
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static InputStream inflate(InputStream in, byte[] header, int length) {
+        boolean zlib = 2 == length && 8 == (header[0] & 0x0f) && 0 == (((header[0] & 0xff) << 8) | (header[1] & 0xff)) % 31;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(in, inflater, 8192) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                inflater.end(); //自行创建的Inflater不会随流关闭而释放
+            }
+        };
+    }
+
+    /**
+    * 解码请求体并限制解压后的字节数，第一次读取时才读取gzip头或者判断deflate的格式，长度为0的请求体视为空，关闭时一并释放Inflater
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static class DecodingInputStream extends InputStream {
+        private final InputStream in;
+        private final boolean gzip;
+        private final long maxSize;
+        private InputStream decoded;
+        private long count;
+
+        private DecodingInputStream(InputStream in, boolean gzip, long maxSize) {
+            this.in = in;
+            this.gzip = gzip;
+            this.maxSize = maxSize;
+        }
+
+        private InputStream decoded() throws IOException {
+            if (null != decoded)
+                return decoded;
+            PushbackInputStream pushback = new PushbackInputStream(in, 2);
+            byte[] header = new byte[2];
+            int read = pushback.readNBytes(header, 0, 2);
+            if (0 == read) {    //空的请求体没有gzip头，按没有内容处理
+                decoded = InputStream.nullInputStream();
+                return decoded;
+            }
+            pushback.unread(header, 0, read);
+            decoded = gzip ? new GZIPInputStream(pushback, 8192) : ContentDecoder.inflate(pushback, header, read);
+            return decoded;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = this.decoded().read();
+            if (-1 != b)
+                this.count(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (0 == len)
+                return 0;
+            int read = this.decoded().read(b, off, len);
+            if (read > 0)
+                this.count(read);
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return null == decoded ? 0 : decoded.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (null == decoded)
+                in.close();
+            else
+                decoded.close();
+        }
+
+        private void count(int read) throws IOException {
+            count += read;
+            if (count > maxSize) {
+                this.close();
+                throw new HttpStatusException("解压后的请求体超过了" + maxSize + "字节", 413);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package server.http;
 
 import cn.hutool.core.convert.Convert;
+import cn.hutool.core.io.IORuntimeException;
 import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.util.ArrayUtil;
 import cn.hutool.core.util.StrUtil;
@@ -9,18 +10,23 @@ import org.jsoup.internal.StringUtil;
 import server.catalina.Connector;
 import server.catalina.Context;
 import server.catalina.Engine;
+import server.exception.HttpStatusException;
+import server.net.SocketWrapper;
 import server.util.ApplicationRequestDispatcher;
-import server.util.MiniBrowser;
+import server.util.ArrayMap;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpSession;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
+import java.io.InputStreamReader;
 import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
@@ -32,39 +38,45 @@ import java.util.*;
 public class Request extends BaseRequest {
 
     private String uri;
-    private final Socket socket;
+    private final SocketWrapper socketWrapper;
+    private final RequestParser head;
+    private final byte[] requestBytes;
     private Context context;
     private final Connector connector;
     private String method;
+    private String protocol;
     private Map<String, String[]> parameterMap;
-    private Map<String, String> headerMap;
     private Cookie[] cookies;
     private HttpSession session;
     private boolean forwarded;
     private Map<String, Object> attributesMap;
+    private RequestInputStream bodyStream;
+    private ServletInputStream inputStream;
 
     /**
-    * 根据socket和connector构建新的请求类
-    * @param socket 服务器和客户端之间的socket
+    * 根据客户端连接和connector构建新的请求类，报文头在数据到达时已由RequestParser解析为偏移，
+    * 这里只解码路由需要的请求行，报文头、参数、Cookie和属性都在servlet第一次取用时才解码和创建，
+    * 静态资源等不读取它们的请求不产生这些对象
+    * @param socketWrapper 服务器和客户端之间的连接
  	* @param connector 客户端所选择的服务连接器
     * @author cn-wumo
     * @since 2021/4/17
     */
-    public Request(Socket socket,Connector connector) throws IOException {
-        this.socket = socket;
+    public Request(SocketWrapper socketWrapper,Connector connector) throws IOException {
+        this.socketWrapper = socketWrapper;
         this.connector = connector;
 
-        String requestString = Request.parseHttpRequest(socket);
-        if(StrUtil.isEmpty(requestString))
+        this.head = socketWrapper.readRequest();
+        this.requestBytes = null == head ? new byte[0] : head.getBytes();
+        if(null == head || 0 != head.getErrorStatus() || null == head.getUri())    //报文头不合法时只应答错误
             return;
 
-        this.uri = Request.parseUri(requestString);
+        this.uri = head.getUri();
         this.context = Request.parseContext(uri,connector);
-        this.method = Request.parseMethod(requestString);
-        this.parameterMap = Request.parseParameters(requestString,method);
-        this.headerMap = Request.parseHeaders(requestString);
-        this.cookies = Request.parseCookies(headerMap);
-        this.attributesMap = new HashMap<>();
+        this.method = head.getMethod();
+        this.protocol = head.getProtocol();
+        if (socketWrapper.isBodyPending())  //请求体留在连接上，servlet读取时才拉取
+            this.bodyStream = new RequestInputStream(socketWrapper, head.getContentLength(), head.isChunked());
 
         if(!"/".equals(context.getPath())) {
             this.uri = StrUtil.removePrefix(uri, context.getPath());
@@ -73,31 +85,6 @@ public class Request extends BaseRequest {
         }
     }
 
-    /**
-    * 从socket中获取http报文
-    * @param socket 服务器和客户端之间的socket
-    * @return java.lang.String
-    * @author cn-wumo
-    * @since 2021/4/17
-    */
-    private static String parseHttpRequest(Socket socket) throws IOException {
-        InputStream is = socket.getInputStream();
-        byte[] bytes = MiniBrowser.readBytes(is,false);
-        return new String(bytes, StandardCharsets.UTF_8);
-    }
-
-    /**
-    * 从http报文中获取uri
-    * @param requestString http报文
-    * @return java.lang.String
-    * @author cn-wumo
-    * @since 2021/4/17
-    */
-    private static String parseUri(String requestString) {
-        String uri = StrUtil.subBetween(requestString, " ", " ");
-        return StrUtil.subBefore(uri, '?', false);
-    }
-
     /**
     * 根据uri和服务连接器获取web应用程序容器
     * @param uri 客户端访问的uri地址
@@ -125,111 +112,111 @@ public class Request extends BaseRequest {
     }
 
     /**
-    * 从http报文中获取method
-    * @param requestString http报文
-    * @return java.lang.String
-    * @author cn-wumo
-    * @since 2021/4/17
-    */
-    private static String parseMethod(String requestString) {
-        return StrUtil.subBefore(requestString, " ", false);
-    }
-
-    /**
-    * 根据http报文和method获取查询参数
-    * @param requestString http报文
- 	* @param method 提交方式method
+    * 解析查询字符串或者表单形式的请求体，名称和值分别做URL解码，没有=的参数值为空字符串。
+    * 同名参数的值先收集在列表中，最后才转换为数组，重复的参数不会反复复制数组
+    * @param queryString 查询字符串
     * @return java.util.Map<java.lang.String,java.lang.String[]>
     * @author cn-wumo
     * @since 2021/4/17
     */
-    private static Map<String, String[]> parseParameters(String requestString, String method) {
-        String queryString = null;
-        Map<String, String[]> parameterMap = new HashMap<>();
-        if ("GET".equals(method)) {
-            String uri = StrUtil.subBetween(requestString, " ", " ");
-            if (StrUtil.contains(uri, '?')) {
-                System.out.println(uri);
-                queryString = StrUtil.subAfter(uri, '?', false);
-            }
-        }else if ("POST".equals(method)) {
-            queryString = StrUtil.subAfter(requestString, "\r\n\r\n", false);
-        }
-
+    private static Map<String, String[]> parseParameters(String queryString) {
+        Map<String, String[]> parameterMap = new ArrayMap<>();
         if (StringUtil.isBlank(queryString)){
             return parameterMap;
         }
-        queryString = URLUtil.decode(queryString);
-
-        String[] parameterValues = queryString.split("&");
-        for (String parameterValue : parameterValues) {
-            String[] nameValues = parameterValue.split("=");
-            String name = nameValues[0];
-            String value = nameValues[1];
-            String[] values = parameterMap.get(name);
-            if (null == values) {
-                values = new String[] { value };
-            } else {
-                values = ArrayUtil.append(values, value);
+        Map<String, List<String>> valuesMap = new ArrayMap<>();
+        int length = queryString.length();
+        int start = 0;
+        while (start <= length) {
+            int end = queryString.indexOf('&', start);
+            if (-1 == end)
+                end = length;
+            if (end > start) {
+                int equals = start;
+                while (equals < end && '=' != queryString.charAt(equals))   //只在当前参数的范围内查找=
+                    equals++;
+                String name = URLUtil.decode(queryString.substring(start, equals));
+                String value = equals < end ? URLUtil.decode(queryString.substring(equals + 1, end)) : "";
+                valuesMap.computeIfAbsent(name, k -> new ArrayList<>(1)).add(value);
             }
-            parameterMap.put(name, values);
+            start = end + 1;
         }
+        for (Map.Entry<String, List<String>> entry : valuesMap.entrySet())
+            parameterMap.put(entry.getKey(), entry.getValue().toArray(new String[0]));
         return parameterMap;
     }
 
     /**
-    * 根据http报文获取响应报文头
-    * @param requestString http报文
-    * @return java.util.Map<java.lang.String,java.lang.String>
+    * 从请求报文头里获取Cookie，HTTP/2和HTTP/3的请求可能把Cookie拆成多个报文头，逐个解析，名称不合法的Cookie被忽略
+    * @param head 解析完毕的报文头
+    * @return javax.servlet.http.Cookie[]
     * @author cn-wumo
     * @since 2021/4/17
     */
-    private static Map<String, String> parseHeaders(String requestString) {
-        StringReader stringReader = new StringReader(requestString);
-        List<String> lines = new ArrayList<>();
-        IoUtil.readLines(stringReader, lines);
-        Map<String, String> headerMap = new HashMap<>();
-
-        for (int i = 1; i < lines.size(); i++) {
-            String line = lines.get(i);
-            if (0 == line.length())
-                break;
-            String[] segs = line.split(":");
-            String headerName = segs[0].toLowerCase();
-            String headerValue = segs[1];
-            headerMap.put(headerName, headerValue);
+    private static Cookie[] parseCookies(RequestParser head) {
+        List<Cookie> cookieList = new ArrayList<>();
+        for (int i = head.findHeader("cookie", 0); -1 != i; i = head.findHeader("cookie", i + 1)) {
+            String[] pairs = StrUtil.split(head.getHeaderValue(i), ";");
+            for (String pair : pairs) {
+                int equals = pair.indexOf('=');
+                if (StrUtil.isBlank(pair) || -1 == equals)
+                    continue;
+                String name = pair.substring(0, equals).trim();
+                String value = pair.substring(equals + 1).trim();
+                try {
+                    cookieList.add(new Cookie(name, value));
+                } catch (IllegalArgumentException ignored) {
+                }
+            }
         }
-        return headerMap;
+        return ArrayUtil.toArray(cookieList, Cookie.class);
     }
 
     /**
-    * 从响应报文头里获取Cookie
-    * @param headerMap 响应报文头
-    * @return javax.servlet.http.Cookie[]
+    * 在Cookie报文头的原始值中直接查找指定名称的Cookie，不创建其他Cookie对象
+    * @param head 解析完毕的报文头
+ 	* @param name Cookie的名称
+    * @return java.lang.String Cookie的值，没有时返回null
     * @author cn-wumo
-    * @since 2021/4/17
+    * @since 2026/10/18
     */
-    private static Cookie[] parseCookies(Map<String, String> headerMap) {
-        List<Cookie> cookieList = new ArrayList<>();
-        String cookies = headerMap.get("cookie");
-        if (null != cookies) {
-            String[] pairs = StrUtil.split(cookies, ";");
-            for (String pair : pairs) {
-                if (StrUtil.isBlank(pair))
-                    continue;
-                String[] segs = StrUtil.split(pair, "=");
-                String name = segs[0].trim();
-                String value = segs[1].trim();
-                Cookie cookie = new Cookie(name, value);
-                cookieList.add(cookie);
+    private static String findCookie(RequestParser head, String name) {
+        for (int i = head.findHeader("cookie", 0); -1 != i; i = head.findHeader("cookie", i + 1)) {
+            String cookies = head.getHeaderValue(i);
+            int start = 0;
+            while (start < cookies.length()) {
+                int end = cookies.indexOf(';', start);
+                if (-1 == end)
+                    end = cookies.length();
+                while (start < end && ' ' == cookies.charAt(start))
+                    start++;
+                int equals = cookies.indexOf('=', start);
+                if (-1 != equals && equals < end) {
+                    int nameEnd = equals;
+                    while (nameEnd > start && ' ' == cookies.charAt(nameEnd - 1))
+                        nameEnd--;
+                    if (nameEnd - start == name.length() && cookies.regionMatches(start, name, 0, name.length()))
+                        return cookies.substring(equals + 1, end).trim();
+                }
+                start = end + 1;
             }
         }
-        return ArrayUtil.toArray(cookieList, Cookie.class);
+        return null;
     }
 
     public String getUri() {
         return uri;
     }
+
+    /**
+    * 报文头不合法时应答的状态码，例如Content-Length有误时为400，报文头过大时为431
+    * @return int 请求合法时返回0
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getErrorStatus() {
+        return null == head ? 0 : head.getErrorStatus();
+    }
     public void setUri(String uri){
         this.uri = uri;
     }
@@ -242,9 +229,15 @@ public class Request extends BaseRequest {
         return context.getServletContext();
     }
 
+    /**
+    * 取得会话id，Cookie还未解析时直接在报文头中查找JSESSIONID，不为其他Cookie创建对象
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2021/4/21
+    */
     public String getJSessionIdFromCookie() {
         if (null == cookies)
-            return null;
+            return Request.findCookie(head, "JSESSIONID");
         for (Cookie cookie : cookies) {
             if ("JSESSIONID".equals(cookie.getName())) {
                 return cookie.getValue();
@@ -257,6 +250,41 @@ public class Request extends BaseRequest {
         return connector;
     }
 
+    /**
+    * 请求处理完毕后调用，servlet没有读完的请求体如果已全部到达则直接丢弃，连接可以继续处理下一个请求
+    * @return boolean 为false时连接上残留着请求体，例如带有Expect: 100-continue而servlet没有读取，响应后应关闭连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean finishBody() {
+        return null == bodyStream || bodyStream.discardBuffered();
+    }
+
+    /**
+    * 请求处理完毕后调用，关闭解码请求体的流，释放gzip和deflate解压占用的本地内存，servlet没有关闭输入流时也不会泄漏
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void recycle() {
+        IoUtil.close(inputStream);
+    }
+
+    /**
+    * 判断客户端是否希望保持连接，HTTP/1.1默认保持，HTTP/1.0需要显式声明keep-alive，
+    * 同时带有Content-Length和Transfer-Encoding的请求不保持连接
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isKeepAlive() {
+        if (head.isLengthConflict())
+            return false;
+        String connection = StrUtil.trim(getHeader("connection"));
+        if ("HTTP/1.0".equals(protocol))
+            return "keep-alive".equalsIgnoreCase(connection);
+        return !"close".equalsIgnoreCase(connection);
+    }
+
     public void setSession(HttpSession session){
         this.session = session;
     }
@@ -273,79 +301,214 @@ public class Request extends BaseRequest {
 
     @Override
     public String getParameter(String name) {
-        String[] values = parameterMap.get(name);
+        String[] values = this.getParameterMap().get(name);
         if (null != values && 0 != values.length)
             return values[0];
         return null;
     }
 
+    /**
+    * 取得请求参数，POST的表单在第一次调用时从请求体的输入流中读取，Content-Type不是表单时不读取请求体，留给servlet自行处理。
+    * 表单超过connector的maxPostSize时抛出包装了HttpStatusException的IORuntimeException，应答413
+    * @return java.util.Map<java.lang.String,java.lang.String[]>
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
     @Override
     public Map<String, String[]> getParameterMap() {
+        if (null == parameterMap && !"POST".equals(method)) {
+            parameterMap = Request.parseParameters("GET".equals(method) ? head.getQueryString() : null);
+            return parameterMap;
+        }
+        if (null == parameterMap) {
+            String contentType = getContentType();
+            if (null != contentType && !StrUtil.startWithIgnoreCase(contentType, "application/x-www-form-urlencoded")) {
+                parameterMap = new ArrayMap<>();
+                return parameterMap;
+            }
+            parameterMap = new ArrayMap<>();   //读取失败时不再重复读取
+            try {
+                byte[] content = this.readPostBody();
+                parameterMap = Request.parseParameters(new String(content, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new IORuntimeException(e);
+            }
+        }
         return parameterMap;
     }
+
+    /**
+    * 读取表单形式的请求体，Content-Length已知超过maxPostSize时不读取，chunked编码的请求体边读边计数
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private byte[] readPostBody() throws IOException {
+        int maxPostSize = connector.getMaxPostSize();
+        if (maxPostSize < 0)    //负数表示不限制
+            return IoUtil.readBytes(this.getInputStream(), false);
+        if (head.getContentLength() > maxPostSize)
+            throw new HttpStatusException("表单超过了" + maxPostSize + "字节", 413);
+        InputStream in = this.getInputStream();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); -1 != read; read = in.read(buffer)) {
+            if (content.size() + read > maxPostSize)
+                throw new HttpStatusException("表单超过了" + maxPostSize + "字节", 413);
+            content.write(buffer, 0, read);
+        }
+        return content.toByteArray();
+    }
     @Override
     public Enumeration<String> getParameterNames() {
-        return Collections.enumeration(parameterMap.keySet());
+        return Collections.enumeration(this.getParameterMap().keySet());
     }
     @Override
     public String[] getParameterValues(String name) {
-        return parameterMap.get(name);
+        return this.getParameterMap().get(name);
+    }
+    /**
+    * 请求体的长度，chunked编码的请求体长度未知，超出int范围时也返回-1
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public int getContentLength() {
+        if (head.isChunked() || head.getContentLength() > Integer.MAX_VALUE)
+            return -1;
+        return (int) head.getContentLength();
+    }
+    @Override
+    public String getContentType() {
+        return StrUtil.trim(getHeader("content-type"));
+    }
+
+    /**
+    * 以字节流读取请求体，数据在servlet读取时才从连接上拉取，带有Expect: 100-continue时先回复100 Continue，
+    * Content-Encoding为gzip或deflate时边读边解压，其他编码抛出415的HttpStatusException。多次调用返回同一个流
+    * @return javax.servlet.ServletInputStream
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (null != inputStream)
+            return inputStream;
+        InputStream body = null == bodyStream ? new ByteArrayInputStream(new byte[0]) : bodyStream;
+        InputStream decoded = ContentDecoder.decode(body, getHeader("content-encoding"), connector.getMaxInflatedBodySize());
+        inputStream = new ServletInputStream() {
+            @Override
+            public int read() throws IOException {
+                return decoded.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return decoded.read(b, off, len);
+            }
+
+            @Override
+            public int available() throws IOException {
+                return decoded.available();
+            }
+
+            @Override
+            public void close() throws IOException {
+                decoded.close();
+            }
+        };
+        return inputStream;
     }
     @Override
+    public BufferedReader getReader() throws IOException {
+        return new BufferedReader(new InputStreamReader(this.getInputStream(), StandardCharsets.UTF_8));
+    }
+    /**
+    * 按名称取报文头的值，名称不区分大小写，在报文头的字节上查找，只解码找到的值
+    * @param name 报文头的名称
+    * @return java.lang.String 有多个同名报文头时返回第一个
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
     public String getHeader(String name) {
         if(null==name)
             return null;
-        name = name.toLowerCase();
-        return headerMap.get(name);
+        return head.getHeader(name);
     }
     @Override
     public Enumeration<String> getHeaderNames() {
-        Set<String> keys = headerMap.keySet();
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < head.getHeaderCount(); i++)
+            keys.add(head.getHeaderName(i));
         return Collections.enumeration(keys);
     }
     @Override
+    public Enumeration<String> getHeaders(String name) {
+        List<String> values = new ArrayList<>();
+        if (null != name) {
+            for (int i = head.findHeader(name, 0); -1 != i; i = head.findHeader(name, i + 1))
+                values.add(head.getHeaderValue(i));
+        }
+        return Collections.enumeration(values);
+    }
+    @Override
     public int getIntHeader(String name) {
-        String value = headerMap.get(name);
-        return Convert.toInt(value, 0);
+        return Convert.toInt(getHeader(name), 0);
     }
     @Override
     public String getLocalAddr() {
-        return socket.getLocalAddress().getHostAddress();
+        return socketWrapper.getLocalAddress().getAddress().getHostAddress();
     }
     @Override
     public String getLocalName() {
-        return socket.getLocalAddress().getHostName();
+        return socketWrapper.getLocalAddress().getAddress().getHostName();
     }
     @Override
     public int getLocalPort() {
-        return socket.getLocalPort();
+        return socketWrapper.getLocalAddress().getPort();
     }
     @Override
     public String getProtocol() {
-        return "HTTP:/1.1";
+        return protocol;
     }
     @Override
     public String getRemoteAddr() {
-        InetSocketAddress isa = (InetSocketAddress) socket.getRemoteSocketAddress();
+        InetSocketAddress isa = socketWrapper.getRemoteAddress();
         String temp = isa.getAddress().toString();
         return StrUtil.subAfter(temp, "/", false);
     }
     @Override
     public String getRemoteHost() {
-        InetSocketAddress isa = (InetSocketAddress) socket.getRemoteSocketAddress();
+        InetSocketAddress isa = socketWrapper.getRemoteAddress();
         return isa.getHostName();
     }
     @Override
     public int getRemotePort() {
-        return socket.getPort();
+        return socketWrapper.getRemoteAddress().getPort();
     }
     @Override
     public String getScheme() {
-        return "http";
+        return socketWrapper.isSecure() ? "https" : "http";
     }
     @Override
+    public boolean isSecure() {
+        return socketWrapper.isSecure();
+    }
+    /**
+    * Host报文头中的主机名，去掉端口，IPv6地址保留方括号
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
     public String getServerName() {
-        return getHeader("host").trim();
+        String host = StrUtil.trim(getHeader("host"));
+        if (StrUtil.isEmpty(host))
+            return getLocalName();
+        int colon = host.lastIndexOf(':');
+        return colon > host.lastIndexOf(']') ? host.substring(0, colon) : host;
     }
     @Override
     public int getServerPort() {
@@ -367,8 +530,8 @@ public class Request extends BaseRequest {
         StringBuffer url = new StringBuffer();
         String scheme = getScheme();
         int port = getServerPort();
-        if (port < 0) {
-            port = 80; // 默认端口80
+        if (port <= 0) {
+            port = 80; // 默认端口80，Unix域套接字上没有端口
         }
         url.append(scheme);
         url.append("://");
@@ -386,6 +549,8 @@ public class Request extends BaseRequest {
     }
     @Override
     public Cookie[] getCookies() {
+        if (null == cookies)
+            cookies = Request.parseCookies(head);
         return cookies;
     }
     @Override
@@ -393,8 +558,20 @@ public class Request extends BaseRequest {
         return session;
     }
 
-    public Socket getSocket() {
-        return socket;
+    /**
+    * 原始的请求报文，协议升级时交给新协议重新处理，请求体在这里从连接上读完，附在报文头之后
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public byte[] getRequestBytes() throws IOException {
+        if (null == bodyStream || bodyStream.isFinished())
+            return requestBytes;
+        return ArrayUtil.addAll(requestBytes, IoUtil.readBytes(bodyStream, false));
+    }
+
+    public SocketWrapper getSocketWrapper() {
+        return socketWrapper;
     }
     @Override
     public RequestDispatcher getRequestDispatcher(String uri) {
@@ -409,18 +586,30 @@ public class Request extends BaseRequest {
 
     @Override
     public void removeAttribute(String name) {
-        attributesMap.remove(name);
+        if (null != attributesMap)
+            attributesMap.remove(name);
     }
+    /**
+    * 设置请求属性，第一次设置时才创建属性表
+    * @param name 属性名
+ 	* @param value 属性值
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
     @Override
     public void setAttribute(String name, Object value) {
+        if (null == attributesMap)
+            attributesMap = new ArrayMap<>();
         attributesMap.put(name, value);
     }
     @Override
     public Object getAttribute(String name) {
-        return attributesMap.get(name);
+        return null == attributesMap ? null : attributesMap.get(name);
     }
     @Override
     public Enumeration<String> getAttributeNames() {
+        if (null == attributesMap)
+            return Collections.emptyEnumeration();
         Set<String> keys = attributesMap.keySet();
         return Collections.enumeration(keys);
     }
@@ -0,0 +1,212 @@
+package server.http;
+
+import server.net.SocketWrapper;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+* 请求体的原始字节流，servlet读取时才从连接上拉取数据，按Content-Length或者chunked编码确定请求体的边界，
+* 不会读到流水线上下一个请求的数据。内部的小缓冲区只在当前块的范围内预读，减少对连接缓冲区的逐字节搬移
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class RequestInputStream extends InputStream {
+    private static final int maxLineLength = 8192;
+    private final SocketWrapper socketWrapper;
+    private final boolean chunked;
+    private long remaining; //Content-Length或者当前块中尚未取走的字节数，包括内部缓冲区中的部分
+    private boolean finished;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
+    /**
+    * 创建请求体的字节流
+    * @param socketWrapper 请求所在的连接
+ 	* @param contentLength 请求体的长度，chunked编码时忽略
+ 	* @param chunked 是否为chunked编码
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public RequestInputStream(SocketWrapper socketWrapper, long contentLength, boolean chunked) {
+        this.socketWrapper = socketWrapper;
+        this.chunked = chunked;
+        this.remaining = chunked ? 0 : contentLength;
+        this.buffer = new byte[(int) Math.min(8192, chunked ? 8192 : Math.max(1, contentLength))];
+        if (!chunked && 0 == contentLength)
+            this.finish();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !this.fillBuffer())
+            return -1;
+        remaining--;
+        int b = buffer[position++] & 0xff;
+        this.afterRead();
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (0 == len)
+            return 0;
+        if (position == limit) {
+            if (len >= buffer.length && this.nextChunk()) {   //大块读取不经过内部缓冲区
+                int read = socketWrapper.readBody(b, off, (int) Math.min(len, remaining));
+                if (-1 == read)
+                    throw new EOFException("客户端在请求体结束之前关闭了连接");
+                remaining -= read;
+                this.afterRead();
+                return read;
+            }
+            if (!this.fillBuffer())
+                return -1;
+        }
+        int read = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, read);
+        position += read;
+        remaining -= read;
+        this.afterRead();
+        return read;
+    }
+
+    /**
+    * 不阻塞即可读取的字节数，只计算内部缓冲区和连接缓冲区中属于当前块的数据
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public int available() {
+        if (finished)
+            return 0;
+        return (int) Math.min(remaining, limit - position + (long) socketWrapper.getBufferedLength());
+    }
+
+    /**
+    * 请求体是否已经读完
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+    * 请求处理完毕后调用，丢弃servlet没有读取的请求体，只丢弃已经到达连接缓冲区的部分，不再从连接上读取
+    * @return boolean 请求体是否已全部丢弃，为false时连接上残留着请求体的数据，应在响应后关闭
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean discardBuffered() {
+        if (finished)
+            return true;
+        if (chunked)
+            return false;
+        long unread = remaining - (limit - position);
+        if (unread > socketWrapper.getBufferedLength())
+            return false;
+        socketWrapper.consume((int) unread);
+        position = limit;
+        remaining = 0;
+        this.finish();
+        return true;
+    }
+
+    /**
+    * 内部缓冲区已取空时从连接上读取，最多读到当前块的末尾
+    * @return boolean 请求体已结束时返回false
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private boolean fillBuffer() throws IOException {
+        if (!this.nextChunk())
+            return false;
+        int read = socketWrapper.readBody(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (-1 == read)
+            throw new EOFException("客户端在请求体结束之前关闭了连接");
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    /**
+    * 当前块已读完时读取下一个块的大小，chunked编码以大小为0的块结束，之后的trailer报文头被忽略
+    * @return boolean 是否还有数据可读
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private boolean nextChunk() throws IOException {
+        if (finished)
+            return false;
+        if (remaining > 0)
+            return true;
+        if (!chunked)
+            return false;
+        String line = this.readLine();
+        int semicolon = line.indexOf(';');  //块扩展被忽略
+        String size = (-1 == semicolon ? line : line.substring(0, semicolon)).trim();
+        if (size.isEmpty() || size.length() > 15)
+            throw new IOException("chunked请求体的块大小格式错误：" + line);
+        try {
+            remaining = Long.parseLong(size, 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("chunked请求体的块大小格式错误：" + line);
+        }
+        if (remaining < 0)
+            throw new IOException("chunked请求体的块大小格式错误：" + line);
+        if (remaining > 0)
+            return true;
+        while (!this.readLine().isEmpty()) {    //跳过trailer直到空行
+        }
+        this.finish();
+        return false;
+    }
+
+    /**
+    * 一个块读完后跳过块末尾的换行，Content-Length的请求体读完后结束
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void afterRead() throws IOException {
+        if (remaining > 0)
+            return;
+        if (!chunked)
+            this.finish();
+        else if (!this.readLine().isEmpty())
+            throw new IOException("chunked请求体的块之后缺少换行");
+    }
+
+    /**
+    * 逐字节读取一行，块大小行和trailer都很短，不经过内部缓冲区，兼容只用\n换行的客户端
+    * @return java.lang.String 去掉行尾换行的内容
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        byte[] octet = new byte[1];
+        while (true) {
+            if (-1 == socketWrapper.readBody(octet, 0, 1))
+                throw new EOFException("客户端在请求体结束之前关闭了连接");
+            if ('\n' == octet[0])
+                break;
+            if (line.length() == maxLineLength)
+                throw new IOException("chunked请求体的块大小行过长");
+            line.append((char) (octet[0] & 0xff));
+        }
+        int end = line.length();
+        if (end > 0 && '\r' == line.charAt(end - 1))
+            line.setLength(end - 1);
+        return line.toString();
+    }
+
+    private void finish() {
+        finished = true;
+        socketWrapper.endBody();
+    }
+}
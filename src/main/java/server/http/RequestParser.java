@@ -0,0 +1,519 @@
+package server.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+* HTTP/1.x请求报文头的增量解析器，按状态机逐字节扫描连接的缓冲区，数据不完整时记下位置，下次收到数据后从断点继续，
+* 同一个报文头只扫描一遍。解析结果只是各部分在缓冲区中的偏移，字符串在取用时才解码。
+* 请求行保持与之前逐行切分相同的宽松程度，兼容只用\n换行的客户端。报文头行必须是名称紧跟冒号的形式，
+* 名称为空、名称与冒号之间有空白、没有冒号的行以及obs-fold续行都以400拒绝（RFC 9112 5.1、5.2），
+* 决定报文体边界的Content-Length和Transfer-Encoding必须严格合法，报文头超过maxHeaderSize时停止扫描，出错时getErrorStatus给出应答的状态码
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class RequestParser {
+    private static final int STATE_METHOD = 0;
+    private static final int STATE_URI = 1;
+    private static final int STATE_PROTOCOL = 2;
+    private static final int STATE_LINE_START = 3;
+    private static final int STATE_HEADER_NAME = 4;
+    private static final int STATE_HEADER_VALUE = 5;
+    private static final int STATE_DONE = 6;
+    private static final int maxContentLengthDigits = 18;  //不超过18位的十进制数不会溢出long
+    private static final byte[] content_length = "content-length".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] expect = "expect".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] continue_100 = "100-continue".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] transfer_encoding = "transfer-encoding".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] chunked_coding = "chunked".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] http_11 = "HTTP/1.1".getBytes(StandardCharsets.ISO_8859_1);
+    private int state;
+    private int position;
+    private int methodStart;
+    private int methodEnd;
+    private int uriStart;
+    private int uriEnd;
+    private int queryStart;
+    private int protocolStart;
+    private int protocolEnd;
+    private int[] headers;  //每个报文头占4个元素：名称起止和值的起止
+    private int headerCount;
+    private int headLength;
+    private final int maxHeaderSize;
+    private int errorStatus;
+    private long contentLength;
+    private boolean hasContentLength;
+    private boolean hasTransferEncoding;
+    private boolean unsupportedCoding;
+    private boolean lengthConflict;
+    private boolean expectContinue;
+    private boolean chunked;
+    private boolean http11;
+    private byte[] bytes;
+
+    /**
+    * 创建解析器
+    * @param maxHeaderSize 请求行和报文头的最大字节数，不大于0时不限制
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public RequestParser(int maxHeaderSize) {
+        this.maxHeaderSize = maxHeaderSize;
+        this.headers = new int[4 * 16];
+        this.methodStart = -1;
+        this.uriStart = -1;
+        this.queryStart = -1;
+        this.protocolStart = -1;
+        this.headLength = -1;
+    }
+
+    /**
+    * 从上次停下的位置继续解析，报文头结束后不再扫描。报文头超过maxHeaderSize仍未结束时以431结束解析，
+    * 不再等待后续的数据，连接的缓冲区因此不会无限扩容
+    * @param buffer 连接的缓冲区，请求从下标0开始
+ 	* @param length 缓冲区中有效数据的长度
+    * @return boolean 报文头是否已完整，或者已经出错
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean parse(byte[] buffer, int length) {
+        int i = position;
+        while (i < length && STATE_DONE != state) {
+            if (maxHeaderSize > 0 && i >= maxHeaderSize) {
+                errorStatus = 431;
+                state = STATE_DONE;
+                break;
+            }
+            byte b = buffer[i];
+            switch (state) {
+                case STATE_METHOD:
+                    if (-1 == methodStart) {
+                        if ('\r' != b && '\n' != b) //请求行之前的空行忽略
+                            methodStart = i;
+                    } else if (' ' == b) {
+                        methodEnd = i;
+                        state = STATE_URI;
+                    } else if ('\n' == b) {   //只有方法的请求行
+                        methodEnd = this.trimLineEnd(buffer, i);
+                        state = STATE_LINE_START;
+                    }
+                    break;
+                case STATE_URI:
+                    if (-1 == uriStart && ' ' != b && '\n' != b)
+                        uriStart = i;
+                    if (-1 == uriStart) {
+                        if ('\n' == b)
+                            state = STATE_LINE_START;
+                    } else if (' ' == b || '\n' == b) {
+                        uriEnd = '\n' == b ? this.trimLineEnd(buffer, i) : i;
+                        state = '\n' == b ? STATE_LINE_START : STATE_PROTOCOL;
+                    } else if ('?' == b && -1 == queryStart) {
+                        queryStart = i + 1;
+                    }
+                    break;
+                case STATE_PROTOCOL:
+                    if (-1 == protocolStart && ' ' != b && '\n' != b)
+                        protocolStart = i;
+                    if ('\n' == b) {
+                        protocolEnd = -1 == protocolStart ? -1 : this.trimLineEnd(buffer, i);
+                        http11 = -1 != protocolStart && RequestParser.equals(buffer, protocolStart, protocolEnd, http_11);
+                        state = STATE_LINE_START;
+                    }
+                    break;
+                case STATE_LINE_START:
+                    if ('\n' == b) {    //空行，报文头结束
+                        headLength = i + 1;
+                        this.endHead();
+                        state = STATE_DONE;
+                    } else if (' ' == b || '\t' == b || ':' == b) {  //obs-fold续行或者名称为空，obs-fold按新报文头处理会与前置代理的理解不同
+                        this.reject(400);
+                    } else if ('\r' != b) {
+                        this.addHeader(i);
+                        state = STATE_HEADER_NAME;
+                    }
+                    break;
+                case STATE_HEADER_NAME:
+                    if (':' == b) {
+                        headers[4 * headerCount - 3] = i;
+                        headers[4 * headerCount - 2] = i + 1;
+                        state = STATE_HEADER_VALUE;
+                    } else if (' ' == b || '\t' == b || '\r' == b || '\n' == b) {
+                        this.reject(400);   //名称与冒号之间有空白或者整行没有冒号，例如"Transfer-Encoding : chunked"
+                    }
+                    break;
+                case STATE_HEADER_VALUE:
+                    if ('\n' == b) {
+                        this.endHeader(buffer, i);
+                        state = STATE_LINE_START;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            i++;
+        }
+        position = i;
+        return STATE_DONE == state;
+    }
+
+    /**
+    * 报文头的格式不合法，无法确定各报文头以及报文体的边界，立即结束解析
+    * @param status 应答的状态码
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void reject(int status) {
+        this.setErrorStatus(status);
+        state = STATE_DONE;
+    }
+
+    private void addHeader(int nameStart) {
+        if (headers.length == 4 * headerCount)
+            headers = Arrays.copyOf(headers, headers.length * 2);
+        headers[4 * headerCount] = nameStart;
+        headerCount++;
+    }
+
+    /**
+    * 一个报文头结束，去掉值两端的空白，顺带取出决定报文体长度的Content-Length、Transfer-Encoding和Expect
+    * @param buffer 缓冲区
+ 	* @param lineEnd 行尾\n的下标
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void endHeader(byte[] buffer, int lineEnd) {
+        int index = 4 * (headerCount - 1);
+        int valueStart = headers[index + 2];
+        int valueEnd = this.trimLineEnd(buffer, lineEnd);
+        while (valueStart < valueEnd && (' ' == buffer[valueStart] || '\t' == buffer[valueStart]))
+            valueStart++;
+        while (valueEnd > valueStart && (' ' == buffer[valueEnd - 1] || '\t' == buffer[valueEnd - 1]))
+            valueEnd--;
+        headers[index + 2] = valueStart;
+        headers[index + 3] = valueEnd;
+        int nameStart = headers[index];
+        int nameEnd = headers[index + 1];
+        if (RequestParser.equalsIgnoreCase(buffer, nameStart, nameEnd, content_length))
+            this.parseContentLength(buffer, valueStart, valueEnd);
+        else if (RequestParser.equalsIgnoreCase(buffer, nameStart, nameEnd, transfer_encoding))
+            this.parseTransferEncoding(buffer, valueStart, valueEnd);
+        else if (RequestParser.equalsIgnoreCase(buffer, nameStart, nameEnd, expect))
+            expectContinue = RequestParser.equalsIgnoreCase(buffer, valueStart, valueEnd, continue_100);
+    }
+
+    /**
+    * 解析Content-Length，值可以是逗号分隔的列表，但各项以及多个Content-Length报文头的值必须相同，
+    * 否则前后两个服务器可能对报文体的边界理解不同，被利用来夹带请求，此时以400拒绝
+    * @param buffer 缓冲区
+ 	* @param start 值的起点
+ 	* @param end 值的终点
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void parseContentLength(byte[] buffer, int start, int end) {
+        int elementStart = start;
+        while (elementStart <= end) {
+            int elementEnd = elementStart;
+            while (elementEnd < end && ',' != buffer[elementEnd])
+                elementEnd++;
+            long value = RequestParser.parseLong(buffer, elementStart, elementEnd);
+            if (-1 == value || (hasContentLength && value != contentLength)) {
+                this.setErrorStatus(400);
+                return;
+            }
+            contentLength = value;
+            hasContentLength = true;
+            elementStart = elementEnd + 1;
+        }
+    }
+
+    /**
+    * 逐个解析Transfer-Encoding中的编码，多个Transfer-Encoding报文头按一个列表处理，编码的参数忽略。
+    * chunked必须是最后一个编码且只出现一次，之后还有编码时以400拒绝，其他编码在报文头结束时由endHead判断
+    * @param buffer 缓冲区
+ 	* @param start 值的起点
+ 	* @param end 值的终点
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void parseTransferEncoding(byte[] buffer, int start, int end) {
+        hasTransferEncoding = true;
+        int elementStart = start;
+        while (elementStart < end) {
+            int elementEnd = elementStart;
+            while (elementEnd < end && ',' != buffer[elementEnd])
+                elementEnd++;
+            int codingStart = elementStart;
+            int codingEnd = elementStart;
+            while (codingEnd < elementEnd && ';' != buffer[codingEnd])
+                codingEnd++;
+            while (codingStart < codingEnd && (' ' == buffer[codingStart] || '\t' == buffer[codingStart]))
+                codingStart++;
+            while (codingEnd > codingStart && (' ' == buffer[codingEnd - 1] || '\t' == buffer[codingEnd - 1]))
+                codingEnd--;
+            if (codingStart < codingEnd) {  //空的列表项忽略
+                if (chunked)
+                    this.setErrorStatus(400);
+                else if (RequestParser.equalsIgnoreCase(buffer, codingStart, codingEnd, chunked_coding))
+                    chunked = true;
+                else
+                    unsupportedCoding = true;
+            }
+            elementStart = elementEnd + 1;
+        }
+    }
+
+    /**
+    * 报文头结束时检查报文体的边界：有Transfer-Encoding时最后一个编码必须是chunked，否则无法确定报文体的结束位置，以400拒绝，
+    * chunked之前有不支持的编码时以501拒绝。同时带有Content-Length时按chunked读取，但应答后必须关闭连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void endHead() {
+        if (!hasTransferEncoding)
+            return;
+        if (!chunked)
+            this.setErrorStatus(400);
+        else if (unsupportedCoding)
+            this.setErrorStatus(501);
+        lengthConflict = hasContentLength;
+    }
+
+    /**
+    * 记录第一个错误，报文头中之后的错误不覆盖它
+    * @param status 应答的状态码
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void setErrorStatus(int status) {
+        if (0 == errorStatus)
+            errorStatus = status;
+    }
+
+    /**
+    * 行尾\n之前如果是\r一并去掉
+    * @param buffer 缓冲区
+ 	* @param lineEnd 行尾\n的下标
+    * @return int 行内容的结束下标
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private int trimLineEnd(byte[] buffer, int lineEnd) {
+        return lineEnd > 0 && '\r' == buffer[lineEnd - 1] ? lineEnd - 1 : lineEnd;
+    }
+
+    /**
+    * 报文头解析完毕、请求报文从连接的缓冲区复制出来后调用，此后的取值都在该数组上解码
+    * @param bytes 请求报文，与解析时的缓冲区有相同的偏移
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void setBytes(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public boolean isComplete() {
+        return STATE_DONE == state;
+    }
+
+    /**
+    * 报文头的长度，包括结束的空行，未解析完时返回-1
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getHeadLength() {
+        return headLength;
+    }
+
+    /**
+    * 请求体的长度，没有Content-Length时为0
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+    * 报文头不合法时应答的状态码，此时报文体的边界无法确定，应答后应关闭连接
+    * @return int 没有错误时返回0
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    /**
+    * 请求体是否以chunked编码发送，此时忽略Content-Length
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    /**
+    * 是否同时带有Content-Length和Transfer-Encoding，此时Content-Length被忽略，请求处理后关闭连接，
+    * 避免与前端代理对报文体的边界理解不同
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isLengthConflict() {
+        return lengthConflict;
+    }
+
+    public boolean isExpectContinue() {
+        return expectContinue;
+    }
+
+    /**
+    * 请求行的协议是否为HTTP/1.1，解析过程中即可判断，不需要解码
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isHttp11() {
+        return http11;
+    }
+
+    public String getMethod() {
+        return -1 == methodStart ? null : this.decode(methodStart, methodEnd);
+    }
+
+    /**
+    * 请求行中的uri，不含查询字符串，不做百分号解码
+    * @return java.lang.String 请求行中没有uri时返回null
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public String getUri() {
+        if (-1 == uriStart)
+            return null;
+        return this.decode(uriStart, -1 == queryStart ? uriEnd : queryStart - 1);
+    }
+
+    /**
+    * 请求行中?之后的查询字符串
+    * @return java.lang.String 没有查询字符串时返回null
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public String getQueryString() {
+        return -1 == queryStart ? null : this.decode(queryStart, uriEnd);
+    }
+
+    public String getProtocol() {
+        return -1 == protocolStart ? "" : this.decode(protocolStart, protocolEnd);
+    }
+
+    public int getHeaderCount() {
+        return headerCount;
+    }
+
+    /**
+    * 第index个报文头的名称，转换为小写
+    * @param index 报文头的序号
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public String getHeaderName(int index) {
+        return this.decode(headers[4 * index], headers[4 * index + 1]).toLowerCase();
+    }
+
+    public String getHeaderValue(int index) {
+        return this.decode(headers[4 * index + 2], headers[4 * index + 3]);
+    }
+
+    /**
+    * 按名称查找报文头，名称不区分大小写，直接在字节上比较，不解码
+    * @param name 报文头的名称
+ 	* @param from 开始查找的序号，查找同名的多个报文头时传入上一个结果加1
+    * @return int 报文头的序号，没有时返回-1
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int findHeader(String name, int from) {
+        for (int i = from; i < headerCount; i++) {
+            int start = headers[4 * i];
+            int end = headers[4 * i + 1];
+            if (end - start != name.length())
+                continue;
+            boolean match = true;
+            for (int j = 0; j < name.length() && match; j++)
+                match = RequestParser.toLowerCase(bytes[start + j]) == RequestParser.toLowerCase((byte) name.charAt(j));
+            if (match)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+    * 按名称取报文头的值，有多个同名报文头时取第一个
+    * @param name 报文头的名称
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public String getHeader(String name) {
+        int index = this.findHeader(name, 0);
+        return -1 == index ? null : this.getHeaderValue(index);
+    }
+
+    private String decode(int start, int end) {
+        return new String(bytes, start, Math.max(0, end - start), StandardCharsets.UTF_8);
+    }
+
+    private static boolean equals(byte[] buffer, int start, int end, byte[] expected) {
+        return Arrays.equals(buffer, start, end, expected, 0, expected.length);
+    }
+
+    private static boolean equalsIgnoreCase(byte[] buffer, int start, int end, byte[] lowerCase) {
+        if (end - start != lowerCase.length)
+            return false;
+        for (int i = 0; i < lowerCase.length; i++) {
+            if (RequestParser.toLowerCase(buffer[start + i]) != lowerCase[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static byte toLowerCase(byte b) {
+        return 'A' <= b && b <= 'Z' ? (byte) (b + 32) : b;
+    }
+
+    /**
+    * 解析十进制的非负整数，两端的空白忽略
+    * @param buffer 缓冲区
+ 	* @param start 起点
+ 	* @param end 终点
+    * @return long 为空、含有非数字或者超过18位时返回-1
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static long parseLong(byte[] buffer, int start, int end) {
+        while (start < end && (' ' == buffer[start] || '\t' == buffer[start]))
+            start++;
+        while (end > start && (' ' == buffer[end - 1] || '\t' == buffer[end - 1]))
+            end--;
+        if (start == end || end - start > maxContentLengthDigits)
+            return -1;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            if (b < '0' || b > '9')
+                return -1;
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+}
@@ -2,6 +2,7 @@ package server.http;
 
 import cn.hutool.core.date.DateField;
 import cn.hutool.core.date.DateUtil;
+import server.sse.EventStream;
 
 import javax.servlet.http.Cookie;
 import java.io.IOException;
@@ -27,6 +28,8 @@ public class Response extends BaseResponse {
     private byte[] body;
     private int status;
     private String redirectPath;
+    private boolean keepAlive;
+    private EventStream eventStream;
 
     /**
     * 构造新的Response，contentType默认是"text/html"
@@ -101,6 +104,25 @@ public class Response extends BaseResponse {
         this.status = status;
     }
 
+    /**
+    * 设置错误状态码，响应报文由HttpProcessor按状态码生成，msg不为空时作为报文体
+    * @param status 状态码
+ 	* @param msg 错误说明
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void sendError(int status, String msg) {
+        this.status = status;
+        if (null != msg)
+            writer.print(msg);
+    }
+
+    @Override
+    public void sendError(int status) {
+        this.status = status;
+    }
+
     public List<Cookie> getCookies() {
         return this.cookies;
     }
@@ -110,6 +132,28 @@ public class Response extends BaseResponse {
         cookies.add(cookie);
     }
 
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+    * 响应是否已切换为SSE，此时响应头已经写出，不再按status生成响应报文
+    * @return server.sse.EventStream
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public EventStream getEventStream() {
+        return eventStream;
+    }
+
+    public void setEventStream(EventStream eventStream) {
+        this.eventStream = eventStream;
+    }
+
     public String getRedirectPath() {
         return this.redirectPath;
     }
@@ -0,0 +1,281 @@
+package server.http2;
+
+import server.exception.Http2Exception;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+* HPACK头部压缩（RFC 7541）的公共部分：静态表、整数和字符串的表示方法以及Huffman编码
+* 报头的名称和值按ISO-8859-1与字节一一对应，解码后再编码不会改变原始字节
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Hpack {
+    static final String[][] STATIC_TABLE = {
+            {":authority", ""}, {":method", "GET"}, {":method", "POST"}, {":path", "/"},
+            {":path", "/index.html"}, {":scheme", "http"}, {":scheme", "https"}, {":status", "200"},
+            {":status", "204"}, {":status", "206"}, {":status", "304"}, {":status", "400"},
+            {":status", "404"}, {":status", "500"}, {"accept-charset", ""}, {"accept-encoding", "gzip, deflate"},
+            {"accept-language", ""}, {"accept-ranges", ""}, {"accept", ""}, {"access-control-allow-origin", ""},
+            {"age", ""}, {"allow", ""}, {"authorization", ""}, {"cache-control", ""},
+            {"content-disposition", ""}, {"content-encoding", ""}, {"content-language", ""}, {"content-length", ""},
+            {"content-location", ""}, {"content-range", ""}, {"content-type", ""}, {"cookie", ""},
+            {"date", ""}, {"etag", ""}, {"expect", ""}, {"expires", ""},
+            {"from", ""}, {"host", ""}, {"if-match", ""}, {"if-modified-since", ""},
+            {"if-none-match", ""}, {"if-range", ""}, {"if-unmodified-since", ""}, {"last-modified", ""},
+            {"link", ""}, {"location", ""}, {"max-forwards", ""}, {"proxy-authenticate", ""},
+            {"proxy-authorization", ""}, {"range", ""}, {"referer", ""}, {"refresh", ""},
+            {"retry-after", ""}, {"server", ""}, {"set-cookie", ""}, {"strict-transport-security", ""},
+            {"transfer-encoding", ""}, {"user-agent", ""}, {"vary", ""}, {"via", ""},
+            {"www-authenticate", ""},
+    };
+
+    /**
+    * 每个符号（0-255和EOS）的Huffman编码长度，RFC 7541附录B的编码是规范Huffman编码，
+    * 按长度和符号排序依次分配即可还原出全部编码
+    */
+    private static final byte[] HUFFMAN_LENGTHS = {
+            13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28,
+            28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+            6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6,
+            5, 5, 5, 6, 6, 6, 6, 6, 6, 6, 7, 8, 15, 6, 12, 10,
+            13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7,
+            7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13, 19, 13, 14, 6,
+            15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5,
+            6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11, 14, 13, 28,
+            20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23,
+            24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+            22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23,
+            21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+            26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25,
+            19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+            20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23,
+            26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26,
+            30,
+    };
+    private static final int EOS = 256;
+    private static final int[] HUFFMAN_CODES = new int[257];
+    private static final int[] HUFFMAN_TREE;    //解码树，tree[2n+bit]为子节点，正数为内部节点，负数为-(符号+1)
+    private static final Map<String, Integer> STATIC_NAMES = new HashMap<>();
+    private static final Map<String, Integer> STATIC_FIELDS = new HashMap<>();
+
+    static {
+        Integer[] symbols = new Integer[257];
+        for (int i = 0; i < symbols.length; i++)
+            symbols[i] = i;
+        Arrays.sort(symbols, (a, b) -> HUFFMAN_LENGTHS[a] != HUFFMAN_LENGTHS[b] ?
+                HUFFMAN_LENGTHS[a] - HUFFMAN_LENGTHS[b] : a - b);
+        int code = 0;
+        for (int i = 0; i < symbols.length; i++) {
+            if (i > 0)
+                code = (code + 1) << (HUFFMAN_LENGTHS[symbols[i]] - HUFFMAN_LENGTHS[symbols[i - 1]]);
+            HUFFMAN_CODES[symbols[i]] = code;
+        }
+
+        HUFFMAN_TREE = new int[2 * 256];
+        int nodes = 1;
+        for (int symbol = 0; symbol < 257; symbol++) {
+            int node = 0;
+            int length = HUFFMAN_LENGTHS[symbol];
+            for (int bit = length - 1; bit > 0; bit--) {
+                int slot = 2 * node + ((HUFFMAN_CODES[symbol] >>> bit) & 1);
+                if (0 == HUFFMAN_TREE[slot])
+                    HUFFMAN_TREE[slot] = nodes++;
+                node = HUFFMAN_TREE[slot];
+            }
+            HUFFMAN_TREE[2 * node + (HUFFMAN_CODES[symbol] & 1)] = -(symbol + 1);
+        }
+
+        for (int i = STATIC_TABLE.length - 1; i >= 0; i--) {  //同名时取最小的索引
+            STATIC_NAMES.put(STATIC_TABLE[i][0], i + 1);
+            STATIC_FIELDS.put(STATIC_TABLE[i][0] + '\0' + STATIC_TABLE[i][1], i + 1);
+        }
+    }
+
+    /**
+    * 在静态表中查找报头，名称和值都相同时返回正的索引，只有名称相同时返回负的索引，没有找到时返回0
+    * @param name 报头名称
+ 	* @param value 报头的值
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static int getStaticIndex(String name, String value) {
+        Integer index = STATIC_FIELDS.get(name + '\0' + value);
+        if (null != index)
+            return index;
+        index = STATIC_NAMES.get(name);
+        return null == index ? 0 : -index;
+    }
+
+    /**
+    * 按前缀位数编码整数，超出前缀的部分每7位一组写出
+    * @param out 输出
+ 	* @param firstByte 首字节中前缀以外的标志位
+ 	* @param prefixBits 前缀的位数
+ 	* @param value 待编码的整数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static void encodeInteger(ByteArrayOutputStream out, int firstByte, int prefixBits, int value) {
+        int max = (1 << prefixBits) - 1;
+        if (value < max) {
+            out.write(firstByte | value);
+            return;
+        }
+        out.write(firstByte | max);
+        value -= max;
+        while (value >= 0x80) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+    * 解码整数，首字节中前缀以外的标志位由调用者预先读取
+    * @param in 报头块
+ 	* @param prefixBits 前缀的位数
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static int decodeInteger(ByteBuffer in, int prefixBits) throws Http2Exception {
+        int max = (1 << prefixBits) - 1;
+        int value = in.get() & max;
+        if (value < max)
+            return value;
+        for (int shift = 0; shift <= 21; shift += 7) {    //限制在int范围内，防止溢出
+            if (!in.hasRemaining())
+                break;
+            int b = in.get() & 0xff;
+            value += (b & 0x7f) << shift;
+            if (0 == (b & 0x80))
+                return value;
+        }
+        throw new Http2Exception("HPACK整数编码错误", Http2Exception.COMPRESSION_ERROR);
+    }
+
+    /**
+    * 编码字符串，Huffman编码更短时使用Huffman编码
+    * @param out 输出
+ 	* @param value 待编码的字符串
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static void encodeString(ByteArrayOutputStream out, String value) {
+        Hpack.encodeString(out, 0x00, 7, value);
+    }
+
+    /**
+    * 按前缀位数编码字符串，Huffman标志位紧挨在长度前缀之前，QPACK的字面名称使用3位前缀
+    * @param out 输出
+ 	* @param firstByte 首字节中Huffman标志位以外的标志位
+ 	* @param prefixBits 长度前缀的位数
+ 	* @param value 待编码的字符串
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static void encodeString(ByteArrayOutputStream out, int firstByte, int prefixBits, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+        long bits = 0;
+        for (byte b : bytes)
+            bits += HUFFMAN_LENGTHS[b & 0xff];
+        int huffmanLength = (int) ((bits + 7) / 8);
+        if (huffmanLength >= bytes.length) {
+            Hpack.encodeInteger(out, firstByte, prefixBits, bytes.length);
+            out.write(bytes, 0, bytes.length);
+            return;
+        }
+        Hpack.encodeInteger(out, firstByte | (1 << prefixBits), prefixBits, huffmanLength);
+        long buffer = 0;
+        int count = 0;
+        for (byte b : bytes) {
+            int symbol = b & 0xff;
+            buffer = (buffer << HUFFMAN_LENGTHS[symbol]) | HUFFMAN_CODES[symbol];
+            count += HUFFMAN_LENGTHS[symbol];
+            while (count >= 8) {
+                count -= 8;
+                out.write((int) (buffer >>> count));
+            }
+        }
+        if (count > 0)  //用EOS的高位（全1）填充最后一个字节
+            out.write((int) ((buffer << (8 - count)) | (0xff >>> count)));
+    }
+
+    /**
+    * 解码字符串
+    * @param in 报头块
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static String decodeString(ByteBuffer in) throws Http2Exception {
+        return Hpack.decodeString(in, 7);
+    }
+
+    /**
+    * 按前缀位数解码字符串，Huffman标志位紧挨在长度前缀之前
+    * @param in 报头块
+ 	* @param prefixBits 长度前缀的位数
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static String decodeString(ByteBuffer in, int prefixBits) throws Http2Exception {
+        if (!in.hasRemaining())
+            throw new Http2Exception("HPACK字符串不完整", Http2Exception.COMPRESSION_ERROR);
+        boolean huffman = 0 != (in.get(in.position()) & (1 << prefixBits));
+        int length = Hpack.decodeInteger(in, prefixBits);
+        if (length > in.remaining())
+            throw new Http2Exception("HPACK字符串不完整", Http2Exception.COMPRESSION_ERROR);
+        if (huffman)
+            return Hpack.decodeHuffman(in, length);
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.ISO_8859_1);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    /**
+    * 沿解码树逐位解码Huffman编码的字符串，结尾的填充必须是不超过7位的全1，且不能出现EOS
+    * @param in 报头块
+ 	* @param length 编码后的字节数
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static String decodeHuffman(ByteBuffer in, int length) throws Http2Exception {
+        StringBuilder result = new StringBuilder(length * 8 / 5);
+        int node = 0;
+        int padding = 0;    //最后一个符号之后读入的位数
+        boolean allOnes = true;
+        for (int i = 0; i < length; i++) {
+            int b = in.get() & 0xff;
+            for (int bit = 7; bit >= 0; bit--) {
+                int value = (b >>> bit) & 1;
+                int next = HUFFMAN_TREE[2 * node + value];
+                padding++;
+                allOnes &= 1 == value;
+                if (next < 0) {
+                    int symbol = -next - 1;
+                    if (EOS == symbol)
+                        throw new Http2Exception("HPACK字符串中出现EOS", Http2Exception.COMPRESSION_ERROR);
+                    result.append((char) symbol);
+                    node = 0;
+                    padding = 0;
+                    allOnes = true;
+                } else {
+                    node = next;
+                }
+            }
+        }
+        if (padding > 7 || !allOnes)
+            throw new Http2Exception("HPACK字符串的填充错误", Http2Exception.COMPRESSION_ERROR);
+        return result.toString();
+    }
+}
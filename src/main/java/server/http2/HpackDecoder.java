@@ -0,0 +1,118 @@
+package server.http2;
+
+import server.exception.Http2Exception;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* HPACK解码器，每个连接一个，按报头块到达的顺序解码，维护客户端编码器对应的动态表
+* 动态表是一个环形数组，最新的条目索引为62
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class HpackDecoder {
+    private final int maxTableSizeLimit;    //通过SETTINGS_HEADER_TABLE_SIZE通告给客户端的上限
+    private int maxTableSize;
+    private int tableSize;
+    private final String[] names;
+    private final String[] values;
+    private int head;   //下一个条目写入的位置
+    private int count;
+
+    public HpackDecoder(int maxTableSizeLimit) {
+        this.maxTableSizeLimit = maxTableSizeLimit;
+        this.maxTableSize = maxTableSizeLimit;
+        int capacity = maxTableSizeLimit / 32 + 1;  //每个条目至少占32字节
+        this.names = new String[capacity];
+        this.values = new String[capacity];
+    }
+
+    /**
+    * 解码一个完整的报头块
+    * @param block 报头块，HEADERS和CONTINUATION中的片段拼接后的结果
+    * @return java.util.List<java.lang.String[]> 按出现顺序排列的名称和值
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public List<String[]> decode(ByteBuffer block) throws Http2Exception {
+        List<String[]> headers = new ArrayList<>();
+        while (block.hasRemaining()) {
+            int b = block.get(block.position()) & 0xff;
+            if (0 != (b & 0x80)) {  //索引报头
+                int index = Hpack.decodeInteger(block, 7);
+                headers.add(new String[]{this.getName(index), this.getValue(index)});
+            } else if (0x40 == (b & 0xc0)) {    //带增量索引的字面报头
+                String[] header = this.readLiteral(block, 6);
+                this.add(header[0], header[1]);
+                headers.add(header);
+            } else if (0x20 == (b & 0xe0)) {    //动态表大小更新
+                int size = Hpack.decodeInteger(block, 5);
+                if (size > maxTableSizeLimit)
+                    throw new Http2Exception("动态表大小超过上限", Http2Exception.COMPRESSION_ERROR);
+                maxTableSize = size;
+                this.evict(0);
+            } else {    //不索引或者永不索引的字面报头
+                headers.add(this.readLiteral(block, 4));
+            }
+        }
+        return headers;
+    }
+
+    private String[] readLiteral(ByteBuffer block, int prefixBits) throws Http2Exception {
+        int index = Hpack.decodeInteger(block, prefixBits);
+        String name = 0 == index ? Hpack.decodeString(block) : this.getName(index);
+        String value = Hpack.decodeString(block);
+        return new String[]{name, value};
+    }
+
+    private String getName(int index) throws Http2Exception {
+        return this.getEntry(index)[0];
+    }
+
+    private String getValue(int index) throws Http2Exception {
+        return this.getEntry(index)[1];
+    }
+
+    private String[] getEntry(int index) throws Http2Exception {
+        if (index >= 1 && index <= Hpack.STATIC_TABLE.length)
+            return Hpack.STATIC_TABLE[index - 1];
+        int dynamicIndex = index - Hpack.STATIC_TABLE.length;
+        if (index < 1 || dynamicIndex > count)
+            throw new Http2Exception("HPACK索引越界: " + index, Http2Exception.COMPRESSION_ERROR);
+        int position = Math.floorMod(head - dynamicIndex, names.length);
+        return new String[]{names[position], values[position]};
+    }
+
+    /**
+    * 向动态表加入条目，先淘汰最旧的条目腾出空间，条目本身超过上限时清空动态表
+    * @param name 报头名称
+ 	* @param value 报头的值
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void add(String name, String value) {
+        int size = name.length() + value.length() + 32;
+        if (size > maxTableSize) {
+            this.evict(maxTableSize);
+            return;
+        }
+        this.evict(size);
+        names[head] = name;
+        values[head] = value;
+        head = (head + 1) % names.length;
+        count++;
+        tableSize += size;
+    }
+
+    private void evict(int required) {
+        while (count > 0 && tableSize + required > maxTableSize) {
+            int oldest = Math.floorMod(head - count, names.length);
+            tableSize -= names[oldest].length() + values[oldest].length() + 32;
+            names[oldest] = null;
+            values[oldest] = null;
+            count--;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package server.http2;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+* HPACK编码器，只使用静态表，报头以不索引的字面形式写出，不维护动态表，因此编码与连接状态无关，可以被多个流同时使用
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class HpackEncoder {
+
+    /**
+    * 编码一组报头，名称必须是小写
+    * @param headers 名称和值
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public byte[] encode(List<String[]> headers) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String[] header : headers) {
+            int index = Hpack.getStaticIndex(header[0], header[1]);
+            if (index > 0) {    //静态表中已有完全相同的条目
+                Hpack.encodeInteger(out, 0x80, 7, index);
+            } else if (index < 0) { //复用静态表中的名称
+                Hpack.encodeInteger(out, 0x00, 4, -index);
+                Hpack.encodeString(out, header[1]);
+            } else {
+                out.write(0x00);
+                Hpack.encodeString(out, header[0]);
+                Hpack.encodeString(out, header[1]);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,155 @@
+package server.http2;
+
+import cn.hutool.log.LogFactory;
+import server.catalina.Connector;
+import server.catalina.HttpProcessor;
+import server.http.Request;
+import server.http.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+* HTTP/2连接上的一个流，保存客户端发来的报头和报文体，收完后在执行器上按HTTP/1.1的流程处理，
+* 发送窗口由所属的Http2UpgradeHandler加锁维护
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Http2Stream implements Runnable {
+    private final int id;
+    private final Http2UpgradeHandler handler;
+    private final List<String[]> headers;
+    private final ByteArrayOutputStream body;
+    private byte[] requestBytes;    //协议升级时的原始HTTP/1.1请求
+    private long window;
+    private boolean endOfStream;
+    private volatile boolean reset;
+
+    public Http2Stream(int id, Http2UpgradeHandler handler, List<String[]> headers, long window) {
+        this.id = id;
+        this.handler = handler;
+        this.headers = headers;
+        this.body = new ByteArrayOutputStream();
+        this.window = window;
+    }
+
+    /**
+    * 在工作线程中处理请求，经由HttpProcessor和过滤器链生成响应后交给连接写出
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void run() {
+        try {
+            Connector connector = handler.getConnector();
+            byte[] bytes = null != requestBytes ? requestBytes : Http2Stream.toHttp11Request(headers, body.toByteArray(), "HTTP/2.0");
+            Http2StreamWrapper streamWrapper = new Http2StreamWrapper(handler.getSocketWrapper(), connector, bytes);
+            Request request = new Request(streamWrapper, connector);
+            connector.getStats().getRequestCount().increment();
+            Response response = new Response();
+            response.setKeepAlive(true);
+            new HttpProcessor().execute(streamWrapper, request, response);
+            request.recycle();
+            streamWrapper.flush();
+            handler.writeResponse(this, streamWrapper.getResponseBytes());
+        } catch (IOException e) {
+            if (!handler.getSocketWrapper().isClosed())    //连接已关闭时放弃响应
+                LogFactory.get().error(e);
+        } finally {
+            handler.streamFinished(this);
+        }
+    }
+
+    /**
+    * 把伪报头和普通报头还原成HTTP/1.1请求报文，拆分发送的多个cookie报头重新合并，有报文体时补上Content-Length，
+    * HTTP/3的流也使用同样的转换
+    * @param headers 解码后的报头
+ 	* @param body 报文体
+ 	* @param protocol 写入请求行的协议版本
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static byte[] toHttp11Request(List<String[]> headers, byte[] body, String protocol) {
+        String method = null;
+        String path = null;
+        String authority = null;
+        StringBuilder head = new StringBuilder();
+        StringBuilder cookie = null;
+        boolean host = false;
+        boolean contentLength = false;
+        for (String[] header : headers) {
+            String name = header[0];
+            switch (name) {
+                case ":method" -> method = header[1];
+                case ":path" -> path = header[1];
+                case ":authority" -> authority = header[1];
+                case ":scheme" -> {
+                }
+                case "cookie" -> cookie = null == cookie ? new StringBuilder(header[1]) : cookie.append("; ").append(header[1]);
+                default -> {
+                    host |= "host".equals(name);
+                    contentLength |= "content-length".equals(name);
+                    head.append(name).append(": ").append(header[1]).append("\r\n");
+                }
+            }
+        }
+        StringBuilder request = new StringBuilder();
+        request.append(method).append(' ').append(path).append(' ').append(protocol).append("\r\n");
+        if (!host && null != authority)
+            request.append("host: ").append(authority).append("\r\n");
+        request.append(head);
+        if (null != cookie)
+            request.append("cookie: ").append(cookie).append("\r\n");
+        if (!contentLength && body.length > 0)
+            request.append("content-length: ").append(body.length).append("\r\n");
+        request.append("\r\n");
+        byte[] headBytes = request.toString().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] result = new byte[headBytes.length + body.length];
+        System.arraycopy(headBytes, 0, result, 0, headBytes.length);
+        System.arraycopy(body, 0, result, headBytes.length, body.length);
+        return result;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public List<String[]> getHeaders() {
+        return headers;
+    }
+
+    public ByteArrayOutputStream getBody() {
+        return body;
+    }
+
+    public void setRequestBytes(byte[] requestBytes) {
+        this.requestBytes = requestBytes;
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    public void setWindow(long window) {
+        this.window = window;
+    }
+
+    public boolean isEndOfStream() {
+        return endOfStream;
+    }
+
+    public void setEndOfStream(boolean endOfStream) {
+        this.endOfStream = endOfStream;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+}
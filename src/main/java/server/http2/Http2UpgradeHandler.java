@@ -0,0 +1,768 @@
+package server.http2;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.log.LogFactory;
+import server.catalina.Connector;
+import server.exception.Http2Exception;
+import server.http.Request;
+import server.net.SocketWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+* 明文HTTP/2（h2c）连接的处理器，支持直接以连接前言开始的连接和经由Upgrade: h2c升级的连接
+* 当前工作线程负责读取和解析帧，每个流收完请求后交给Connector的执行器，经由HttpProcessor和过滤器链处理，
+* 多个流的响应帧在同一连接上交错写出。写帧、发送窗口和流的计数都在本对象的锁内完成
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Http2UpgradeHandler {
+    public static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] response_101 = ("HTTP/1.1 101 Switching Protocols\r\n" +
+            "Connection: Upgrade\r\n" +
+            "Upgrade: h2c\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final int FRAME_DATA = 0x0;
+    private static final int FRAME_HEADERS = 0x1;
+    private static final int FRAME_PRIORITY = 0x2;
+    private static final int FRAME_RST_STREAM = 0x3;
+    private static final int FRAME_SETTINGS = 0x4;
+    private static final int FRAME_PUSH_PROMISE = 0x5;
+    private static final int FRAME_PING = 0x6;
+    private static final int FRAME_GOAWAY = 0x7;
+    private static final int FRAME_WINDOW_UPDATE = 0x8;
+    private static final int FRAME_CONTINUATION = 0x9;
+
+    private static final int FLAG_ACK = 0x1;
+    private static final int FLAG_END_STREAM = 0x1;
+    private static final int FLAG_END_HEADERS = 0x4;
+    private static final int FLAG_PADDED = 0x8;
+    private static final int FLAG_PRIORITY = 0x20;
+
+    private static final int SETTINGS_ENABLE_PUSH = 0x2;
+    private static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+    private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+    private static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+
+    private static final int defaultWindowSize = 65535;
+    private static final int maxWindowSize = Integer.MAX_VALUE;
+    private static final int maxFrameSize = 16384;
+    private static final int maxConcurrentStreams = 100;
+    private static final int headerTableSize = 4096;
+    private static final int maxHeaderBlockSize = 64 * 1024;
+    private static final long streamWriteTimeout = 20 * 1000;
+    private static final Set<String> connectionHeaders =
+            Set.of("connection", "keep-alive", "proxy-connection", "transfer-encoding", "upgrade");
+
+    private final SocketWrapper socketWrapper;
+    private final Connector connector;
+    private final HpackDecoder decoder;
+    private final HpackEncoder encoder;
+    private final Map<Integer, Http2Stream> streams;
+    private int lastStreamId;
+    private ByteArrayOutputStream headerBlock;  //等待CONTINUATION的报头块
+    private int headerStreamId;
+    private boolean headerEndStream;
+    private int activeStreams;
+    private long connectionWindow;
+    private int remoteInitialWindowSize;
+    private int remoteMaxFrameSize;
+    private boolean closing;
+
+    public Http2UpgradeHandler(SocketWrapper socketWrapper, Connector connector) {
+        this.socketWrapper = socketWrapper;
+        this.connector = connector;
+        this.decoder = new HpackDecoder(headerTableSize);
+        this.encoder = new HpackEncoder();
+        this.streams = new ConcurrentHashMap<>();
+        this.connectionWindow = defaultWindowSize;
+        this.remoteInitialWindowSize = defaultWindowSize;
+        this.remoteMaxFrameSize = maxFrameSize;
+    }
+
+    /**
+    * 判断HTTP/1.1请求是否要求升级到h2c，需要同时带有Upgrade: h2c、Connection: Upgrade和HTTP2-Settings报头，
+    * chunked编码的请求体无法原样转为流1的请求，忽略其升级要求
+    * @param request 客户端的请求
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static boolean isUpgradeRequest(Request request) {
+        if (!"HTTP/1.1".equals(request.getProtocol()) || -1 == request.getContentLength())
+            return false;
+        if (!"h2c".equalsIgnoreCase(StrUtil.trim(request.getHeader("upgrade"))))
+            return false;
+        if (!StrUtil.containsIgnoreCase(request.getHeader("connection"), "upgrade"))
+            return false;
+        return null != request.getHeader("http2-settings");
+    }
+
+    /**
+    * 回复101切换协议，应用HTTP2-Settings中的设置，原请求作为流1在HTTP/2连接上处理
+    * @param request 要求升级的HTTP/1.1请求
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void upgrade(Request request) throws IOException {
+        socketWrapper.write(response_101);
+        socketWrapper.flush();
+        try {
+            byte[] settings = Base64.getUrlDecoder().decode(StrUtil.trim(request.getHeader("http2-settings")));
+            if (0 != settings.length % 6)
+                throw new Http2Exception("HTTP2-Settings长度错误", Http2Exception.FRAME_SIZE_ERROR);
+            this.applySettings(settings);
+        } catch (IllegalArgumentException e) {
+            this.goAway(Http2Exception.PROTOCOL_ERROR);
+            return;
+        } catch (Http2Exception e) {
+            this.goAway(e.getErrorCode());
+            return;
+        }
+        this.process(request.getRequestBytes());
+    }
+
+    /**
+    * 处理HTTP/2连接：发送服务器的SETTINGS，校验客户端的连接前言，然后循环读取帧直到连接关闭
+    * @param upgradeRequest 协议升级时的原始请求，没有时为null
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void process(byte[] upgradeRequest) {
+        socketWrapper.setUpgraded(true);
+        socketWrapper.setDrainListener(this::drain);
+        boolean goAwayReceived = false;
+        try {
+            this.writeSettings();
+            if (null != upgradeRequest) {   //升级前的请求作为半关闭的流1
+                Http2Stream stream = new Http2Stream(1, this, Collections.emptyList(), remoteInitialWindowSize);
+                stream.setRequestBytes(upgradeRequest);
+                stream.setEndOfStream(true);
+                lastStreamId = 1;
+                this.addStream(stream);
+                this.startStream(stream);
+            }
+            byte[] preface = new byte[PREFACE.length];
+            if (!this.read(preface, preface.length))
+                return;
+            if (!Arrays.equals(preface, PREFACE))
+                throw new Http2Exception("连接前言错误", Http2Exception.PROTOCOL_ERROR);
+            int type;
+            while (-1 != (type = this.readFrame())) {
+                if (FRAME_GOAWAY == type) {
+                    goAwayReceived = true;
+                    break;
+                }
+            }
+        } catch (Http2Exception e) {
+            this.goAway(e.getErrorCode());
+        } catch (IOException e) {   //连接断开或者空闲超时
+            socketWrapper.close();
+        } catch (RuntimeException e) {
+            LogFactory.get().error(e);
+            this.goAway(Http2Exception.INTERNAL_ERROR);
+        } finally {
+            synchronized (this) {
+                closing = true;
+                if (!goAwayReceived || 0 == activeStreams)  //客户端发送GOAWAY后等已有的流处理完再关闭
+                    this.close();
+            }
+        }
+    }
+
+    /**
+    * 读取并处理一个帧，流错误只重置对应的流，连接错误向上抛出
+    * @return int 帧的类型，连接关闭时返回-1
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private int readFrame() throws IOException {
+        byte[] header = new byte[9];
+        if (!this.read(header, header.length))
+            return -1;
+        int length = ((header[0] & 0xff) << 16) | ((header[1] & 0xff) << 8) | (header[2] & 0xff);
+        int type = header[3] & 0xff;
+        int flags = header[4] & 0xff;
+        int streamId = Http2UpgradeHandler.getInt(header, 5) & 0x7fffffff;
+        if (length > maxFrameSize)
+            throw new Http2Exception("帧长度超过SETTINGS_MAX_FRAME_SIZE", Http2Exception.FRAME_SIZE_ERROR);
+        byte[] payload = new byte[length];
+        if (!this.read(payload, length))
+            return -1;
+        if (null != headerBlock && (FRAME_CONTINUATION != type || streamId != headerStreamId))
+            throw new Http2Exception("报头块未结束", Http2Exception.PROTOCOL_ERROR);
+
+        try {
+            switch (type) {
+                case FRAME_DATA -> this.onData(flags, streamId, payload);
+                case FRAME_HEADERS -> this.onHeaders(flags, streamId, payload);
+                case FRAME_PRIORITY -> this.onPriority(streamId, payload);
+                case FRAME_RST_STREAM -> this.onRstStream(streamId, payload);
+                case FRAME_SETTINGS -> this.onSettings(flags, streamId, payload);
+                case FRAME_PUSH_PROMISE -> throw new Http2Exception("客户端不能发送PUSH_PROMISE", Http2Exception.PROTOCOL_ERROR);
+                case FRAME_PING -> this.onPing(flags, streamId, payload);
+                case FRAME_GOAWAY -> this.checkConnectionFrame(streamId, payload, 8, false);
+                case FRAME_WINDOW_UPDATE -> this.onWindowUpdate(streamId, payload);
+                case FRAME_CONTINUATION -> this.onContinuation(flags, streamId, payload);
+                default -> {    //忽略未知类型的帧
+                }
+            }
+        } catch (Http2Exception e) {
+            if (e.isConnectionError())
+                throw e;
+            this.resetStream(e.getStreamId(), e.getErrorCode());
+        }
+        synchronized (this) {
+            if (activeStreams > 0)  //有流正在处理时连接不计空闲
+                socketWrapper.disarmTimeout();
+        }
+        return type;
+    }
+
+    private void onData(int flags, int streamId, byte[] payload) throws IOException {
+        if (0 == streamId)
+            throw new Http2Exception("DATA帧不能属于流0", Http2Exception.PROTOCOL_ERROR);
+        int offset = 0;
+        int padding = 0;
+        if (0 != (flags & FLAG_PADDED)) {
+            if (0 == payload.length || (padding = payload[0] & 0xff) >= payload.length)
+                throw new Http2Exception("DATA帧的填充长度错误", Http2Exception.PROTOCOL_ERROR);
+            offset = 1;
+        }
+        if (payload.length > 0)   //连接级的接收窗口立即补回
+            this.writeWindowUpdate(0, payload.length);
+        Http2Stream stream = streams.get(streamId);
+        if (null == stream) {
+            if (streamId > lastStreamId)
+                throw new Http2Exception("DATA帧属于空闲的流", Http2Exception.PROTOCOL_ERROR);
+            return; //已经重置或者被拒绝的流，丢弃
+        }
+        if (stream.isEndOfStream())
+            throw new Http2Exception("流已半关闭", streamId, Http2Exception.STREAM_CLOSED);
+        stream.getBody().write(payload, offset, payload.length - offset - padding);
+        if (0 != (flags & FLAG_END_STREAM)) {
+            stream.setEndOfStream(true);
+            this.startStream(stream);
+        } else if (payload.length > 0) {
+            this.writeWindowUpdate(streamId, payload.length);
+        }
+    }
+
+    private void onHeaders(int flags, int streamId, byte[] payload) throws IOException {
+        if (0 == streamId)
+            throw new Http2Exception("HEADERS帧不能属于流0", Http2Exception.PROTOCOL_ERROR);
+        int offset = 0;
+        int padding = 0;
+        if (0 != (flags & FLAG_PADDED)) {
+            if (0 == payload.length)
+                throw new Http2Exception("HEADERS帧的填充长度错误", Http2Exception.PROTOCOL_ERROR);
+            padding = payload[0] & 0xff;
+            offset = 1;
+        }
+        if (0 != (flags & FLAG_PRIORITY))   //忽略优先级
+            offset += 5;
+        if (offset + padding > payload.length)
+            throw new Http2Exception("HEADERS帧的填充长度错误", Http2Exception.PROTOCOL_ERROR);
+        headerBlock = new ByteArrayOutputStream();
+        headerBlock.write(payload, offset, payload.length - offset - padding);
+        headerStreamId = streamId;
+        headerEndStream = 0 != (flags & FLAG_END_STREAM);
+        if (0 != (flags & FLAG_END_HEADERS))
+            this.onHeaderBlock();
+    }
+
+    private void onContinuation(int flags, int streamId, byte[] payload) throws IOException {
+        if (null == headerBlock)
+            throw new Http2Exception("CONTINUATION帧之前没有HEADERS帧", Http2Exception.PROTOCOL_ERROR);
+        headerBlock.write(payload, 0, payload.length);
+        if (headerBlock.size() > maxHeaderBlockSize)
+            throw new Http2Exception("报头块过大", Http2Exception.ENHANCE_YOUR_CALM);
+        if (0 != (flags & FLAG_END_HEADERS))
+            this.onHeaderBlock();
+    }
+
+    /**
+    * 解码完整的报头块，新的流加入连接，已有的流上收到的是尾部报头，解码后忽略
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void onHeaderBlock() throws IOException {
+        int streamId = headerStreamId;
+        boolean endStream = headerEndStream;
+        List<String[]> headers = decoder.decode(ByteBuffer.wrap(headerBlock.toByteArray())); //解码失败时动态表不再同步，属于连接错误
+        headerBlock = null;
+
+        Http2Stream stream = streams.get(streamId);
+        if (null != stream) {
+            if (stream.isEndOfStream())
+                throw new Http2Exception("流已半关闭", streamId, Http2Exception.STREAM_CLOSED);
+            if (!endStream)
+                throw new Http2Exception("尾部报头必须结束流", streamId, Http2Exception.PROTOCOL_ERROR);
+            stream.setEndOfStream(true);
+            this.startStream(stream);
+            return;
+        }
+        if (streamId <= lastStreamId || 0 == (streamId & 1))
+            throw new Http2Exception("流的编号错误: " + streamId, Http2Exception.PROTOCOL_ERROR);
+        lastStreamId = streamId;
+        if (!Http2UpgradeHandler.isValidRequest(headers))
+            throw new Http2Exception("缺少必需的伪报头", streamId, Http2Exception.PROTOCOL_ERROR);
+        synchronized (this) {
+            if (closing)    //已经发送了GOAWAY，编号更大的新流不处理，之后的帧按已关闭的流丢弃
+                return;
+            if (activeStreams >= maxConcurrentStreams)
+                throw new Http2Exception("并发的流超过上限", streamId, Http2Exception.REFUSED_STREAM);
+            stream = new Http2Stream(streamId, this, headers, remoteInitialWindowSize);
+        }
+        this.addStream(stream);
+        if (endStream) {
+            stream.setEndOfStream(true);
+            this.startStream(stream);
+        }
+    }
+
+    private static boolean isValidRequest(List<String[]> headers) {
+        boolean method = false;
+        boolean path = false;
+        for (String[] header : headers) {
+            method |= ":method".equals(header[0]);
+            path |= ":path".equals(header[0]) && !header[1].isEmpty();
+        }
+        return method && path;
+    }
+
+    private void onPriority(int streamId, byte[] payload) throws Http2Exception {
+        if (0 == streamId)
+            throw new Http2Exception("PRIORITY帧不能属于流0", Http2Exception.PROTOCOL_ERROR);
+        if (5 != payload.length)
+            throw new Http2Exception("PRIORITY帧长度错误", streamId, Http2Exception.FRAME_SIZE_ERROR);
+    }
+
+    private void onRstStream(int streamId, byte[] payload) throws Http2Exception {
+        if (0 == streamId)
+            throw new Http2Exception("RST_STREAM帧不能属于流0", Http2Exception.PROTOCOL_ERROR);
+        if (4 != payload.length)
+            throw new Http2Exception("RST_STREAM帧长度错误", Http2Exception.FRAME_SIZE_ERROR);
+        if (streamId > lastStreamId)
+            throw new Http2Exception("RST_STREAM帧属于空闲的流", Http2Exception.PROTOCOL_ERROR);
+        Http2Stream stream = streams.get(streamId);
+        if (null != stream)
+            this.cancelStream(stream);
+    }
+
+    private void onSettings(int flags, int streamId, byte[] payload) throws IOException {
+        this.checkConnectionFrame(streamId, payload, -1, false);
+        if (0 != (flags & FLAG_ACK)) {
+            if (0 != payload.length)
+                throw new Http2Exception("SETTINGS确认帧必须为空", Http2Exception.FRAME_SIZE_ERROR);
+            return;
+        }
+        if (0 != payload.length % 6)
+            throw new Http2Exception("SETTINGS帧长度错误", Http2Exception.FRAME_SIZE_ERROR);
+        this.applySettings(payload);
+        synchronized (this) {
+            this.writeFrame(FRAME_SETTINGS, FLAG_ACK, 0, new byte[0], 0, 0);
+            socketWrapper.flush();
+        }
+    }
+
+    /**
+    * 应用客户端的设置，初始窗口的变化量同时作用在所有已打开的流上
+    * @param payload SETTINGS帧的内容
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void applySettings(byte[] payload) throws Http2Exception {
+        for (int i = 0; i + 6 <= payload.length; i += 6) {
+            int id = ((payload[i] & 0xff) << 8) | (payload[i + 1] & 0xff);
+            long value = Http2UpgradeHandler.getInt(payload, i + 2) & 0xffffffffL;
+            switch (id) {
+                case SETTINGS_ENABLE_PUSH -> {
+                    if (value > 1)
+                        throw new Http2Exception("SETTINGS_ENABLE_PUSH取值错误", Http2Exception.PROTOCOL_ERROR);
+                }
+                case SETTINGS_INITIAL_WINDOW_SIZE -> {
+                    if (value > maxWindowSize)
+                        throw new Http2Exception("SETTINGS_INITIAL_WINDOW_SIZE超过上限", Http2Exception.FLOW_CONTROL_ERROR);
+                    synchronized (this) {
+                        int delta = (int) value - remoteInitialWindowSize;
+                        remoteInitialWindowSize = (int) value;
+                        for (Http2Stream stream : streams.values())
+                            stream.setWindow(stream.getWindow() + delta);
+                        this.notifyAll();
+                    }
+                }
+                case SETTINGS_MAX_FRAME_SIZE -> {
+                    if (value < maxFrameSize || value > 0xffffff)
+                        throw new Http2Exception("SETTINGS_MAX_FRAME_SIZE取值错误", Http2Exception.PROTOCOL_ERROR);
+                    synchronized (this) {
+                        remoteMaxFrameSize = (int) value;
+                    }
+                }
+                default -> {    //不使用动态表编码，也不推送，其余设置无需处理
+                }
+            }
+        }
+    }
+
+    private void onPing(int flags, int streamId, byte[] payload) throws IOException {
+        this.checkConnectionFrame(streamId, payload, 8, true);
+        if (0 != (flags & FLAG_ACK))
+            return;
+        synchronized (this) {
+            this.writeFrame(FRAME_PING, FLAG_ACK, 0, payload, 0, payload.length);
+            socketWrapper.flush();
+        }
+    }
+
+    private void onWindowUpdate(int streamId, byte[] payload) throws Http2Exception {
+        if (4 != payload.length)
+            throw new Http2Exception("WINDOW_UPDATE帧长度错误", Http2Exception.FRAME_SIZE_ERROR);
+        int increment = Http2UpgradeHandler.getInt(payload, 0) & 0x7fffffff;
+        if (0 == increment)
+            throw new Http2Exception("窗口增量不能为0", streamId, Http2Exception.PROTOCOL_ERROR);
+        synchronized (this) {
+            if (0 == streamId) {
+                connectionWindow += increment;
+                if (connectionWindow > maxWindowSize)
+                    throw new Http2Exception("连接的发送窗口溢出", Http2Exception.FLOW_CONTROL_ERROR);
+            } else {
+                Http2Stream stream = streams.get(streamId);
+                if (null == stream)
+                    return;
+                stream.setWindow(stream.getWindow() + increment);
+                if (stream.getWindow() > maxWindowSize)
+                    throw new Http2Exception("流的发送窗口溢出", streamId, Http2Exception.FLOW_CONTROL_ERROR);
+            }
+            this.notifyAll();
+        }
+    }
+
+    /**
+    * 检查只能属于流0的帧
+    * @param streamId 帧所属的流
+ 	* @param payload 帧的内容
+ 	* @param length 要求的长度，-1表示不限制
+ 	* @param exact 是否要求长度完全相等，否则只要求不小于length
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void checkConnectionFrame(int streamId, byte[] payload, int length, boolean exact) throws Http2Exception {
+        if (0 != streamId)
+            throw new Http2Exception("该类型的帧只能属于流0", Http2Exception.PROTOCOL_ERROR);
+        if (length >= 0 && (exact ? payload.length != length : payload.length < length))
+            throw new Http2Exception("帧长度错误", Http2Exception.FRAME_SIZE_ERROR);
+    }
+
+    /**
+    * 把HttpProcessor生成的HTTP/1.1响应报文转换成HEADERS和DATA帧写出，去掉只对HTTP/1.1连接有意义的报头，
+    * DATA帧的大小受连接窗口、流窗口和客户端的SETTINGS_MAX_FRAME_SIZE共同限制，窗口不足时等待WINDOW_UPDATE
+    * @param stream 响应所属的流
+ 	* @param response HTTP/1.1响应报文
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void writeResponse(Http2Stream stream, byte[] response) throws IOException {
+        int headEnd = Http2UpgradeHandler.indexOfHeadEnd(response);
+        if (-1 == headEnd) {
+            this.resetStream(stream.getId(), Http2Exception.INTERNAL_ERROR);
+            return;
+        }
+        List<String[]> headers = Http2UpgradeHandler.toResponseHeaders(response, headEnd);
+        int offset = headEnd + 4;
+        int end = response.length;
+        byte[] block = encoder.encode(headers);
+
+        synchronized (this) {
+            if (stream.isReset() || socketWrapper.isClosed())
+                return;
+            int blockOffset = 0;
+            do {    //报头块超过帧的上限时拆分到CONTINUATION帧
+                int length = Math.min(block.length - blockOffset, remoteMaxFrameSize);
+                int flags = blockOffset + length == block.length ? FLAG_END_HEADERS : 0;
+                if (0 == blockOffset && offset == end)
+                    flags |= FLAG_END_STREAM;
+                this.writeFrame(0 == blockOffset ? FRAME_HEADERS : FRAME_CONTINUATION, flags, stream.getId(), block, blockOffset, length);
+                blockOffset += length;
+            } while (blockOffset < block.length);
+        }
+        while (offset < end) {
+            synchronized (this) {   //每写一帧释放一次锁，让多个流的帧交错写出
+                long deadline = System.currentTimeMillis() + streamWriteTimeout;
+                while (!stream.isReset() && !socketWrapper.isClosed() && (connectionWindow <= 0 || stream.getWindow() <= 0)) {
+                    socketWrapper.flush();  //等待窗口之前先写出已排队的帧
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        this.resetStream(stream.getId(), Http2Exception.CANCEL);
+                        return;
+                    }
+                    try {
+                        this.wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (stream.isReset() || socketWrapper.isClosed())
+                    return;
+                int length = (int) Math.min(Math.min(end - offset, remoteMaxFrameSize),
+                        Math.min(connectionWindow, stream.getWindow()));
+                connectionWindow -= length;
+                stream.setWindow(stream.getWindow() - length);
+                this.writeFrame(FRAME_DATA, offset + length == end ? FLAG_END_STREAM : 0, stream.getId(), response, offset, length);
+                offset += length;
+            }
+        }
+        synchronized (this) {
+            socketWrapper.flush();
+        }
+    }
+
+    /**
+    * 把HTTP/1.1响应的状态行和报头转换成:status伪报头和小写的报头，去掉HTTP/2和HTTP/3中不允许的逐跳报头
+    * @param response HTTP/1.1响应报文
+ 	* @param headEnd 报头结束的位置，即空行之前的\r\n
+    * @return java.util.List<java.lang.String[]>
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static List<String[]> toResponseHeaders(byte[] response, int headEnd) {
+        String[] lines = new String(response, 0, headEnd, StandardCharsets.ISO_8859_1).split("\r\n");
+        List<String[]> headers = new ArrayList<>();
+        String[] statusLine = lines[0].split(" ");
+        headers.add(new String[]{":status", statusLine.length > 1 ? statusLine[1] : "500"});
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (-1 == colon)
+                continue;
+            String name = lines[i].substring(0, colon).trim().toLowerCase();
+            if (!name.isEmpty() && !connectionHeaders.contains(name))
+                headers.add(new String[]{name, lines[i].substring(colon + 1).trim()});
+        }
+        return headers;
+    }
+
+    public static int indexOfHeadEnd(byte[] bytes) {
+        for (int i = 3; i < bytes.length; i++) {
+            if (bytes[i] == '\n' && bytes[i - 1] == '\r' && bytes[i - 2] == '\n' && bytes[i - 3] == '\r')
+                return i - 3;
+        }
+        return -1;
+    }
+
+    private void addStream(Http2Stream stream) {
+        synchronized (this) {
+            streams.put(stream.getId(), stream);
+            activeStreams++;
+            socketWrapper.disarmTimeout();
+        }
+    }
+
+    /**
+    * 请求收完后交给Connector的执行器处理，执行器已满时拒绝该流
+    * @param stream 收完请求的流
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void startStream(Http2Stream stream) throws IOException {
+        try {
+            connector.getExecutor().execute(stream);
+        } catch (RejectedExecutionException e) {
+            this.resetStream(stream.getId(), Http2Exception.REFUSED_STREAM);
+            this.streamFinished(stream);
+        }
+    }
+
+    /**
+    * 流处理完毕或者被重置后调用，最后一个流结束时连接恢复空闲计时，连接正在关闭时直接关闭
+    * @param stream 结束的流
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void streamFinished(Http2Stream stream) {
+        synchronized (this) {
+            if (null == streams.remove(stream.getId()))
+                return;
+            if (0 != --activeStreams)
+                return;
+            if (closing)
+                this.close();
+            else
+                socketWrapper.updateTimeout();
+        }
+    }
+
+    /**
+    * 客户端重置了流，正在等待窗口的响应随之放弃，尚未开始处理的流直接结束
+    * @param stream 被重置的流
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void cancelStream(Http2Stream stream) {
+        synchronized (this) {
+            stream.setReset(true);
+            this.notifyAll();
+        }
+        if (!stream.isEndOfStream())
+            this.streamFinished(stream);
+    }
+
+    private void resetStream(int streamId, int errorCode) throws IOException {
+        byte[] payload = new byte[4];
+        Http2UpgradeHandler.putInt(payload, 0, errorCode);
+        synchronized (this) {
+            if (socketWrapper.isClosed())
+                return;
+            this.writeFrame(FRAME_RST_STREAM, 0, streamId, payload, 0, payload.length);
+            socketWrapper.flush();
+        }
+        Http2Stream stream = streams.get(streamId);
+        if (null != stream)
+            this.cancelStream(stream);
+    }
+
+    private void writeSettings() throws IOException {
+        byte[] payload = new byte[6];
+        payload[1] = SETTINGS_MAX_CONCURRENT_STREAMS;
+        Http2UpgradeHandler.putInt(payload, 2, maxConcurrentStreams);
+        synchronized (this) {
+            this.writeFrame(FRAME_SETTINGS, 0, 0, payload, 0, payload.length);
+            socketWrapper.flush();
+        }
+    }
+
+    private void writeWindowUpdate(int streamId, int increment) throws IOException {
+        byte[] payload = new byte[4];
+        Http2UpgradeHandler.putInt(payload, 0, increment);
+        synchronized (this) {
+            this.writeFrame(FRAME_WINDOW_UPDATE, 0, streamId, payload, 0, payload.length);
+            socketWrapper.flush();
+        }
+    }
+
+    /**
+    * 发送GOAWAY并关闭连接
+    * @param errorCode 错误码
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void goAway(int errorCode) {
+        byte[] payload = new byte[8];
+        synchronized (this) {
+            Http2UpgradeHandler.putInt(payload, 0, lastStreamId);
+            Http2UpgradeHandler.putInt(payload, 4, errorCode);
+            try {
+                this.writeFrame(FRAME_GOAWAY, 0, 0, payload, 0, payload.length);
+                socketWrapper.flush();
+            } catch (IOException ignored) {
+            }
+            this.close();
+        }
+    }
+
+    /**
+    * 服务器开始排空：发送NO_ERROR的GOAWAY，告知客户端不再接受新的流，已经开始的流照常处理完，
+    * 最后一个流结束时关闭连接，没有流在处理时立即关闭
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void drain() {
+        byte[] payload = new byte[8];
+        synchronized (this) {
+            if (closing || socketWrapper.isClosed())
+                return;
+            closing = true;
+            Http2UpgradeHandler.putInt(payload, 0, lastStreamId);
+            Http2UpgradeHandler.putInt(payload, 4, Http2Exception.NO_ERROR);
+            try {
+                this.writeFrame(FRAME_GOAWAY, 0, 0, payload, 0, payload.length);
+                socketWrapper.flush();
+            } catch (IOException ignored) {
+            }
+            if (0 == activeStreams)
+                this.close();
+        }
+    }
+
+    private void close() {
+        synchronized (this) {
+            socketWrapper.close();
+            this.notifyAll();   //唤醒等待窗口的流
+        }
+    }
+
+    /**
+    * 在输出队列中写入一个帧，调用者持有本对象的锁
+    * @param type 帧的类型
+ 	* @param flags 标志位
+ 	* @param streamId 帧所属的流
+ 	* @param payload 帧内容所在的数组
+ 	* @param offset 帧内容的起点
+ 	* @param length 帧内容的长度
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void writeFrame(int type, int flags, int streamId, byte[] payload, int offset, int length) throws IOException {
+        byte[] frame = new byte[9 + length];
+        frame[0] = (byte) (length >>> 16);
+        frame[1] = (byte) (length >>> 8);
+        frame[2] = (byte) length;
+        frame[3] = (byte) type;
+        frame[4] = (byte) flags;
+        Http2UpgradeHandler.putInt(frame, 5, streamId);
+        System.arraycopy(payload, offset, frame, 9, length);
+        socketWrapper.write(frame);
+    }
+
+    /**
+    * 读取指定长度的数据，有流正在处理时连接不计空闲，阻塞读的超时不关闭连接，继续等待
+    * @param bytes 目标数组
+ 	* @param length 读取的字节数
+    * @return boolean 客户端关闭连接时返回false
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private boolean read(byte[] bytes, int length) throws IOException {
+        while (true) {
+            try {
+                return socketWrapper.readFully(bytes, 0, length);
+            } catch (SocketTimeoutException e) {
+                if (socketWrapper.isClosed())
+                    throw e;
+            }
+        }
+    }
+
+    private static int getInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 24) | ((bytes[offset + 1] & 0xff) << 16) |
+                ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    public SocketWrapper getSocketWrapper() {
+        return socketWrapper;
+    }
+
+    public Connector getConnector() {
+        return connector;
+    }
+}
@@ -0,0 +1,138 @@
+package server.http3;
+
+import server.exception.Http3Exception;
+import server.exception.QuicException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+* HTTP/3（RFC 9114）的公共部分：帧类型、单向流类型、SETTINGS的编号以及帧的读写。
+* 帧由变长整数的类型、长度和负载组成，与HTTP/2不同，帧本身没有标志位和流ID
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Http3 {
+    public static final int FRAME_DATA = 0x00;
+    public static final int FRAME_HEADERS = 0x01;
+    public static final int FRAME_CANCEL_PUSH = 0x03;
+    public static final int FRAME_SETTINGS = 0x04;
+    public static final int FRAME_PUSH_PROMISE = 0x05;
+    public static final int FRAME_GOAWAY = 0x07;
+    public static final int FRAME_MAX_PUSH_ID = 0x0d;
+
+    public static final int STREAM_CONTROL = 0x00;
+    public static final int STREAM_PUSH = 0x01;
+    public static final int STREAM_QPACK_ENCODER = 0x02;
+    public static final int STREAM_QPACK_DECODER = 0x03;
+
+    public static final int SETTINGS_QPACK_MAX_TABLE_CAPACITY = 0x01;
+    public static final int SETTINGS_MAX_FIELD_SECTION_SIZE = 0x06;
+    public static final int SETTINGS_QPACK_BLOCKED_STREAMS = 0x07;
+
+    /**
+    * 读取帧头，数据不足时返回null且不移动读取位置
+    * @param in 流上尚未处理的数据
+    * @return long[] 帧类型、负载长度和帧头的字节数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static long[] readFrameHeader(ByteBuffer in) {
+        int position = in.position();
+        try {
+            long type = Quic.readVarInt(in);
+            long length = Quic.readVarInt(in);
+            return new long[]{type, length, in.position() - position};
+        } catch (QuicException e) {
+            return null;
+        } finally {
+            in.position(position);
+        }
+    }
+
+    /**
+    * 读取单向流开头的流类型，数据不足时返回-1且不移动读取位置
+    * @param in 流上尚未处理的数据
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static long readStreamType(ByteBuffer in) {
+        int position = in.position();
+        try {
+            return Quic.readVarInt(in);
+        } catch (QuicException e) {
+            return -1;
+        } finally {
+            in.position(position);
+        }
+    }
+
+    /**
+    * HTTP/2中定义、HTTP/3中保留的帧类型，收到时是连接错误
+    * @param type 帧类型
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static boolean isReservedFrame(long type) {
+        return 0x02 == type || 0x06 == type || 0x08 == type || 0x09 == type;
+    }
+
+    /**
+    * 写出一个完整的帧
+    * @param out 输出
+ 	* @param type 帧类型
+ 	* @param payload 负载
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static void writeFrame(ByteArrayOutputStream out, int type, byte[] payload) {
+        Http3.writeFrameHeader(out, type, payload.length);
+        out.write(payload, 0, payload.length);
+    }
+
+    public static void writeFrameHeader(ByteArrayOutputStream out, int type, long length) {
+        Quic.writeVarInt(out, type);
+        Quic.writeVarInt(out, length);
+    }
+
+    /**
+    * 编码SETTINGS帧的负载，不使用QPACK动态表，因此只通告字段段的大小上限
+    * @param maxFieldSectionSize 字段段解码后的大小上限
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static byte[] settings(long maxFieldSectionSize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Quic.writeVarInt(out, SETTINGS_MAX_FIELD_SECTION_SIZE);
+        Quic.writeVarInt(out, maxFieldSectionSize);
+        return out.toByteArray();
+    }
+
+    /**
+    * 校验对端的SETTINGS帧，HTTP/2中定义的编号和重复的编号是连接错误，未知的编号忽略
+    * @param payload SETTINGS帧的负载
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static void checkSettings(ByteBuffer payload) throws Http3Exception {
+        long seen = 0;
+        try {
+            while (payload.hasRemaining()) {
+                long id = Quic.readVarInt(payload);
+                Quic.readVarInt(payload);
+                if (id >= 0x02 && id <= 0x05)
+                    throw new Http3Exception("SETTINGS中出现了HTTP/2的参数: " + id, Http3Exception.H3_SETTINGS_ERROR);
+                if (id < 64) {
+                    if (0 != (seen & 1L << id))
+                        throw new Http3Exception("SETTINGS中的参数重复: " + id, Http3Exception.H3_SETTINGS_ERROR);
+                    seen |= 1L << id;
+                }
+            }
+        } catch (QuicException e) {
+            throw new Http3Exception("SETTINGS帧格式错误", Http3Exception.H3_FRAME_ERROR);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package server.http3;
+
+import server.catalina.Connector;
+import server.exception.Http3Exception;
+import server.exception.QuicException;
+import server.http2.Http2UpgradeHandler;
+import server.net.QuicEndpoint;
+import server.util.TimingWheel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+* 服务端的HTTP/3连接，在QUIC连接之上解析客户端的控制流和请求流。握手完成后打开本端的控制流发送SETTINGS，
+* 请求流上收齐HEADERS和DATA帧后交给Connector的执行器处理，不支持服务端推送，QPACK只使用静态表
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Http3Connection extends QuicConnection {
+    private static final int maxFieldSectionSize = 64 * 1024;
+    private static final QpackEncoder encoder = new QpackEncoder();
+    private final QuicEndpoint endpoint;
+    private final Connector connector;
+    private final InetSocketAddress remoteAddress;
+    private final TimingWheel.Timeout timeout;
+    private final QpackDecoder decoder;
+    private final long handshakeStart;
+    private boolean controlStreamOpened; //客户端的控制流
+    private boolean settingsReceived;
+
+    /**
+    * 收到客户端的第一个Initial包时创建连接
+    * @param endpoint 所属的端点
+ 	* @param originalDestinationConnectionId 客户端选择的目的连接ID
+ 	* @param clientConnectionId 客户端的源连接ID
+ 	* @param remoteAddress 客户端的地址
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public Http3Connection(QuicEndpoint endpoint, byte[] originalDestinationConnectionId, byte[] clientConnectionId, InetSocketAddress remoteAddress) throws GeneralSecurityException {
+        super(originalDestinationConnectionId, clientConnectionId, endpoint.getConnector().getSslSupport(), endpoint.getConnector().getKeepAliveTimeout());
+        this.endpoint = endpoint;
+        this.connector = endpoint.getConnector();
+        this.remoteAddress = remoteAddress;
+        this.timeout = endpoint.getTimingWheel().newTimeout(this::onTimeout);
+        this.decoder = new QpackDecoder();
+        this.handshakeStart = System.nanoTime();
+    }
+
+    @Override
+    protected void sendDatagram(ByteBuffer datagram) throws IOException {
+        endpoint.getChannel().send(datagram, remoteAddress);
+    }
+
+    @Override
+    protected void armTimer(long delay) {
+        timeout.arm(delay);
+    }
+
+    /**
+    * 握手完成后打开控制流，流类型之后紧跟SETTINGS帧
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    protected void onHandshakeComplete() {
+        connector.getStats().getFullHandshakeCount().increment();
+        connector.getStats().getFullHandshakeTime().add(System.nanoTime() - handshakeStart);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Quic.writeVarInt(out, Http3.STREAM_CONTROL);
+        Http3.writeFrame(out, Http3.FRAME_SETTINGS, Http3.settings(maxFieldSectionSize));
+        try {
+            this.write(this.openStream(false), out.toByteArray(), false);
+        } catch (QuicException e) {
+            this.close(Http3Exception.H3_STREAM_CREATION_ERROR, true, "无法打开控制流");
+        }
+    }
+
+    @Override
+    protected void onStreamData(QuicStream stream) throws Http3Exception {
+        if (0 != (stream.getId() & 0x02)) {
+            this.readUnidirectional(stream);
+            return;
+        }
+        Http3Stream http3Stream = (Http3Stream) stream.getAttachment();
+        if (null == http3Stream) {
+            http3Stream = new Http3Stream(stream, this);
+            stream.setAttachment(http3Stream);
+        }
+        this.readRequest(http3Stream);
+    }
+
+    /**
+    * 读取客户端的单向流，开头的变长整数是流类型。控制流只能有一条，QPACK的两条流在不使用动态表时没有需要处理的内容，
+    * 客户端不能发起推送流，未知类型的流直接丢弃
+    * @param stream 单向流
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void readUnidirectional(QuicStream stream) throws Http3Exception {
+        Long type = (Long) stream.getAttachment();
+        if (null == type) {
+            long streamType = Http3.readStreamType(stream.getInbound());
+            if (-1 == streamType)
+                return;
+            if (Http3.STREAM_CONTROL == streamType) {
+                if (controlStreamOpened)
+                    throw new Http3Exception("客户端打开了第二条控制流", Http3Exception.H3_STREAM_CREATION_ERROR);
+                controlStreamOpened = true;
+            } else if (Http3.STREAM_PUSH == streamType) {
+                throw new Http3Exception("客户端不能打开推送流", Http3Exception.H3_STREAM_CREATION_ERROR);
+            }
+            type = streamType;
+            stream.setAttachment(type);
+            stream.consume(Quic.varIntLength(streamType));
+        }
+        if (Http3.STREAM_CONTROL == type) {
+            this.readControl(stream);
+            return;
+        }
+        stream.consume(stream.getInbound().remaining());
+    }
+
+    /**
+    * 读取控制流上的帧，第一个帧必须是SETTINGS，之后只处理GOAWAY等控制帧
+    * @param stream 客户端的控制流
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void readControl(QuicStream stream) throws Http3Exception {
+        ByteBuffer in;
+        long[] header;
+        while (null != (header = Http3.readFrameHeader(in = stream.getInbound()))) {
+            long type = header[0];
+            int length = this.checkFrameLength(header[1]);
+            if (in.remaining() < header[2] + length)
+                break;
+            boolean settings = Http3.FRAME_SETTINGS == type;
+            if (settings == settingsReceived)
+                throw new Http3Exception(settings ? "重复的SETTINGS帧" : "控制流的第一个帧不是SETTINGS",
+                        settings ? Http3Exception.H3_FRAME_UNEXPECTED : Http3Exception.H3_MISSING_SETTINGS);
+            if (Http3.FRAME_DATA == type || Http3.FRAME_HEADERS == type || Http3.FRAME_PUSH_PROMISE == type || Http3.isReservedFrame(type))
+                throw new Http3Exception("控制流上出现了意外的帧: " + type, Http3Exception.H3_FRAME_UNEXPECTED);
+            if (settings) {
+                Http3.checkSettings(ByteBuffer.wrap(in.array(), (int) header[2], length));
+                settingsReceived = true;
+            }
+            stream.consume((int) header[2] + length);   //GOAWAY、MAX_PUSH_ID、CANCEL_PUSH和未知帧都无需处理
+        }
+        if (stream.isFinReceived())
+            throw new Http3Exception("客户端关闭了控制流", Http3Exception.H3_CLOSED_CRITICAL_STREAM);
+    }
+
+    /**
+    * 读取请求流上的帧：HEADERS、若干DATA以及可选的尾部HEADERS，DATA帧的负载边收边取走，
+    * 收到FIN后把请求交给执行器，执行器已满时以H3_REQUEST_REJECTED重置该流
+    * @param http3Stream 请求流
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void readRequest(Http3Stream http3Stream) throws Http3Exception {
+        QuicStream stream = http3Stream.getStream();
+        long id = stream.getId();
+        ByteBuffer in;
+        while ((in = stream.getInbound()).hasRemaining()) {
+            if (http3Stream.getDataRemaining() > 0) {
+                int length = (int) Math.min(in.remaining(), http3Stream.getDataRemaining());
+                http3Stream.getBody().write(in.array(), 0, length);
+                http3Stream.setDataRemaining(http3Stream.getDataRemaining() - length);
+                stream.consume(length);
+                continue;
+            }
+            long[] header = Http3.readFrameHeader(in);
+            if (null == header)
+                break;
+            long type = header[0];
+            int headerLength = (int) header[2];
+            if (Http3.FRAME_DATA == type) {
+                if (null == http3Stream.getHeaders() || http3Stream.isTrailers())
+                    throw new Http3Exception("DATA帧出现在HEADERS之前或尾部之后", Http3Exception.H3_FRAME_UNEXPECTED);
+                http3Stream.setDataRemaining(header[1]);
+                stream.consume(headerLength);
+                continue;
+            }
+            if (Http3.FRAME_SETTINGS == type || Http3.FRAME_GOAWAY == type || Http3.FRAME_MAX_PUSH_ID == type
+                    || Http3.FRAME_CANCEL_PUSH == type || Http3.FRAME_PUSH_PROMISE == type || Http3.isReservedFrame(type))
+                throw new Http3Exception("请求流上出现了意外的帧: " + type, Http3Exception.H3_FRAME_UNEXPECTED);
+            int length = this.checkFrameLength(header[1]);
+            if (in.remaining() < headerLength + length)
+                break;
+            if (Http3.FRAME_HEADERS == type) {
+                if (http3Stream.isTrailers())
+                    throw new Http3Exception("尾部之后又出现了HEADERS帧", Http3Exception.H3_FRAME_UNEXPECTED);
+                List<String[]> headers = decoder.decode(ByteBuffer.wrap(in.array(), headerLength, length).slice());
+                if (null == http3Stream.getHeaders()) {
+                    if (headers.stream().noneMatch(h -> ":method".equals(h[0])) || headers.stream().noneMatch(h -> ":path".equals(h[0])))
+                        throw new Http3Exception("请求缺少:method或:path", id, Http3Exception.H3_MESSAGE_ERROR);
+                    http3Stream.setHeaders(headers);
+                }
+                else    //尾部字段不转交给应用
+                    http3Stream.setTrailers(true);
+            }
+            stream.consume(headerLength + length);
+        }
+        if (!stream.isFinReceived() || http3Stream.isStarted())
+            return;
+        if (stream.getInbound().hasRemaining() || http3Stream.getDataRemaining() > 0)
+            throw new Http3Exception("请求流在帧的中间结束", Http3Exception.H3_FRAME_ERROR);
+        if (null == http3Stream.getHeaders())
+            throw new Http3Exception("请求流没有HEADERS帧", id, Http3Exception.H3_REQUEST_INCOMPLETE);
+        http3Stream.setStarted(true);
+        try {
+            connector.getExecutor().execute(http3Stream);
+        } catch (RejectedExecutionException e) {
+            connector.getStats().getRejectedCount().increment();
+            this.resetStream(stream, Http3Exception.H3_REQUEST_REJECTED);
+        }
+    }
+
+    /**
+    * 除DATA以外的帧需要完整缓存后才能处理，限制其长度
+    * @param length 帧的负载长度
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private int checkFrameLength(long length) throws Http3Exception {
+        if (length > maxFieldSectionSize)
+            throw new Http3Exception("帧的长度超过上限: " + length, Http3Exception.H3_EXCESSIVE_LOAD);
+        return (int) length;
+    }
+
+    /**
+    * 对端重置了流：关键的单向流被重置时关闭连接，尚未开始处理的请求放弃响应
+    * @param stream 流
+ 	* @param errorCode 应用层的错误码
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    protected void onStreamReset(QuicStream stream, long errorCode) {
+        Object attachment = stream.getAttachment();
+        if (attachment instanceof Long) {
+            if (Http3.STREAM_CONTROL == (Long) attachment)
+                this.close(Http3Exception.H3_CLOSED_CRITICAL_STREAM, true, "客户端重置了控制流");
+            return;
+        }
+        if (0 == (stream.getId() & 0x02) && (null == attachment || !((Http3Stream) attachment).isStarted()))
+            this.resetStream(stream, Http3Exception.H3_REQUEST_CANCELLED);
+    }
+
+    @Override
+    protected void onClosed(boolean idleTimeout) {
+        timeout.cancel();
+        if (idleTimeout)
+            connector.getStats().getIdleTimeoutCount().increment();
+        if (!this.isHandshakeComplete())
+            connector.getStats().getFailedHandshakeCount().increment();
+        endpoint.removeConnection(this);
+    }
+
+    /**
+    * 把HttpProcessor生成的HTTP/1.1响应转换成HEADERS帧和一个DATA帧，随FIN一起写出。
+    * 流上的数据由QUIC的流量控制和拥塞控制分批发出
+    * @param http3Stream 请求流
+ 	* @param response 完整的HTTP/1.1响应报文
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void writeResponse(Http3Stream http3Stream, byte[] response) {
+        QuicStream stream = http3Stream.getStream();
+        int headEnd = Http2UpgradeHandler.indexOfHeadEnd(response);
+        if (-1 == headEnd) {
+            this.resetStream(stream, Http3Exception.H3_INTERNAL_ERROR);
+            this.flush();
+            return;
+        }
+        List<String[]> headers = Http2UpgradeHandler.toResponseHeaders(response, headEnd);
+        int offset = headEnd + 4;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(response.length - offset + 64);
+        Http3.writeFrame(out, Http3.FRAME_HEADERS, encoder.encode(headers));
+        if (offset < response.length) {
+            Http3.writeFrameHeader(out, Http3.FRAME_DATA, response.length - offset);
+            out.write(response, offset, response.length - offset);
+        }
+        this.write(stream, out.toByteArray(), true);
+        this.flush();
+    }
+
+    public Connector getConnector() {
+        return connector;
+    }
+
+    public InetSocketAddress getLocalAddress() {
+        return endpoint.getLocalAddress();
+    }
+
+    public InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+}
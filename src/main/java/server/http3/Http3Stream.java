@@ -0,0 +1,99 @@
+package server.http3;
+
+import cn.hutool.log.LogFactory;
+import server.catalina.Connector;
+import server.catalina.HttpProcessor;
+import server.http.Request;
+import server.http.Response;
+import server.http2.Http2Stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+* HTTP/3的请求流，保存客户端发来的字段段和报文体，流上收到FIN后在执行器上按HTTP/1.1的流程处理，
+* 与HTTP/2一样还原成HTTP/1.1报文，响应由所属的Http3Connection转换成HEADERS和DATA帧
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Http3Stream implements Runnable {
+    private final QuicStream stream;
+    private final Http3Connection connection;
+    private List<String[]> headers;
+    private final ByteArrayOutputStream body;
+    private long dataRemaining; //当前DATA帧中尚未读取的字节数
+    private boolean trailers;
+    private boolean started;
+
+    public Http3Stream(QuicStream stream, Http3Connection connection) {
+        this.stream = stream;
+        this.connection = connection;
+        this.body = new ByteArrayOutputStream();
+    }
+
+    /**
+    * 在工作线程中处理请求，经由HttpProcessor和过滤器链生成响应后交给连接写出
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void run() {
+        try {
+            Connector connector = connection.getConnector();
+            byte[] bytes = Http2Stream.toHttp11Request(headers, body.toByteArray(), "HTTP/3");
+            Http3StreamWrapper streamWrapper = new Http3StreamWrapper(connection, connector, bytes);
+            Request request = new Request(streamWrapper, connector);
+            connector.getStats().getRequestCount().increment();
+            Response response = new Response();
+            response.setKeepAlive(true);
+            new HttpProcessor().execute(streamWrapper, request, response);
+            request.recycle();
+            streamWrapper.flush();
+            connection.writeResponse(this, streamWrapper.getResponseBytes());
+        } catch (IOException e) {
+            if (!connection.isClosed())    //连接已关闭时放弃响应
+                LogFactory.get().error(e);
+        }
+    }
+
+    public QuicStream getStream() {
+        return stream;
+    }
+
+    public List<String[]> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(List<String[]> headers) {
+        this.headers = headers;
+    }
+
+    public ByteArrayOutputStream getBody() {
+        return body;
+    }
+
+    public long getDataRemaining() {
+        return dataRemaining;
+    }
+
+    public void setDataRemaining(long dataRemaining) {
+        this.dataRemaining = dataRemaining;
+    }
+
+    public boolean isTrailers() {
+        return trailers;
+    }
+
+    public void setTrailers(boolean trailers) {
+        this.trailers = trailers;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public void setStarted(boolean started) {
+        this.started = started;
+    }
+}
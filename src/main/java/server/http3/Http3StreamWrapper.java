@@ -0,0 +1,115 @@
+package server.http3;
+
+import server.catalina.Connector;
+import server.net.SocketWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+* HTTP/3请求流的包装类，把流上的请求还原成HTTP/1.1报文交给Request解析，HttpProcessor写出的响应报文暂存在内存中，
+* 处理完毕后再由Http3Connection转换成帧，流本身不持有Socket
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Http3StreamWrapper extends SocketWrapper {
+    private final Http3Connection connection;
+    private final byte[] requestBytes;
+    private int position;
+    private final ByteArrayOutputStream responseBytes;
+
+    /**
+    * 创建流的包装类
+    * @param connection 流所属的QUIC连接
+ 	* @param connector 连接所属的Connector
+ 	* @param requestBytes 还原后的HTTP/1.1请求报文
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public Http3StreamWrapper(Http3Connection connection, Connector connector, byte[] requestBytes) {
+        super(connector);
+        this.connection = connection;
+        this.requestBytes = requestBytes;
+        this.responseBytes = new ByteArrayOutputStream();
+    }
+
+    @Override
+    protected int read(byte[] bytes, int offset, int len, boolean block) {
+        if (position == requestBytes.length)
+            return -1;
+        int length = Math.min(len, requestBytes.length - position);
+        System.arraycopy(requestBytes, position, bytes, offset, length);
+        position += length;
+        return length;
+    }
+
+    @Override
+    protected void doWrite(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers)
+            responseBytes.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    }
+
+    /**
+    * 流的超时由QUIC连接的空闲超时统一计算
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void updateTimeout() {
+    }
+
+    /**
+    * 流结束不关闭所属的连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void close() {
+    }
+
+    @Override
+    protected void doClose() {
+    }
+
+    /**
+    * 流上的请求体已经随请求一起到达
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    protected boolean isExpectContinueSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean awaitNextRequest() {
+        return false;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return connection.getLocalAddress();
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return connection.getRemoteAddress();
+    }
+
+    /**
+    * QUIC总是加密的
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public boolean isSecure() {
+        return true;
+    }
+
+    public byte[] getResponseBytes() {
+        return responseBytes.toByteArray();
+    }
+}
@@ -0,0 +1,61 @@
+package server.http3;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+* 包序号空间，Initial、Handshake和1-RTT包各自独立编号、独立确认，各有一条CRYPTO流和一组密钥，
+* 握手推进后旧的空间被丢弃，其中未确认的数据包不再计入在途字节
+* @author cn-wumo
+* @since 2026/10/18
+*/
+class PacketSpace {
+    static final int maxAckRanges = 32;
+    final QuicStream crypto;
+    final RangeSet received;
+    final Map<Long, SentPacket> sentPackets;    //按包序号递增
+    QuicKeys sendKeys;
+    QuicKeys receiveKeys;
+    long nextPacketNumber;
+    long largestReceived;
+    long largestReceivedTime;
+    boolean ackPending;
+    long largestAcked;
+    long lossTime;
+    long lastAckElicitingTime;
+    boolean discarded;
+
+    PacketSpace() {
+        this.crypto = new QuicStream(-1, Long.MAX_VALUE, Long.MAX_VALUE);
+        this.received = new RangeSet();
+        this.sentPackets = new LinkedHashMap<>();
+        this.largestReceived = -1;
+        this.largestAcked = -1;
+    }
+
+    /**
+    * 记录收到的包，需要确认的包在下一次发送时捎带ACK
+    * @param packetNumber 包序号
+ 	* @param ackEliciting 是否需要确认
+ 	* @param now 收到的时间，单位纳秒
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void onReceived(long packetNumber, boolean ackEliciting, long now) {
+        received.add(packetNumber, packetNumber);
+        received.retainLast(maxAckRanges);
+        if (packetNumber > largestReceived) {
+            largestReceived = packetNumber;
+            largestReceivedTime = now;
+        }
+        ackPending |= ackEliciting;
+    }
+
+    boolean hasAckElicitingInFlight() {
+        for (SentPacket packet : sentPackets.values()) {
+            if (packet.ackEliciting)
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,66 @@
+package server.http3;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+* QPACK头部压缩（RFC 9204）的静态表，整数和字符串的表示方法与HPACK相同，复用Hpack中的实现。
+* 与HPACK不同，QPACK的静态表从0开始编号
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Qpack {
+    static final String[][] STATIC_TABLE = {
+            {":authority", ""}, {":path", "/"}, {"age", "0"}, {"content-disposition", ""},
+            {"content-length", "0"}, {"cookie", ""}, {"date", ""}, {"etag", ""},
+            {"if-modified-since", ""}, {"if-none-match", ""}, {"last-modified", ""}, {"link", ""},
+            {"location", ""}, {"referer", ""}, {"set-cookie", ""}, {":method", "CONNECT"},
+            {":method", "DELETE"}, {":method", "GET"}, {":method", "HEAD"}, {":method", "OPTIONS"},
+            {":method", "POST"}, {":method", "PUT"}, {":scheme", "http"}, {":scheme", "https"},
+            {":status", "103"}, {":status", "200"}, {":status", "304"}, {":status", "404"},
+            {":status", "503"}, {"accept", "*/*"}, {"accept", "application/dns-message"}, {"accept-encoding", "gzip, deflate, br"},
+            {"accept-ranges", "bytes"}, {"access-control-allow-headers", "cache-control"}, {"access-control-allow-headers", "content-type"}, {"access-control-allow-origin", "*"},
+            {"cache-control", "max-age=0"}, {"cache-control", "max-age=2592000"}, {"cache-control", "max-age=604800"}, {"cache-control", "no-cache"},
+            {"cache-control", "no-store"}, {"cache-control", "public, max-age=31536000"}, {"content-encoding", "br"}, {"content-encoding", "gzip"},
+            {"content-type", "application/dns-message"}, {"content-type", "application/javascript"}, {"content-type", "application/json"}, {"content-type", "application/x-www-form-urlencoded"},
+            {"content-type", "image/gif"}, {"content-type", "image/jpeg"}, {"content-type", "image/png"}, {"content-type", "text/css"},
+            {"content-type", "text/html; charset=utf-8"}, {"content-type", "text/plain"}, {"content-type", "text/plain;charset=utf-8"}, {"range", "bytes=0-"},
+            {"strict-transport-security", "max-age=31536000"}, {"strict-transport-security", "max-age=31536000; includesubdomains"},
+            {"strict-transport-security", "max-age=31536000; includesubdomains; preload"}, {"vary", "accept-encoding"},
+            {"vary", "origin"}, {"x-content-type-options", "nosniff"}, {"x-xss-protection", "1; mode=block"}, {":status", "100"},
+            {":status", "204"}, {":status", "206"}, {":status", "302"}, {":status", "400"},
+            {":status", "403"}, {":status", "421"}, {":status", "425"}, {":status", "500"},
+            {"accept-language", ""}, {"access-control-allow-credentials", "FALSE"}, {"access-control-allow-credentials", "TRUE"}, {"access-control-allow-headers", "*"},
+            {"access-control-allow-methods", "get"}, {"access-control-allow-methods", "get, post, options"}, {"access-control-allow-methods", "options"}, {"access-control-expose-headers", "content-length"},
+            {"access-control-request-headers", "content-type"}, {"access-control-request-method", "get"}, {"access-control-request-method", "post"}, {"alt-svc", "clear"},
+            {"authorization", ""}, {"content-security-policy", "script-src 'none'; object-src 'none'; base-uri 'none'"}, {"early-data", "1"}, {"expect-ct", ""},
+            {"forwarded", ""}, {"if-range", ""}, {"origin", ""}, {"purpose", "prefetch"},
+            {"server", ""}, {"timing-allow-origin", "*"}, {"upgrade-insecure-requests", "1"}, {"user-agent", ""},
+            {"x-forwarded-for", ""}, {"x-frame-options", "deny"}, {"x-frame-options", "sameorigin"},
+    };
+    private static final Map<String, Integer> STATIC_NAMES = new HashMap<>();
+    private static final Map<String, Integer> STATIC_FIELDS = new HashMap<>();
+
+    static {
+        for (int i = STATIC_TABLE.length - 1; i >= 0; i--) {  //同名时取最小的索引
+            STATIC_NAMES.put(STATIC_TABLE[i][0], i);
+            STATIC_FIELDS.put(STATIC_TABLE[i][0] + '\0' + STATIC_TABLE[i][1], i);
+        }
+    }
+
+    /**
+    * 在静态表中查找报头
+    * @param name 报头名称
+ 	* @param value 报头的值
+    * @return int[] 第一个元素为索引，没有找到时为-1，第二个元素表示值是否也相同
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static int[] getStaticIndex(String name, String value) {
+        Integer index = STATIC_FIELDS.get(name + '\0' + value);
+        if (null != index)
+            return new int[]{index, 1};
+        index = STATIC_NAMES.get(name);
+        return new int[]{null == index ? -1 : index, 0};
+    }
+}
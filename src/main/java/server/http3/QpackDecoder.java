@@ -0,0 +1,62 @@
+package server.http3;
+
+import server.exception.Http2Exception;
+import server.exception.Http3Exception;
+import server.http2.Hpack;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* QPACK解码器，通过SETTINGS_QPACK_MAX_TABLE_CAPACITY为0告诉客户端不使用动态表，
+* 因此字段段只能引用静态表，解码不会被阻塞，也不需要在解码器流上发送确认
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class QpackDecoder {
+
+    /**
+    * 解码一个完整的字段段
+    * @param block HEADERS帧的负载，解码失败是连接错误
+    * @return java.util.List<java.lang.String[]> 按出现顺序排列的名称和值
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public List<String[]> decode(ByteBuffer block) throws Http3Exception {
+        try {
+            if (0 != Hpack.decodeInteger(block, 8))
+                throw new Http3Exception("没有动态表时Required Insert Count必须为0", Http3Exception.QPACK_DECOMPRESSION_FAILED);
+            Hpack.decodeInteger(block, 7);  //Base，没有动态表时没有意义
+            List<String[]> headers = new ArrayList<>();
+            while (block.hasRemaining()) {
+                int b = block.get(block.position()) & 0xff;
+                if (0 != (b & 0x80)) {  //索引字段行
+                    if (0 == (b & 0x40))
+                        throw new Http3Exception("引用了动态表", Http3Exception.QPACK_DECOMPRESSION_FAILED);
+                    String[] entry = QpackDecoder.getEntry(Hpack.decodeInteger(block, 6));
+                    headers.add(new String[]{entry[0], entry[1]});
+                } else if (0x40 == (b & 0xc0)) {    //引用名称的字面字段行
+                    if (0 == (b & 0x10))
+                        throw new Http3Exception("引用了动态表", Http3Exception.QPACK_DECOMPRESSION_FAILED);
+                    String name = QpackDecoder.getEntry(Hpack.decodeInteger(block, 4))[0];
+                    headers.add(new String[]{name, Hpack.decodeString(block, 7)});
+                } else if (0x20 == (b & 0xe0)) {    //字面名称的字面字段行
+                    String name = Hpack.decodeString(block, 3);
+                    headers.add(new String[]{name, Hpack.decodeString(block, 7)});
+                } else {    //Post-Base索引，只能指向动态表
+                    throw new Http3Exception("引用了动态表", Http3Exception.QPACK_DECOMPRESSION_FAILED);
+                }
+            }
+            return headers;
+        } catch (Http2Exception | RuntimeException e) {
+            throw new Http3Exception("QPACK解码失败: " + e.getMessage(), Http3Exception.QPACK_DECOMPRESSION_FAILED);
+        }
+    }
+
+    private static String[] getEntry(int index) throws Http3Exception {
+        if (index >= Qpack.STATIC_TABLE.length)
+            throw new Http3Exception("QPACK静态表索引越界: " + index, Http3Exception.QPACK_DECOMPRESSION_FAILED);
+        return Qpack.STATIC_TABLE[index];
+    }
+}
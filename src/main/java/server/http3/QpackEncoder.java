@@ -0,0 +1,41 @@
+package server.http3;
+
+import server.http2.Hpack;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+* QPACK编码器，只使用静态表，不向客户端的编码器流发送指令，因此Required Insert Count和Base都为0，
+* 编码与连接状态无关，可以被多个请求流同时使用
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class QpackEncoder {
+
+    /**
+    * 编码一个字段段，名称必须是小写
+    * @param headers 名称和值
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public byte[] encode(List<String[]> headers) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0x00);    //Required Insert Count
+        out.write(0x00);    //Delta Base
+        for (String[] header : headers) {
+            int[] index = Qpack.getStaticIndex(header[0], header[1]);
+            if (1 == index[1]) {    //静态表中已有完全相同的条目
+                Hpack.encodeInteger(out, 0xc0, 6, index[0]);
+            } else if (index[0] >= 0) { //复用静态表中的名称
+                Hpack.encodeInteger(out, 0x50, 4, index[0]);
+                Hpack.encodeString(out, 0x00, 7, header[1]);
+            } else {
+                Hpack.encodeString(out, 0x20, 3, header[0]);
+                Hpack.encodeString(out, 0x00, 7, header[1]);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,164 @@
+package server.http3;
+
+import server.exception.QuicException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+* QUIC（RFC 9000）的公共部分：版本、帧类型、传输参数的编号以及变长整数的编解码。
+* 变长整数的最高两位表示长度为1、2、4或8字节，其余位按大端序存放数值
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Quic {
+    public static final int VERSION_1 = 0x00000001;
+    public static final int MIN_INITIAL_DATAGRAM_SIZE = 1200;
+    public static final int CONNECTION_ID_LENGTH = 8;   //本端签发的连接ID长度，短报头中据此定位
+    public static final long MAX_VARINT = (1L << 62) - 1;
+
+    static final int PACKET_INITIAL = 0x0;
+    static final int PACKET_0RTT = 0x1;
+    static final int PACKET_HANDSHAKE = 0x2;
+    static final int PACKET_RETRY = 0x3;
+
+    static final int FRAME_PADDING = 0x00;
+    static final int FRAME_PING = 0x01;
+    static final int FRAME_ACK = 0x02;
+    static final int FRAME_ACK_ECN = 0x03;
+    static final int FRAME_RESET_STREAM = 0x04;
+    static final int FRAME_STOP_SENDING = 0x05;
+    static final int FRAME_CRYPTO = 0x06;
+    static final int FRAME_NEW_TOKEN = 0x07;
+    static final int FRAME_STREAM = 0x08;   //0x08-0x0f，低三位依次是OFF、LEN、FIN标志
+    static final int FRAME_MAX_DATA = 0x10;
+    static final int FRAME_MAX_STREAM_DATA = 0x11;
+    static final int FRAME_MAX_STREAMS_BIDI = 0x12;
+    static final int FRAME_MAX_STREAMS_UNI = 0x13;
+    static final int FRAME_DATA_BLOCKED = 0x14;
+    static final int FRAME_STREAM_DATA_BLOCKED = 0x15;
+    static final int FRAME_STREAMS_BLOCKED_BIDI = 0x16;
+    static final int FRAME_STREAMS_BLOCKED_UNI = 0x17;
+    static final int FRAME_NEW_CONNECTION_ID = 0x18;
+    static final int FRAME_RETIRE_CONNECTION_ID = 0x19;
+    static final int FRAME_PATH_CHALLENGE = 0x1a;
+    static final int FRAME_PATH_RESPONSE = 0x1b;
+    static final int FRAME_CONNECTION_CLOSE = 0x1c;
+    static final int FRAME_CONNECTION_CLOSE_APP = 0x1d;
+    static final int FRAME_HANDSHAKE_DONE = 0x1e;
+
+    static final int STREAM_FLAG_FIN = 0x01;
+    static final int STREAM_FLAG_LEN = 0x02;
+    static final int STREAM_FLAG_OFF = 0x04;
+
+    static final int PARAM_ORIGINAL_DESTINATION_CONNECTION_ID = 0x00;
+    static final int PARAM_MAX_IDLE_TIMEOUT = 0x01;
+    static final int PARAM_STATELESS_RESET_TOKEN = 0x02;
+    static final int PARAM_MAX_UDP_PAYLOAD_SIZE = 0x03;
+    static final int PARAM_INITIAL_MAX_DATA = 0x04;
+    static final int PARAM_INITIAL_MAX_STREAM_DATA_BIDI_LOCAL = 0x05;
+    static final int PARAM_INITIAL_MAX_STREAM_DATA_BIDI_REMOTE = 0x06;
+    static final int PARAM_INITIAL_MAX_STREAM_DATA_UNI = 0x07;
+    static final int PARAM_INITIAL_MAX_STREAMS_BIDI = 0x08;
+    static final int PARAM_INITIAL_MAX_STREAMS_UNI = 0x09;
+    static final int PARAM_ACK_DELAY_EXPONENT = 0x0a;
+    static final int PARAM_MAX_ACK_DELAY = 0x0b;
+    static final int PARAM_DISABLE_ACTIVE_MIGRATION = 0x0c;
+    static final int PARAM_ACTIVE_CONNECTION_ID_LIMIT = 0x0e;
+    static final int PARAM_INITIAL_SOURCE_CONNECTION_ID = 0x0f;
+    static final int PARAM_RETRY_SOURCE_CONNECTION_ID = 0x10;
+
+    /**
+    * 读取一个变长整数
+    * @param in 输入
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static long readVarInt(ByteBuffer in) throws QuicException {
+        if (!in.hasRemaining())
+            throw new QuicException("变长整数不完整", QuicException.FRAME_ENCODING_ERROR);
+        int first = in.get(in.position()) & 0xff;
+        int length = 1 << (first >>> 6);
+        if (in.remaining() < length)
+            throw new QuicException("变长整数不完整", QuicException.FRAME_ENCODING_ERROR);
+        long value = in.get() & 0x3f;
+        for (int i = 1; i < length; i++)
+            value = (value << 8) | (in.get() & 0xff);
+        return value;
+    }
+
+    /**
+    * 以最短的形式写出一个变长整数
+    * @param out 输出
+ 	* @param value 不超过2^62-1的非负整数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static void writeVarInt(ByteBuffer out, long value) {
+        int length = Quic.varIntLength(value);
+        int prefix = Integer.numberOfTrailingZeros(length) << 6;
+        for (int i = length - 1; i >= 0; i--) {
+            int b = (int) (value >>> (8 * i)) & 0xff;
+            out.put((byte) (i == length - 1 ? b | prefix : b));
+        }
+    }
+
+    public static void writeVarInt(ByteArrayOutputStream out, long value) {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        Quic.writeVarInt(buffer, value);
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    public static int varIntLength(long value) {
+        if (value < 0 || value > MAX_VARINT)
+            throw new IllegalArgumentException("超出变长整数的范围: " + value);
+        if (value < 0x40)
+            return 1;
+        if (value < 0x4000)
+            return 2;
+        return value < 0x40000000 ? 4 : 8;
+    }
+
+    /**
+    * 读取以变长整数为长度前缀的字节串
+    * @param in 输入
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static byte[] readBytes(ByteBuffer in) throws QuicException {
+        long length = Quic.readVarInt(in);
+        return Quic.readBytes(in, length);
+    }
+
+    static byte[] readBytes(ByteBuffer in, long length) throws QuicException {
+        if (length > in.remaining())
+            throw new QuicException("帧的长度超出了数据包", QuicException.FRAME_ENCODING_ERROR);
+        byte[] bytes = new byte[(int) length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    /**
+    * 还原完整的包序号，截断的包序号取最接近期望值的那个（RFC 9000附录A.3）
+    * @param largest 已收到的最大包序号，尚未收到时为-1
+ 	* @param truncated 包头中截断的包序号
+ 	* @param bits 截断后的位数
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static long decodePacketNumber(long largest, long truncated, int bits) {
+        long expected = largest + 1;
+        long window = 1L << bits;
+        long halfWindow = window / 2;
+        long mask = window - 1;
+        long candidate = (expected & ~mask) | truncated;
+        if (candidate <= expected - halfWindow && candidate < (1L << 62) - window)
+            return candidate + window;
+        if (candidate > expected + halfWindow && candidate >= window)
+            return candidate - window;
+        return candidate;
+    }
+}
@@ -0,0 +1,1307 @@
+package server.http3;
+
+import cn.hutool.log.LogFactory;
+import server.exception.Http3Exception;
+import server.exception.QuicException;
+import server.net.SSLSupport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+* QUIC连接（RFC 9000、RFC 9002），负责数据包的保护、解析和组装，三个包序号空间的确认与丢包恢复，
+* 连接级和流级的流量控制，以及流的创建和回收。握手由QuicTls完成，报文的收发和计时器交给子类，
+* 应用层协议通过onStreamData读取流上的数据。所有入口都在连接上加锁，由接收线程、计时线程和工作线程共同调用。
+* 数据报固定不超过1200字节，拥塞控制采用NewReno，不支持连接迁移、Retry和密钥更新
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public abstract class QuicConnection {
+    public static final int INITIAL = 0;
+    public static final int HANDSHAKE = 1;
+    public static final int APPLICATION = 2;
+    private static final int maxDatagramSize = Quic.MIN_INITIAL_DATAGRAM_SIZE;
+    private static final long initialRtt = 333_000_000L;
+    private static final long granularity = 1_000_000L;
+    private static final int packetThreshold = 3;
+    private static final long initialWindow = 10L * maxDatagramSize;
+    private static final long minimumWindow = 2L * maxDatagramSize;
+    private static final long streamReceiveWindow = 1024 * 1024;
+    private static final long connectionReceiveWindow = 4 * 1024 * 1024;
+    private static final long maxStreamsBidi = 100;
+    private static final long maxStreamsUni = 3;    //HTTP/3的控制流和两条QPACK流
+    private static final int maxAckRangesSent = 16;
+    private static final SecureRandom random = new SecureRandom();
+
+    protected final boolean server;
+    private final PacketSpace[] spaces;
+    private final byte[] localConnectionId;
+    private byte[] remoteConnectionId;
+    private boolean remoteConnectionIdUpdated;
+    private final byte[] originalDestinationConnectionId;
+    private QuicTls tls;
+    private final TransportParameters localParameters;
+    private TransportParameters peerParameters;
+    private final TreeMap<Long, QuicStream> streams;
+    private final long[] nextLocalStream;   //下标0为双向流，1为单向流
+    private final long[] remoteStreamsOpened;
+    private final long[] localMaxStreams;
+    private final long[] peerMaxStreams;
+    private final boolean[] maxStreamsPending;
+    private long localMaxData;
+    private long receivedData;
+    private long consumedData;
+    private boolean maxDataPending;
+    private long peerMaxData;
+    private long sentData;
+    private final Deque<long[]> resetsPending;  //流ID、错误码、最终大小
+    private final Deque<byte[]> pathResponses;
+    private boolean handshakeDonePending;
+    private boolean handshakeComplete;
+    private boolean handshakeConfirmed;
+    private boolean addressValidated;
+    private long bytesReceived;
+    private long bytesSent;
+    private long lastStreamSent;
+
+    private long latestRtt;
+    private long smoothedRtt;
+    private long rttVariance;
+    private long minRtt;
+    private boolean rttSampled;
+    private long maxAckDelay;
+    private int ackDelayExponent;
+    private int ptoCount;
+    private final int[] probes;
+    private long bytesInFlight;
+    private long congestionWindow;
+    private long slowStartThreshold;
+    private long recoveryStartTime;
+    private long timerDeadline;
+    private int timerLevel;
+    private boolean timerLoss;
+    private long idleTimeout;
+    private long lastActivity;
+
+    private boolean closing;
+    private long closeErrorCode;
+    private boolean closeApplication;
+    private String closeReason;
+    private boolean closeSent;
+    private boolean closed;
+
+    /**
+    * 服务端收到客户端的第一个Initial包时创建连接
+    * @param originalDestinationConnectionId 客户端选择的目的连接ID，Initial密钥由它派生
+ 	* @param clientConnectionId 客户端的源连接ID
+ 	* @param sslSupport 提供证书的SSLSupport
+ 	* @param idleTimeout 空闲超时，单位毫秒
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected QuicConnection(byte[] originalDestinationConnectionId, byte[] clientConnectionId, SSLSupport sslSupport, long idleTimeout) throws GeneralSecurityException {
+        this(true, originalDestinationConnectionId, clientConnectionId, idleTimeout);
+        this.spaces[INITIAL].receiveKeys = QuicKeys.initial(originalDestinationConnectionId, true);
+        this.spaces[INITIAL].sendKeys = QuicKeys.initial(originalDestinationConnectionId, false);
+        byte[] statelessResetToken = new byte[16];
+        random.nextBytes(statelessResetToken);
+        this.localParameters.setOriginalDestinationConnectionId(originalDestinationConnectionId);
+        this.localParameters.setStatelessResetToken(statelessResetToken);
+        this.tls = new QuicTlsServer(this, sslSupport);
+    }
+
+    /**
+    * 客户端创建连接，调用connect后开始握手
+    * @param serverName 通过SNI发送的主机名
+ 	* @param idleTimeout 空闲超时，单位毫秒
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected QuicConnection(String serverName, long idleTimeout) throws GeneralSecurityException {
+        this(false, QuicConnection.randomConnectionId(), null, idleTimeout);
+        this.remoteConnectionId = originalDestinationConnectionId;
+        this.spaces[INITIAL].receiveKeys = QuicKeys.initial(originalDestinationConnectionId, false);
+        this.spaces[INITIAL].sendKeys = QuicKeys.initial(originalDestinationConnectionId, true);
+        this.addressValidated = true;
+        this.tls = new QuicTlsClient(this, serverName);
+    }
+
+    private QuicConnection(boolean server, byte[] originalDestinationConnectionId, byte[] remoteConnectionId, long idleTimeout) {
+        this.server = server;
+        this.spaces = new PacketSpace[]{new PacketSpace(), new PacketSpace(), new PacketSpace()};
+        this.localConnectionId = QuicConnection.randomConnectionId();
+        this.remoteConnectionId = remoteConnectionId;
+        this.originalDestinationConnectionId = originalDestinationConnectionId;
+        this.streams = new TreeMap<>();
+        this.nextLocalStream = new long[2];
+        this.remoteStreamsOpened = new long[2];
+        this.localMaxStreams = new long[]{maxStreamsBidi, maxStreamsUni};
+        this.peerMaxStreams = new long[2];
+        this.maxStreamsPending = new boolean[2];
+        this.localMaxData = connectionReceiveWindow;
+        this.resetsPending = new ArrayDeque<>();
+        this.pathResponses = new ArrayDeque<>();
+        this.lastStreamSent = -1;
+        this.smoothedRtt = initialRtt;
+        this.rttVariance = initialRtt / 2;
+        this.maxAckDelay = 25_000_000L;
+        this.ackDelayExponent = 3;
+        this.probes = new int[3];
+        this.congestionWindow = initialWindow;
+        this.slowStartThreshold = Long.MAX_VALUE;
+        this.recoveryStartTime = Long.MIN_VALUE;
+        this.idleTimeout = idleTimeout > 0 ? idleTimeout : 30 * 1000;
+        this.lastActivity = System.nanoTime();
+
+        this.localParameters = new TransportParameters();
+        this.localParameters.setInitialSourceConnectionId(localConnectionId);
+        this.localParameters.setMaxIdleTimeout(this.idleTimeout);
+        this.localParameters.setInitialMaxData(connectionReceiveWindow);
+        this.localParameters.setInitialMaxStreamDataBidiLocal(streamReceiveWindow);
+        this.localParameters.setInitialMaxStreamDataBidiRemote(streamReceiveWindow);
+        this.localParameters.setInitialMaxStreamDataUni(streamReceiveWindow);
+        this.localParameters.setInitialMaxStreamsBidi(maxStreamsBidi);
+        this.localParameters.setInitialMaxStreamsUni(maxStreamsUni);
+        this.localParameters.setMaxUdpPayloadSize(maxDatagramSize);
+        this.localParameters.setDisableActiveMigration(true);
+    }
+
+    private static byte[] randomConnectionId() {
+        byte[] connectionId = new byte[Quic.CONNECTION_ID_LENGTH];
+        random.nextBytes(connectionId);
+        return connectionId;
+    }
+
+    /**
+    * 把一个数据报发往对端
+    * @param datagram 数据报
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected abstract void sendDatagram(ByteBuffer datagram) throws IOException;
+
+    /**
+    * 在指定时长后调用onTimeout，重复调用时以最后一次为准
+    * @param delay 时长，单位毫秒
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected abstract void armTimer(long delay);
+
+    /**
+    * 流上有新的连续数据或者收到了FIN，应用层读取后调用QuicStream的consume，
+    * 抛出的Http3Exception是流错误时重置该流，是连接错误时关闭连接
+    * @param stream 流
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected abstract void onStreamData(QuicStream stream) throws Http3Exception;
+
+    /**
+    * 对端重置了流的发送方向
+    * @param stream 流
+ 	* @param errorCode 应用层的错误码
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected abstract void onStreamReset(QuicStream stream, long errorCode);
+
+    protected abstract void onHandshakeComplete();
+
+    /**
+    * 连接已关闭，不会再收发数据
+    * @param idleTimeout 是否由于空闲超时而关闭
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected abstract void onClosed(boolean idleTimeout);
+
+    /**
+    * 客户端发出ClientHello
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public synchronized void connect() throws GeneralSecurityException {
+        ((QuicTlsClient) tls).start();
+        this.flush();
+    }
+
+    /**
+    * 处理收到的数据报，其中可能合并了多个长报头的包，最后一个可以是短报头的包。
+    * 无法解密的包直接丢弃，协议错误以CONNECTION_CLOSE关闭连接，处理完毕后发出确认和待发送的数据
+    * @param datagram 数据报，要求有底层数组，内容会被就地解密
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public synchronized void receive(ByteBuffer datagram) {
+        if (closed || closing)
+            return;
+        long now = System.nanoTime();
+        bytesReceived += datagram.remaining();
+        byte[] bytes = datagram.array();
+        int offset = datagram.arrayOffset() + datagram.position();
+        int end = datagram.arrayOffset() + datagram.limit();
+        try {
+            while (offset < end && !closed) {
+                int next = this.receivePacket(bytes, offset, end, now);
+                if (next < 0)
+                    break;
+                offset = next;
+            }
+            this.updateReceiveWindows();
+        } catch (QuicException e) {
+            this.close(e.getErrorCode(), false, e.getMessage());
+        } catch (Http3Exception e) {
+            this.close(e.getErrorCode(), true, e.getMessage());
+        }
+        if (closed)
+            return;
+        this.collectStreams();
+        this.flush();
+    }
+
+    /**
+    * 去掉包头保护、解密并处理一个包
+    * @param bytes 数据报所在的数组
+ 	* @param start 包的起点
+ 	* @param end 数据报的终点
+ 	* @param now 收到的时间，单位纳秒
+    * @return int 下一个包的起点，-1表示丢弃数据报的剩余部分
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private int receivePacket(byte[] bytes, int start, int end, long now) throws QuicException, Http3Exception {
+        int first = bytes[start] & 0xff;
+        boolean longHeader = 0 != (first & 0x80);
+        int level;
+        int pnOffset;
+        int packetEnd;
+        byte[] sourceConnectionId = null;
+        if (longHeader) {
+            try {
+                ByteBuffer in = ByteBuffer.wrap(bytes, start + 1, end - start - 1);
+                if (in.remaining() < 4 || in.getInt() != Quic.VERSION_1)
+                    return -1;
+                Quic.readBytes(in, in.get() & 0xff);
+                sourceConnectionId = Quic.readBytes(in, in.get() & 0xff);
+                int type = (first >>> 4) & 0x03;
+                if (type == Quic.PACKET_INITIAL) {
+                    Quic.readBytes(in);   //令牌，不使用Retry时忽略
+                    level = INITIAL;
+                } else if (type == Quic.PACKET_HANDSHAKE) {
+                    level = HANDSHAKE;
+                } else if (type == Quic.PACKET_0RTT) {
+                    level = -1;
+                } else {
+                    return -1;
+                }
+                long length = Quic.readVarInt(in);
+                if (length > in.remaining())
+                    return -1;
+                pnOffset = in.position();
+                packetEnd = pnOffset + (int) length;
+                if (-1 == level)    //不接受0-RTT，丢弃后由客户端以1-RTT重发
+                    return packetEnd;
+            } catch (QuicException | RuntimeException e) {
+                return -1;
+            }
+        } else {
+            level = APPLICATION;
+            pnOffset = start + 1 + Quic.CONNECTION_ID_LENGTH;
+            packetEnd = end;
+        }
+        PacketSpace space = spaces[level];
+        QuicKeys keys = space.receiveKeys;
+        if (null == keys || pnOffset + 4 + QuicKeys.SAMPLE_LENGTH > packetEnd)
+            return packetEnd;
+        int payloadLength;
+        long packetNumber;
+        int headerLength;
+        try {
+            byte[] mask = keys.headerMask(bytes, pnOffset + 4);
+            first ^= mask[0] & (longHeader ? 0x0f : 0x1f);
+            int pnLength = (first & 0x03) + 1;
+            long truncated = 0;
+            for (int i = 0; i < pnLength; i++) {
+                bytes[pnOffset + i] ^= mask[1 + i];
+                truncated = truncated << 8 | (bytes[pnOffset + i] & 0xff);
+            }
+            bytes[start] = (byte) first;
+            packetNumber = Quic.decodePacketNumber(space.largestReceived, truncated, pnLength * 8);
+            headerLength = pnOffset + pnLength - start;
+            payloadLength = keys.open(bytes, start, headerLength, packetEnd - pnOffset - pnLength, packetNumber);
+        } catch (GeneralSecurityException e) {
+            return packetEnd;
+        }
+        if (0 != (first & (longHeader ? 0x0c : 0x18)))
+            throw new QuicException("包头的保留位不为0", QuicException.PROTOCOL_VIOLATION);
+        if (space.received.contains(packetNumber))
+            return packetEnd;
+
+        lastActivity = now;
+        if (server && level == HANDSHAKE) {  //对端能解密Handshake包，地址得到验证，Initial密钥不再需要
+            addressValidated = true;
+            this.discardSpace(INITIAL);
+        }
+        if (!server && level == INITIAL && !remoteConnectionIdUpdated) {  //此后使用服务端选择的连接ID
+            remoteConnectionId = sourceConnectionId;
+            remoteConnectionIdUpdated = true;
+        }
+        boolean ackEliciting = this.processFrames(level, ByteBuffer.wrap(bytes, start + headerLength, payloadLength).slice(), now);
+        space.onReceived(packetNumber, ackEliciting, now);
+        return packetEnd;
+    }
+
+    /**
+    * 依次处理包中的帧，Initial和Handshake包只允许出现PADDING、PING、ACK、CRYPTO和CONNECTION_CLOSE
+    * @param level 包序号空间
+ 	* @param in 解密后的报文体
+ 	* @param now 收到的时间
+    * @return boolean 包是否需要确认
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private boolean processFrames(int level, ByteBuffer in, long now) throws QuicException, Http3Exception {
+        if (!in.hasRemaining())
+            throw new QuicException("数据包中没有帧", QuicException.PROTOCOL_VIOLATION);
+        boolean ackEliciting = false;
+        while (in.hasRemaining() && !closed) {
+            long frameType = Quic.readVarInt(in);
+            if (level != APPLICATION && frameType != Quic.FRAME_PADDING && frameType != Quic.FRAME_PING && frameType != Quic.FRAME_ACK
+                    && frameType != Quic.FRAME_ACK_ECN && frameType != Quic.FRAME_CRYPTO && frameType != Quic.FRAME_CONNECTION_CLOSE)
+                throw new QuicException("握手阶段的数据包中出现了帧: " + frameType, QuicException.PROTOCOL_VIOLATION);
+            if (frameType > Quic.FRAME_HANDSHAKE_DONE)
+                throw new QuicException("未知的帧类型: " + frameType, QuicException.FRAME_ENCODING_ERROR);
+            int type = (int) frameType;
+            ackEliciting |= type != Quic.FRAME_PADDING && type != Quic.FRAME_ACK && type != Quic.FRAME_ACK_ECN
+                    && type != Quic.FRAME_CONNECTION_CLOSE && type != Quic.FRAME_CONNECTION_CLOSE_APP;
+            if (type >= Quic.FRAME_STREAM && type < Quic.FRAME_MAX_DATA) {
+                this.onStreamFrame(type, in);
+                continue;
+            }
+            switch (type) {
+                case Quic.FRAME_PADDING, Quic.FRAME_PING -> {
+                }
+                case Quic.FRAME_ACK, Quic.FRAME_ACK_ECN -> this.onAckFrame(level, type, in, now);
+                case Quic.FRAME_RESET_STREAM -> this.onResetStreamFrame(in);
+                case Quic.FRAME_STOP_SENDING -> {
+                    long id = Quic.readVarInt(in);
+                    long errorCode = Quic.readVarInt(in);
+                    if (!this.isLocal(id) && this.isUnidirectional(id))
+                        throw new QuicException("对端只发送的流不能收到STOP_SENDING: " + id, QuicException.STREAM_STATE_ERROR);
+                    QuicStream stream = this.getOrCreateStream(id);
+                    if (null != stream && !stream.isReset())
+                        this.resetStream(stream, errorCode);
+                }
+                case Quic.FRAME_CRYPTO -> {
+                    long offset = Quic.readVarInt(in);
+                    byte[] data = Quic.readBytes(in);
+                    QuicStream crypto = spaces[level].crypto;
+                    crypto.receive(offset, data, false);
+                    tls.receive(level, crypto);
+                }
+                case Quic.FRAME_NEW_TOKEN -> {
+                    if (server)
+                        throw new QuicException("客户端不能发送NEW_TOKEN", QuicException.PROTOCOL_VIOLATION);
+                    Quic.readBytes(in);
+                }
+                case Quic.FRAME_MAX_DATA -> peerMaxData = Math.max(peerMaxData, Quic.readVarInt(in));
+                case Quic.FRAME_MAX_STREAM_DATA -> {
+                    long id = Quic.readVarInt(in);
+                    long maxStreamData = Quic.readVarInt(in);
+                    if (!this.isLocal(id) && this.isUnidirectional(id))
+                        throw new QuicException("对端只发送的流不能收到MAX_STREAM_DATA: " + id, QuicException.STREAM_STATE_ERROR);
+                    QuicStream stream = this.getOrCreateStream(id);
+                    if (null != stream)
+                        stream.setMaxSendOffset(maxStreamData);
+                }
+                case Quic.FRAME_MAX_STREAMS_BIDI, Quic.FRAME_MAX_STREAMS_UNI -> {
+                    long maxStreams = Quic.readVarInt(in);
+                    if (maxStreams > 1L << 60)
+                        throw new QuicException("MAX_STREAMS超出范围", QuicException.FRAME_ENCODING_ERROR);
+                    int kind = type == Quic.FRAME_MAX_STREAMS_UNI ? 1 : 0;
+                    peerMaxStreams[kind] = Math.max(peerMaxStreams[kind], maxStreams);
+                }
+                case Quic.FRAME_DATA_BLOCKED, Quic.FRAME_STREAMS_BLOCKED_BIDI, Quic.FRAME_STREAMS_BLOCKED_UNI,
+                        Quic.FRAME_RETIRE_CONNECTION_ID -> Quic.readVarInt(in);
+                case Quic.FRAME_STREAM_DATA_BLOCKED -> {
+                    Quic.readVarInt(in);
+                    Quic.readVarInt(in);
+                }
+                case Quic.FRAME_NEW_CONNECTION_ID -> {  //不做连接迁移，新的连接ID不会用到
+                    Quic.readVarInt(in);
+                    Quic.readVarInt(in);
+                    int length = in.hasRemaining() ? in.get() & 0xff : 0;
+                    if (length < 1 || length > 20)
+                        throw new QuicException("连接ID的长度错误", QuicException.FRAME_ENCODING_ERROR);
+                    Quic.readBytes(in, length + 16);
+                }
+                case Quic.FRAME_PATH_CHALLENGE -> pathResponses.add(Quic.readBytes(in, 8));
+                case Quic.FRAME_PATH_RESPONSE -> Quic.readBytes(in, 8);
+                case Quic.FRAME_CONNECTION_CLOSE, Quic.FRAME_CONNECTION_CLOSE_APP -> {
+                    Quic.readVarInt(in);
+                    if (type == Quic.FRAME_CONNECTION_CLOSE)
+                        Quic.readVarInt(in);
+                    Quic.readBytes(in);
+                    closed = true;  //进入draining状态，不再发送任何数据
+                    this.onClosed(false);
+                }
+                default -> {    //HANDSHAKE_DONE
+                    if (server)
+                        throw new QuicException("客户端不能发送HANDSHAKE_DONE", QuicException.PROTOCOL_VIOLATION);
+                    handshakeConfirmed = true;
+                    this.discardSpace(HANDSHAKE);
+                }
+            }
+        }
+        return ackEliciting;
+    }
+
+    private void onStreamFrame(int type, ByteBuffer in) throws QuicException, Http3Exception {
+        long id = Quic.readVarInt(in);
+        long offset = 0 != (type & Quic.STREAM_FLAG_OFF) ? Quic.readVarInt(in) : 0;
+        long length = 0 != (type & Quic.STREAM_FLAG_LEN) ? Quic.readVarInt(in) : in.remaining();
+        byte[] data = Quic.readBytes(in, length);
+        if (offset + length > Quic.MAX_VARINT)
+            throw new QuicException("流的偏移超出范围", QuicException.FRAME_ENCODING_ERROR);
+        if (this.isLocal(id) && this.isUnidirectional(id))
+            throw new QuicException("本端只发送的流收到了数据: " + id, QuicException.STREAM_STATE_ERROR);
+        QuicStream stream = this.getOrCreateStream(id);
+        if (null == stream)
+            return;
+        receivedData += stream.receive(offset, data, 0 != (type & Quic.STREAM_FLAG_FIN));
+        if (receivedData > localMaxData)
+            throw new QuicException("超出了连接的接收窗口", QuicException.FLOW_CONTROL_ERROR);
+        if (stream.isReceiveAborted())
+            return;
+        try {
+            this.onStreamData(stream);
+        } catch (Http3Exception e) {
+            if (e.isConnectionError())
+                throw e;
+            stream.abortReceive();
+            this.resetStream(stream, e.getErrorCode());
+        }
+    }
+
+    private void onResetStreamFrame(ByteBuffer in) throws QuicException {
+        long id = Quic.readVarInt(in);
+        long errorCode = Quic.readVarInt(in);
+        long finalSize = Quic.readVarInt(in);
+        if (this.isLocal(id) && this.isUnidirectional(id))
+            throw new QuicException("本端只发送的流收到了RESET_STREAM: " + id, QuicException.STREAM_STATE_ERROR);
+        QuicStream stream = this.getOrCreateStream(id);
+        if (null == stream || stream.isReceiveAborted())
+            return;
+        receivedData += stream.receive(finalSize, new byte[0], true);
+        if (receivedData > localMaxData)
+            throw new QuicException("超出了连接的接收窗口", QuicException.FLOW_CONTROL_ERROR);
+        stream.abortReceive();
+        this.onStreamReset(stream, errorCode);
+    }
+
+    /**
+    * 取出流，对端发起的新流连同编号更小的同类流一起隐式打开，已关闭的流返回null
+    * @param id 流ID
+    * @return server.http3.QuicStream
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private QuicStream getOrCreateStream(long id) throws QuicException {
+        QuicStream stream = streams.get(id);
+        if (null != stream)
+            return stream;
+        int kind = this.isUnidirectional(id) ? 1 : 0;
+        long index = id >>> 2;
+        if (this.isLocal(id)) {
+            if (index >= nextLocalStream[kind])
+                throw new QuicException("本端尚未打开的流: " + id, QuicException.STREAM_STATE_ERROR);
+            return null;
+        }
+        if (index >= localMaxStreams[kind])
+            throw new QuicException("超出了允许打开的流数: " + id, QuicException.STREAM_LIMIT_ERROR);
+        if (index < remoteStreamsOpened[kind])
+            return null;
+        for (long i = remoteStreamsOpened[kind]; i <= index; i++) {
+            long streamId = i << 2 | (id & 0x03);
+            streams.put(streamId, this.newStream(streamId));
+        }
+        remoteStreamsOpened[kind] = index + 1;
+        return streams.get(id);
+    }
+
+    private QuicStream newStream(long id) {
+        boolean local = this.isLocal(id);
+        long receiveWindow;
+        long sendWindow;
+        if (this.isUnidirectional(id)) {
+            receiveWindow = local ? 0 : localParameters.getInitialMaxStreamDataUni();
+            sendWindow = local ? peerParameters.getInitialMaxStreamDataUni() : 0;
+        } else if (local) {
+            receiveWindow = localParameters.getInitialMaxStreamDataBidiLocal();
+            sendWindow = peerParameters.getInitialMaxStreamDataBidiRemote();
+        } else {
+            receiveWindow = localParameters.getInitialMaxStreamDataBidiRemote();
+            sendWindow = peerParameters.getInitialMaxStreamDataBidiLocal();
+        }
+        return new QuicStream(id, receiveWindow, sendWindow);
+    }
+
+    private boolean isLocal(long id) {
+        return (1 == (id & 0x01)) == server;
+    }
+
+    private boolean isUnidirectional(long id) {
+        return 0 != (id & 0x02);
+    }
+
+    /**
+    * 处理ACK帧，确认的包从在途包中移除并增大拥塞窗口，最大包序号新被确认时采样RTT，之后检测丢包
+    * @param level 包序号空间
+ 	* @param type 帧类型，ACK_ECN多出三个计数
+ 	* @param in 输入
+ 	* @param now 收到的时间
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void onAckFrame(int level, int type, ByteBuffer in, long now) throws QuicException {
+        long largest = Quic.readVarInt(in);
+        long ackDelay = Quic.readVarInt(in);
+        long rangeCount = Quic.readVarInt(in);
+        long firstRange = Quic.readVarInt(in);
+        if (firstRange > largest)
+            throw new QuicException("ACK的区间无效", QuicException.FRAME_ENCODING_ERROR);
+        List<long[]> ranges = new ArrayList<>();
+        long low = largest - firstRange;
+        ranges.add(new long[]{low, largest});
+        for (long i = 0; i < rangeCount; i++) {
+            long high = low - Quic.readVarInt(in) - 2;
+            low = high - Quic.readVarInt(in);
+            if (high < 0 || low < 0)
+                throw new QuicException("ACK的区间无效", QuicException.FRAME_ENCODING_ERROR);
+            ranges.add(new long[]{low, high});
+        }
+        if (type == Quic.FRAME_ACK_ECN) {
+            for (int i = 0; i < 3; i++)
+                Quic.readVarInt(in);
+        }
+        PacketSpace space = spaces[level];
+        if (largest >= space.nextPacketNumber)
+            throw new QuicException("确认了尚未发送的包: " + largest, QuicException.PROTOCOL_VIOLATION);
+
+        SentPacket largestNewlyAcked = null;
+        boolean ackElicitingAcked = false;
+        Iterator<SentPacket> iterator = space.sentPackets.values().iterator();
+        while (iterator.hasNext()) {
+            SentPacket packet = iterator.next();
+            if (packet.packetNumber > largest)
+                break;
+            if (!QuicConnection.contains(ranges, packet.packetNumber))
+                continue;
+            iterator.remove();
+            this.onPacketAcked(packet);
+            ackElicitingAcked |= packet.ackEliciting;
+            if (packet.packetNumber == largest)
+                largestNewlyAcked = packet;
+        }
+        space.largestAcked = Math.max(space.largestAcked, largest);
+        if (null != largestNewlyAcked && ackElicitingAcked)
+            this.updateRtt(now - largestNewlyAcked.timeSent, level == APPLICATION ? (ackDelay << ackDelayExponent) * 1000 : 0);
+        this.detectLostPackets(level, now);
+        ptoCount = 0;
+    }
+
+    private static boolean contains(List<long[]> ranges, long packetNumber) {
+        for (long[] range : ranges) {
+            if (packetNumber >= range[0] && packetNumber <= range[1])
+                return true;
+        }
+        return false;
+    }
+
+    private void updateRtt(long sample, long ackDelay) {
+        latestRtt = sample;
+        if (!rttSampled) {
+            rttSampled = true;
+            minRtt = sample;
+            smoothedRtt = sample;
+            rttVariance = sample / 2;
+            return;
+        }
+        minRtt = Math.min(minRtt, sample);
+        if (handshakeConfirmed)
+            ackDelay = Math.min(ackDelay, maxAckDelay);
+        long adjusted = sample >= minRtt + ackDelay ? sample - ackDelay : sample;
+        rttVariance = (3 * rttVariance + Math.abs(smoothedRtt - adjusted)) / 4;
+        smoothedRtt = (7 * smoothedRtt + adjusted) / 8;
+    }
+
+    private void onPacketAcked(SentPacket packet) {
+        bytesInFlight -= packet.size;
+        if (packet.timeSent > recoveryStartTime) {  //恢复期内发出的包被确认时不增大窗口
+            if (congestionWindow < slowStartThreshold)
+                congestionWindow += packet.size;
+            else
+                congestionWindow += (long) maxDatagramSize * packet.size / congestionWindow;
+        }
+        for (long[] frame : packet.frames) {
+            if (frame[0] == Quic.FRAME_STREAM) {
+                QuicStream stream = streams.get(frame[1]);
+                if (null != stream)
+                    stream.onAcked(frame[2], frame[3], 1 == frame[4]);
+            } else if (frame[0] == Quic.FRAME_CRYPTO) {
+                spaces[(int) frame[1]].crypto.onAcked(frame[2], frame[3], false);
+            }
+        }
+    }
+
+    /**
+    * 按包序号阈值和时间阈值检测丢包，尚未达到时间阈值的包记下判定时间
+    * @param level 包序号空间
+ 	* @param now 当前时间
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void detectLostPackets(int level, long now) {
+        PacketSpace space = spaces[level];
+        space.lossTime = 0;
+        if (space.largestAcked < 0)
+            return;
+        long lossDelay = Math.max(9 * Math.max(latestRtt, smoothedRtt) / 8, granularity);
+        long lostSendTime = now - lossDelay;
+        long largestLostTime = Long.MIN_VALUE;
+        Iterator<SentPacket> iterator = space.sentPackets.values().iterator();
+        while (iterator.hasNext()) {
+            SentPacket packet = iterator.next();
+            if (packet.packetNumber > space.largestAcked)
+                break;
+            if (packet.timeSent <= lostSendTime || space.largestAcked >= packet.packetNumber + packetThreshold) {
+                iterator.remove();
+                bytesInFlight -= packet.size;
+                this.onFramesLost(packet);
+                largestLostTime = Math.max(largestLostTime, packet.timeSent);
+            } else {
+                long lossTime = packet.timeSent + lossDelay;
+                space.lossTime = 0 == space.lossTime ? lossTime : Math.min(space.lossTime, lossTime);
+            }
+        }
+        if (largestLostTime > recoveryStartTime) {  //每个恢复期只减小一次窗口
+            recoveryStartTime = now;
+            slowStartThreshold = Math.max(congestionWindow / 2, minimumWindow);
+            congestionWindow = slowStartThreshold;
+        }
+    }
+
+    /**
+    * 丢失的包中需要可靠传输的帧重新排队
+    * @param packet 丢失或者需要探测重传的包
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void onFramesLost(SentPacket packet) {
+        for (long[] frame : packet.frames) {
+            switch ((int) frame[0]) {
+                case Quic.FRAME_STREAM -> {
+                    QuicStream stream = streams.get(frame[1]);
+                    if (null != stream)
+                        stream.onLost(frame[2], frame[3], 1 == frame[4]);
+                }
+                case Quic.FRAME_CRYPTO -> spaces[(int) frame[1]].crypto.onLost(frame[2], frame[3], false);
+                case Quic.FRAME_HANDSHAKE_DONE -> handshakeDonePending = true;
+                case Quic.FRAME_MAX_DATA -> maxDataPending = true;
+                case Quic.FRAME_MAX_STREAMS_BIDI -> maxStreamsPending[0] = true;
+                case Quic.FRAME_MAX_STREAMS_UNI -> maxStreamsPending[1] = true;
+                case Quic.FRAME_MAX_STREAM_DATA -> {
+                    QuicStream stream = streams.get(frame[1]);
+                    if (null != stream)
+                        stream.setMaxStreamDataPending(true);
+                }
+                case Quic.FRAME_RESET_STREAM -> resetsPending.add(new long[]{frame[1], frame[2], frame[3]});
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void discardSpace(int level) {
+        PacketSpace space = spaces[level];
+        if (space.discarded)
+            return;
+        for (SentPacket packet : space.sentPackets.values())
+            bytesInFlight -= packet.size;
+        space.sentPackets.clear();
+        space.sendKeys = null;
+        space.receiveKeys = null;
+        space.ackPending = false;
+        space.lossTime = 0;
+        space.discarded = true;
+        probes[level] = 0;
+        ptoCount = 0;
+    }
+
+    /**
+    * 计时器到期：空闲超时直接关闭连接，否则按丢包判定时间检测丢包，或者在探测超时后发出探测包
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public synchronized void onTimeout() {
+        if (closed)
+            return;
+        long now = System.nanoTime();
+        if (now - lastActivity >= idleTimeout * 1_000_000L) {   //空闲超时不通知对端
+            closed = true;
+            this.onClosed(true);
+            return;
+        }
+        if (0 != timerDeadline && now - timerDeadline >= 0) {
+            if (timerLoss) {
+                this.detectLostPackets(timerLevel, now);
+            } else {
+                ptoCount++;
+                probes[timerLevel] = 2;
+            }
+        }
+        this.flush();
+    }
+
+    /**
+    * 计算丢包检测的计时器：有包等待时间阈值时取最早的判定时间，否则取最早的探测超时，
+    * 1-RTT空间在握手确认之前不设探测超时；客户端在握手确认前即使没有在途包也要设置，防止服务端受放大限制时双方僵持
+    * @param now 当前时间
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void setTimer(long now) {
+        timerDeadline = 0;
+        timerLoss = false;
+        for (int level = INITIAL; level <= APPLICATION; level++) {
+            long lossTime = spaces[level].lossTime;
+            if (0 != lossTime && (0 == timerDeadline || lossTime < timerDeadline)) {
+                timerDeadline = lossTime;
+                timerLevel = level;
+                timerLoss = true;
+            }
+        }
+        if (!timerLoss) {
+            long duration = (smoothedRtt + Math.max(4 * rttVariance, granularity)) << Math.min(ptoCount, 16);
+            for (int level = INITIAL; level <= APPLICATION; level++) {
+                PacketSpace space = spaces[level];
+                if (space.discarded || !space.hasAckElicitingInFlight() || level == APPLICATION && !handshakeConfirmed)
+                    continue;
+                long ptoTime = space.lastAckElicitingTime + duration + (level == APPLICATION ? maxAckDelay << Math.min(ptoCount, 16) : 0);
+                if (0 == timerDeadline || ptoTime < timerDeadline) {
+                    timerDeadline = ptoTime;
+                    timerLevel = level;
+                }
+            }
+            if (0 == timerDeadline && !server && !handshakeConfirmed) {
+                timerDeadline = now + duration;
+                timerLevel = null != spaces[HANDSHAKE].sendKeys ? HANDSHAKE : INITIAL;
+            }
+        }
+        long deadline = lastActivity + idleTimeout * 1_000_000L;
+        if (0 != timerDeadline && timerDeadline < deadline)
+            deadline = timerDeadline;
+        this.armTimer(Math.max(1, (deadline - now + 999_999) / 1_000_000));
+    }
+
+    /**
+    * 组装并发出所有可以发送的数据，受拥塞窗口和服务端验证地址之前三倍放大的限制，之后重新设置计时器
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public synchronized void flush() {
+        if (closed)
+            return;
+        try {
+            ByteBuffer datagram;
+            while (null != (datagram = this.buildDatagram(System.nanoTime()))) {
+                bytesSent += datagram.remaining();
+                this.sendDatagram(datagram);
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            LogFactory.get().error(e);
+            closing = true;
+        }
+        if (closing) {
+            closed = true;
+            this.onClosed(false);
+            return;
+        }
+        this.setTimer(System.nanoTime());
+    }
+
+    /**
+    * 组装一个数据报，各个包序号空间的包依次合并，短报头的1-RTT包放在最后。
+    * 含有Initial包的数据报在客户端总是、在服务端需要确认时填充到1200字节，填充放在最后一个包中
+    * @param now 当前时间
+    * @return java.nio.ByteBuffer 没有可发送的数据时返回null
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private ByteBuffer buildDatagram(long now) throws GeneralSecurityException {
+        int limit = maxDatagramSize;
+        if (!addressValidated)
+            limit = (int) Math.min(limit, 3 * bytesReceived - bytesSent);
+        byte[] bytes = new byte[maxDatagramSize];
+        int[][] packets = new int[3][];   //起点、包头长度、报文体长度
+        SentPacket[] sentPackets = new SentPacket[3];
+        int position = 0;
+        int last = -1;
+        boolean padding = false;
+        for (int level = INITIAL; level <= APPLICATION; level++) {
+            PacketSpace space = spaces[level];
+            if (null == space.sendKeys)
+                continue;
+            int headerLength = this.headerLength(level);
+            int budget = limit - position - headerLength - QuicKeys.TAG_LENGTH;
+            if (budget < 32)
+                break;
+            ByteBuffer out = ByteBuffer.wrap(bytes, position + headerLength, budget);
+            SentPacket packet = new SentPacket(space.nextPacketNumber, now);
+            this.writeFrames(level, out, packet, now);
+            int payloadLength = out.position() - position - headerLength;
+            if (0 == payloadLength)
+                continue;
+            packets[level] = new int[]{position, headerLength, payloadLength};
+            sentPackets[level] = packet;
+            padding |= level == INITIAL && (!server || packet.ackEliciting);
+            position += headerLength + payloadLength + QuicKeys.TAG_LENGTH;
+            last = level;
+        }
+        if (-1 == last)
+            return null;
+        closeSent |= closing;   //CONNECTION_CLOSE只发送一次
+        if (padding && position < limit) {
+            packets[last][2] += limit - position;
+            position = limit;
+        }
+        for (int level = INITIAL; level <= APPLICATION; level++) {
+            if (null == packets[level])
+                continue;
+            PacketSpace space = spaces[level];
+            SentPacket packet = sentPackets[level];
+            int start = packets[level][0];
+            int headerLength = packets[level][1];
+            int payloadLength = packets[level][2];
+            this.writeHeader(level, bytes, start, headerLength, payloadLength, packet.packetNumber);
+            space.sendKeys.seal(bytes, start, headerLength, payloadLength, packet.packetNumber);
+            int pnOffset = start + headerLength - 4;
+            byte[] mask = space.sendKeys.headerMask(bytes, pnOffset + 4);
+            bytes[start] ^= mask[0] & (level == APPLICATION ? 0x1f : 0x0f);
+            for (int i = 0; i < 4; i++)
+                bytes[pnOffset + i] ^= mask[1 + i];
+            space.nextPacketNumber++;
+            if (packet.ackEliciting) {
+                packet.size = headerLength + payloadLength + QuicKeys.TAG_LENGTH;
+                space.sentPackets.put(packet.packetNumber, packet);
+                space.lastAckElicitingTime = now;
+                bytesInFlight += packet.size;
+                lastActivity = now;
+                if (probes[level] > 0)
+                    probes[level]--;
+            }
+        }
+        if (!server && null != packets[HANDSHAKE])  //客户端发出第一个Handshake包后不再需要Initial密钥
+            this.discardSpace(INITIAL);
+        return ByteBuffer.wrap(bytes, 0, position);
+    }
+
+    private int headerLength(int level) {
+        if (level == APPLICATION)
+            return 1 + remoteConnectionId.length + 4;
+        return 1 + 4 + 1 + remoteConnectionId.length + 1 + localConnectionId.length + (level == INITIAL ? 1 : 0) + 2 + 4;
+    }
+
+    /**
+    * 写出包头，包序号固定为4字节，长报头的Length字段固定为2字节的变长整数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void writeHeader(int level, byte[] bytes, int start, int headerLength, int payloadLength, long packetNumber) {
+        ByteBuffer out = ByteBuffer.wrap(bytes, start, headerLength);
+        if (level == APPLICATION) {
+            out.put((byte) (0x40 | 0x03));
+            out.put(remoteConnectionId);
+        } else {
+            int type = level == INITIAL ? Quic.PACKET_INITIAL : Quic.PACKET_HANDSHAKE;
+            out.put((byte) (0xc0 | type << 4 | 0x03));
+            out.putInt(Quic.VERSION_1);
+            out.put((byte) remoteConnectionId.length).put(remoteConnectionId);
+            out.put((byte) localConnectionId.length).put(localConnectionId);
+            if (level == INITIAL)
+                out.put((byte) 0);  //令牌长度
+            out.putShort((short) (0x4000 | (4 + payloadLength + QuicKeys.TAG_LENGTH)));
+        }
+        out.putInt((int) packetNumber);
+    }
+
+    /**
+    * 写出一个包的帧：ACK、控制帧、CRYPTO和STREAM，拥塞窗口已满时只发送ACK，探测时至少带一个PING
+    * @param level 包序号空间
+ 	* @param out 报文体的输出
+ 	* @param packet 记录需要可靠传输的帧
+ 	* @param now 当前时间
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void writeFrames(int level, ByteBuffer out, SentPacket packet, long now) {
+        PacketSpace space = spaces[level];
+        if (space.ackPending && !space.received.isEmpty())
+            this.writeAck(space, out, now);
+        if (closing) {
+            if (!closeSent)
+                this.writeConnectionClose(level, out);
+            return;
+        }
+        if (bytesInFlight + maxDatagramSize > congestionWindow && 0 == probes[level])
+            return;
+        if (probes[level] > 0 && !this.hasPendingData(level) && !space.sentPackets.isEmpty())
+            this.onFramesLost(space.sentPackets.values().iterator().next());  //探测时重发最早的未确认数据
+        if (level == APPLICATION)
+            this.writeControlFrames(out, packet);
+        QuicStream crypto = space.crypto;
+        long[] chunk;
+        while (out.remaining() > 16 && null != (chunk = crypto.nextChunk(out.remaining() - 1 - 8 - 4, Long.MAX_VALUE))) {
+            Quic.writeVarInt(out, Quic.FRAME_CRYPTO);
+            Quic.writeVarInt(out, chunk[0]);
+            Quic.writeVarInt(out, chunk[1]);
+            crypto.copyTo(out, chunk[0], (int) chunk[1]);
+            packet.frames.add(new long[]{Quic.FRAME_CRYPTO, level, chunk[0], chunk[1]});
+            packet.ackEliciting = true;
+        }
+        if (level == APPLICATION)
+            this.writeStreamFrames(out, packet);
+        if (probes[level] > 0 && !packet.ackEliciting) {
+            Quic.writeVarInt(out, Quic.FRAME_PING);
+            packet.ackEliciting = true;
+        }
+    }
+
+    private boolean hasPendingData(int level) {
+        if (spaces[level].crypto.hasPendingData())
+            return true;
+        if (level != APPLICATION)
+            return false;
+        for (QuicStream stream : streams.values()) {
+            if (stream.hasPendingData())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+    * 写出ACK帧，区间从大到小排列，最多16个
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void writeAck(PacketSpace space, ByteBuffer out, long now) {
+        List<Map.Entry<Long, Long>> ranges = new ArrayList<>(space.received.descending().entrySet());
+        int count = Math.min(ranges.size(), maxAckRangesSent);
+        Map.Entry<Long, Long> first = ranges.get(0);
+        Quic.writeVarInt(out, Quic.FRAME_ACK);
+        Quic.writeVarInt(out, first.getValue());
+        Quic.writeVarInt(out, Math.max(0, now - space.largestReceivedTime) / 1000 >> 3);
+        Quic.writeVarInt(out, count - 1);
+        Quic.writeVarInt(out, first.getValue() - first.getKey());
+        long low = first.getKey();
+        for (int i = 1; i < count; i++) {
+            Map.Entry<Long, Long> range = ranges.get(i);
+            Quic.writeVarInt(out, low - range.getValue() - 2);
+            Quic.writeVarInt(out, range.getValue() - range.getKey());
+            low = range.getKey();
+        }
+        space.ackPending = false;
+    }
+
+    private void writeConnectionClose(int level, ByteBuffer out) {
+        String reason = null == closeReason ? "" : closeReason.substring(0, Math.min(closeReason.length(), 64));
+        byte[] reasonBytes = reason.getBytes(StandardCharsets.UTF_8);
+        if (closeApplication && level == APPLICATION) {
+            Quic.writeVarInt(out, Quic.FRAME_CONNECTION_CLOSE_APP);
+            Quic.writeVarInt(out, closeErrorCode);
+        } else {    //握手阶段的包中不能出现应用层错误码，改为APPLICATION_ERROR
+            Quic.writeVarInt(out, Quic.FRAME_CONNECTION_CLOSE);
+            Quic.writeVarInt(out, closeApplication ? 0x0c : closeErrorCode);
+            Quic.writeVarInt(out, 0);
+        }
+        Quic.writeVarInt(out, reasonBytes.length);
+        out.put(reasonBytes);
+    }
+
+    private void writeControlFrames(ByteBuffer out, SentPacket packet) {
+        int before = out.position();
+        if (handshakeDonePending) {
+            Quic.writeVarInt(out, Quic.FRAME_HANDSHAKE_DONE);
+            packet.frames.add(new long[]{Quic.FRAME_HANDSHAKE_DONE});
+            handshakeDonePending = false;
+        }
+        byte[] pathResponse;
+        while (out.remaining() > 9 && null != (pathResponse = pathResponses.poll())) {
+            Quic.writeVarInt(out, Quic.FRAME_PATH_RESPONSE);
+            out.put(pathResponse);
+        }
+        if (maxDataPending && out.remaining() > 9) {
+            Quic.writeVarInt(out, Quic.FRAME_MAX_DATA);
+            Quic.writeVarInt(out, localMaxData);
+            packet.frames.add(new long[]{Quic.FRAME_MAX_DATA});
+            maxDataPending = false;
+        }
+        for (int kind = 0; kind < 2; kind++) {
+            if (maxStreamsPending[kind] && out.remaining() > 9) {
+                int type = 0 == kind ? Quic.FRAME_MAX_STREAMS_BIDI : Quic.FRAME_MAX_STREAMS_UNI;
+                Quic.writeVarInt(out, type);
+                Quic.writeVarInt(out, localMaxStreams[kind]);
+                packet.frames.add(new long[]{type});
+                maxStreamsPending[kind] = false;
+            }
+        }
+        for (QuicStream stream : streams.values()) {
+            if (stream.isMaxStreamDataPending() && out.remaining() > 17) {
+                Quic.writeVarInt(out, Quic.FRAME_MAX_STREAM_DATA);
+                Quic.writeVarInt(out, stream.getId());
+                Quic.writeVarInt(out, stream.getMaxReceiveOffset());
+                packet.frames.add(new long[]{Quic.FRAME_MAX_STREAM_DATA, stream.getId()});
+                stream.setMaxStreamDataPending(false);
+            }
+        }
+        long[] reset;
+        while (out.remaining() > 25 && null != (reset = resetsPending.poll())) {
+            Quic.writeVarInt(out, Quic.FRAME_RESET_STREAM);
+            Quic.writeVarInt(out, reset[0]);
+            Quic.writeVarInt(out, reset[1]);
+            Quic.writeVarInt(out, reset[2]);
+            packet.frames.add(new long[]{Quic.FRAME_RESET_STREAM, reset[0], reset[1], reset[2]});
+        }
+        packet.ackEliciting |= out.position() > before;
+    }
+
+    /**
+    * 写出STREAM帧，从上次发送的流之后开始轮流取各个流的数据，新数据受连接级窗口的限制
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void writeStreamFrames(ByteBuffer out, SentPacket packet) {
+        List<QuicStream> order = new ArrayList<>(streams.tailMap(lastStreamSent, false).values());
+        order.addAll(streams.headMap(lastStreamSent, true).values());
+        for (QuicStream stream : order) {
+            while (out.remaining() > 24 && stream.hasPendingData()) {
+                long id = stream.getId();
+                long sendOffset = stream.getSendOffset();
+                int frameHeaderLength = 1 + Quic.varIntLength(id) + 8 + 2;
+                long[] chunk = stream.nextChunk(out.remaining() - frameHeaderLength, peerMaxData - sentData);
+                if (null == chunk)
+                    break;
+                sentData += stream.getSendOffset() - sendOffset;
+                int type = Quic.FRAME_STREAM | Quic.STREAM_FLAG_LEN | (0 != chunk[0] ? Quic.STREAM_FLAG_OFF : 0) | (1 == chunk[2] ? Quic.STREAM_FLAG_FIN : 0);
+                Quic.writeVarInt(out, type);
+                Quic.writeVarInt(out, id);
+                if (0 != chunk[0])
+                    Quic.writeVarInt(out, chunk[0]);
+                Quic.writeVarInt(out, chunk[1]);
+                stream.copyTo(out, chunk[0], (int) chunk[1]);
+                packet.frames.add(new long[]{Quic.FRAME_STREAM, id, chunk[0], chunk[1], chunk[2]});
+                packet.ackEliciting = true;
+                lastStreamSent = id;
+            }
+            if (out.remaining() <= 24)
+                return;
+        }
+    }
+
+    /**
+    * 应用层取走数据后扩大流和连接的接收窗口
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void updateReceiveWindows() {
+        for (QuicStream stream : streams.values()) {
+            consumedData += stream.takeConsumed();
+            if (stream.updateReceiveWindow())
+                stream.setMaxStreamDataPending(true);
+        }
+        if (consumedData + connectionReceiveWindow / 2 > localMaxData) {
+            localMaxData = consumedData + connectionReceiveWindow;
+            maxDataPending = true;
+        }
+    }
+
+    /**
+    * 回收两个方向都已结束的流，对端发起的流回收后允许对端再打开一个
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void collectStreams() {
+        Iterator<QuicStream> iterator = streams.values().iterator();
+        while (iterator.hasNext()) {
+            QuicStream stream = iterator.next();
+            long id = stream.getId();
+            boolean local = this.isLocal(id);
+            boolean finished;
+            if (this.isUnidirectional(id))
+                finished = local ? stream.isSendFinished() : stream.isReceiveFinished();
+            else
+                finished = stream.isReceiveFinished() && stream.isSendFinished();
+            if (!finished)
+                continue;
+            iterator.remove();
+            if (!local) {
+                int kind = this.isUnidirectional(id) ? 1 : 0;
+                localMaxStreams[kind]++;
+                maxStreamsPending[kind] = true;
+            }
+        }
+    }
+
+    /**
+    * 本端打开一个新的流
+    * @param bidirectional 是否为双向流
+    * @return server.http3.QuicStream
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public synchronized QuicStream openStream(boolean bidirectional) throws QuicException {
+        int kind = bidirectional ? 0 : 1;
+        if (nextLocalStream[kind] >= peerMaxStreams[kind])
+            throw new QuicException("超出了对端允许打开的流数", QuicException.STREAM_LIMIT_ERROR);
+        long id = nextLocalStream[kind]++ << 2 | (server ? 0x01 : 0x00) | (bidirectional ? 0x00 : 0x02);
+        QuicStream stream = this.newStream(id);
+        streams.put(id, stream);
+        return stream;
+    }
+
+    /**
+    * 在流上写入数据，调用flush后发出
+    * @param stream 流
+ 	* @param data 数据
+ 	* @param fin 是否结束发送方向
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public synchronized void write(QuicStream stream, byte[] data, boolean fin) {
+        if (closed || stream.isReset())
+            return;
+        stream.write(data, fin);
+    }
+
+    /**
+    * 放弃流的发送方向，以RESET_STREAM通知对端
+    * @param stream 流
+ 	* @param errorCode 应用层的错误码
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public synchronized void resetStream(QuicStream stream, long errorCode) {
+        if (stream.isReset() || this.isUnidirectional(stream.getId()) && !this.isLocal(stream.getId()))
+            return;
+        stream.reset();
+        resetsPending.add(new long[]{stream.getId(), errorCode, stream.getSendOffset()});
+    }
+
+    /**
+    * 以CONNECTION_CLOSE关闭连接
+    * @param errorCode 错误码
+ 	* @param application 是否为应用层的错误码
+ 	* @param reason 原因
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public synchronized void close(long errorCode, boolean application, String reason) {
+        if (closed || closing)
+            return;
+        closing = true;
+        closeErrorCode = errorCode;
+        closeApplication = application;
+        closeReason = reason;
+        this.flush();
+    }
+
+    void writeCrypto(int level, byte[] data) {
+        spaces[level].crypto.write(data, false);
+    }
+
+    /**
+    * 安装TLS推出的流量密钥
+    * @param level 包序号空间
+ 	* @param receiveSecret 接收方向的密钥，为null时不变
+ 	* @param sendSecret 发送方向的密钥，为null时不变
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void installKeys(int level, byte[] receiveSecret, byte[] sendSecret) throws GeneralSecurityException {
+        if (null != receiveSecret)
+            spaces[level].receiveKeys = new QuicKeys(receiveSecret);
+        if (null != sendSecret)
+            spaces[level].sendKeys = new QuicKeys(sendSecret);
+    }
+
+    /**
+    * 校验并应用对端的传输参数，握手中的连接ID必须与包头中的一致，防止被篡改
+    * @param parameters 对端的传输参数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void onTransportParameters(TransportParameters parameters) throws QuicException {
+        if (!Arrays.equals(parameters.getInitialSourceConnectionId(), remoteConnectionId)
+                || !server && !Arrays.equals(parameters.getOriginalDestinationConnectionId(), originalDestinationConnectionId))
+            throw new QuicException("传输参数中的连接ID与包头不一致", QuicException.TRANSPORT_PARAMETER_ERROR);
+        peerParameters = parameters;
+        peerMaxData = parameters.getInitialMaxData();
+        peerMaxStreams[0] = parameters.getInitialMaxStreamsBidi();
+        peerMaxStreams[1] = parameters.getInitialMaxStreamsUni();
+        maxAckDelay = parameters.getMaxAckDelay() * 1_000_000L;
+        ackDelayExponent = (int) parameters.getAckDelayExponent();
+        if (parameters.getMaxIdleTimeout() > 0)
+            idleTimeout = Math.min(idleTimeout, parameters.getMaxIdleTimeout());
+    }
+
+    /**
+    * TLS握手完成，服务端此时握手已确认，丢弃Handshake密钥并通过HANDSHAKE_DONE通知客户端
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void onTlsComplete() {
+        handshakeComplete = true;
+        if (server) {
+            handshakeConfirmed = true;
+            handshakeDonePending = true;
+            this.discardSpace(HANDSHAKE);
+        }
+        this.onHandshakeComplete();
+    }
+
+    TransportParameters getLocalParameters() {
+        return localParameters;
+    }
+
+    public byte[] getLocalConnectionId() {
+        return localConnectionId;
+    }
+
+    public byte[] getOriginalDestinationConnectionId() {
+        return originalDestinationConnectionId;
+    }
+
+    public QuicTls getTls() {
+        return tls;
+    }
+
+    public boolean isHandshakeComplete() {
+        return handshakeComplete;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,165 @@
+package server.http3;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+* 一个方向上的QUIC包保护密钥（RFC 9001第5节），由TLS的流量密钥派生出AEAD密钥、IV和包头保护密钥。
+* 只支持TLS_AES_128_GCM_SHA256，报文体用AES-128-GCM加密，包头中的包序号和标志位用AES-ECB对密文采样生成的掩码保护
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class QuicKeys {
+    static final int TAG_LENGTH = 16;
+    static final int SAMPLE_LENGTH = 16;
+    private static final byte[] INITIAL_SALT = {
+            0x38, 0x76, 0x2c, (byte) 0xf7, (byte) 0xf5, 0x59, 0x34, (byte) 0xb3, 0x4d, 0x17,
+            (byte) 0x9a, (byte) 0xe6, (byte) 0xa4, (byte) 0xc8, 0x0c, (byte) 0xad, (byte) 0xcc, (byte) 0xbb, 0x7f, 0x0a
+    };
+    private final SecretKeySpec key;
+    private final byte[] iv;
+    private final Cipher aead;
+    private final Cipher headerProtection;
+
+    /**
+    * 从流量密钥派生包保护密钥
+    * @param secret TLS的流量密钥
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public QuicKeys(byte[] secret) throws GeneralSecurityException {
+        this.key = new SecretKeySpec(QuicKeys.hkdfExpandLabel(secret, "quic key", new byte[0], 16), "AES");
+        this.iv = QuicKeys.hkdfExpandLabel(secret, "quic iv", new byte[0], 12);
+        this.aead = Cipher.getInstance("AES/GCM/NoPadding");
+        this.headerProtection = Cipher.getInstance("AES/ECB/NoPadding");
+        byte[] hp = QuicKeys.hkdfExpandLabel(secret, "quic hp", new byte[0], 16);
+        this.headerProtection.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(hp, "AES"));
+    }
+
+    /**
+    * Initial包的密钥由客户端选择的目的连接ID派生，任何观察者都能算出，只用于防止误处理
+    * @param destinationConnectionId 客户端第一个Initial包的目的连接ID
+ 	* @param client 是否取客户端方向的密钥
+    * @return server.http3.QuicKeys
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static QuicKeys initial(byte[] destinationConnectionId, boolean client) throws GeneralSecurityException {
+        byte[] initialSecret = QuicKeys.hkdfExtract(INITIAL_SALT, destinationConnectionId);
+        return new QuicKeys(QuicKeys.hkdfExpandLabel(initialSecret, client ? "client in" : "server in", new byte[0], 32));
+    }
+
+    /**
+    * 加密报文体并写入认证标签，报文体就地替换为密文，包头作为附加数据
+    * @param packet 数据包所在的数组
+ 	* @param offset 包头的起点
+ 	* @param headerLength 包头的长度，包头以包序号结尾
+ 	* @param payloadLength 明文报文体的长度
+ 	* @param packetNumber 完整的包序号
+    * @return int 加密后报文体和标签的总长度
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    int seal(byte[] packet, int offset, int headerLength, int payloadLength, long packetNumber) throws GeneralSecurityException {
+        aead.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, this.nonce(packetNumber)));
+        aead.updateAAD(packet, offset, headerLength);
+        int payloadOffset = offset + headerLength;
+        return aead.doFinal(packet, payloadOffset, payloadLength, packet, payloadOffset);
+    }
+
+    /**
+    * 解密并校验报文体，明文就地写回
+    * @param packet 数据包所在的数组
+ 	* @param offset 包头的起点
+ 	* @param headerLength 去掉包头保护后的包头长度
+ 	* @param ciphertextLength 密文和标签的总长度
+ 	* @param packetNumber 还原后的完整包序号
+    * @return int 明文的长度
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    int open(byte[] packet, int offset, int headerLength, int ciphertextLength, long packetNumber) throws GeneralSecurityException {
+        if (ciphertextLength < TAG_LENGTH)
+            throw new AEADBadTagException("数据包过短");
+        aead.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, this.nonce(packetNumber)));
+        aead.updateAAD(packet, offset, headerLength);
+        int payloadOffset = offset + headerLength;
+        return aead.doFinal(packet, payloadOffset, ciphertextLength, packet, payloadOffset);
+    }
+
+    /**
+    * 对密文采样，生成包头保护的掩码，掩码的首字节保护标志位，后4字节保护包序号
+    * @param packet 数据包所在的数组
+ 	* @param sampleOffset 采样的起点，即包序号起点之后4字节
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    byte[] headerMask(byte[] packet, int sampleOffset) throws GeneralSecurityException {
+        return headerProtection.doFinal(packet, sampleOffset, SAMPLE_LENGTH);
+    }
+
+    private byte[] nonce(long packetNumber) {
+        byte[] nonce = iv.clone();
+        for (int i = 0; i < 8; i++)
+            nonce[nonce.length - 1 - i] ^= (byte) (packetNumber >>> (8 * i));
+        return nonce;
+    }
+
+    /**
+    * HKDF-Extract（RFC 5869），哈希算法为SHA-256
+    * @param salt 盐
+ 	* @param ikm 输入的密钥材料
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static byte[] hkdfExtract(byte[] salt, byte[] ikm) throws GeneralSecurityException {
+        return QuicKeys.hmac(salt.length == 0 ? new byte[32] : salt, ikm);
+    }
+
+    /**
+    * TLS 1.3的HKDF-Expand-Label（RFC 8446第7.1节），标签前加上"tls13 "
+    * @param secret 伪随机密钥
+ 	* @param label 标签
+ 	* @param context 上下文，通常是握手记录的哈希
+ 	* @param length 输出的字节数
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static byte[] hkdfExpandLabel(byte[] secret, String label, byte[] context, int length) throws GeneralSecurityException {
+        byte[] fullLabel = ("tls13 " + label).getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer info = ByteBuffer.allocate(2 + 1 + fullLabel.length + 1 + context.length);
+        info.putShort((short) length);
+        info.put((byte) fullLabel.length).put(fullLabel);
+        info.put((byte) context.length).put(context);
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+        byte[] result = new byte[length];
+        byte[] block = new byte[0];
+        for (int offset = 0, i = 1; offset < length; i++) {
+            mac.update(block);
+            mac.update(info.array());
+            mac.update((byte) i);
+            block = mac.doFinal();
+            int n = Math.min(block.length, length - offset);
+            System.arraycopy(block, 0, result, offset, n);
+            offset += n;
+        }
+        return result;
+    }
+
+    static byte[] hmac(byte[] key, byte[] data) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data);
+    }
+}
@@ -0,0 +1,341 @@
+package server.http3;
+
+import server.exception.QuicException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+* QUIC连接上的一个流，接收方向把乱序到达的STREAM帧重组成连续的字节交给应用层，
+* 发送方向保存应用层写入的全部数据直到被确认，丢失的区间排队重传，未发送的部分受对端的流量窗口限制。
+* 每个包序号空间的CRYPTO数据也用一个流表示，不受流量控制
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class QuicStream {
+    private static final int maxOutOfOrderLength = 1024 * 1024;
+    private final long id;
+    private final TreeMap<Long, byte[]> receiveFrames;  //尚不连续的数据，按偏移排序
+    private long receiveOffset; //已连续收到的位置
+    private long highestReceived;
+    private long finalSize;
+    private long maxReceiveOffset;
+    private final long receiveWindow;
+    private byte[] inbound; //已连续、尚未被应用层取走的数据
+    private int inboundLength;
+    private long consumed;
+    private long countedConsumed;   //已计入连接级流量窗口的部分
+    private boolean receiveAborted;
+
+    private byte[] sendData;
+    private int sendLength;
+    private long sendOffset;    //下一个未发送的字节
+    private long maxSendOffset;
+    private boolean finQueued;
+    private boolean finSent;
+    private boolean finAcked;
+    private final RangeSet acked;
+    private final Deque<long[]> retransmits;    //偏移、长度、是否带FIN
+    private boolean reset;
+    private boolean maxStreamDataPending;
+    private Object attachment;
+
+    /**
+    * 创建流
+    * @param id 流ID，CRYPTO流为-1
+ 	* @param receiveWindow 本端通告的接收窗口
+ 	* @param maxSendOffset 对端允许本端发送的上限
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public QuicStream(long id, long receiveWindow, long maxSendOffset) {
+        this.id = id;
+        this.receiveFrames = new TreeMap<>();
+        this.finalSize = -1;
+        this.receiveWindow = receiveWindow;
+        this.maxReceiveOffset = receiveWindow;
+        this.inbound = new byte[0];
+        this.sendData = new byte[0];
+        this.maxSendOffset = maxSendOffset;
+        this.acked = new RangeSet();
+        this.retransmits = new ArrayDeque<>();
+    }
+
+    /**
+    * 收到一段数据，重复的部分被忽略，连续的部分移入inbound
+    * @param offset 数据在流中的偏移
+ 	* @param data 数据
+ 	* @param fin 是否是流的最后一段
+    * @return long 新收到的、超过此前最高位置的字节数，用于连接级的流量控制
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    long receive(long offset, byte[] data, boolean fin) throws QuicException {
+        long end = offset + data.length;
+        if (end > maxReceiveOffset)
+            throw new QuicException("超出了流的接收窗口: " + id, QuicException.FLOW_CONTROL_ERROR);
+        if (fin && -1 != finalSize && finalSize != end || -1 != finalSize && end > finalSize
+                || fin && end < highestReceived)
+            throw new QuicException("流的最终大小不一致: " + id, QuicException.FINAL_SIZE_ERROR);
+        if (fin)
+            finalSize = end;
+        long increased = Math.max(0, end - highestReceived);
+        highestReceived = Math.max(highestReceived, end);
+        if (receiveAborted || end <= receiveOffset)
+            return increased;
+        if (offset > receiveOffset) {
+            if (offset - receiveOffset > maxOutOfOrderLength)
+                throw new QuicException("乱序的数据过多: " + id, QuicException.CRYPTO_BUFFER_EXCEEDED);
+            receiveFrames.merge(offset, data, (a, b) -> a.length >= b.length ? a : b);
+            return increased;
+        }
+        this.appendInbound(data, (int) (receiveOffset - offset));
+        Map.Entry<Long, byte[]> next;
+        while (null != (next = receiveFrames.firstEntry()) && next.getKey() <= receiveOffset) {
+            receiveFrames.pollFirstEntry();
+            long nextEnd = next.getKey() + next.getValue().length;
+            if (nextEnd > receiveOffset)
+                this.appendInbound(next.getValue(), (int) (receiveOffset - next.getKey()));
+        }
+        return increased;
+    }
+
+    private void appendInbound(byte[] data, int skip) {
+        int length = data.length - skip;
+        if (inboundLength + length > inbound.length)
+            inbound = Arrays.copyOf(inbound, Math.max(inboundLength + length, inbound.length * 2));
+        System.arraycopy(data, skip, inbound, inboundLength, length);
+        inboundLength += length;
+        receiveOffset += length;
+    }
+
+    /**
+    * 尚未被应用层取走的连续数据，读取后调用consume
+    * @return java.nio.ByteBuffer
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public ByteBuffer getInbound() {
+        return ByteBuffer.wrap(inbound, 0, inboundLength);
+    }
+
+    /**
+    * 应用层已处理了inbound开头的若干字节，接收窗口随之前移
+    * @param length 处理的字节数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void consume(int length) {
+        System.arraycopy(inbound, length, inbound, 0, inboundLength - length);
+        inboundLength -= length;
+        consumed += length;
+    }
+
+    /**
+    * 应用层取走的数据超过接收窗口的一半时扩大窗口，返回是否需要发送MAX_STREAM_DATA
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    boolean updateReceiveWindow() {
+        if (-1 != finalSize || consumed + receiveWindow / 2 <= maxReceiveOffset)
+            return false;
+        maxReceiveOffset = consumed + receiveWindow;
+        return true;
+    }
+
+    /**
+    * 自上次调用以来应用层新取走的字节数
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    long takeConsumed() {
+        long delta = consumed - countedConsumed;
+        countedConsumed = consumed;
+        return delta;
+    }
+
+    /**
+    * 对端的数据已全部收到并被应用层取走
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isReceiveFinished() {
+        return receiveAborted || -1 != finalSize && consumed == finalSize;
+    }
+
+    /**
+    * 对端重置了流或者本端不再读取，丢弃尚未取走的数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void abortReceive() {
+        receiveAborted = true;
+        receiveFrames.clear();
+        consumed += inboundLength;
+        inboundLength = 0;
+    }
+
+    public boolean isReceiveAborted() {
+        return receiveAborted;
+    }
+
+    public boolean isFinReceived() {
+        return -1 != finalSize && receiveOffset == finalSize;
+    }
+
+    /**
+    * 追加待发送的数据
+    * @param data 数据
+ 	* @param fin 是否结束发送方向
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void write(byte[] data, boolean fin) {
+        if (finQueued)
+            throw new IllegalStateException("流已结束发送: " + id);
+        if (sendLength + data.length > sendData.length)
+            sendData = Arrays.copyOf(sendData, Math.max(sendLength + data.length, sendData.length * 2));
+        System.arraycopy(data, 0, sendData, sendLength, data.length);
+        sendLength += data.length;
+        finQueued = fin;
+    }
+
+    boolean hasPendingData() {
+        if (reset)
+            return false;
+        return !retransmits.isEmpty() || sendOffset < Math.min(sendLength, maxSendOffset) || finQueued && !finSent && sendOffset == sendLength;
+    }
+
+    /**
+    * 取出下一段待发送的数据，优先重传丢失的区间，新数据受流和连接的窗口限制
+    * @param maxLength 帧中最多能放下的字节数
+ 	* @param connectionCredit 连接级窗口剩余的字节数
+    * @return long[] 偏移、长度、是否带FIN，没有可发送的数据时返回null
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    long[] nextChunk(int maxLength, long connectionCredit) {
+        long[] retransmit;
+        while (null != (retransmit = retransmits.peekFirst())) {
+            long start = acked.coveredUntil(retransmit[0]);  //跳过期间已被确认的部分
+            long end = retransmit[0] + retransmit[1];
+            if (start >= end && (0 == retransmit[2] || finAcked)) {
+                retransmits.pollFirst();
+                continue;
+            }
+            start = Math.min(start, end);
+            long length = Math.min(end - start, maxLength);
+            boolean fin = 1 == retransmit[2] && start + length == end;
+            if (start + length == end)
+                retransmits.pollFirst();
+            else
+                retransmit[1] = end - (start + length);
+            if (start + length < end)
+                retransmit[0] = start + length;
+            return new long[]{start, length, fin ? 1 : 0};
+        }
+        long limit = Math.min(sendLength, maxSendOffset);
+        long length = Math.min(Math.min(limit - sendOffset, maxLength), connectionCredit);
+        if (length < 0)
+            length = 0;
+        boolean fin = finQueued && sendOffset + length == sendLength;
+        if (0 == length && (!fin || finSent))
+            return null;
+        long[] chunk = {sendOffset, length, fin ? 1 : 0};
+        sendOffset += length;
+        finSent |= fin;
+        return chunk;
+    }
+
+    /**
+    * 把一段数据复制到输出中
+    * @param out 输出
+ 	* @param offset 流中的偏移
+ 	* @param length 字节数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void copyTo(ByteBuffer out, long offset, int length) {
+        out.put(sendData, (int) offset, length);
+    }
+
+    void onAcked(long offset, long length, boolean fin) {
+        if (length > 0)
+            acked.add(offset, offset + length - 1);
+        finAcked |= fin;
+    }
+
+    void onLost(long offset, long length, boolean fin) {
+        if (reset || acked.coveredUntil(offset) >= offset + length && (!fin || finAcked))
+            return;
+        retransmits.addLast(new long[]{offset, length, fin ? 1 : 0});
+    }
+
+    /**
+    * 本端写入的数据连同FIN都已被对端确认
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isSendFinished() {
+        return reset || finAcked && acked.coveredUntil(0) >= sendLength;
+    }
+
+    /**
+    * 放弃发送，丢弃缓存的数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void reset() {
+        reset = true;
+        sendData = new byte[0];
+        retransmits.clear();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    long getSendLength() {
+        return sendLength;
+    }
+
+    long getSendOffset() {
+        return sendOffset;
+    }
+
+    long getMaxReceiveOffset() {
+        return maxReceiveOffset;
+    }
+
+    void setMaxSendOffset(long maxSendOffset) {
+        this.maxSendOffset = Math.max(this.maxSendOffset, maxSendOffset);
+    }
+
+    boolean isMaxStreamDataPending() {
+        return maxStreamDataPending;
+    }
+
+    void setMaxStreamDataPending(boolean maxStreamDataPending) {
+        this.maxStreamDataPending = maxStreamDataPending;
+    }
+
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    public void setAttachment(Object attachment) {
+        this.attachment = attachment;
+    }
+}
@@ -0,0 +1,375 @@
+package server.http3;
+
+import server.exception.QuicException;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.XECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.NamedParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import java.security.spec.XECPublicKeySpec;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import javax.crypto.KeyAgreement;
+
+/**
+* QUIC使用的TLS 1.3握手（RFC 8446、RFC 9001），握手消息不经过TLS记录层，而是放在各个包序号空间的CRYPTO帧中，
+* 握手推出的流量密钥交给QuicConnection保护数据包。JSSE没有开放这样的接口，因此这里直接用JCA实现握手的子集：
+* 只支持TLS_AES_128_GCM_SHA256，密钥交换支持x25519和secp256r1，签名支持rsa_pss_rsae_sha256和ecdsa_secp256r1_sha256，
+* 不支持HelloRetryRequest、会话复用和0-RTT
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public abstract class QuicTls {
+    static final int CLIENT_HELLO = 1;
+    static final int SERVER_HELLO = 2;
+    static final int NEW_SESSION_TICKET = 4;
+    static final int ENCRYPTED_EXTENSIONS = 8;
+    static final int CERTIFICATE = 11;
+    static final int CERTIFICATE_VERIFY = 15;
+    static final int FINISHED = 20;
+
+    static final int EXTENSION_SERVER_NAME = 0;
+    static final int EXTENSION_SUPPORTED_GROUPS = 10;
+    static final int EXTENSION_SIGNATURE_ALGORITHMS = 13;
+    static final int EXTENSION_ALPN = 16;
+    static final int EXTENSION_SUPPORTED_VERSIONS = 43;
+    static final int EXTENSION_KEY_SHARE = 51;
+    static final int EXTENSION_QUIC_TRANSPORT_PARAMETERS = 57;
+
+    static final int TLS_AES_128_GCM_SHA256 = 0x1301;
+    static final int TLS_13 = 0x0304;
+    static final int GROUP_X25519 = 0x001d;
+    static final int GROUP_SECP256R1 = 0x0017;
+    static final int RSA_PSS_RSAE_SHA256 = 0x0804;
+    static final int ECDSA_SECP256R1_SHA256 = 0x0403;
+    static final String ALPN_H3 = "h3";
+    private static final int maxMessageLength = 64 * 1024;
+    private static final byte[] EMPTY_HASH;
+
+    static {
+        try {
+            EMPTY_HASH = MessageDigest.getInstance("SHA-256").digest();
+        } catch (GeneralSecurityException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    protected final QuicConnection connection;
+    private final MessageDigest transcript;
+    protected byte[] clientHandshakeSecret;
+    protected byte[] serverHandshakeSecret;
+    private byte[] handshakeSecret;
+    protected boolean complete;
+
+    protected QuicTls(QuicConnection connection) throws GeneralSecurityException {
+        this.connection = connection;
+        this.transcript = MessageDigest.getInstance("SHA-256");
+    }
+
+    /**
+    * 处理一个包序号空间的CRYPTO流中已连续收到的数据，逐条取出完整的握手消息
+    * @param level 包序号空间
+ 	* @param crypto 该空间的CRYPTO流
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void receive(int level, QuicStream crypto) throws QuicException {
+        ByteBuffer in;
+        while ((in = crypto.getInbound()).remaining() >= 4) {
+            int start = in.position();
+            int type = in.get(start) & 0xff;
+            int length = in.getInt(start) & 0xffffff;
+            if (length > maxMessageLength)
+                throw new QuicException("握手消息过长: " + length, QuicException.CRYPTO_BUFFER_EXCEEDED);
+            if (in.remaining() < 4 + length)
+                break;
+            byte[] message = new byte[4 + length];
+            in.get(message);
+            byte[] transcriptHash = this.transcriptHash();
+            transcript.update(message);
+            try {
+                this.handleMessage(level, type, ByteBuffer.wrap(message, 4, length).slice(), transcriptHash);
+            } catch (QuicException e) {
+                throw e;
+            } catch (GeneralSecurityException | RuntimeException e) {  //长度字段错误等导致的越界按解码错误处理
+                throw QuicException.alert("无法处理握手消息: " + e.getMessage(), e instanceof RuntimeException
+                        ? QuicException.ALERT_DECODE_ERROR : QuicException.ALERT_INTERNAL_ERROR);
+            }
+            crypto.consume(message.length);
+        }
+    }
+
+    /**
+    * 处理一条完整的握手消息
+    * @param level 消息所在的包序号空间
+ 	* @param type 消息类型
+ 	* @param body 消息体
+ 	* @param transcriptHash 加入这条消息之前的握手记录哈希，用于校验CertificateVerify和Finished
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected abstract void handleMessage(int level, int type, ByteBuffer body, byte[] transcriptHash) throws QuicException, GeneralSecurityException;
+
+    /**
+    * 发出一条握手消息，计入握手记录
+    * @param level 包序号空间
+ 	* @param type 消息类型
+ 	* @param body 消息体
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected void send(int level, int type, byte[] body) {
+        byte[] message = new byte[4 + body.length];
+        ByteBuffer.wrap(message).putInt(type << 24 | body.length).put(body);
+        transcript.update(message);
+        connection.writeCrypto(level, message);
+    }
+
+    protected byte[] transcriptHash() {
+        try {
+            return ((MessageDigest) transcript.clone()).digest();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+    * 由共享密钥推出握手阶段双方的流量密钥，握手记录此时以ServerHello结尾
+    * @param sharedSecret 密钥交换得到的共享密钥
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected void deriveHandshakeSecrets(byte[] sharedSecret) throws GeneralSecurityException {
+        byte[] earlySecret = QuicKeys.hkdfExtract(new byte[0], new byte[32]);
+        byte[] derived = QuicKeys.hkdfExpandLabel(earlySecret, "derived", EMPTY_HASH, 32);
+        handshakeSecret = QuicKeys.hkdfExtract(derived, sharedSecret);
+        byte[] hash = this.transcriptHash();
+        clientHandshakeSecret = QuicKeys.hkdfExpandLabel(handshakeSecret, "c hs traffic", hash, 32);
+        serverHandshakeSecret = QuicKeys.hkdfExpandLabel(handshakeSecret, "s hs traffic", hash, 32);
+    }
+
+    /**
+    * 推出应用数据阶段的流量密钥，握手记录此时以服务端的Finished结尾
+    * @return byte[][] 客户端和服务端方向的密钥
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected byte[][] deriveApplicationSecrets() throws GeneralSecurityException {
+        byte[] derived = QuicKeys.hkdfExpandLabel(handshakeSecret, "derived", EMPTY_HASH, 32);
+        byte[] masterSecret = QuicKeys.hkdfExtract(derived, new byte[32]);
+        byte[] hash = this.transcriptHash();
+        return new byte[][]{
+                QuicKeys.hkdfExpandLabel(masterSecret, "c ap traffic", hash, 32),
+                QuicKeys.hkdfExpandLabel(masterSecret, "s ap traffic", hash, 32)
+        };
+    }
+
+    protected static byte[] finishedData(byte[] trafficSecret, byte[] transcriptHash) throws GeneralSecurityException {
+        byte[] finishedKey = QuicKeys.hkdfExpandLabel(trafficSecret, "finished", new byte[0], 32);
+        return QuicKeys.hmac(finishedKey, transcriptHash);
+    }
+
+    /**
+    * CertificateVerify签名的内容：64个空格、上下文字符串、一个0字节和握手记录哈希
+    * @param transcriptHash 以Certificate结尾的握手记录哈希
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected static byte[] certificateVerifyContent(byte[] transcriptHash) {
+        byte[] context = "TLS 1.3, server CertificateVerify".getBytes(StandardCharsets.US_ASCII);
+        byte[] content = new byte[64 + context.length + 1 + transcriptHash.length];
+        Arrays.fill(content, 0, 64, (byte) 0x20);
+        System.arraycopy(context, 0, content, 64, context.length);
+        System.arraycopy(transcriptHash, 0, content, 64 + context.length + 1, transcriptHash.length);
+        return content;
+    }
+
+    protected static Signature signature(int scheme) throws GeneralSecurityException {
+        if (scheme == ECDSA_SECP256R1_SHA256)
+            return Signature.getInstance("SHA256withECDSA");
+        Signature signature = Signature.getInstance("RSASSA-PSS");
+        signature.setParameter(new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1));
+        return signature;
+    }
+
+    protected static KeyPair generateKeyPair(int group) throws GeneralSecurityException {
+        if (group == GROUP_X25519)
+            return KeyPairGenerator.getInstance("X25519").generateKeyPair();
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    /**
+    * 按key_share扩展的格式编码公钥，x25519为32字节小端序的u坐标，secp256r1为未压缩的点
+    * @param group 密钥交换的组
+ 	* @param publicKey 公钥
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected static byte[] encodePublicKey(int group, PublicKey publicKey) {
+        if (group == GROUP_X25519) {
+            byte[] u = QuicTls.toFixedLength(((XECPublicKey) publicKey).getU(), 32);
+            QuicTls.reverse(u);
+            return u;
+        }
+        ECPoint point = ((ECPublicKey) publicKey).getW();
+        ByteBuffer out = ByteBuffer.allocate(65);
+        out.put((byte) 0x04).put(QuicTls.toFixedLength(point.getAffineX(), 32)).put(QuicTls.toFixedLength(point.getAffineY(), 32));
+        return out.array();
+    }
+
+    /**
+    * 用本端的私钥和对端的公钥计算共享密钥，对端公钥格式错误或不在曲线上时是illegal_parameter
+    * @param group 密钥交换的组
+ 	* @param keyPair 本端的密钥对
+ 	* @param peerKey 对端key_share中的公钥
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected static byte[] keyAgreement(int group, KeyPair keyPair, byte[] peerKey) throws QuicException {
+        try {
+            PublicKey publicKey;
+            KeyAgreement agreement;
+            if (group == GROUP_X25519) {
+                if (peerKey.length != 32)
+                    throw new GeneralSecurityException("x25519公钥的长度错误");
+                byte[] u = peerKey.clone();
+                QuicTls.reverse(u);
+                u[0] &= 0x7f;
+                publicKey = KeyFactory.getInstance("XDH").generatePublic(new XECPublicKeySpec(NamedParameterSpec.X25519, new BigInteger(1, u)));
+                agreement = KeyAgreement.getInstance("XDH");
+            } else {
+                if (peerKey.length != 65 || peerKey[0] != 0x04)
+                    throw new GeneralSecurityException("secp256r1公钥的格式错误");
+                ECPoint point = new ECPoint(new BigInteger(1, Arrays.copyOfRange(peerKey, 1, 33)), new BigInteger(1, Arrays.copyOfRange(peerKey, 33, 65)));
+                publicKey = KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, ((ECPublicKey) keyPair.getPublic()).getParams()));
+                agreement = KeyAgreement.getInstance("ECDH");
+            }
+            agreement.init(keyPair.getPrivate());
+            agreement.doPhase(publicKey, true);
+            return agreement.generateSecret();
+        } catch (GeneralSecurityException | RuntimeException e) {
+            throw QuicException.alert("对端的密钥交换参数无效: " + e.getMessage(), QuicException.ALERT_ILLEGAL_PARAMETER);
+        }
+    }
+
+    private static byte[] toFixedLength(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        byte[] result = new byte[length];
+        int copy = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copy, result, length - copy, copy);
+        return result;
+    }
+
+    private static void reverse(byte[] bytes) {
+        for (int i = 0, j = bytes.length - 1; i < j; i++, j--) {
+            byte b = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = b;
+        }
+    }
+
+    /**
+    * 解析扩展列表，同一类型的扩展出现两次是illegal_parameter
+    * @param in 以两字节长度开头的扩展列表
+    * @return java.util.Map<java.lang.Integer,java.nio.ByteBuffer>
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected static Map<Integer, ByteBuffer> readExtensions(ByteBuffer in) throws QuicException {
+        ByteBuffer extensions = QuicTls.readVector(in, 2);
+        Map<Integer, ByteBuffer> result = new HashMap<>();
+        while (extensions.hasRemaining()) {
+            int type = extensions.getShort() & 0xffff;
+            if (null != result.put(type, QuicTls.readVector(extensions, 2)))
+                throw QuicException.alert("重复的扩展: " + type, QuicException.ALERT_ILLEGAL_PARAMETER);
+        }
+        return result;
+    }
+
+    /**
+    * 读取以1、2或3字节长度为前缀的向量
+    * @param in 输入
+ 	* @param lengthBytes 长度前缀的字节数
+    * @return java.nio.ByteBuffer
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected static ByteBuffer readVector(ByteBuffer in, int lengthBytes) throws QuicException {
+        int length = 0;
+        for (int i = 0; i < lengthBytes; i++)
+            length = length << 8 | (in.get() & 0xff);
+        if (length > in.remaining())
+            throw QuicException.alert("握手消息中的长度越界", QuicException.ALERT_DECODE_ERROR);
+        ByteBuffer vector = in.slice().limit(length);
+        in.position(in.position() + length);
+        return vector;
+    }
+
+    protected static byte[] toArray(ByteBuffer in) {
+        byte[] bytes = new byte[in.remaining()];
+        in.get(bytes);
+        return bytes;
+    }
+
+    protected static void writeVector(ByteArrayOutputStream out, int lengthBytes, byte[] value) {
+        for (int i = lengthBytes - 1; i >= 0; i--)
+            out.write(value.length >>> (8 * i));
+        out.writeBytes(value);
+    }
+
+    protected static void writeExtension(ByteArrayOutputStream out, int type, byte[] value) {
+        out.write(type >>> 8);
+        out.write(type);
+        QuicTls.writeVector(out, 2, value);
+    }
+
+    protected static byte[] alpn(String protocol) {
+        ByteArrayOutputStream list = new ByteArrayOutputStream();
+        QuicTls.writeVector(list, 1, protocol.getBytes(StandardCharsets.US_ASCII));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        QuicTls.writeVector(out, 2, list.toByteArray());
+        return out.toByteArray();
+    }
+
+    /**
+    * ALPN扩展中是否包含指定的协议
+    * @param extension ALPN扩展的内容
+ 	* @param protocol 协议名
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected static boolean containsProtocol(ByteBuffer extension, String protocol) throws QuicException {
+        ByteBuffer list = QuicTls.readVector(extension, 2);
+        while (list.hasRemaining()) {
+            if (protocol.equals(new String(QuicTls.toArray(QuicTls.readVector(list, 1)), StandardCharsets.US_ASCII)))
+                return true;
+        }
+        return false;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
@@ -0,0 +1,172 @@
+package server.http3;
+
+import server.exception.QuicException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+* 客户端的TLS 1.3握手，供测试用的Http3MiniBrowser使用，只提供x25519的key_share，
+* 校验服务端CertificateVerify的签名和Finished，但和MiniBrowser一样不校验证书链
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class QuicTlsClient extends QuicTls {
+    private static final SecureRandom random = new SecureRandom();
+    private static final byte[] HELLO_RETRY_REQUEST_RANDOM = {
+            (byte) 0xcf, 0x21, (byte) 0xad, 0x74, (byte) 0xe5, (byte) 0x9a, 0x61, 0x11, (byte) 0xbe, 0x1d, (byte) 0x8c, 0x02, 0x1e, 0x65, (byte) 0xb8, (byte) 0x91,
+            (byte) 0xc2, (byte) 0xa2, 0x11, 0x16, 0x7a, (byte) 0xbb, (byte) 0x8c, 0x5e, 0x07, (byte) 0x9e, 0x09, (byte) 0xe2, (byte) 0xc8, (byte) 0xa8, 0x33, (byte) 0x9c
+    };
+    private final String serverName;
+    private KeyPair keyPair;
+    private int expected;
+    private X509Certificate certificate;
+
+    public QuicTlsClient(QuicConnection connection, String serverName) throws GeneralSecurityException {
+        super(connection);
+        this.serverName = serverName;
+    }
+
+    /**
+    * 发出ClientHello
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void start() throws GeneralSecurityException {
+        keyPair = QuicTls.generateKeyPair(GROUP_X25519);
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        message.write(0x03);
+        message.write(0x03);
+        byte[] clientRandom = new byte[32];
+        random.nextBytes(clientRandom);
+        message.writeBytes(clientRandom);
+        message.write(0);   //legacy_session_id
+        QuicTls.writeVector(message, 2, new byte[]{TLS_AES_128_GCM_SHA256 >>> 8, TLS_AES_128_GCM_SHA256 & 0xff});
+        QuicTls.writeVector(message, 1, new byte[]{0});
+
+        ByteArrayOutputStream extensions = new ByteArrayOutputStream();
+        if (null != serverName) {
+            ByteArrayOutputStream name = new ByteArrayOutputStream();
+            name.write(0);
+            QuicTls.writeVector(name, 2, serverName.getBytes(StandardCharsets.US_ASCII));
+            ByteArrayOutputStream list = new ByteArrayOutputStream();
+            QuicTls.writeVector(list, 2, name.toByteArray());
+            QuicTls.writeExtension(extensions, EXTENSION_SERVER_NAME, list.toByteArray());
+        }
+        QuicTls.writeExtension(extensions, EXTENSION_SUPPORTED_GROUPS, new byte[]{0, 2, 0, GROUP_X25519});
+        QuicTls.writeExtension(extensions, EXTENSION_SIGNATURE_ALGORITHMS, new byte[]{0, 4,
+                RSA_PSS_RSAE_SHA256 >>> 8, RSA_PSS_RSAE_SHA256 & 0xff, ECDSA_SECP256R1_SHA256 >>> 8, ECDSA_SECP256R1_SHA256 & 0xff});
+        QuicTls.writeExtension(extensions, EXTENSION_SUPPORTED_VERSIONS, new byte[]{2, 0x03, 0x04});
+        ByteArrayOutputStream keyShare = new ByteArrayOutputStream();
+        ByteArrayOutputStream entry = new ByteArrayOutputStream();
+        entry.write(0);
+        entry.write(GROUP_X25519);
+        QuicTls.writeVector(entry, 2, QuicTls.encodePublicKey(GROUP_X25519, keyPair.getPublic()));
+        QuicTls.writeVector(keyShare, 2, entry.toByteArray());
+        QuicTls.writeExtension(extensions, EXTENSION_KEY_SHARE, keyShare.toByteArray());
+        QuicTls.writeExtension(extensions, EXTENSION_ALPN, QuicTls.alpn(ALPN_H3));
+        QuicTls.writeExtension(extensions, EXTENSION_QUIC_TRANSPORT_PARAMETERS, connection.getLocalParameters().encode());
+        QuicTls.writeVector(message, 2, extensions.toByteArray());
+        this.send(QuicConnection.INITIAL, CLIENT_HELLO, message.toByteArray());
+        expected = SERVER_HELLO;
+    }
+
+    @Override
+    protected void handleMessage(int level, int type, ByteBuffer body, byte[] transcriptHash) throws QuicException, GeneralSecurityException {
+        if (complete && type == NEW_SESSION_TICKET && level == QuicConnection.APPLICATION)    //不支持会话复用，忽略票据
+            return;
+        int expectedLevel = SERVER_HELLO == expected ? QuicConnection.INITIAL : QuicConnection.HANDSHAKE;
+        if (complete || type != expected || level != expectedLevel)
+            throw QuicException.alert("意外的握手消息: " + type, QuicException.ALERT_UNEXPECTED_MESSAGE);
+        switch (type) {
+            case SERVER_HELLO -> this.handleServerHello(body);
+            case ENCRYPTED_EXTENSIONS -> this.handleEncryptedExtensions(body);
+            case CERTIFICATE -> this.handleCertificate(body);
+            case CERTIFICATE_VERIFY -> this.handleCertificateVerify(body, transcriptHash);
+            default -> this.handleFinished(body, transcriptHash);
+        }
+    }
+
+    private void handleServerHello(ByteBuffer body) throws QuicException, GeneralSecurityException {
+        body.getShort();
+        byte[] serverRandom = new byte[32];
+        body.get(serverRandom);
+        if (Arrays.equals(serverRandom, HELLO_RETRY_REQUEST_RANDOM))
+            throw QuicException.alert("不支持HelloRetryRequest", QuicException.ALERT_HANDSHAKE_FAILURE);
+        QuicTls.readVector(body, 1);
+        int cipherSuite = body.getShort() & 0xffff;
+        body.get();
+        Map<Integer, ByteBuffer> extensions = QuicTls.readExtensions(body);
+        ByteBuffer version = extensions.get(EXTENSION_SUPPORTED_VERSIONS);
+        if (null == version || (version.getShort() & 0xffff) != TLS_13)
+            throw QuicException.alert("服务端没有选择TLS 1.3", QuicException.ALERT_PROTOCOL_VERSION);
+        if (cipherSuite != TLS_AES_128_GCM_SHA256)
+            throw QuicException.alert("服务端选择了不支持的密码套件", QuicException.ALERT_ILLEGAL_PARAMETER);
+        ByteBuffer keyShare = extensions.get(EXTENSION_KEY_SHARE);
+        if (null == keyShare || (keyShare.getShort() & 0xffff) != GROUP_X25519)
+            throw QuicException.alert("服务端选择了不支持的组", QuicException.ALERT_ILLEGAL_PARAMETER);
+        byte[] sharedSecret = QuicTls.keyAgreement(GROUP_X25519, keyPair, QuicTls.toArray(QuicTls.readVector(keyShare, 2)));
+        this.deriveHandshakeSecrets(sharedSecret);
+        connection.installKeys(QuicConnection.HANDSHAKE, serverHandshakeSecret, clientHandshakeSecret);
+        expected = ENCRYPTED_EXTENSIONS;
+    }
+
+    private void handleEncryptedExtensions(ByteBuffer body) throws QuicException {
+        Map<Integer, ByteBuffer> extensions = QuicTls.readExtensions(body);
+        ByteBuffer alpn = extensions.get(EXTENSION_ALPN);
+        if (null == alpn || !QuicTls.containsProtocol(alpn, ALPN_H3))
+            throw QuicException.alert("服务端没有选择h3协议", QuicException.ALERT_NO_APPLICATION_PROTOCOL);
+        ByteBuffer transportParameters = extensions.get(EXTENSION_QUIC_TRANSPORT_PARAMETERS);
+        if (null == transportParameters)
+            throw QuicException.alert("缺少quic_transport_parameters扩展", QuicException.ALERT_MISSING_EXTENSION);
+        connection.onTransportParameters(TransportParameters.decode(QuicTls.toArray(transportParameters), true));
+        expected = CERTIFICATE;
+    }
+
+    private void handleCertificate(ByteBuffer body) throws QuicException, GeneralSecurityException {
+        QuicTls.readVector(body, 1);
+        ByteBuffer list = QuicTls.readVector(body, 3);
+        if (!list.hasRemaining())
+            throw QuicException.alert("服务端没有发送证书", QuicException.ALERT_BAD_CERTIFICATE);
+        byte[] encoded = QuicTls.toArray(QuicTls.readVector(list, 3));
+        certificate = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(new ByteArrayInputStream(encoded));
+        expected = CERTIFICATE_VERIFY;
+    }
+
+    private void handleCertificateVerify(ByteBuffer body, byte[] transcriptHash) throws QuicException, GeneralSecurityException {
+        int scheme = body.getShort() & 0xffff;
+        if (scheme != RSA_PSS_RSAE_SHA256 && scheme != ECDSA_SECP256R1_SHA256)
+            throw QuicException.alert("服务端使用了不支持的签名算法", QuicException.ALERT_ILLEGAL_PARAMETER);
+        Signature signature = QuicTls.signature(scheme);
+        signature.initVerify(certificate.getPublicKey());
+        signature.update(QuicTls.certificateVerifyContent(transcriptHash));
+        if (!signature.verify(QuicTls.toArray(QuicTls.readVector(body, 2))))
+            throw QuicException.alert("CertificateVerify校验失败", QuicException.ALERT_DECRYPT_ERROR);
+        expected = FINISHED;
+    }
+
+    private void handleFinished(ByteBuffer body, byte[] transcriptHash) throws QuicException, GeneralSecurityException {
+        if (!MessageDigest.isEqual(QuicTls.finishedData(serverHandshakeSecret, transcriptHash), QuicTls.toArray(body)))
+            throw QuicException.alert("服务端Finished校验失败", QuicException.ALERT_DECRYPT_ERROR);
+        byte[][] applicationSecrets = this.deriveApplicationSecrets();
+        this.send(QuicConnection.HANDSHAKE, FINISHED, QuicTls.finishedData(clientHandshakeSecret, this.transcriptHash()));
+        connection.installKeys(QuicConnection.APPLICATION, applicationSecrets[1], applicationSecrets[0]);
+        complete = true;
+        connection.onTlsComplete();
+    }
+
+    public X509Certificate getCertificate() {
+        return certificate;
+    }
+}
@@ -0,0 +1,210 @@
+package server.http3;
+
+import server.exception.QuicException;
+import server.net.SSLSupport;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+* 服务端的TLS 1.3握手，收到ClientHello后一次发出ServerHello、EncryptedExtensions、Certificate、CertificateVerify和Finished，
+* 证书按SNI从Connector的SSLSupport中选择，ALPN只接受h3，客户端的Finished校验通过后握手完成
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class QuicTlsServer extends QuicTls {
+    private static final SecureRandom random = new SecureRandom();
+    private final SSLSupport sslSupport;
+    private byte[] clientApplicationSecret;
+    private byte[] expectedClientFinished;
+    private String serverName;
+
+    public QuicTlsServer(QuicConnection connection, SSLSupport sslSupport) throws GeneralSecurityException {
+        super(connection);
+        this.sslSupport = sslSupport;
+    }
+
+    @Override
+    protected void handleMessage(int level, int type, ByteBuffer body, byte[] transcriptHash) throws QuicException, GeneralSecurityException {
+        if (type == CLIENT_HELLO && level == QuicConnection.INITIAL && null == clientHandshakeSecret)
+            this.handleClientHello(body);
+        else if (type == FINISHED && level == QuicConnection.HANDSHAKE && null != expectedClientFinished && !complete)
+            this.handleFinished(body);
+        else
+            throw QuicException.alert("意外的握手消息: " + type, QuicException.ALERT_UNEXPECTED_MESSAGE);
+    }
+
+    /**
+    * 校验ClientHello，选出密钥交换的组和签名算法后发出服务端的全部握手消息
+    * @param body ClientHello的消息体
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void handleClientHello(ByteBuffer body) throws QuicException, GeneralSecurityException {
+        body.getShort();    //legacy_version
+        body.position(body.position() + 32);    //random
+        if (QuicTls.readVector(body, 1).hasRemaining()) //QUIC不使用兼容模式
+            throw new QuicException("ClientHello的legacy_session_id不为空", QuicException.PROTOCOL_VIOLATION);
+        ByteBuffer cipherSuites = QuicTls.readVector(body, 2);
+        boolean cipherSuite = false;
+        while (cipherSuites.remaining() >= 2)
+            cipherSuite |= (cipherSuites.getShort() & 0xffff) == TLS_AES_128_GCM_SHA256;
+        QuicTls.readVector(body, 1);    //legacy_compression_methods
+        Map<Integer, ByteBuffer> extensions = QuicTls.readExtensions(body);
+        if (!cipherSuite)
+            throw QuicException.alert("客户端不支持TLS_AES_128_GCM_SHA256", QuicException.ALERT_HANDSHAKE_FAILURE);
+
+        ByteBuffer versions = extensions.get(EXTENSION_SUPPORTED_VERSIONS);
+        boolean tls13 = false;
+        if (null != versions) {
+            ByteBuffer list = QuicTls.readVector(versions, 1);
+            while (list.remaining() >= 2)
+                tls13 |= (list.getShort() & 0xffff) == TLS_13;
+        }
+        if (!tls13)
+            throw QuicException.alert("客户端不支持TLS 1.3", QuicException.ALERT_PROTOCOL_VERSION);
+
+        ByteBuffer alpn = extensions.get(EXTENSION_ALPN);
+        if (null == alpn || !QuicTls.containsProtocol(alpn, ALPN_H3))
+            throw QuicException.alert("客户端没有请求h3协议", QuicException.ALERT_NO_APPLICATION_PROTOCOL);
+        ByteBuffer transportParameters = extensions.get(EXTENSION_QUIC_TRANSPORT_PARAMETERS);
+        if (null == transportParameters)
+            throw QuicException.alert("缺少quic_transport_parameters扩展", QuicException.ALERT_MISSING_EXTENSION);
+        connection.onTransportParameters(TransportParameters.decode(QuicTls.toArray(transportParameters), false));
+
+        ByteBuffer serverNameExtension = extensions.get(EXTENSION_SERVER_NAME);
+        if (null != serverNameExtension) {
+            ByteBuffer list = QuicTls.readVector(serverNameExtension, 2);
+            while (list.hasRemaining() && null == serverName) {
+                int nameType = list.get();
+                byte[] name = QuicTls.toArray(QuicTls.readVector(list, 2));
+                if (0 == nameType)
+                    serverName = new String(name, StandardCharsets.US_ASCII).toLowerCase();
+            }
+        }
+
+        ByteBuffer signatureAlgorithms = extensions.get(EXTENSION_SIGNATURE_ALGORITHMS);
+        Set<Integer> schemes = new HashSet<>();
+        if (null != signatureAlgorithms) {
+            ByteBuffer list = QuicTls.readVector(signatureAlgorithms, 2);
+            while (list.remaining() >= 2)
+                schemes.add(list.getShort() & 0xffff);
+        }
+        List<String> keyTypes = new ArrayList<>();
+        if (schemes.contains(RSA_PSS_RSAE_SHA256))
+            keyTypes.add("RSA");
+        if (schemes.contains(ECDSA_SECP256R1_SHA256))
+            keyTypes.add("EC");
+        String alias = sslSupport.chooseServerAlias(serverName, keyTypes.toArray(new String[0]));
+        if (null == alias)
+            throw QuicException.alert("没有与客户端签名算法匹配的证书", QuicException.ALERT_HANDSHAKE_FAILURE);
+        PrivateKey privateKey = sslSupport.getPrivateKey(alias);
+        int scheme = "EC".equals(privateKey.getAlgorithm()) ? ECDSA_SECP256R1_SHA256 : RSA_PSS_RSAE_SHA256;
+
+        ByteBuffer keyShare = extensions.get(EXTENSION_KEY_SHARE);
+        if (null == keyShare)
+            throw QuicException.alert("缺少key_share扩展", QuicException.ALERT_MISSING_EXTENSION);
+        ByteBuffer shares = QuicTls.readVector(keyShare, 2);
+        int group = -1;
+        byte[] peerKey = null;
+        while (shares.hasRemaining()) {
+            int shareGroup = shares.getShort() & 0xffff;
+            byte[] key = QuicTls.toArray(QuicTls.readVector(shares, 2));
+            if (-1 == group && (shareGroup == GROUP_X25519 || shareGroup == GROUP_SECP256R1)) {
+                group = shareGroup;
+                peerKey = key;
+            }
+        }
+        if (-1 == group)    //需要HelloRetryRequest的情况不支持
+            throw QuicException.alert("没有可用的key_share", QuicException.ALERT_HANDSHAKE_FAILURE);
+        KeyPair keyPair = QuicTls.generateKeyPair(group);
+        byte[] sharedSecret = QuicTls.keyAgreement(group, keyPair, peerKey);
+
+        this.sendServerHello(group, keyPair);
+        this.deriveHandshakeSecrets(sharedSecret);
+        connection.installKeys(QuicConnection.HANDSHAKE, clientHandshakeSecret, serverHandshakeSecret);
+
+        ByteArrayOutputStream encryptedExtensions = new ByteArrayOutputStream();
+        QuicTls.writeExtension(encryptedExtensions, EXTENSION_ALPN, QuicTls.alpn(ALPN_H3));
+        QuicTls.writeExtension(encryptedExtensions, EXTENSION_QUIC_TRANSPORT_PARAMETERS, connection.getLocalParameters().encode());
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        QuicTls.writeVector(message, 2, encryptedExtensions.toByteArray());
+        this.send(QuicConnection.HANDSHAKE, ENCRYPTED_EXTENSIONS, message.toByteArray());
+
+        this.sendCertificate(sslSupport.getCertificateChain(alias));
+        Signature signature = QuicTls.signature(scheme);
+        signature.initSign(privateKey);
+        signature.update(QuicTls.certificateVerifyContent(this.transcriptHash()));
+        message = new ByteArrayOutputStream();
+        message.write(scheme >>> 8);
+        message.write(scheme);
+        QuicTls.writeVector(message, 2, signature.sign());
+        this.send(QuicConnection.HANDSHAKE, CERTIFICATE_VERIFY, message.toByteArray());
+
+        this.send(QuicConnection.HANDSHAKE, FINISHED, QuicTls.finishedData(serverHandshakeSecret, this.transcriptHash()));
+        byte[] transcriptHash = this.transcriptHash();
+        expectedClientFinished = QuicTls.finishedData(clientHandshakeSecret, transcriptHash);
+        byte[][] applicationSecrets = this.deriveApplicationSecrets();
+        clientApplicationSecret = applicationSecrets[0];
+        connection.installKeys(QuicConnection.APPLICATION, null, applicationSecrets[1]);    //可以先发送0.5-RTT的数据
+    }
+
+    private void sendServerHello(int group, KeyPair keyPair) {
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        message.write(0x03);
+        message.write(0x03);
+        byte[] serverRandom = new byte[32];
+        random.nextBytes(serverRandom);
+        message.writeBytes(serverRandom);
+        message.write(0);   //legacy_session_id_echo
+        message.write(TLS_AES_128_GCM_SHA256 >>> 8);
+        message.write(TLS_AES_128_GCM_SHA256 & 0xff);
+        message.write(0);   //legacy_compression_method
+        ByteArrayOutputStream extensions = new ByteArrayOutputStream();
+        QuicTls.writeExtension(extensions, EXTENSION_SUPPORTED_VERSIONS, new byte[]{0x03, 0x04});
+        ByteArrayOutputStream keyShare = new ByteArrayOutputStream();
+        keyShare.write(group >>> 8);
+        keyShare.write(group);
+        QuicTls.writeVector(keyShare, 2, QuicTls.encodePublicKey(group, keyPair.getPublic()));
+        QuicTls.writeExtension(extensions, EXTENSION_KEY_SHARE, keyShare.toByteArray());
+        QuicTls.writeVector(message, 2, extensions.toByteArray());
+        this.send(QuicConnection.INITIAL, SERVER_HELLO, message.toByteArray());
+    }
+
+    private void sendCertificate(X509Certificate[] chain) throws GeneralSecurityException {
+        ByteArrayOutputStream list = new ByteArrayOutputStream();
+        for (X509Certificate certificate : chain) {
+            QuicTls.writeVector(list, 3, certificate.getEncoded());
+            QuicTls.writeVector(list, 2, new byte[0]);
+        }
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        message.write(0);   //certificate_request_context
+        QuicTls.writeVector(message, 3, list.toByteArray());
+        this.send(QuicConnection.HANDSHAKE, CERTIFICATE, message.toByteArray());
+    }
+
+    private void handleFinished(ByteBuffer body) throws QuicException, GeneralSecurityException {
+        if (!MessageDigest.isEqual(expectedClientFinished, QuicTls.toArray(body)))
+            throw QuicException.alert("客户端Finished校验失败", QuicException.ALERT_DECRYPT_ERROR);
+        connection.installKeys(QuicConnection.APPLICATION, clientApplicationSecret, null);
+        complete = true;
+        connection.onTlsComplete();
+    }
+
+    public String getServerName() {
+        return serverName;
+    }
+}
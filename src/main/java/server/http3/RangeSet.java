@@ -0,0 +1,76 @@
+package server.http3;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+* 不相交的闭区间集合，相邻或重叠的区间自动合并，用于记录收到的包序号和对端已确认的流数据
+* @author cn-wumo
+* @since 2026/10/18
+*/
+class RangeSet {
+    private final TreeMap<Long, Long> ranges;   //起点到终点，都包含在内
+
+    RangeSet() {
+        this.ranges = new TreeMap<>();
+    }
+
+    /**
+    * 加入区间[start, end]
+    * @param start 起点
+ 	* @param end 终点
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void add(long start, long end) {
+        Map.Entry<Long, Long> floor = ranges.floorEntry(start);
+        if (null != floor && floor.getValue() >= start - 1) {   //与前一个区间相接
+            if (floor.getValue() >= end)
+                return;
+            start = floor.getKey();
+        }
+        Map.Entry<Long, Long> next;
+        while (null != (next = ranges.ceilingEntry(start)) && next.getKey() <= end + 1) {
+            end = Math.max(end, next.getValue());
+            ranges.remove(next.getKey());
+        }
+        ranges.put(start, end);
+    }
+
+    boolean contains(long value) {
+        Map.Entry<Long, Long> floor = ranges.floorEntry(value);
+        return null != floor && floor.getValue() >= value;
+    }
+
+    /**
+    * 从start开始连续覆盖到的位置之后一位，start本身不在集合中时返回start
+    * @param start 起点
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    long coveredUntil(long start) {
+        Map.Entry<Long, Long> floor = ranges.floorEntry(start);
+        return null != floor && floor.getValue() >= start ? floor.getValue() + 1 : start;
+    }
+
+    /**
+    * 只保留最大的count个区间，防止乱序和丢包使集合无限增长
+    * @param count 保留的区间数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void retainLast(int count) {
+        while (ranges.size() > count)
+            ranges.pollFirstEntry();
+    }
+
+    NavigableMap<Long, Long> descending() {
+        return ranges.descendingMap();
+    }
+
+    boolean isEmpty() {
+        return ranges.isEmpty();
+    }
+}
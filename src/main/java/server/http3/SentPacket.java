@@ -0,0 +1,24 @@
+package server.http3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* 已发出、尚未确认的数据包，保存需要可靠传输的帧的摘要，确认时更新流的状态，丢失时把这些帧重新排队，
+* 每个摘要的首元素是帧类型，其余依次是流ID、偏移、长度和FIN等
+* @author cn-wumo
+* @since 2026/10/18
+*/
+class SentPacket {
+    final long packetNumber;
+    final long timeSent;
+    final List<long[]> frames;
+    boolean ackEliciting;
+    int size;
+
+    SentPacket(long packetNumber, long timeSent) {
+        this.packetNumber = packetNumber;
+        this.timeSent = timeSent;
+        this.frames = new ArrayList<>();
+    }
+}
@@ -0,0 +1,266 @@
+package server.http3;
+
+import server.exception.QuicException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+* QUIC的传输参数（RFC 9000第18节），放在TLS握手的quic_transport_parameters扩展中交换，
+* 声明连接和流的初始流量窗口、允许打开的流数、空闲超时等，编码为一串编号、长度和值
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class TransportParameters {
+    private byte[] originalDestinationConnectionId;
+    private byte[] initialSourceConnectionId;
+    private byte[] retrySourceConnectionId;
+    private byte[] statelessResetToken;
+    private long maxIdleTimeout;
+    private long maxUdpPayloadSize = 65527;
+    private long initialMaxData;
+    private long initialMaxStreamDataBidiLocal;
+    private long initialMaxStreamDataBidiRemote;
+    private long initialMaxStreamDataUni;
+    private long initialMaxStreamsBidi;
+    private long initialMaxStreamsUni;
+    private long ackDelayExponent = 3;
+    private long maxAckDelay = 25;
+    private boolean disableActiveMigration;
+    private long activeConnectionIdLimit = 2;
+
+    /**
+    * 编码成扩展的内容，取默认值的参数省略
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.writeBytes(out, Quic.PARAM_ORIGINAL_DESTINATION_CONNECTION_ID, originalDestinationConnectionId);
+        this.writeBytes(out, Quic.PARAM_INITIAL_SOURCE_CONNECTION_ID, initialSourceConnectionId);
+        this.writeBytes(out, Quic.PARAM_RETRY_SOURCE_CONNECTION_ID, retrySourceConnectionId);
+        this.writeBytes(out, Quic.PARAM_STATELESS_RESET_TOKEN, statelessResetToken);
+        this.writeInteger(out, Quic.PARAM_MAX_IDLE_TIMEOUT, maxIdleTimeout, 0);
+        this.writeInteger(out, Quic.PARAM_MAX_UDP_PAYLOAD_SIZE, maxUdpPayloadSize, 65527);
+        this.writeInteger(out, Quic.PARAM_INITIAL_MAX_DATA, initialMaxData, 0);
+        this.writeInteger(out, Quic.PARAM_INITIAL_MAX_STREAM_DATA_BIDI_LOCAL, initialMaxStreamDataBidiLocal, 0);
+        this.writeInteger(out, Quic.PARAM_INITIAL_MAX_STREAM_DATA_BIDI_REMOTE, initialMaxStreamDataBidiRemote, 0);
+        this.writeInteger(out, Quic.PARAM_INITIAL_MAX_STREAM_DATA_UNI, initialMaxStreamDataUni, 0);
+        this.writeInteger(out, Quic.PARAM_INITIAL_MAX_STREAMS_BIDI, initialMaxStreamsBidi, 0);
+        this.writeInteger(out, Quic.PARAM_INITIAL_MAX_STREAMS_UNI, initialMaxStreamsUni, 0);
+        this.writeInteger(out, Quic.PARAM_ACK_DELAY_EXPONENT, ackDelayExponent, 3);
+        this.writeInteger(out, Quic.PARAM_MAX_ACK_DELAY, maxAckDelay, 25);
+        this.writeInteger(out, Quic.PARAM_ACTIVE_CONNECTION_ID_LIMIT, activeConnectionIdLimit, 2);
+        if (disableActiveMigration) {
+            Quic.writeVarInt(out, Quic.PARAM_DISABLE_ACTIVE_MIGRATION);
+            Quic.writeVarInt(out, 0);
+        }
+        return out.toByteArray();
+    }
+
+    private void writeBytes(ByteArrayOutputStream out, int id, byte[] value) {
+        if (null == value)
+            return;
+        Quic.writeVarInt(out, id);
+        Quic.writeVarInt(out, value.length);
+        out.writeBytes(value);
+    }
+
+    private void writeInteger(ByteArrayOutputStream out, int id, long value, long defaultValue) {
+        if (value == defaultValue)
+            return;
+        Quic.writeVarInt(out, id);
+        Quic.writeVarInt(out, Quic.varIntLength(value));
+        Quic.writeVarInt(out, value);
+    }
+
+    /**
+    * 解码对端发来的传输参数，未知的参数忽略，重复、越界或者不该由该方发送的参数都是TRANSPORT_PARAMETER_ERROR
+    * @param bytes 扩展的内容
+ 	* @param fromServer 是否由服务端发送
+    * @return server.http3.TransportParameters
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static TransportParameters decode(byte[] bytes, boolean fromServer) throws QuicException {
+        TransportParameters parameters = new TransportParameters();
+        Set<Long> seen = new HashSet<>();
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            while (in.hasRemaining()) {
+                long id = Quic.readVarInt(in);
+                ByteBuffer value = ByteBuffer.wrap(Quic.readBytes(in));
+                if (!seen.add(id))
+                    throw new QuicException("重复的传输参数: " + id, QuicException.TRANSPORT_PARAMETER_ERROR);
+                if (!fromServer && (id == Quic.PARAM_ORIGINAL_DESTINATION_CONNECTION_ID || id == Quic.PARAM_STATELESS_RESET_TOKEN
+                        || id == Quic.PARAM_RETRY_SOURCE_CONNECTION_ID))
+                    throw new QuicException("客户端不能发送传输参数: " + id, QuicException.TRANSPORT_PARAMETER_ERROR);
+                switch ((int) Math.min(id, Integer.MAX_VALUE)) {
+                    case Quic.PARAM_ORIGINAL_DESTINATION_CONNECTION_ID -> parameters.originalDestinationConnectionId = TransportParameters.remaining(value);
+                    case Quic.PARAM_INITIAL_SOURCE_CONNECTION_ID -> parameters.initialSourceConnectionId = TransportParameters.remaining(value);
+                    case Quic.PARAM_RETRY_SOURCE_CONNECTION_ID -> parameters.retrySourceConnectionId = TransportParameters.remaining(value);
+                    case Quic.PARAM_STATELESS_RESET_TOKEN -> {
+                        if (value.remaining() != 16)
+                            throw new QuicException("无状态重置令牌的长度错误", QuicException.TRANSPORT_PARAMETER_ERROR);
+                        parameters.statelessResetToken = TransportParameters.remaining(value);
+                    }
+                    case Quic.PARAM_MAX_IDLE_TIMEOUT -> parameters.maxIdleTimeout = TransportParameters.integer(value);
+                    case Quic.PARAM_MAX_UDP_PAYLOAD_SIZE -> parameters.maxUdpPayloadSize = TransportParameters.integer(value, 1200, 65527);
+                    case Quic.PARAM_INITIAL_MAX_DATA -> parameters.initialMaxData = TransportParameters.integer(value);
+                    case Quic.PARAM_INITIAL_MAX_STREAM_DATA_BIDI_LOCAL -> parameters.initialMaxStreamDataBidiLocal = TransportParameters.integer(value);
+                    case Quic.PARAM_INITIAL_MAX_STREAM_DATA_BIDI_REMOTE -> parameters.initialMaxStreamDataBidiRemote = TransportParameters.integer(value);
+                    case Quic.PARAM_INITIAL_MAX_STREAM_DATA_UNI -> parameters.initialMaxStreamDataUni = TransportParameters.integer(value);
+                    case Quic.PARAM_INITIAL_MAX_STREAMS_BIDI -> parameters.initialMaxStreamsBidi = TransportParameters.integer(value, 0, 1L << 60);
+                    case Quic.PARAM_INITIAL_MAX_STREAMS_UNI -> parameters.initialMaxStreamsUni = TransportParameters.integer(value, 0, 1L << 60);
+                    case Quic.PARAM_ACK_DELAY_EXPONENT -> parameters.ackDelayExponent = TransportParameters.integer(value, 0, 20);
+                    case Quic.PARAM_MAX_ACK_DELAY -> parameters.maxAckDelay = TransportParameters.integer(value, 0, (1 << 14) - 1);
+                    case Quic.PARAM_ACTIVE_CONNECTION_ID_LIMIT -> parameters.activeConnectionIdLimit = TransportParameters.integer(value, 2, Quic.MAX_VARINT);
+                    case Quic.PARAM_DISABLE_ACTIVE_MIGRATION -> {
+                        if (value.hasRemaining())
+                            throw new QuicException("disable_active_migration不应有值", QuicException.TRANSPORT_PARAMETER_ERROR);
+                        parameters.disableActiveMigration = true;
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } catch (QuicException e) {
+            throw new QuicException(e.getMessage(), QuicException.TRANSPORT_PARAMETER_ERROR);
+        }
+        if (null == parameters.initialSourceConnectionId || fromServer && null == parameters.originalDestinationConnectionId)
+            throw new QuicException("缺少必需的传输参数", QuicException.TRANSPORT_PARAMETER_ERROR);
+        return parameters;
+    }
+
+    private static byte[] remaining(ByteBuffer value) {
+        byte[] bytes = new byte[value.remaining()];
+        value.get(bytes);
+        return bytes;
+    }
+
+    private static long integer(ByteBuffer value) throws QuicException {
+        return TransportParameters.integer(value, 0, Quic.MAX_VARINT);
+    }
+
+    private static long integer(ByteBuffer value, long min, long max) throws QuicException {
+        long result = Quic.readVarInt(value);
+        if (value.hasRemaining() || result < min || result > max)
+            throw new QuicException("传输参数的值无效: " + result, QuicException.TRANSPORT_PARAMETER_ERROR);
+        return result;
+    }
+
+    public byte[] getOriginalDestinationConnectionId() {
+        return originalDestinationConnectionId;
+    }
+
+    public void setOriginalDestinationConnectionId(byte[] originalDestinationConnectionId) {
+        this.originalDestinationConnectionId = originalDestinationConnectionId;
+    }
+
+    public byte[] getInitialSourceConnectionId() {
+        return initialSourceConnectionId;
+    }
+
+    public void setInitialSourceConnectionId(byte[] initialSourceConnectionId) {
+        this.initialSourceConnectionId = initialSourceConnectionId;
+    }
+
+    public byte[] getRetrySourceConnectionId() {
+        return retrySourceConnectionId;
+    }
+
+    public byte[] getStatelessResetToken() {
+        return statelessResetToken;
+    }
+
+    public void setStatelessResetToken(byte[] statelessResetToken) {
+        this.statelessResetToken = statelessResetToken;
+    }
+
+    public long getMaxIdleTimeout() {
+        return maxIdleTimeout;
+    }
+
+    public void setMaxIdleTimeout(long maxIdleTimeout) {
+        this.maxIdleTimeout = maxIdleTimeout;
+    }
+
+    public long getMaxUdpPayloadSize() {
+        return maxUdpPayloadSize;
+    }
+
+    public void setMaxUdpPayloadSize(long maxUdpPayloadSize) {
+        this.maxUdpPayloadSize = maxUdpPayloadSize;
+    }
+
+    public long getInitialMaxData() {
+        return initialMaxData;
+    }
+
+    public void setInitialMaxData(long initialMaxData) {
+        this.initialMaxData = initialMaxData;
+    }
+
+    public long getInitialMaxStreamDataBidiLocal() {
+        return initialMaxStreamDataBidiLocal;
+    }
+
+    public void setInitialMaxStreamDataBidiLocal(long initialMaxStreamDataBidiLocal) {
+        this.initialMaxStreamDataBidiLocal = initialMaxStreamDataBidiLocal;
+    }
+
+    public long getInitialMaxStreamDataBidiRemote() {
+        return initialMaxStreamDataBidiRemote;
+    }
+
+    public void setInitialMaxStreamDataBidiRemote(long initialMaxStreamDataBidiRemote) {
+        this.initialMaxStreamDataBidiRemote = initialMaxStreamDataBidiRemote;
+    }
+
+    public long getInitialMaxStreamDataUni() {
+        return initialMaxStreamDataUni;
+    }
+
+    public void setInitialMaxStreamDataUni(long initialMaxStreamDataUni) {
+        this.initialMaxStreamDataUni = initialMaxStreamDataUni;
+    }
+
+    public long getInitialMaxStreamsBidi() {
+        return initialMaxStreamsBidi;
+    }
+
+    public void setInitialMaxStreamsBidi(long initialMaxStreamsBidi) {
+        this.initialMaxStreamsBidi = initialMaxStreamsBidi;
+    }
+
+    public long getInitialMaxStreamsUni() {
+        return initialMaxStreamsUni;
+    }
+
+    public void setInitialMaxStreamsUni(long initialMaxStreamsUni) {
+        this.initialMaxStreamsUni = initialMaxStreamsUni;
+    }
+
+    public long getAckDelayExponent() {
+        return ackDelayExponent;
+    }
+
+    public long getMaxAckDelay() {
+        return maxAckDelay;
+    }
+
+    public boolean isDisableActiveMigration() {
+        return disableActiveMigration;
+    }
+
+    public void setDisableActiveMigration(boolean disableActiveMigration) {
+        this.disableActiveMigration = disableActiveMigration;
+    }
+
+    public long getActiveConnectionIdLimit() {
+        return activeConnectionIdLimit;
+    }
+}
@@ -0,0 +1,28 @@
+package server.net;
+
+import server.catalina.Connector;
+
+/**
+* 内置协议处理器的公共部分，持有所属的Connector和统计数据，连接数取自Connector的LimitLatch
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public abstract class AbstractEndpoint implements ProtocolHandler {
+    protected final Connector connector;
+    private final ProtocolStats stats;
+
+    public AbstractEndpoint(Connector connector) {
+        this.connector = connector;
+        this.stats = new ProtocolStats();
+    }
+
+    @Override
+    public int getConnectionCount() {
+        return connector.getConnectionLimitLatch().getCount();
+    }
+
+    @Override
+    public ProtocolStats getStats() {
+        return stats;
+    }
+}
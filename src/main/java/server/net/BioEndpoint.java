@@ -0,0 +1,101 @@
+package server.net;
+
+import cn.hutool.log.LogFactory;
+import server.catalina.Connector;
+import server.util.LimitLatch;
+import server.util.SocketUtil;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+
+/**
+* 阻塞的服务端点，每个Acceptor线程各自监听一个SO_REUSEPORT的Socket，
+* 接收到的连接直接交给Connector的执行器，由工作线程阻塞读取请求
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class BioEndpoint extends AbstractEndpoint {
+
+    private List<ServerSocket> serverSockets;
+    private volatile boolean stopped;
+
+    public BioEndpoint(Connector connector) {
+        super(connector);
+    }
+
+    /**
+    * 绑定端口并启动Acceptor线程，所有Acceptor共用Connector的执行器
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void start() throws IOException {
+        int acceptorThreadCount = connector.getAcceptorThreadCount();
+        serverSockets = SocketUtil.openServerSockets(connector.getPort(), acceptorThreadCount, connector.getSocketProperties());
+        for (int i = 0; i < acceptorThreadCount; i++) {
+            ServerSocket serverSocket = serverSockets.get(i % serverSockets.size());
+            new Thread(() -> this.accept(serverSocket), this.getName() + "-Acceptor-" + i).start();
+        }
+    }
+
+    /**
+    * 关闭所有监听Socket，阻塞在accept上的Acceptor线程随之退出
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void stop() throws IOException {
+        stopped = true;
+        for (ServerSocket serverSocket : serverSockets)
+            serverSocket.close();
+    }
+
+    @Override
+    public String getName() {
+        return "http-bio-" + connector.getPort();
+    }
+
+    /**
+    * 自旋获取客户端发送的Socket，具体业务在HttpProcessor中处理，打开的连接数达到maxConnections时暂停accept，
+    * 新连接留在监听队列中，直到有连接关闭
+    * @param serverSocket 该Acceptor监听的Socket
+    * @author cn-wumo
+    * @since 2021/4/15
+    */
+    @SuppressWarnings("InfiniteLoopStatement")
+    private void accept(ServerSocket serverSocket) {
+        LimitLatch connectionLimitLatch = connector.getConnectionLimitLatch();
+        try (
+                serverSocket
+        ) {
+            while (true) {
+                connectionLimitLatch.acquire();
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    connectionLimitLatch.release();
+                    throw e;
+                }
+                this.getStats().getAcceptedCount().increment();
+                SocketWrapper socketWrapper = new BioSocketWrapper(socket, connector);
+                try {
+                    connector.getSocketProperties().setProperties(socket);
+                } catch (IOException e) {   //连接已经断开
+                    socketWrapper.close();
+                    continue;
+                }
+                if (!connector.admit(socketWrapper))
+                    continue;
+                if (connector.isSecure())
+                    socketWrapper.setSecureChannel(new SecureChannel(socketWrapper, connector.getSslSupport()));
+                connector.dispatch(socketWrapper);
+            }
+        } catch (IOException | InterruptedException e) {
+            if (!stopped)   //stop关闭了监听Socket
+                LogFactory.get().error(e);
+        }
+    }
+}
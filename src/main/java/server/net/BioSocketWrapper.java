@@ -0,0 +1,83 @@
+package server.net;
+
+import cn.hutool.core.io.IoUtil;
+import server.catalina.Connector;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+* 阻塞式Socket的包装类，数据的读写直接作用在Socket的流上
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class BioSocketWrapper extends SocketWrapper {
+    private final Socket socket;
+
+    public BioSocketWrapper(Socket socket, Connector connector) {
+        super(connector);
+        this.socket = socket;
+    }
+
+    @Override
+    protected int read(byte[] bytes, int offset, int len, boolean block) throws IOException {
+        return socket.getInputStream().read(bytes, offset, len);
+    }
+
+    /**
+    * 多个缓冲区先拼接成一个数组，只调用一次write
+    * @param buffers 待写出的数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    protected void doWrite(ByteBuffer[] buffers) throws IOException {
+        OutputStream os = socket.getOutputStream();
+        if (1 == buffers.length && buffers[0].hasArray()) {
+            ByteBuffer buffer = buffers[0];
+            os.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        int length = 0;
+        for (ByteBuffer buffer : buffers)
+            length += buffer.remaining();
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        for (ByteBuffer buffer : buffers) {
+            int remaining = buffer.remaining();
+            buffer.get(bytes, offset, remaining);
+            offset += remaining;
+        }
+        os.write(bytes);
+    }
+
+    @Override
+    protected void doClose() {
+        IoUtil.close(socket);
+    }
+
+    /**
+    * 工作线程继续阻塞等待下一个请求，超过keepAliveTimeout未收到数据时由时间轮关闭Socket，阻塞的读随之结束
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public boolean awaitNextRequest() {
+        return true;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return new InetSocketAddress(socket.getLocalAddress(), socket.getLocalPort());
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return (InetSocketAddress) socket.getRemoteSocketAddress();
+    }
+}
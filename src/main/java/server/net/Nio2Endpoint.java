@@ -0,0 +1,164 @@
+package server.net;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.log.LogFactory;
+import server.catalina.Connector;
+import server.catalina.Supervisor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousServerSocketChannel;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+
+/**
+* 基于AsynchronousServerSocketChannel的异步服务端点，accept、read和write都由完成处理器驱动，
+* 完成事件运行在固定大小的通道组线程上，只有读完整的请求才交给Connector的执行器
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Nio2Endpoint extends AbstractEndpoint {
+    private final CompletionHandler<AsynchronousSocketChannel, Void> acceptHandler;
+    private final CompletionHandler<Integer, Nio2SocketWrapper> readHandler;
+    private AsynchronousChannelGroup group;
+    private AsynchronousServerSocketChannel serverSocketChannel;
+
+    public Nio2Endpoint(Connector connector) {
+        super(connector);
+        this.acceptHandler = new AcceptHandler();
+        this.readHandler = new ReadHandler();
+    }
+
+    /**
+    * 创建通道组，绑定端口并发起第一次异步accept，通道组的线程数取pollerThreadCount
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void start() throws IOException {
+        int threadCount = Math.max(1, connector.getPollerThreadCount());
+        NamedThreadFactory threadFactory = new NamedThreadFactory(this.getName() + "-", false);
+        group = AsynchronousChannelGroup.withFixedThreadPool(threadCount, threadFactory);
+        serverSocketChannel = AsynchronousServerSocketChannel.open(group);
+        connector.getSocketProperties().setProperties(serverSocketChannel, true);
+        if (Supervisor.isWorker() && serverSocketChannel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT))
+            serverSocketChannel.setOption(StandardSocketOptions.SO_REUSEPORT, true);  //与其他工作进程监听同一端口
+        serverSocketChannel.bind(new InetSocketAddress(connector.getPort()), connector.getSocketProperties().getAcceptCount());
+        this.accept();
+    }
+
+    /**
+    * 获得连接数许可后发起一次异步accept，达到maxConnections时不再发起，等有连接关闭后由LimitLatch回调继续
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void accept() {
+        if (connector.getConnectionLimitLatch().acquireOrWait(this::accept))
+            serverSocketChannel.accept(null, acceptHandler);
+    }
+
+    /**
+    * 关闭监听通道，挂起的accept以失败结束，不再发起新的accept
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void stop() throws IOException {
+        serverSocketChannel.close();
+    }
+
+    /**
+    * 关闭通道组和其中仍未关闭的连接，通道组的线程不是守护线程，不关闭时进程无法退出
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void destroy() {
+        if (null == group)
+            return;
+        try {
+            group.shutdownNow();
+        } catch (IOException e) {
+            LogFactory.get().error(e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "http-nio2-" + connector.getPort();
+    }
+
+    public CompletionHandler<Integer, Nio2SocketWrapper> getReadHandler() {
+        return readHandler;
+    }
+
+    /**
+    * accept完成处理器，先发起下一次accept，再为新连接设置Socket参数并发起异步读
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private class AcceptHandler implements CompletionHandler<AsynchronousSocketChannel, Void> {
+        @Override
+        public void completed(AsynchronousSocketChannel channel, Void attachment) {
+            Nio2Endpoint.this.accept();
+            Nio2Endpoint.this.getStats().getAcceptedCount().increment();
+            Nio2SocketWrapper socketWrapper = new Nio2SocketWrapper(channel, Nio2Endpoint.this, connector);
+            try {
+                connector.getSocketProperties().setProperties(channel, false);
+            } catch (IOException e) {   //连接已经断开
+                socketWrapper.close();
+                return;
+            }
+            if (!connector.admit(socketWrapper))
+                return;
+            if (connector.isSecure()) { //TLS握手在工作线程上完成
+                socketWrapper.setSecureChannel(new SecureChannel(socketWrapper, connector.getSslSupport()));
+                connector.dispatch(socketWrapper);
+                return;
+            }
+            socketWrapper.registerRead();
+        }
+
+        @Override
+        public void failed(Throwable throwable, Void attachment) {
+            connector.getConnectionLimitLatch().release();
+            if (!serverSocketChannel.isOpen())
+                return;
+            LogFactory.get().error(throwable);
+            Nio2Endpoint.this.accept();
+        }
+    }
+
+    /**
+    * read完成处理器，把收到的数据放入缓冲区，请求报文完整后交给执行器，否则继续异步读
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private class ReadHandler implements CompletionHandler<Integer, Nio2SocketWrapper> {
+        @Override
+        public void completed(Integer length, Nio2SocketWrapper socketWrapper) {
+            if (length < 0) {   //客户端关闭了连接
+                socketWrapper.close();
+                return;
+            }
+            try {
+                socketWrapper.getReadBuffer().flip();
+                while (socketWrapper.getReadBuffer().hasRemaining())
+                    socketWrapper.fill(false);
+                if (socketWrapper.isRequestComplete())
+                    connector.dispatch(socketWrapper);
+                else
+                    socketWrapper.registerRead();
+            } catch (IOException | RuntimeException e) {
+                socketWrapper.close();
+            }
+        }
+
+        @Override
+        public void failed(Throwable throwable, Nio2SocketWrapper socketWrapper) {
+            socketWrapper.close();  //读超时或者连接异常
+        }
+    }
+}
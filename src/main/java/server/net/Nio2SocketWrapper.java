@@ -0,0 +1,192 @@
+package server.net;
+
+import cn.hutool.core.io.IoUtil;
+import server.catalina.Connector;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+* 异步通道AsynchronousSocketChannel的包装类，等待请求时发起带超时的异步读，
+* 读完成后由完成处理器把数据放入缓冲区，请求报文完整后才交给工作线程处理
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Nio2SocketWrapper extends SocketWrapper {
+    private static final long ioTimeout = 20 * 1000;
+    private final AsynchronousSocketChannel channel;
+    private final Nio2Endpoint endpoint;
+    private final ByteBuffer readBuffer;    //异步读的目标缓冲区，读完成后处于读模式
+    private Future<Integer> pendingRead;    //阻塞读超时后尚未完成的读
+    private InetSocketAddress localAddress;
+    private InetSocketAddress remoteAddress;
+
+    public Nio2SocketWrapper(AsynchronousSocketChannel channel, Nio2Endpoint endpoint, Connector connector) {
+        super(connector);
+        this.channel = channel;
+        this.endpoint = endpoint;
+        this.readBuffer = ByteBuffer.allocate(8192).flip();
+        try {
+            this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+            this.remoteAddress = (InetSocketAddress) channel.getRemoteAddress();
+        } catch (IOException e) {
+            this.close();
+        }
+    }
+
+    /**
+    * 发起一次异步读，读超时由时间轮负责，超时关闭通道后未完成的读以失败结束
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void registerRead() {
+        readBuffer.clear();
+        channel.read(readBuffer, this, endpoint.getReadHandler());
+    }
+
+    /**
+    * 先取出异步读已收到的数据，没有数据且需要阻塞时同步等待一次读
+    * @param bytes 缓冲区
+ 	* @param offset 写入缓冲区的起点
+ 	* @param len 最多读取的字节数
+ 	* @param block 是否阻塞等待数据
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    protected int read(byte[] bytes, int offset, int len, boolean block) throws IOException {
+        if (null == pendingRead && readBuffer.hasRemaining()) {
+            int length = Math.min(len, readBuffer.remaining());
+            readBuffer.get(bytes, offset, length);
+            return length;
+        }
+        if (!block)
+            return 0;
+        if (null == pendingRead) {
+            readBuffer.clear();
+            pendingRead = channel.read(readBuffer);
+        }
+        try {
+            int read = pendingRead.get(this.getRemainingTimeout(ioTimeout), TimeUnit.MILLISECONDS);
+            pendingRead = null;
+            readBuffer.flip();
+            if (read < 0)
+                return -1;
+            int length = Math.min(len, readBuffer.remaining());
+            readBuffer.get(bytes, offset, length);
+            return length;
+        } catch (TimeoutException e) {  //未完成的读保留下来，再次调用时继续等待，不会重复发起读
+            throw new SocketTimeoutException("等待通道就绪超时");
+        } catch (ExecutionException e) {
+            pendingRead = null;
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+    * 以异步聚集写的方式写出数据，写完成处理器继续写出剩余数据，工作线程等待全部写完
+    * @param buffers 待写出的数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    protected void doWrite(ByteBuffer[] buffers) throws IOException {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        channel.write(buffers, 0, buffers.length, ioTimeout, TimeUnit.MILLISECONDS, future,
+                new CompletionHandler<Long, CompletableFuture<Void>>() {
+                    @Override
+                    public void completed(Long length, CompletableFuture<Void> attachment) {
+                        if (buffers[buffers.length - 1].hasRemaining())
+                            channel.write(buffers, 0, buffers.length, ioTimeout, TimeUnit.MILLISECONDS, attachment, this);
+                        else
+                            attachment.complete(null);
+                    }
+
+                    @Override
+                    public void failed(Throwable throwable, CompletableFuture<Void> attachment) {
+                        attachment.completeExceptionally(throwable);
+                    }
+                });
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+    * 通道组线程上不能等待写完成，异步写出拒绝响应，完成后关闭连接，TLS连接尚未握手，直接关闭
+    * @param response 预先生成的完整响应报文
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void reject(byte[] response) {
+        if (this.isSecure()) {
+            this.close();
+            return;
+        }
+        channel.write(ByteBuffer.wrap(response), ioTimeout, TimeUnit.MILLISECONDS, null,
+                new CompletionHandler<Integer, Void>() {
+                    @Override
+                    public void completed(Integer length, Void attachment) {
+                        close();
+                    }
+
+                    @Override
+                    public void failed(Throwable throwable, Void attachment) {
+                        close();
+                    }
+                });
+    }
+
+    @Override
+    protected void doClose() {
+        IoUtil.close(channel);
+    }
+
+    /**
+    * 缓冲区中已有完整请求时由当前线程继续处理，否则发起异步读，释放工作线程
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public boolean awaitNextRequest() {
+        if (this.isRequestComplete())
+            return true;
+        this.registerRead();
+        return false;
+    }
+
+    public ByteBuffer getReadBuffer() {
+        return readBuffer;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+}
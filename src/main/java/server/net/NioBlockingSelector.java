@@ -0,0 +1,103 @@
+package server.net;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+* 在非阻塞的SocketChannel上模拟阻塞读写，工作线程从Selector池中借用Selector等待通道就绪，不占用Poller线程
+* 使用池而不是线程私有变量，虚拟线程用完即弃时不会遗留未关闭的Selector
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class NioBlockingSelector {
+    private static final Queue<Selector> selectors = new ConcurrentLinkedQueue<>();
+
+    /**
+    * 将缓冲区的数据全部写入通道，通道写满时等待其再次可写
+    * @param channel 非阻塞的客户端通道
+ 	* @param buffer 待写出的数据
+ 	* @param timeout 等待通道可写的超时毫秒数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static void write(SocketChannel channel, ByteBuffer buffer, long timeout) throws IOException {
+        while (buffer.hasRemaining()) {
+            int length = channel.write(buffer);
+            if (0 == length)
+                NioBlockingSelector.await(channel, SelectionKey.OP_WRITE, timeout);
+        }
+    }
+
+    /**
+    * 以聚集写的方式将多个缓冲区的数据全部写入通道，尽量减少write系统调用的次数
+    * @param channel 非阻塞的客户端通道
+ 	* @param buffers 待写出的数据
+ 	* @param timeout 等待通道可写的超时毫秒数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static void write(SocketChannel channel, ByteBuffer[] buffers, long timeout) throws IOException {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers)
+            remaining += buffer.remaining();
+        while (remaining > 0) {
+            long length = channel.write(buffers);
+            if (0 == length)
+                NioBlockingSelector.await(channel, SelectionKey.OP_WRITE, timeout);
+            remaining -= length;
+        }
+    }
+
+    /**
+    * 从通道读取数据，暂无数据时等待通道可读
+    * @param channel 非阻塞的客户端通道
+ 	* @param buffer 读取数据的缓冲区
+ 	* @param timeout 等待通道可读的超时毫秒数
+    * @return int 读取的字节数，-1表示客户端已关闭连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static int read(SocketChannel channel, ByteBuffer buffer, long timeout) throws IOException {
+        int length = channel.read(buffer);
+        while (0 == length) {
+            NioBlockingSelector.await(channel, SelectionKey.OP_READ, timeout);
+            length = channel.read(buffer);
+        }
+        return length;
+    }
+
+    /**
+    * 借用一个Selector等待通道就绪，超时则抛出SocketTimeoutException
+    * @param channel 非阻塞的通道
+ 	* @param ops 等待的事件
+ 	* @param timeout 超时毫秒数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static void await(SelectableChannel channel, int ops, long timeout) throws IOException {
+        Selector selector = selectors.poll();
+        if (null == selector)
+            selector = Selector.open();
+        try {
+            SelectionKey key = channel.register(selector, ops);
+            try {
+                int ready = selector.select(timeout);
+                selector.selectedKeys().clear();
+                if (0 == ready)
+                    throw new SocketTimeoutException("等待通道就绪超时");
+            } finally {
+                key.cancel();
+                selector.selectNow();   //清理已取消的key，便于Selector下次复用
+            }
+        } finally {
+            selectors.offer(selector);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package server.net;
+
+import cn.hutool.log.LogFactory;
+import server.catalina.Connector;
+import server.util.LimitLatch;
+import server.util.SocketUtil;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+* 基于Selector的非阻塞服务端点，Acceptor线程接收连接（可配置多个，借助SO_REUSEPORT分摊），Poller线程负责读就绪事件，只把读完整的请求交给Connector的执行器
+* 保持中的空闲连接停留在Poller中，不占用工作线程
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class NioEndpoint extends AbstractEndpoint {
+    private final Poller[] pollers;
+    private final AtomicInteger pollerRotater;
+    private List<ServerSocketChannel> serverSocketChannels;
+
+    public NioEndpoint(Connector connector) {
+        super(connector);
+        this.pollers = new Poller[Math.max(1, connector.getPollerThreadCount())];
+        this.pollerRotater = new AtomicInteger();
+    }
+
+    /**
+    * 绑定端口并启动Poller线程和Acceptor线程
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void start() throws IOException {
+        int acceptorThreadCount = connector.getAcceptorThreadCount();
+        List<ServerSocketChannel> channels = this.openServerSocketChannels();
+        serverSocketChannels = channels;
+        String name = this.getName();
+        for (int i = 0; i < pollers.length; i++) {
+            pollers[i] = new Poller();
+            new Thread(pollers[i], name + "-Poller-" + i).start();
+        }
+        for (int i = 0; i < acceptorThreadCount; i++) {
+            ServerSocketChannel channel = channels.get(i % channels.size()); //Acceptor线程阻塞在accept上
+            new Thread(() -> this.accept(channel), name + "-Acceptor-" + i).start();
+        }
+    }
+
+    /**
+    * 关闭监听的通道，Acceptor线程随之退出，Poller线程继续服务已建立的连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void stop() throws IOException {
+        if (null == serverSocketChannels)
+            return;
+        for (ServerSocketChannel channel : serverSocketChannels)
+            channel.close();
+    }
+
+    /**
+    * 打开监听的通道，开启SO_REUSEPORT时每个Acceptor各自一个通道，否则共享同一个
+    * @return java.util.List<java.nio.channels.ServerSocketChannel>
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected List<ServerSocketChannel> openServerSocketChannels() throws IOException {
+        return SocketUtil.openServerSocketChannels(connector.getPort(), connector.getAcceptorThreadCount(), connector.getSocketProperties());
+    }
+
+    @Override
+    public String getName() {
+        return "http-nio-" + connector.getPort();
+    }
+
+    /**
+    * 自旋接收客户端连接，设置为非阻塞后轮流注册到各个Poller，打开的连接数达到maxConnections时暂停accept
+    * @param serverSocketChannel 该Acceptor监听的通道
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @SuppressWarnings("InfiniteLoopStatement")
+    private void accept(ServerSocketChannel serverSocketChannel) {
+        LimitLatch connectionLimitLatch = connector.getConnectionLimitLatch();
+        try {
+            while (true) {
+                connectionLimitLatch.acquire();
+                SocketChannel channel;
+                try {
+                    channel = serverSocketChannel.accept();
+                } catch (IOException e) {
+                    connectionLimitLatch.release();
+                    throw e;
+                }
+                this.getStats().getAcceptedCount().increment();
+                Poller poller = this.getPoller();
+                NioSocketWrapper socketWrapper = new NioSocketWrapper(channel, poller, connector);
+                try {
+                    connector.getSocketProperties().setProperties(channel, false);
+                    channel.configureBlocking(false);
+                } catch (IOException e) {   //连接已经断开
+                    socketWrapper.close();
+                    continue;
+                }
+                if (!connector.admit(socketWrapper))
+                    continue;
+                if (connector.isSecure()) { //TLS握手在工作线程上完成
+                    socketWrapper.setSecureChannel(new SecureChannel(socketWrapper, connector.getSslSupport()));
+                    connector.dispatch(socketWrapper);
+                    continue;
+                }
+                poller.register(socketWrapper);
+            }
+        } catch (IOException | InterruptedException e) {
+            if (serverSocketChannel.isOpen())   //stop关闭了监听通道
+                LogFactory.get().error(e);
+        }
+    }
+
+    private Poller getPoller() {
+        int index = Math.abs(pollerRotater.incrementAndGet() % pollers.length);
+        return pollers[index];
+    }
+
+    /**
+    * 轮询线程，持有一个Selector，监听所属连接的读就绪事件，空闲连接的超时由时间轮负责。
+    * 非阻塞写出未完成的连接另外监听写就绪事件，两种事件互不覆盖
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public class Poller implements Runnable {
+        private final Selector selector;
+        private final Queue<NioSocketWrapper> events;
+        private final Queue<NioSocketWrapper> writeEvents;
+
+        public Poller() throws IOException {
+            this.selector = Selector.open();
+            this.events = new ConcurrentLinkedQueue<>();
+            this.writeEvents = new ConcurrentLinkedQueue<>();
+        }
+
+        /**
+        * 将连接交给Poller监听读事件，注册动作在Poller线程内完成
+        * @param socketWrapper 客户端连接
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        public void register(NioSocketWrapper socketWrapper) {
+            events.offer(socketWrapper);
+            selector.wakeup();
+        }
+
+        /**
+        * 监听连接的写就绪事件，就绪后在Poller线程上回调连接的onWritable
+        * @param socketWrapper 写出未完成的客户端连接
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        public void registerWrite(NioSocketWrapper socketWrapper) {
+            writeEvents.offer(socketWrapper);
+            selector.wakeup();
+        }
+
+        @Override
+        @SuppressWarnings("InfiniteLoopStatement")
+        public void run() {
+            while (true) {
+                try {
+                    selector.select(1000);
+                    this.events();
+                    Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                    while (iterator.hasNext()) {
+                        SelectionKey key = iterator.next();
+                        iterator.remove();
+                        this.processKey(key);
+                    }
+                } catch (IOException e) {
+                    LogFactory.get().error(e);
+                }
+            }
+        }
+
+        /**
+        * 处理等待注册的连接，已注册过的连接重新打开读事件或写事件
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        private void events() {
+            NioSocketWrapper socketWrapper;
+            while (null != (socketWrapper = events.poll()))
+                this.interest(socketWrapper, SelectionKey.OP_READ);
+            while (null != (socketWrapper = writeEvents.poll()))
+                this.interest(socketWrapper, SelectionKey.OP_WRITE);
+        }
+
+        /**
+        * 在连接已监听的事件上增加一种事件
+        * @param socketWrapper 客户端连接
+ 	* @param ops 增加的事件
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        private void interest(NioSocketWrapper socketWrapper, int ops) {
+            SocketChannel channel = socketWrapper.getChannel();
+            try {
+                SelectionKey key = channel.keyFor(selector);
+                if (null == key)
+                    channel.register(selector, ops, socketWrapper);
+                else
+                    key.interestOps(key.interestOps() | ops);
+            } catch (ClosedChannelException | RuntimeException e) {
+                socketWrapper.close();
+            }
+        }
+
+        /**
+        * 读取就绪的数据，请求报文完整后暂停监听该连接的读事件，交给执行器处理；写就绪时回调连接继续写出
+        * @param key 就绪的SelectionKey
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        private void processKey(SelectionKey key) {
+            NioSocketWrapper socketWrapper = (NioSocketWrapper) key.attachment();
+            try {
+                if (!key.isValid())
+                    return;
+                if (key.isWritable()) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                    socketWrapper.onWritable();
+                }
+                if (!key.isValid() || !key.isReadable())
+                    return;
+                if (socketWrapper.fill(false) < 0) {   //客户端关闭了连接
+                    key.cancel();
+                    socketWrapper.close();
+                    return;
+                }
+                if (socketWrapper.isRequestComplete()) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                    connector.dispatch(socketWrapper);
+                }
+            } catch (IOException | RuntimeException e) {
+                key.cancel();
+                socketWrapper.close();
+            }
+        }
+    }
+}
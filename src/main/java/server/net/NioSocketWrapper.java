@@ -0,0 +1,113 @@
+package server.net;
+
+import cn.hutool.core.io.IoUtil;
+import server.catalina.Connector;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+* 非阻塞SocketChannel的包装类，Poller线程将数据读入缓冲区，请求报文完整后才交给工作线程处理
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class NioSocketWrapper extends SocketWrapper {
+    private static final long ioTimeout = 20 * 1000;
+    private final SocketChannel channel;
+    private final NioEndpoint.Poller poller;
+
+    public NioSocketWrapper(SocketChannel channel, NioEndpoint.Poller poller, Connector connector) {
+        super(connector);
+        this.channel = channel;
+        this.poller = poller;
+    }
+
+    /**
+    * 阻塞读的等待时限不超过当前阶段的剩余时长，关闭通道不会唤醒借用的Selector，需要在超时时自行返回
+    * @param bytes 缓冲区
+ 	* @param offset 写入缓冲区的起点
+ 	* @param len 最多读取的字节数
+ 	* @param block 是否阻塞等待数据
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    protected int read(byte[] bytes, int offset, int len, boolean block) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, offset, len);
+        if (block)
+            return NioBlockingSelector.read(channel, byteBuffer, this.getRemainingTimeout(ioTimeout));
+        return channel.read(byteBuffer);
+    }
+
+    @Override
+    protected void doWrite(ByteBuffer[] buffers) throws IOException {
+        NioBlockingSelector.write(channel, buffers, ioTimeout);
+    }
+
+    /**
+    * 明文连接只调用一次非阻塞的聚集写，写不完时让Poller监听写就绪事件；TLS连接仍然阻塞写出
+    * @param buffers 待写出的数据
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public boolean writeNonBlocking(ByteBuffer[] buffers) throws IOException {
+        if (!this.isNonBlockingWrite())
+            return super.writeNonBlocking(buffers);
+        channel.write(buffers);
+        if (!buffers[buffers.length - 1].hasRemaining())
+            return true;
+        poller.registerWrite(this);
+        return false;
+    }
+
+    @Override
+    public boolean isNonBlockingWrite() {
+        return !this.isSecure();
+    }
+
+    @Override
+    protected void doClose() {
+        IoUtil.close(channel);
+    }
+
+    /**
+    * 缓冲区中已有完整请求时由当前线程继续处理，否则把连接交还给Poller等待数据，释放工作线程
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public boolean awaitNextRequest() {
+        if (this.isRequestComplete())
+            return true;
+        poller.register(this);
+        return false;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        try {
+            return SocketWrapper.toInetSocketAddress(channel.getLocalAddress());
+        } catch (IOException e) {   //通道已关闭
+            return null;
+        }
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        try {
+            return SocketWrapper.toInetSocketAddress(channel.getRemoteAddress());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+}
@@ -0,0 +1,59 @@
+package server.net;
+
+import java.io.IOException;
+
+/**
+* 协议处理器，负责监听端口、接收连接并按各自的I/O模型读取请求，读完整的请求交给Connector处理。
+* Server.xml中Connector的protocol属性选择实现，内置bio、nio、nio2、uds和基于UDP的h3，也可以填写实现类的全限定名，
+* 实现类需要提供以Connector为唯一参数的公有构造方法。Service和HttpProcessor不感知具体的实现
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public interface ProtocolHandler {
+
+    /**
+    * 绑定监听地址并开始接收连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void start() throws IOException;
+
+    /**
+    * 停止接收新连接，关闭监听的Socket，已建立的连接继续处理，直到各自关闭
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void stop() throws IOException;
+
+    /**
+    * 排空结束后释放处理器自己的线程等资源，此后不再处理任何连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    default void destroy() {
+    }
+
+    /**
+    * 处理器的名称，用于日志和线程名，例如http-nio-8082
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    String getName();
+
+    /**
+    * 当前打开的连接数，排空时据此等待连接关闭，不统计时返回负数
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    int getConnectionCount();
+
+    /**
+    * 处理器的统计数据，所有实现提供相同的指标
+    * @return server.net.ProtocolStats
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    ProtocolStats getStats();
+}
@@ -0,0 +1,148 @@
+package server.net;
+
+import server.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+* 协议处理器的统计数据，由接收、处理和关闭连接的各个线程并发累加
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class ProtocolStats {
+    private final LongAdder acceptedCount;
+    private final LongAdder requestCount;
+    private final LongAdder rejectedCount;
+    private final LongAdder clientRejectedCount;
+    private final LongAdder shedCount;
+    private final LatencyHistogram sojournTime;
+    private final LongAdder idleTimeoutCount;
+    private final LongAdder headerReadTimeoutCount;
+    private final LongAdder bodyReadTimeoutCount;
+    private final LongAdder fullHandshakeCount;
+    private final LongAdder resumedHandshakeCount;
+    private final LongAdder fullHandshakeTime;
+    private final LongAdder resumedHandshakeTime;
+    private final LongAdder failedHandshakeCount;
+
+    public ProtocolStats() {
+        this.acceptedCount = new LongAdder();
+        this.requestCount = new LongAdder();
+        this.rejectedCount = new LongAdder();
+        this.clientRejectedCount = new LongAdder();
+        this.shedCount = new LongAdder();
+        this.sojournTime = new LatencyHistogram();
+        this.idleTimeoutCount = new LongAdder();
+        this.headerReadTimeoutCount = new LongAdder();
+        this.bodyReadTimeoutCount = new LongAdder();
+        this.fullHandshakeCount = new LongAdder();
+        this.resumedHandshakeCount = new LongAdder();
+        this.fullHandshakeTime = new LongAdder();
+        this.resumedHandshakeTime = new LongAdder();
+        this.failedHandshakeCount = new LongAdder();
+    }
+
+    public LongAdder getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    /**
+    * 处理的请求数，HTTP/2的每个流计为一个请求
+    * @return java.util.concurrent.atomic.LongAdder
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public LongAdder getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+    * 执行器已满而被拒绝的连接数
+    * @return java.util.concurrent.atomic.LongAdder
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public LongAdder getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+    * 超过单个客户端的连接数、并发请求数或者请求速率而被拒绝的连接和请求数
+    * @return java.util.concurrent.atomic.LongAdder
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public LongAdder getClientRejectedCount() {
+        return clientRejectedCount;
+    }
+
+    /**
+    * 在执行器中排队过久、被CoDel丢弃的连接数
+    * @return java.util.concurrent.atomic.LongAdder
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public LongAdder getShedCount() {
+        return shedCount;
+    }
+
+    /**
+    * 连接从交给执行器到开始处理的排队时间，getPercentile(99)即p99，单位微秒
+    * @return server.util.LatencyHistogram
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public LatencyHistogram getSojournTime() {
+        return sojournTime;
+    }
+
+    public LongAdder getIdleTimeoutCount() {
+        return idleTimeoutCount;
+    }
+
+    public LongAdder getHeaderReadTimeoutCount() {
+        return headerReadTimeoutCount;
+    }
+
+    public LongAdder getBodyReadTimeoutCount() {
+        return bodyReadTimeoutCount;
+    }
+
+    public LongAdder getFullHandshakeCount() {
+        return fullHandshakeCount;
+    }
+
+    /**
+    * 复用会话的简短握手的次数，与完整握手的次数之比即会话复用率
+    * @return java.util.concurrent.atomic.LongAdder
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public LongAdder getResumedHandshakeCount() {
+        return resumedHandshakeCount;
+    }
+
+    /**
+    * 完整握手的累计耗时，单位纳秒
+    * @return java.util.concurrent.atomic.LongAdder
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public LongAdder getFullHandshakeTime() {
+        return fullHandshakeTime;
+    }
+
+    /**
+    * 简短握手的累计耗时，单位纳秒
+    * @return java.util.concurrent.atomic.LongAdder
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public LongAdder getResumedHandshakeTime() {
+        return resumedHandshakeTime;
+    }
+
+    public LongAdder getFailedHandshakeCount() {
+        return failedHandshakeCount;
+    }
+}
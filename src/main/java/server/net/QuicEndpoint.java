@@ -0,0 +1,210 @@
+package server.net;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.log.LogFactory;
+import server.catalina.Connector;
+import server.catalina.Supervisor;
+import server.http3.Http3Connection;
+import server.http3.Quic;
+import server.util.LimitLatch;
+import server.util.TimingWheel;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+* 基于UDP的HTTP/3服务端点（实验性），一个接收线程读取所有数据报，按目的连接ID找到QUIC连接后就地处理，
+* 丢包重传和空闲超时由独立的时间轮驱动，请求交给Connector的执行器。连接ID在本端签发时固定为8字节，
+* 短报头的包据此定位连接；客户端的原始目的连接ID也登记在表中，直到连接关闭
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class QuicEndpoint extends AbstractEndpoint {
+    private static final int maxDatagramSize = 65527;
+    private final Map<String, Http3Connection> connections;
+    private DatagramChannel channel;
+    private TimingWheel timingWheel;
+    private InetSocketAddress localAddress;
+    private volatile boolean stopped;
+
+    public QuicEndpoint(Connector connector) {
+        super(connector);
+        if (null == connector.getSslSupport())
+            throw new IllegalStateException("HTTP/3需要在Connector上配置证书并开启secure [" + connector.getPort() + "]");
+        this.connections = new ConcurrentHashMap<>();
+    }
+
+    /**
+    * 绑定UDP端口并启动接收线程和时间轮
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void start() throws IOException {
+        String name = this.getName();
+        channel = DatagramChannel.open();
+        connector.getSocketProperties().setProperties(channel, false);
+        if (Supervisor.isWorker() && channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT))
+            channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);  //内核按四元组散列，同一客户端地址的数据报落在同一进程
+        channel.bind(new InetSocketAddress(connector.getPort()));
+        localAddress = (InetSocketAddress) channel.getLocalAddress();
+        timingWheel = new TimingWheel(10, 512, name + "-Timer");
+        new Thread(this::receive, name + "-Receiver").start();
+    }
+
+    /**
+    * 不再接受新的QUIC连接，已建立的连接与新连接共用同一个UDP通道，通道保持打开，直到连接各自关闭
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public String getName() {
+        return "http-h3-" + connector.getPort();
+    }
+
+    /**
+    * 循环接收数据报，QUIC连接处理完一个数据报后才返回，因此接收缓冲区可以复用
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @SuppressWarnings("InfiniteLoopStatement")
+    private void receive() {
+        ByteBuffer buffer = ByteBuffer.allocate(maxDatagramSize);
+        try {
+            while (true) {
+                buffer.clear();
+                InetSocketAddress address = (InetSocketAddress) channel.receive(buffer);
+                buffer.flip();
+                try {
+                    this.process(buffer, address);
+                } catch (RuntimeException e) {
+                    LogFactory.get().error(e);
+                }
+            }
+        } catch (IOException e) {
+            LogFactory.get().error(e);
+        }
+    }
+
+    /**
+    * 按目的连接ID分发数据报。未知连接只接受不小于1200字节的Initial包，版本不支持时回复版本协商包，
+    * 打开的连接数达到maxConnections时直接丢弃，由客户端重试
+    * @param datagram 数据报
+ 	* @param address 对端地址
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void process(ByteBuffer datagram, InetSocketAddress address) throws IOException {
+        if (datagram.remaining() < 1 + Quic.CONNECTION_ID_LENGTH)
+            return;
+        int first = datagram.get(0) & 0xff;
+        if (0 == (first & 0x80)) {  //短报头
+            byte[] connectionId = Arrays.copyOfRange(datagram.array(), 1, 1 + Quic.CONNECTION_ID_LENGTH);
+            Http3Connection connection = connections.get(HexUtil.encodeHexStr(connectionId));
+            if (null != connection)
+                connection.receive(datagram);
+            return;
+        }
+        if (datagram.remaining() < 7)
+            return;
+        int version = datagram.getInt(1);
+        int dcidLength = datagram.get(5) & 0xff;
+        if (dcidLength > 20 || datagram.remaining() < 7 + dcidLength)
+            return;
+        byte[] destinationConnectionId = Arrays.copyOfRange(datagram.array(), 6, 6 + dcidLength);
+        int scidLength = datagram.get(6 + dcidLength) & 0xff;
+        if (scidLength > 20 || datagram.remaining() < 7 + dcidLength + scidLength)
+            return;
+        byte[] sourceConnectionId = Arrays.copyOfRange(datagram.array(), 7 + dcidLength, 7 + dcidLength + scidLength);
+        Http3Connection connection = connections.get(HexUtil.encodeHexStr(destinationConnectionId));
+        if (null != connection) {
+            connection.receive(datagram);
+            return;
+        }
+        if (datagram.remaining() < Quic.MIN_INITIAL_DATAGRAM_SIZE)
+            return;
+        if (Quic.VERSION_1 != version) {
+            if (0 != version)
+                this.sendVersionNegotiation(destinationConnectionId, sourceConnectionId, address);
+            return;
+        }
+        if (0 != (first & 0x30) || dcidLength < Quic.CONNECTION_ID_LENGTH)  //不是Initial包
+            return;
+        if (stopped)
+            return;
+        LimitLatch connectionLimitLatch = connector.getConnectionLimitLatch();
+        if (!connectionLimitLatch.tryAcquire())
+            return;
+        try {
+            connection = new Http3Connection(this, destinationConnectionId, sourceConnectionId, address);
+        } catch (GeneralSecurityException e) {
+            connectionLimitLatch.release();
+            LogFactory.get().error(e);
+            return;
+        }
+        this.getStats().getAcceptedCount().increment();
+        connections.put(HexUtil.encodeHexStr(destinationConnectionId), connection);
+        connections.put(HexUtil.encodeHexStr(connection.getLocalConnectionId()), connection);
+        connection.receive(datagram);
+    }
+
+    /**
+    * 回复版本协商包，源和目的连接ID与客户端的包对调
+    * @param destinationConnectionId 客户端包中的目的连接ID
+ 	* @param sourceConnectionId 客户端包中的源连接ID
+ 	* @param address 客户端地址
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void sendVersionNegotiation(byte[] destinationConnectionId, byte[] sourceConnectionId, InetSocketAddress address) throws IOException {
+        ByteBuffer packet = ByteBuffer.allocate(7 + destinationConnectionId.length + sourceConnectionId.length + 4);
+        packet.put((byte) 0xc0);
+        packet.putInt(0);
+        packet.put((byte) sourceConnectionId.length).put(sourceConnectionId);
+        packet.put((byte) destinationConnectionId.length).put(destinationConnectionId);
+        packet.putInt(Quic.VERSION_1);
+        packet.flip();
+        channel.send(packet, address);
+    }
+
+    /**
+    * 连接关闭后从表中移除并释放连接数
+    * @param connection 已关闭的连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void removeConnection(Http3Connection connection) {
+        boolean removed = connections.remove(HexUtil.encodeHexStr(connection.getLocalConnectionId()), connection);
+        connections.remove(HexUtil.encodeHexStr(connection.getOriginalDestinationConnectionId()), connection);
+        if (removed)
+            connector.getConnectionLimitLatch().release();
+    }
+
+    public Connector getConnector() {
+        return connector;
+    }
+
+    public DatagramChannel getChannel() {
+        return channel;
+    }
+
+    public TimingWheel getTimingWheel() {
+        return timingWheel;
+    }
+
+    public InetSocketAddress getLocalAddress() {
+        return localAddress;
+    }
+}
@@ -0,0 +1,52 @@
+package server.net;
+
+/**
+* 一个主机名的TLS证书配置，Connector上的keystore属性是未匹配SNI时使用的默认证书，
+* Connector下的SSLHostConfig元素为其他主机名指定证书
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class SSLHostConfig {
+    public static final String DEFAULT_HOST_NAME = "_default_";
+    private String hostName;
+    private String keystoreFile;
+    private String keystorePass;
+    private String keystoreType;
+
+    public SSLHostConfig() {
+        this.hostName = DEFAULT_HOST_NAME;
+        this.keystoreType = "PKCS12";
+    }
+
+    public String getHostName() {
+        return hostName;
+    }
+
+    public void setHostName(String hostName) {
+        this.hostName = hostName;
+    }
+
+    public String getKeystoreFile() {
+        return keystoreFile;
+    }
+
+    public void setKeystoreFile(String keystoreFile) {
+        this.keystoreFile = keystoreFile;
+    }
+
+    public String getKeystorePass() {
+        return keystorePass;
+    }
+
+    public void setKeystorePass(String keystorePass) {
+        this.keystorePass = keystorePass;
+    }
+
+    public String getKeystoreType() {
+        return keystoreType;
+    }
+
+    public void setKeystoreType(String keystoreType) {
+        this.keystoreType = keystoreType;
+    }
+}
@@ -0,0 +1,248 @@
+package server.net;
+
+import cn.hutool.system.SystemUtil;
+import server.catalina.Connector;
+
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.StandardConstants;
+import javax.net.ssl.X509ExtendedKeyManager;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+* 安全Connector共用的SSLContext，按SNI请求的主机名选择证书，通过ALPN协商h2或http/1.1，
+* 服务端会话缓存的容量和有效期由Connector配置，会话票据（RFC 5077/8446）由JSSE的系统属性控制
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class SSLSupport {
+    private static final String sessionTicketProperty = "jdk.tls.server.enableSessionTicketExtension";
+    private final Connector connector;
+    private final SSLContext sslContext;
+    private final SniKeyManager keyManager;
+
+    /**
+    * 加载Connector上所有主机的证书并初始化SSLContext
+    * @param connector 安全Connector
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public SSLSupport(Connector connector) throws GeneralSecurityException, IOException {
+        this.connector = connector;
+        Map<String, X509ExtendedKeyManager> keyManagers = new HashMap<>();
+        for (SSLHostConfig sslHostConfig : connector.getSslHostConfigs())
+            keyManagers.put(sslHostConfig.getHostName().toLowerCase(), SSLSupport.loadKeyManager(sslHostConfig));
+        if (!keyManagers.containsKey(SSLHostConfig.DEFAULT_HOST_NAME))
+            throw new GeneralSecurityException("安全Connector [" + connector.getPort() + "] 缺少默认的keystoreFile");
+
+        if (null == System.getProperty(sessionTicketProperty))  //JVM级别的开关，只在JSSE初始化之前设置有效
+            System.setProperty(sessionTicketProperty, String.valueOf(connector.isSessionTickets()));
+        this.keyManager = new SniKeyManager(keyManagers);
+        this.sslContext = SSLContext.getInstance("TLS");
+        this.sslContext.init(new KeyManager[]{keyManager}, null, null);
+        SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+        sessionContext.setSessionCacheSize(connector.getSessionCacheSize());
+        sessionContext.setSessionTimeout(connector.getSessionTimeout());
+    }
+
+    /**
+    * 为新连接创建服务端的SSLEngine
+    * @return javax.net.ssl.SSLEngine
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public SSLEngine createSSLEngine() {
+        SSLEngine engine = sslContext.createSSLEngine();
+        engine.setUseClientMode(false);
+        engine.setHandshakeApplicationProtocolSelector((sslEngine, protocols) -> this.selectApplicationProtocol(protocols));
+        return engine;
+    }
+
+    /**
+    * ALPN协商，Connector启用HTTP/2且客户端支持时选择h2，客户端未提供可用协议时不使用ALPN
+    * @param protocols 客户端支持的协议
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private String selectApplicationProtocol(List<String> protocols) {
+        if (connector.isH2c() && protocols.contains("h2"))
+            return "h2";
+        if (protocols.contains("http/1.1"))
+            return "http/1.1";
+        return "";
+    }
+
+    /**
+    * 握手完成后按会话是否复用分别计数和计时，复用的会话创建于本次握手开始之前
+    * @param session 握手得到的会话
+ 	* @param handshakeStart 握手开始的时间，单位毫秒
+ 	* @param handshakeTime 握手耗时，单位纳秒
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void handshakeCompleted(SSLSession session, long handshakeStart, long handshakeTime) {
+        if (session.getCreationTime() < handshakeStart) {
+            connector.getStats().getResumedHandshakeCount().increment();
+            connector.getStats().getResumedHandshakeTime().add(handshakeTime);
+        } else {
+            connector.getStats().getFullHandshakeCount().increment();
+            connector.getStats().getFullHandshakeTime().add(handshakeTime);
+        }
+    }
+
+    /**
+    * 按服务器名称选择证书的别名，供不经过SSLEngine、自行完成TLS 1.3握手的QUIC连接使用，依次尝试各个密钥类型
+    * @param serverName 客户端通过SNI请求的主机名，没有时为null
+ 	* @param keyTypes 可接受的密钥类型，例如RSA、EC
+    * @return java.lang.String 没有可用的证书时返回null
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public String chooseServerAlias(String serverName, String... keyTypes) {
+        String hostName = keyManager.match(serverName);
+        for (String keyType : keyTypes) {
+            String alias = keyManager.keyManagers.get(hostName).chooseServerAlias(keyType, null, null);
+            if (null != alias)
+                return hostName + SniKeyManager.separator + alias;
+        }
+        return null;
+    }
+
+    public X509Certificate[] getCertificateChain(String alias) {
+        return keyManager.getCertificateChain(alias);
+    }
+
+    public PrivateKey getPrivateKey(String alias) {
+        return keyManager.getPrivateKey(alias);
+    }
+
+    private static X509ExtendedKeyManager loadKeyManager(SSLHostConfig sslHostConfig) throws GeneralSecurityException, IOException {
+        File file = new File(sslHostConfig.getKeystoreFile());
+        if (!file.isAbsolute()) //相对路径从服务器的工作目录开始
+            file = new File(SystemUtil.get("user.dir"), sslHostConfig.getKeystoreFile());
+        char[] password = null == sslHostConfig.getKeystorePass() ? null : sslHostConfig.getKeystorePass().toCharArray();
+        KeyStore keyStore = KeyStore.getInstance(sslHostConfig.getKeystoreType());
+        try (InputStream in = new FileInputStream(file)) {
+            keyStore.load(in, password);
+        }
+        KeyManagerFactory factory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        factory.init(keyStore, password);
+        for (KeyManager keyManager : factory.getKeyManagers()) {
+            if (keyManager instanceof X509ExtendedKeyManager)
+                return (X509ExtendedKeyManager) keyManager;
+        }
+        throw new GeneralSecurityException("keystore中没有可用的证书: " + file);
+    }
+
+    /**
+    * 按SNI选择证书的KeyManager，别名前加上主机名，取证书和私钥时交给对应主机的KeyManager
+    * 主机名依次按完全匹配、通配符*.domain匹配，都不匹配时使用默认证书
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static class SniKeyManager extends X509ExtendedKeyManager {
+        private static final char separator = '/';
+        private final Map<String, X509ExtendedKeyManager> keyManagers;
+
+        private SniKeyManager(Map<String, X509ExtendedKeyManager> keyManagers) {
+            this.keyManagers = keyManagers;
+        }
+
+        @Override
+        public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+            String hostName = this.getHostName(engine);
+            String alias = keyManagers.get(hostName).chooseEngineServerAlias(keyType, issuers, engine);
+            return null == alias ? null : hostName + separator + alias;
+        }
+
+        @Override
+        public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+            String alias = keyManagers.get(SSLHostConfig.DEFAULT_HOST_NAME).chooseServerAlias(keyType, issuers, socket);
+            return null == alias ? null : SSLHostConfig.DEFAULT_HOST_NAME + separator + alias;
+        }
+
+        @Override
+        public X509Certificate[] getCertificateChain(String alias) {
+            int index = alias.indexOf(separator);
+            return keyManagers.get(alias.substring(0, index)).getCertificateChain(alias.substring(index + 1));
+        }
+
+        @Override
+        public PrivateKey getPrivateKey(String alias) {
+            int index = alias.indexOf(separator);
+            return keyManagers.get(alias.substring(0, index)).getPrivateKey(alias.substring(index + 1));
+        }
+
+        @Override
+        public String[] getServerAliases(String keyType, Principal[] issuers) {
+            return keyManagers.get(SSLHostConfig.DEFAULT_HOST_NAME).getServerAliases(keyType, issuers);
+        }
+
+        @Override
+        public String[] getClientAliases(String keyType, Principal[] issuers) {
+            return null;
+        }
+
+        @Override
+        public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+            return null;
+        }
+
+        /**
+        * 取出ClientHello中请求的主机名，返回匹配的配置名称
+        * @param engine 正在握手的SSLEngine
+        * @return java.lang.String
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        private String getHostName(SSLEngine engine) {
+            if (!(engine.getHandshakeSession() instanceof ExtendedSSLSession))
+                return SSLHostConfig.DEFAULT_HOST_NAME;
+            List<SNIServerName> serverNames = ((ExtendedSSLSession) engine.getHandshakeSession()).getRequestedServerNames();
+            for (SNIServerName serverName : serverNames) {
+                if (StandardConstants.SNI_HOST_NAME == serverName.getType())
+                    return this.match(((SNIHostName) serverName).getAsciiName());
+            }
+            return SSLHostConfig.DEFAULT_HOST_NAME;
+        }
+
+        /**
+        * 依次按完全匹配、通配符*.domain匹配查找主机名对应的配置名称，都不匹配时返回默认配置
+        * @param serverName 请求的主机名，可以为null
+        * @return java.lang.String
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        private String match(String serverName) {
+            if (null == serverName)
+                return SSLHostConfig.DEFAULT_HOST_NAME;
+            String hostName = serverName.toLowerCase();
+            if (keyManagers.containsKey(hostName))
+                return hostName;
+            int dot = hostName.indexOf('.');
+            if (-1 != dot && keyManagers.containsKey("*" + hostName.substring(dot)))
+                return "*" + hostName.substring(dot);
+            return SSLHostConfig.DEFAULT_HOST_NAME;
+        }
+    }
+}
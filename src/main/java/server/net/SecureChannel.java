@@ -0,0 +1,248 @@
+package server.net;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+* 连接上的TLS层，在传输层包装类的原始读写之上用SSLEngine加解密，BIO、NIO和NIO.2共用。
+* 握手在第一次读写时由工作线程完成，之后收到的密文一次解密到明文缓冲区，连接上只保留不完整的记录，
+* 非阻塞的读不会因为明文滞留在TLS层而错过就绪事件
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class SecureChannel {
+    private static final ByteBuffer[] empty = {ByteBuffer.allocate(0)};
+    private final SocketWrapper socketWrapper;
+    private final SSLSupport sslSupport;
+    private final SSLEngine engine;
+    private ByteBuffer netIn;   //收到的密文，写模式
+    private ByteBuffer appIn;   //解密后尚未取走的明文，读模式
+    private final ByteBuffer netOut;    //待发送的密文，写模式
+    private final int packetBufferSize;
+    private volatile boolean handshakeComplete;
+    private long handshakeStart;
+    private long handshakeStartMillis;
+
+    public SecureChannel(SocketWrapper socketWrapper, SSLSupport sslSupport) {
+        this.socketWrapper = socketWrapper;
+        this.sslSupport = sslSupport;
+        this.engine = sslSupport.createSSLEngine();
+        SSLSession session = engine.getSession();
+        this.packetBufferSize = session.getPacketBufferSize();
+        this.netIn = ByteBuffer.allocate(packetBufferSize);
+        this.appIn = ByteBuffer.allocate(session.getApplicationBufferSize()).flip();
+        this.netOut = ByteBuffer.allocate(packetBufferSize * 4);
+    }
+
+    /**
+    * 读取解密后的数据，握手未完成时先完成握手
+    * @param bytes 缓冲区
+ 	* @param offset 写入缓冲区的起点
+ 	* @param len 最多读取的字节数
+ 	* @param block 是否阻塞等待数据
+    * @return int 读取的字节数，-1表示客户端已关闭连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int read(byte[] bytes, int offset, int len, boolean block) throws IOException {
+        if (!handshakeComplete && !this.handshake(block))
+            return 0;
+        while (!appIn.hasRemaining()) {
+            int produced = this.unwrap(block);
+            if (produced <= 0)
+                return produced;
+        }
+        int length = Math.min(len, appIn.remaining());
+        appIn.get(bytes, offset, length);
+        return length;
+    }
+
+    /**
+    * 是否还有解密后尚未取走的明文
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean hasRemaining() {
+        return appIn.hasRemaining();
+    }
+
+    /**
+    * 加密并写出全部数据，每条记录放入netOut，攒满后再调用一次原始写
+    * @param buffers 待写出的明文
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void write(ByteBuffer[] buffers) throws IOException {
+        if (!handshakeComplete)
+            this.handshake(true);
+        synchronized (netOut) {
+            while (SecureChannel.hasRemaining(buffers)) {
+                if (netOut.remaining() < packetBufferSize)
+                    this.flushNetOut();
+                SSLEngineResult result = engine.wrap(buffers, netOut);
+                if (SSLEngineResult.Status.CLOSED == result.getStatus())
+                    throw new SSLException("TLS连接已关闭");
+            }
+            this.flushNetOut();
+        }
+    }
+
+    /**
+    * 驱动握手的状态机，阻塞读写在工作线程上进行，委托任务（签名、密钥交换）直接在当前线程执行
+    * @param block 是否阻塞等待数据
+    * @return boolean 握手是否已完成，非阻塞时数据不足返回false
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private boolean handshake(boolean block) throws IOException {
+        if (0 == handshakeStart) {
+            handshakeStart = System.nanoTime();
+            handshakeStartMillis = System.currentTimeMillis();
+            engine.beginHandshake();
+        }
+        try {
+            while (true) {
+                switch (engine.getHandshakeStatus()) {
+                    case NEED_UNWRAP:
+                    case NEED_UNWRAP_AGAIN:
+                        if (this.unwrap(block) < 0)
+                            throw new EOFException("TLS握手时客户端关闭了连接");
+                        if (!block && SSLEngineResult.HandshakeStatus.NEED_UNWRAP == engine.getHandshakeStatus())
+                            return false;
+                        break;
+                    case NEED_WRAP:
+                        synchronized (netOut) {
+                            SSLEngineResult result = engine.wrap(empty, netOut);
+                            this.flushNetOut();
+                            if (SSLEngineResult.Status.CLOSED == result.getStatus())
+                                throw new SSLException("TLS握手失败");
+                        }
+                        break;
+                    case NEED_TASK:
+                        this.runDelegatedTasks();
+                        break;
+                    default:
+                        handshakeComplete = true;
+                        sslSupport.handshakeCompleted(engine.getSession(), handshakeStartMillis, System.nanoTime() - handshakeStart);
+                        return true;
+                }
+            }
+        } catch (SSLException e) {
+            socketWrapper.getConnector().getStats().getFailedHandshakeCount().increment();
+            throw e;
+        }
+    }
+
+    /**
+    * 把已收到的完整记录全部解密到appIn，没有完整记录时从连接读取，握手后的消息（会话票据、密钥更新）顺带处理
+    * @param block 是否阻塞等待数据
+    * @return int 解密出的明文字节数，-1表示连接已关闭
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private int unwrap(boolean block) throws IOException {
+        int produced = 0;
+        while (true) {
+            appIn.compact();
+            netIn.flip();
+            SSLEngineResult result;
+            try {
+                result = engine.unwrap(netIn, appIn);
+            } finally {
+                netIn.compact();
+                appIn.flip();
+            }
+            produced += result.bytesProduced();
+            switch (result.getStatus()) {
+                case OK:
+                    if (handshakeComplete && SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING != result.getHandshakeStatus())
+                        this.handlePostHandshake();
+                    if (handshakeComplete && result.bytesConsumed() > 0 && netIn.position() > 0)   //后面还有记录
+                        continue;
+                    if (produced > 0 || !handshakeComplete)
+                        return produced;
+                    break;
+                case BUFFER_OVERFLOW:
+                    appIn = SecureChannel.enlarge(appIn.compact(), engine.getSession().getApplicationBufferSize()).flip();
+                    continue;
+                case BUFFER_UNDERFLOW:
+                    if (produced > 0)
+                        return produced;
+                    if (!netIn.hasRemaining())
+                        netIn = SecureChannel.enlarge(netIn, engine.getSession().getPacketBufferSize());
+                    break;
+                default:    //客户端发送了close_notify
+                    return produced > 0 ? produced : -1;
+            }
+            int read = socketWrapper.read(netIn.array(), netIn.position(), netIn.remaining(), block);
+            if (read <= 0)
+                return produced > 0 ? produced : read;
+            netIn.position(netIn.position() + read);
+        }
+    }
+
+    /**
+    * 处理握手完成后的握手消息，例如TLS 1.3的KeyUpdate需要回复
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void handlePostHandshake() throws IOException {
+        while (true) {
+            switch (engine.getHandshakeStatus()) {
+                case NEED_TASK:
+                    this.runDelegatedTasks();
+                    break;
+                case NEED_WRAP:
+                    synchronized (netOut) {
+                        engine.wrap(empty, netOut);
+                        this.flushNetOut();
+                    }
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    private void runDelegatedTasks() {
+        Runnable task;
+        while (null != (task = engine.getDelegatedTask()))
+            task.run();
+    }
+
+    private void flushNetOut() throws IOException {
+        netOut.flip();
+        if (netOut.hasRemaining())
+            socketWrapper.doWrite(new ByteBuffer[]{netOut});
+        netOut.clear();
+    }
+
+    private static ByteBuffer enlarge(ByteBuffer buffer, int increment) {
+        ByteBuffer result = ByteBuffer.allocate(buffer.capacity() + increment);
+        buffer.flip();
+        result.put(buffer);
+        return result;
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasRemaining())
+                return true;
+        }
+        return false;
+    }
+
+    public SSLSession getSession() {
+        return engine.getSession();
+    }
+
+    public String getApplicationProtocol() {
+        return engine.getApplicationProtocol();
+    }
+}
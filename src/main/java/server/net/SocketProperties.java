@@ -0,0 +1,114 @@
+package server.net;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.NetworkChannel;
+
+/**
+* Connector上配置的Socket参数，监听Socket和接收到的连接在使用前都按这里的值设置，
+* 小于0的缓冲区大小和soLinger表示沿用系统默认值
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class SocketProperties {
+    private int acceptCount = 100;
+    private boolean tcpNoDelay = true;
+    private int soRcvBuf = -1;
+    private int soSndBuf = -1;
+    private int soLinger = -1;
+
+    /**
+    * 设置阻塞式的监听Socket，接收缓冲区需要在bind之前设置才能影响TCP窗口缩放
+    * @param serverSocket 未绑定的监听Socket
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void setProperties(ServerSocket serverSocket) throws IOException {
+        if (soRcvBuf > 0)
+            serverSocket.setReceiveBufferSize(soRcvBuf);
+    }
+
+    /**
+    * 设置阻塞式Socket接收到的连接
+    * @param socket 客户端连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void setProperties(Socket socket) throws IOException {
+        socket.setTcpNoDelay(tcpNoDelay);
+        if (soRcvBuf > 0)
+            socket.setReceiveBufferSize(soRcvBuf);
+        if (soSndBuf > 0)
+            socket.setSendBufferSize(soSndBuf);
+        if (soLinger >= 0)
+            socket.setSoLinger(true, soLinger);
+    }
+
+    /**
+    * 设置NIO和NIO.2的通道，监听通道只设置接收缓冲区，客户端通道设置全部参数，
+    * Unix域套接字不支持TCP_NODELAY和SO_LINGER，通道不支持的参数跳过
+    * @param channel 监听通道或者客户端通道
+ 	* @param server 是否为监听通道
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void setProperties(NetworkChannel channel, boolean server) throws IOException {
+        if (soRcvBuf > 0)
+            SocketProperties.setOption(channel, StandardSocketOptions.SO_RCVBUF, soRcvBuf);
+        if (server)
+            return;
+        SocketProperties.setOption(channel, StandardSocketOptions.TCP_NODELAY, tcpNoDelay);
+        if (soSndBuf > 0)
+            SocketProperties.setOption(channel, StandardSocketOptions.SO_SNDBUF, soSndBuf);
+        if (soLinger >= 0)
+            SocketProperties.setOption(channel, StandardSocketOptions.SO_LINGER, soLinger);
+    }
+
+    private static <T> void setOption(NetworkChannel channel, SocketOption<T> option, T value) throws IOException {
+        if (channel.supportedOptions().contains(option))
+            channel.setOption(option, value);
+    }
+
+    public int getAcceptCount() {
+        return acceptCount;
+    }
+
+    public void setAcceptCount(int acceptCount) {
+        this.acceptCount = acceptCount;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    public int getSoRcvBuf() {
+        return soRcvBuf;
+    }
+
+    public void setSoRcvBuf(int soRcvBuf) {
+        this.soRcvBuf = soRcvBuf;
+    }
+
+    public int getSoSndBuf() {
+        return soSndBuf;
+    }
+
+    public void setSoSndBuf(int soSndBuf) {
+        this.soSndBuf = soSndBuf;
+    }
+
+    public int getSoLinger() {
+        return soLinger;
+    }
+
+    public void setSoLinger(int soLinger) {
+        this.soLinger = soLinger;
+    }
+}
@@ -0,0 +1,640 @@
+package server.net;
+
+import server.catalina.Connector;
+import server.http.RequestParser;
+import server.util.ClientLimiter;
+import server.util.TimingWheel;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+* 客户端连接的包装类，屏蔽BIO和NIO之间的差异，为Request和HttpProcessor提供统一的读写接口
+* 连接上读到的数据先进入缓冲区，按报文边界逐个取出，同一连接可以承载多个请求
+* 写出的响应先进入输出队列，由flush合并写出，流水线上连续的多个响应只需少量的write系统调用
+* 等待请求时的空闲、读取报文头和读取报文体三个阶段分别计时，所有连接共用一个时间轮，超时的连接被关闭并计数
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public abstract class SocketWrapper {
+    private static final int maxOutputLength = 64 * 1024;
+    private static final int initialBufferSize = 8192;
+    private static final int maxBufferedBodySize = 64 * 1024;
+    private static final byte[] response_100 = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+    private static final TimingWheel timingWheel = new TimingWheel(100, 512, "http-timeout-wheel");
+    private static final int PHASE_PROCESSING = 0;
+    private static final int PHASE_IDLE = 1;
+    private static final int PHASE_HEADER = 2;
+    private static final int PHASE_BODY = 3;
+    protected final Connector connector;
+    private byte[] buffer;
+    private int length;
+    private final List<ByteBuffer> outputBuffers;
+    private int outputLength;
+    private int keepAliveCount;
+    private boolean bodyPending;
+    private boolean expectContinue;
+    private RequestParser requestParser;
+    private final AtomicBoolean closed;
+    private final TimingWheel.Timeout timeout;
+    private volatile int phase;
+    private volatile boolean upgraded;
+    private volatile UpgradeHandler upgradeHandler;
+    private volatile Runnable drainListener;
+    private SecureChannel secureChannel;
+    private ClientLimiter.Client client;
+
+    public SocketWrapper(Connector connector) {
+        this.connector = connector;
+        this.buffer = new byte[initialBufferSize];
+        this.requestParser = new RequestParser(connector.getMaxHttpHeaderSize());
+        this.outputBuffers = new ArrayList<>();
+        this.closed = new AtomicBoolean();
+        this.timeout = timingWheel.newTimeout(this::onTimeout);
+        this.phase = PHASE_PROCESSING;
+        this.updateTimeout();   //从接收连接开始计算空闲时间
+    }
+
+    /**
+    * 从连接中读取数据
+    * @param bytes 缓冲区
+ 	* @param offset 写入缓冲区的起点
+ 	* @param len 最多读取的字节数
+ 	* @param block 是否阻塞等待数据
+    * @return int 读取的字节数，-1表示客户端已关闭连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected abstract int read(byte[] bytes, int offset, int len, boolean block) throws IOException;
+
+    /**
+    * 将多个缓冲区的数据全部写往客户端
+    * @param buffers 待写出的数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected abstract void doWrite(ByteBuffer[] buffers) throws IOException;
+
+    /**
+    * 关闭底层的Socket或者通道
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected abstract void doClose();
+
+    /**
+    * 关闭客户端连接，多次调用只生效一次，并向Connector归还连接数许可
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void close() {
+        if (!closed.compareAndSet(false, true))
+            return;
+        timeout.cancel();
+        this.doClose();
+        connector.getConnectionLimitLatch().release();
+        connector.removeConnection(this);
+        if (null != client)
+            connector.getClientLimiter().releaseConnection(client);
+        if (null != upgradeHandler)
+            upgradeHandler.onClose();
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+    * 服务器开始排空时由Connector调用：等待下一个请求的HTTP/1.1连接立即关闭，不再等到keepAliveTimeout，
+    * 阻塞在读上的工作线程和停留在Poller中的连接一样随之结束；正在读取或处理请求的连接不受影响，响应带上Connection: close后关闭。
+    * 升级后的连接交给协议的处理器通知客户端
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void drain() {
+        UpgradeHandler upgradeHandler = this.upgradeHandler;
+        Runnable drainListener = this.drainListener;
+        if (null != upgradeHandler)
+            upgradeHandler.onDrain();
+        else if (null != drainListener)
+            drainListener.run();
+        else if (!upgraded && PHASE_IDLE == phase)
+            this.close();
+    }
+
+    /**
+    * 不经过UpgradeHandler调度、在工作线程上自行读取的协议（例如h2c）注册排空时的回调
+    * @param drainListener 回调，在停止服务器的线程上执行
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void setDrainListener(Runnable drainListener) {
+        this.drainListener = drainListener;
+    }
+
+    /**
+    * 一个请求处理完毕且连接保持时调用，返回true表示由当前线程继续读取下一个请求，
+    * 返回false表示连接已交还给端点，等数据就绪后再调度
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public abstract boolean awaitNextRequest() throws IOException;
+
+    public abstract InetSocketAddress getLocalAddress();
+
+    public abstract InetSocketAddress getRemoteAddress();
+
+    /**
+    * 从连接中读取数据到缓冲区，缓冲区写满时扩容，启用TLS时读到的是解密后的数据，TLS层暂存的明文一并取出
+    * @param block 是否阻塞等待数据
+    * @return int 读取的字节数，-1表示客户端已关闭连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int fill(boolean block) throws IOException {
+        int total = 0;
+        do {
+            if (length == buffer.length)
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            int read = null == secureChannel ? this.read(buffer, length, buffer.length - length, block) :
+                    secureChannel.read(buffer, length, buffer.length - length, block);
+            if (read <= 0) {
+                if (0 == total)
+                    return read;
+                break;
+            }
+            length += read;
+            total += read;
+        } while (null != secureChannel && secureChannel.hasRemaining());
+        this.updateTimeout();
+        return total;
+    }
+
+    /**
+    * 将数据放入输出队列，队列中的数据超过64KB时立即写出
+    * @param bytes 待写出的数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void write(byte[] bytes) throws IOException {
+        outputBuffers.add(ByteBuffer.wrap(bytes));
+        outputLength += bytes.length;
+        if (outputLength >= maxOutputLength)
+            this.flush();
+    }
+
+    /**
+    * 将输出队列中的数据一次性写往客户端
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void flush() throws IOException {
+        if (outputBuffers.isEmpty())
+            return;
+        ByteBuffer[] buffers = outputBuffers.toArray(new ByteBuffer[0]);
+        outputBuffers.clear();
+        outputLength = 0;
+        if (null == secureChannel)
+            this.doWrite(buffers);
+        else
+            secureChannel.write(buffers);
+    }
+
+    /**
+    * 不经过输出队列直接写出，通道暂时写不下时返回false，未写出的数据留在buffers中，通道可写后端点回调onWritable。
+    * 不支持非阻塞写的连接（见isNonBlockingWrite）阻塞到写完为止
+    * @param buffers 待写出的数据
+    * @return boolean 是否已全部写出
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean writeNonBlocking(ByteBuffer[] buffers) throws IOException {
+        if (null == secureChannel)
+            this.doWrite(buffers);
+        else
+            secureChannel.write(buffers);
+        return true;
+    }
+
+    /**
+    * writeNonBlocking是否真正不阻塞，阻塞的连接应当在工作线程上写出
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isNonBlockingWrite() {
+        return false;
+    }
+
+    /**
+    * 通道重新可写，在Poller线程上调用，交给升级后协议的处理器继续写出
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void onWritable() {
+        UpgradeHandler upgradeHandler = this.upgradeHandler;
+        if (null != upgradeHandler)
+            upgradeHandler.onWritable();
+    }
+
+    /**
+    * 拒绝连接，写出预先生成的响应后关闭，在Acceptor或Poller线程上调用，TLS连接尚未握手，直接关闭
+    * @param response 预先生成的完整响应报文
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void reject(byte[] response) {
+        if (null != secureChannel) {
+            this.close();
+            return;
+        }
+        try {
+            this.doWrite(new ByteBuffer[]{ByteBuffer.wrap(response)});
+        } catch (IOException ignored) {
+        } finally {
+            this.close();
+        }
+    }
+
+    /**
+    * 判断缓冲区中是否已有一个可以处理的请求，即报文头已结束且不超过64KB的报文体已全部到达，
+    * chunked编码、超过64KB或者带有Expect: 100-continue的请求报文头结束即可处理，请求体由servlet读取时从连接上拉取，
+    * 升级后的连接由UpgradeHandler判断是否有完整的处理单元
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isRequestComplete() {
+        UpgradeHandler upgradeHandler = this.upgradeHandler;
+        if (null != upgradeHandler)
+            return upgradeHandler.isReadable(this.peek());
+        return this.isRequestReady();
+    }
+
+    /**
+    * 从缓冲区取出一个请求的报文头，数据不足时阻塞读取，请求体和后续请求的数据留在缓冲区中，由readBody按需读取。
+    * 报文头在数据到达时已由连接的RequestParser增量解析，取出后连接换用新的解析器解析下一个请求。
+    * 报文头不合法时无法确定请求的边界，缓冲区中的数据全部取出，连接在应答错误后关闭
+    * @return server.http.RequestParser 解析完毕的报文头，getBytes为取出的报文头，客户端关闭连接时返回null
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public RequestParser readRequest() throws IOException {
+        while (!this.isRequestReady()) {
+            if (this.fill(true) < 0)
+                return null;
+        }
+        RequestParser head = requestParser;
+        requestParser = new RequestParser(connector.getMaxHttpHeaderSize());
+        boolean error = 0 != head.getErrorStatus();
+        int headLength = error ? length : head.getHeadLength();
+        bodyPending = !error && (head.isChunked() || head.getContentLength() > 0);
+        expectContinue = !error && this.isExpectContinue(head);
+        head.setBytes(Arrays.copyOf(buffer, headLength));
+        this.consume(headLength);
+        phase = PHASE_PROCESSING;   //处理请求期间不计时
+        timeout.disarm();
+        return head;
+    }
+
+    /**
+    * 读取当前请求的请求体，缓冲区中有数据时直接取出，没有时阻塞读取并按bodyReadTimeout计时。
+    * 请求带有Expect: 100-continue且客户端还未开始发送请求体时，先回复100 Continue。
+    * 请求体的边界由调用方根据Content-Length或者chunked编码控制，len不应超过请求体剩余的长度
+    * @param bytes 目标数组
+ 	* @param offset 写入目标数组的起点
+ 	* @param len 最多读取的字节数
+    * @return int 读取的字节数，-1表示客户端已关闭连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int readBody(byte[] bytes, int offset, int len) throws IOException {
+        if (0 == length) {
+            if (expectContinue) {
+                this.write(response_100);
+                this.flush();
+            }
+            expectContinue = false;
+            this.updateTimeout();
+            int read = this.fill(true);
+            this.disarmTimeout();
+            if (read < 0)
+                return -1;
+        }
+        expectContinue = false;
+        int read = Math.min(len, length);
+        System.arraycopy(buffer, 0, bytes, offset, read);
+        this.consume(read);
+        return read;
+    }
+
+    /**
+    * 请求体已读完或者已丢弃，此后缓冲区中的数据属于下一个请求
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void endBody() {
+        bodyPending = false;
+        expectContinue = false;
+    }
+
+    /**
+    * 当前请求是否还有未读完的请求体
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isBodyPending() {
+        return bodyPending;
+    }
+
+    /**
+    * 缓冲区中已到达、尚未取走的数据长度
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getBufferedLength() {
+        return length;
+    }
+
+    /**
+    * 是否可以推迟读取请求体并回复100 Continue，HTTP/2和HTTP/3的流上请求体与报文头一起到达，不需要推迟
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected boolean isExpectContinueSupported() {
+        return true;
+    }
+
+    /**
+    * 根据缓冲区中的数据确定连接所处的阶段并重新计时：没有数据时为空闲，首次收到报文头的数据时开始计算报文头的读取时限，
+    * 之后不因陆续到达的数据而延长，报文体每次收到数据都重新计时，请求完整时暂停计时
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void updateTimeout() {
+        if (null != upgradeHandler) {   //例如WebSocket，空闲超时由协议自己决定
+            long idleTimeout = upgradeHandler.getIdleTimeout();
+            phase = idleTimeout > 0 ? PHASE_IDLE : PHASE_PROCESSING;
+            if (idleTimeout > 0)
+                timeout.arm(idleTimeout);
+            else
+                timeout.disarm();
+        } else if (upgraded) { //升级后的协议有自己的帧格式，只按keepAliveTimeout计算空闲
+            phase = PHASE_IDLE;
+            timeout.arm(connector.getKeepAliveTimeout());
+        } else if (bodyPending) {   //servlet正在读取请求体
+            phase = PHASE_BODY;
+            timeout.arm(connector.getBodyReadTimeout());
+        } else if (0 == length) {
+            phase = PHASE_IDLE;
+            timeout.arm(keepAliveCount > 0 ? connector.getKeepAliveTimeout() : connector.getConnectionTimeout());
+        } else if (!requestParser.parse(buffer, length)) {
+            if (PHASE_HEADER != phase) {
+                phase = PHASE_HEADER;
+                timeout.arm(connector.getHeaderReadTimeout());
+            }
+        } else if (!this.isRequestReady()) {
+            phase = PHASE_BODY;
+            timeout.arm(connector.getBodyReadTimeout());
+        } else {
+            phase = PHASE_PROCESSING;
+            timeout.disarm();
+        }
+    }
+
+    /**
+    * 暂停计时，升级后的协议在有请求处理中时调用
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void disarmTimeout() {
+        phase = PHASE_PROCESSING;
+        timeout.disarm();
+    }
+
+    /**
+    * 时间轮线程上的超时回调，按所处阶段计数后关闭连接，阻塞在读操作上的工作线程随之收到异常
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void onTimeout() {
+        switch (phase) {
+            case PHASE_IDLE:
+                connector.getStats().getIdleTimeoutCount().increment();
+                break;
+            case PHASE_HEADER:
+                connector.getStats().getHeaderReadTimeoutCount().increment();
+                break;
+            case PHASE_BODY:
+                connector.getStats().getBodyReadTimeoutCount().increment();
+                break;
+            default:
+                return;
+        }
+        this.close();
+    }
+
+    /**
+    * 距离当前阶段超时的剩余时长，供阻塞读设置等待时限，未在计时时返回defaultTimeout
+    * @param defaultTimeout 默认的等待时限
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected long getRemainingTimeout(long defaultTimeout) {
+        long remaining = timeout.getRemaining();
+        return remaining < 0 ? defaultTimeout : Math.max(1, Math.min(remaining, defaultTimeout));
+    }
+
+    /**
+    * 判断连接上的数据是否以指定的前缀开头，数据不足以判断时阻塞读取，不消耗缓冲区中的数据
+    * @param prefix 前缀
+    * @return boolean 客户端关闭连接时返回false
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean startsWith(byte[] prefix) throws IOException {
+        while (true) {
+            int checked = Math.min(length, prefix.length);
+            for (int i = 0; i < checked; i++) {
+                if (buffer[i] != prefix[i])
+                    return false;
+            }
+            if (checked == prefix.length)
+                return true;
+            if (this.fill(true) < 0)
+                return false;
+        }
+    }
+
+    /**
+    * 从缓冲区取出指定长度的原始数据，数据不足时阻塞读取，供升级后的协议按帧读取
+    * @param bytes 目标数组
+ 	* @param offset 写入目标数组的起点
+ 	* @param len 读取的字节数
+    * @return boolean 客户端关闭连接时返回false
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean readFully(byte[] bytes, int offset, int len) throws IOException {
+        while (length < len) {
+            if (this.fill(true) < 0)
+                return false;
+        }
+        System.arraycopy(buffer, 0, bytes, offset, len);
+        System.arraycopy(buffer, len, buffer, 0, length - len);
+        length -= len;
+        return true;
+    }
+
+    /**
+    * 缓冲区中尚未取走的数据，不消耗，供升级后的协议以非阻塞的方式解析
+    * @return java.nio.ByteBuffer
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public ByteBuffer peek() {
+        return ByteBuffer.wrap(buffer, 0, length);
+    }
+
+    /**
+    * 丢弃缓冲区开头已处理的数据，缓冲区为大消息扩容过时在取空后恢复初始大小，避免长期空闲的连接占用内存
+    * @param len 字节数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void consume(int len) {
+        System.arraycopy(buffer, len, buffer, 0, length - len);
+        length -= len;
+        if (0 == length && buffer.length > initialBufferSize)
+            buffer = new byte[initialBufferSize];
+    }
+
+    /**
+    * 连接切换到其他协议后调用，此后读到的数据不再按HTTP/1.1报文解析和计时
+    * @param upgraded 是否已升级
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isUpgraded() {
+        return upgraded;
+    }
+
+    public void setUpgraded(boolean upgraded) {
+        this.upgraded = upgraded;
+        this.updateTimeout();
+    }
+
+    /**
+    * 把连接交给升级后协议的处理器，此后端点按处理器的判断调度，连接的计时也由处理器决定
+    * @param upgradeHandler 升级后协议的处理器
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void setUpgradeHandler(UpgradeHandler upgradeHandler) {
+        this.upgradeHandler = upgradeHandler;
+        this.setUpgraded(true);
+    }
+
+    public UpgradeHandler getUpgradeHandler() {
+        return upgradeHandler;
+    }
+
+    /**
+    * 连接所属客户端在ClientLimiter中的记录，没有配置单客户端限制时为null
+    * @return server.util.ClientLimiter.Client
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public ClientLimiter.Client getClient() {
+        return client;
+    }
+
+    public void setClient(ClientLimiter.Client client) {
+        this.client = client;
+    }
+
+    /**
+    * 缓冲区中的第一个请求是否可以交给servlet处理，不超过64KB的请求体在端点上等待全部到达，不占用工作线程，
+    * 其余的请求体在servlet读取时才从连接上拉取，不在内存中缓存整个请求体。
+    * 报文头从上次解析停下的位置继续扫描，已到达的数据不会重复扫描，报文头出错时立即交给servlet容器应答错误
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private boolean isRequestReady() {
+        if (!requestParser.parse(buffer, length))
+            return false;
+        if (0 != requestParser.getErrorStatus())
+            return true;
+        long contentLength = requestParser.getContentLength();
+        if (requestParser.isChunked() || contentLength > maxBufferedBodySize || this.isExpectContinue(requestParser))
+            return true;
+        return requestParser.getHeadLength() + contentLength <= length;
+    }
+
+    /**
+    * HTTP/1.1请求带有Expect: 100-continue且有请求体时，等servlet读取请求体时才回复100 Continue，HTTP/1.0的请求忽略Expect
+    * @param head 解析完毕的报文头
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private boolean isExpectContinue(RequestParser head) {
+        return this.isExpectContinueSupported() && head.isExpectContinue()
+                && (head.isChunked() || head.getContentLength() > 0) && head.isHttp11();
+    }
+
+    /**
+    * 把通道的地址转换为InetSocketAddress，Unix域套接字没有IP地址和端口，视为本机的回环地址
+    * @param address 通道的本地或者远端地址
+    * @return java.net.InetSocketAddress
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected static InetSocketAddress toInetSocketAddress(SocketAddress address) {
+        if (null == address || address instanceof InetSocketAddress)
+            return (InetSocketAddress) address;
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    /**
+    * 记录该连接上处理的请求数
+    * @return int 包括本次在内，连接已处理的请求数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int incrementKeepAliveCount() {
+        return ++keepAliveCount;
+    }
+
+    /**
+    * 为连接启用TLS，此后fill和flush读写的都是经过SSLEngine加解密的数据，端点在接收连接后立即调用
+    * @param secureChannel 连接的TLS层
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void setSecureChannel(SecureChannel secureChannel) {
+        this.secureChannel = secureChannel;
+    }
+
+    public boolean isSecure() {
+        return null != secureChannel;
+    }
+
+    public Connector getConnector() {
+        return connector;
+    }
+}
@@ -0,0 +1,47 @@
+package server.net;
+
+import cn.hutool.log.LogFactory;
+import server.catalina.Connector;
+import server.catalina.Supervisor;
+import server.util.SocketUtil;
+
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.util.List;
+
+/**
+* 监听Unix域套接字的服务端点，只有SocketChannel支持Unix域套接字，沿用NIO端点的Poller模型，
+* 所有Acceptor共享监听Connector的path上的同一个通道
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class UdsEndpoint extends NioEndpoint {
+
+    public UdsEndpoint(Connector connector) {
+        super(connector);
+    }
+
+    /**
+    * 套接字文件不能由多个进程同时监听，prefork模式下只有0号工作进程监听，其他工作进程跳过
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void start() throws IOException {
+        if (Supervisor.getWorkerIndex() > 0) {
+            LogFactory.get().info("工作进程 [{}] 不监听Unix域套接字 [{}]", Supervisor.getWorkerIndex(), connector.getPath());
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    protected List<ServerSocketChannel> openServerSocketChannels() throws IOException {
+        return List.of(SocketUtil.openUnixServerSocketChannel(connector.getPath(), connector.getSocketProperties()));
+    }
+
+    @Override
+    public String getName() {
+        return "http-uds";
+    }
+}
@@ -0,0 +1,61 @@
+package server.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+* 连接升级到其他协议后的处理器，连接不再按HTTP/1.1报文解析。端点读到数据后先由isReadable判断是否有完整的处理单元，
+* 有时才交给工作线程调用process，NIO端点上空闲的连接只停留在Poller中
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public interface UpgradeHandler {
+
+    /**
+    * 缓冲区中是否已有至少一个可以处理的完整单元，在Poller线程上调用，不能阻塞
+    * @param buffered 缓冲区中尚未处理的数据，只读不消耗
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    boolean isReadable(ByteBuffer buffered);
+
+    /**
+    * 在工作线程上处理缓冲区中所有完整的单元，不完整的部分留在缓冲区中等待后续数据
+    * @param socketWrapper 升级后的连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void process(SocketWrapper socketWrapper) throws IOException;
+
+    /**
+    * 连接的空闲超时，单位毫秒，不大于0时不计时
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    long getIdleTimeout();
+
+    /**
+    * 非阻塞写出未完成的连接重新可写，在Poller线程上调用，不能阻塞
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    default void onWritable() {
+    }
+
+    /**
+    * 服务器开始排空，处理器以协议自己的方式通知客户端结束连接，在停止服务器的线程上调用，不能长时间阻塞
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    default void onDrain() {
+    }
+
+    /**
+    * 连接已关闭，包括超时和客户端异常断开，可能在Poller线程或时间轮线程上调用
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void onClose();
+}
@@ -49,7 +49,7 @@ public class InvokerServlet extends HttpServlet {
             ReflectUtil.invoke(servletObject, "service", request, response);
             if(null!=response.getRedirectPath())
                 response.setStatus(Constant.CODE_302);
-            else
+            else if(0 == response.getStatus())    //servlet自行设置的状态码保留
                 response.setStatus(Constant.CODE_200);
         } catch (Exception e) {
             throw new RuntimeException(e);
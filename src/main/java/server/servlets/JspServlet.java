@@ -87,7 +87,7 @@ public class JspServlet extends HttpServlet {
 
                 if(null!=response.getRedirectPath())
                     response.setStatus(Constant.CODE_302);
-                else
+                else if(0 == response.getStatus())    //servlet自行设置的状态码保留
                     response.setStatus(Constant.CODE_200);
             } else {
                 response.setStatus(Constant.CODE_404);
@@ -0,0 +1,340 @@
+package server.sse;
+
+import cn.hutool.log.LogFactory;
+import server.catalina.Connector;
+import server.http.Request;
+import server.http.Response;
+import server.net.SocketWrapper;
+import server.net.UpgradeHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+* Server-Sent Events的响应流，servlet调用start后连接保持打开，之后可以在任意线程上推送事件。
+* 事件先进入连接自己的有界队列，发送方从不等待客户端：NIO明文连接上非阻塞写出，写不完的部分等Poller通知可写后继续，
+* 其他连接在工作线程上写出。队列超过eventStreamMaxQueueSize时视为慢速客户端，直接断开连接
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class EventStream {
+    private static final byte[] response_head = ("HTTP/1.1 200 OK\r\n" +
+            "Content-Type: text/event-stream;charset=utf-8\r\n" +
+            "Cache-Control: no-cache\r\n" +
+            "Connection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    private final SocketWrapper socketWrapper;
+    private final Connector connector;
+    private final int maxQueueSize;
+    private final ArrayDeque<ByteBuffer> queue;
+    private int queuedBytes;
+    private boolean draining;   //正在写出或者等待通道可写，同一时刻只有一个写出者
+    private boolean closing;
+    private volatile boolean closed;
+    private final List<Runnable> closeListeners;
+
+    private EventStream(SocketWrapper socketWrapper) {
+        this.socketWrapper = socketWrapper;
+        this.connector = socketWrapper.getConnector();
+        this.maxQueueSize = connector.getEventStreamMaxQueueSize();
+        this.queue = new ArrayDeque<>();
+        this.closeListeners = new ArrayList<>();
+    }
+
+    /**
+    * 把当前响应切换为text/event-stream，立即写出响应头，servlet返回后连接不再承载其他请求，
+    * 直到调用close或者客户端断开。只支持HTTP/1.x上的请求
+    * @param request 服务器的Request
+ 	* @param response 服务器的Response
+    * @return server.sse.EventStream
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static EventStream start(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Request serverRequest = (Request) request;
+        Response serverResponse = (Response) response;
+        if (!serverRequest.getProtocol().startsWith("HTTP/1."))
+            throw new IllegalStateException("SSE只支持HTTP/1.x的请求");
+        if (null != serverResponse.getEventStream())
+            return serverResponse.getEventStream();
+        EventStream eventStream = EventStream.start(serverRequest.getSocketWrapper());
+        serverResponse.setEventStream(eventStream);
+        serverResponse.setKeepAlive(true);  //连接由EventStream接管，Connector不再关闭它
+        return eventStream;
+    }
+
+    /**
+    * 写出响应头并由EventStream接管连接
+    * @param socketWrapper 请求所在的连接
+    * @return server.sse.EventStream
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static EventStream start(SocketWrapper socketWrapper) throws IOException {
+        EventStream eventStream = new EventStream(socketWrapper);
+        socketWrapper.write(response_head);
+        socketWrapper.flush();
+        socketWrapper.setUpgradeHandler(eventStream.new Handler());
+        return eventStream;
+    }
+
+    /**
+    * 推送一个只有数据的事件
+    * @param data 事件数据，多行时按行拆分
+    * @return boolean 是否已进入发送队列，连接已关闭或客户端过慢被断开时返回false
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean send(String data) {
+        return this.send(null, null, data);
+    }
+
+    /**
+    * 推送一个事件
+    * @param event 事件类型，为null时客户端按message处理
+ 	* @param id 事件id，为null时不设置
+ 	* @param data 事件数据，多行时按行拆分
+    * @return boolean 是否已进入发送队列，连接已关闭或客户端过慢被断开时返回false
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean send(String event, String id, String data) {
+        StringBuilder builder = new StringBuilder();
+        if (null != id)
+            builder.append("id: ").append(id).append('\n');
+        if (null != event)
+            builder.append("event: ").append(event).append('\n');
+        for (String line : data.split("\r\n|\r|\n", -1))
+            builder.append("data: ").append(line).append('\n');
+        builder.append('\n');
+        return this.enqueue(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+    * 推送注释行，客户端忽略其内容，用于保持连接和尽早发现已断开的客户端
+    * @param comment 注释内容
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean sendComment(String comment) {
+        return this.enqueue((": " + comment + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+    * 设置客户端断线后的重连间隔
+    * @param retry 毫秒数
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean sendRetry(long retry) {
+        return this.enqueue(("retry: " + retry + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+    * 放入发送队列，没有写出者时由当前线程或者工作线程开始写出
+    * @param bytes 编码后的事件
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private boolean enqueue(byte[] bytes) {
+        boolean drain = false;
+        boolean overflow;
+        synchronized (this) {
+            if (closed || closing)
+                return false;
+            overflow = queuedBytes + bytes.length > maxQueueSize;
+            if (overflow) {
+                closing = true;
+            } else {
+                queue.add(ByteBuffer.wrap(bytes));
+                queuedBytes += bytes.length;
+                drain = !draining;
+                draining = true;
+            }
+        }
+        if (overflow) { //在锁外断开，关闭回调不在锁内执行
+            LogFactory.get().debug("SSE客户端过慢，已断开 {}", socketWrapper.getRemoteAddress());
+            this.abort();
+            return false;
+        }
+        if (drain)
+            this.scheduleDrain();
+        return true;
+    }
+
+    /**
+    * 非阻塞的连接在当前线程上直接写出，否则交给执行器，避免发送方被慢速客户端阻塞
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void scheduleDrain() {
+        if (socketWrapper.isNonBlockingWrite()) {
+            this.drain();
+            return;
+        }
+        try {
+            connector.getExecutor().execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            this.abort();
+        }
+    }
+
+    /**
+    * 写出队列中的事件，通道写不下时保持draining，等通道可写后由Poller再次调用
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void drain() {
+        try {
+            while (true) {
+                ByteBuffer[] buffers;
+                synchronized (this) {
+                    if (queue.isEmpty()) {
+                        draining = false;
+                        if (closing)
+                            socketWrapper.close();
+                        return;
+                    }
+                    buffers = queue.toArray(new ByteBuffer[0]);
+                }
+                boolean complete = socketWrapper.writeNonBlocking(buffers);
+                synchronized (this) {
+                    while (!queue.isEmpty() && !queue.peek().hasRemaining())
+                        queuedBytes -= queue.poll().limit();
+                    if (!complete)
+                        return;
+                }
+            }
+        } catch (IOException e) {   //客户端已断开
+            this.abort();
+        }
+    }
+
+    /**
+    * 写完已在队列中的事件后关闭连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void close() {
+        synchronized (this) {
+            if (closed || closing)
+                return;
+            closing = true;
+            if (draining)
+                return;
+        }
+        socketWrapper.close();
+    }
+
+    /**
+    * 立即断开连接，丢弃队列中的事件
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void abort() {
+        socketWrapper.close();
+    }
+
+    /**
+    * 注册连接关闭时的回调，例如从广播列表中移除该连接，连接已关闭时立即执行
+    * @param listener 回调
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void onClose(Runnable listener) {
+        synchronized (this) {
+            if (!closed) {
+                closeListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    public boolean isOpen() {
+        return !closed && !closing;
+    }
+
+    /**
+    * 队列中尚未写出的字节数
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public synchronized int getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    /**
+    * 连接关闭后清空队列并执行关闭回调
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void onClosed() {
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            queue.clear();
+            queuedBytes = 0;
+            listeners = new ArrayList<>(closeListeners);
+            closeListeners.clear();
+        }
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                LogFactory.get().error(e);
+            }
+        }
+    }
+
+    /**
+    * 连接上的处理器，客户端在SSE连接上不应发送数据，收到的数据直接丢弃；连接不计空闲超时，
+    * 已断开的客户端由读到EOF、写出失败或者队列溢出发现
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private class Handler implements UpgradeHandler {
+
+        @Override
+        public boolean isReadable(ByteBuffer buffered) {
+            return buffered.hasRemaining();
+        }
+
+        @Override
+        public void process(SocketWrapper socketWrapper) {
+            socketWrapper.consume(socketWrapper.peek().remaining());
+        }
+
+        @Override
+        public long getIdleTimeout() {
+            return 0;
+        }
+
+        @Override
+        public void onWritable() {
+            drain();
+        }
+
+        @Override
+        public void onDrain() {  //写完队列中的事件后结束事件流，客户端按retry重新连接到其他实例
+            EventStream.this.close();
+        }
+
+        @Override
+        public void onClose() {
+            onClosed();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package server.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+* 用两个数组保存键值对的Map，按插入顺序遍历，查找是线性扫描。请求的参数和属性通常只有几项，
+* 比HashMap少了每个键值对的Node对象和哈希表，第一次放入时才分配数组。
+* 超过8项后改用LinkedHashMap保存，避免参数很多的请求在线性查找上退化为平方级的开销。不是线程安全的
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class ArrayMap<K, V> extends AbstractMap<K, V> {
+    private static final int initialCapacity = 4;
+    private static final int maxArraySize = 8;
+    private Map<K, V> map;  //超过maxArraySize后使用，此后数组不再使用
+    private Object[] keys;
+    private Object[] values;
+    private int size;
+
+    @Override
+    public int size() {
+        return null == map ? size : map.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (null != map)
+            return map.containsKey(key);
+        return -1 != this.indexOf(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (null != map)
+            return map.get(key);
+        int index = this.indexOf(key);
+        return -1 == index ? null : (V) values[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        if (null != map)
+            return map.put(key, value);
+        int index = this.indexOf(key);
+        if (-1 != index) {
+            V old = (V) values[index];
+            values[index] = value;
+            return old;
+        }
+        if (size == maxArraySize) {
+            this.toMap();
+            return map.put(key, value);
+        }
+        if (null == keys) {
+            keys = new Object[initialCapacity];
+            values = new Object[initialCapacity];
+        } else if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (null != map)
+            return map.remove(key);
+        int index = this.indexOf(key);
+        if (-1 == index)
+            return null;
+        V old = (V) values[index];
+        this.removeAt(index);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        map = null;
+        if (null != keys) {
+            Arrays.fill(keys, 0, size, null);
+            Arrays.fill(values, 0, size, null);
+        }
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {    //每次遍历时才判断存储方式，视图在改用LinkedHashMap之后仍然有效
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return null == map ? new EntryIterator() : map.entrySet().iterator();
+            }
+
+            @Override
+            public int size() {
+                return ArrayMap.this.size();
+            }
+        };
+    }
+
+    /**
+    * 数组已满时把键值对按原顺序移入LinkedHashMap，之后的操作都委托给它
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @SuppressWarnings("unchecked")
+    private void toMap() {
+        map = new LinkedHashMap<>(maxArraySize * 4);
+        for (int i = 0; i < size; i++)
+            map.put((K) keys[i], (V) values[i]);
+        keys = null;
+        values = null;
+        size = 0;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(keys[i], key))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+    * 删除一项，后面的项前移以保持插入顺序
+    * @param index 下标
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void removeAt(int index) {
+        int moved = size - index - 1;
+        System.arraycopy(keys, index + 1, keys, index, moved);
+        System.arraycopy(values, index + 1, values, index, moved);
+        size--;
+        keys[size] = null;
+        values[size] = null;
+    }
+
+    /**
+    * 按插入顺序遍历，支持在遍历时删除当前项
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private int next;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (next >= size)
+                throw new NoSuchElementException();
+            last = next++;
+            int index = last;
+            return new SimpleEntry<>((K) keys[index], (V) values[index]) {
+                @Override
+                public V setValue(V value) {
+                    values[index] = value;
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (-1 == last)
+                throw new IllegalStateException();
+            ArrayMap.this.removeAt(last);
+            next = last;
+            last = -1;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package server.util;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* 按客户端地址限制并发连接数、并发请求数和请求速率，防止单个客户端占满工作线程。计数全部是原子变量，不加锁；
+* 请求速率用GCRA实现令牌桶，每个客户端只保存一个理论到达时间，一次CAS完成取令牌。limit小于等于0的项不做限制
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class ClientLimiter {
+    private static final long sweepInterval = TimeUnit.SECONDS.toNanos(60);
+    private final int maxConnections;
+    private final int maxRequests;
+    private final long emissionInterval;    //每个令牌的纳秒数，0表示不限制速率
+    private final long burstTolerance;  //令牌桶的容量换算成的纳秒数
+    private final Map<InetAddress, Client> clients;
+    private final AtomicLong nextSweep;
+
+    /**
+    * 创建限制器
+    * @param maxConnections 每个客户端的最大并发连接数
+ 	* @param maxRequests 每个客户端同时处理中的最大请求数
+ 	* @param rate 每个客户端每秒的请求数
+ 	* @param burst 令牌桶的容量，即允许的突发请求数，小于1时取1
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public ClientLimiter(int maxConnections, int maxRequests, int rate, int burst) {
+        this.maxConnections = maxConnections;
+        this.maxRequests = maxRequests;
+        this.emissionInterval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        this.burstTolerance = emissionInterval * (Math.max(1, burst) - 1);
+        this.clients = new ConcurrentHashMap<>();
+        this.nextSweep = new AtomicLong(System.nanoTime() + sweepInterval);
+    }
+
+    /**
+    * 是否配置了任意一项限制
+    * @param maxConnections 每个客户端的最大并发连接数
+ 	* @param maxRequests 每个客户端同时处理中的最大请求数
+ 	* @param rate 每个客户端每秒的请求数
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static boolean isEnabled(int maxConnections, int maxRequests, int rate) {
+        return maxConnections > 0 || maxRequests > 0 || rate > 0;
+    }
+
+    /**
+    * 新连接接入时调用，客户端的连接数已达上限时返回null，调用方应立即关闭连接
+    * @param address 客户端地址
+    * @return server.util.ClientLimiter.Client 连接关闭时交给releaseConnection
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public Client tryAcquireConnection(InetAddress address) {
+        this.sweepIfDue();
+        while (true) {
+            Client client = clients.computeIfAbsent(address, Client::new);
+            int count = client.connections.get();
+            if (count < 0) {    //恰好被清理，换一个新的记录重试
+                clients.remove(address, client);
+                continue;
+            }
+            if (maxConnections > 0 && count >= maxConnections)
+                return null;
+            if (client.connections.compareAndSet(count, count + 1))
+                return client;
+        }
+    }
+
+    /**
+    * 连接关闭时调用，客户端没有连接且令牌桶已满时删除记录
+    * @param client tryAcquireConnection返回的记录
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void releaseConnection(Client client) {
+        if (0 == client.connections.decrementAndGet())
+            this.removeIfIdle(client, System.nanoTime());
+    }
+
+    /**
+    * 请求的报文头到达后、交给servlet处理前调用，等待下一个请求的空闲连接不占用请求数，超过并发请求数或者请求速率时返回false
+    * @param client 连接所属客户端的记录
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean tryAcquireRequest(Client client) {
+        if (maxRequests > 0 && client.requests.incrementAndGet() > maxRequests) {
+            client.requests.decrementAndGet();
+            return false;
+        }
+        if (emissionInterval > 0 && !this.tryAcquireToken(client)) {
+            if (maxRequests > 0)
+                client.requests.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+    * 请求处理完毕后调用，与返回true的tryAcquireRequest成对出现
+    * @param client 连接所属客户端的记录
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void releaseRequest(Client client) {
+        if (maxRequests > 0)
+            client.requests.decrementAndGet();
+    }
+
+    /**
+    * GCRA：理论到达时间超前当前时间不超过桶的容量时放行，并把理论到达时间推后一个令牌的间隔
+    * @param client 客户端的记录
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private boolean tryAcquireToken(Client client) {
+        while (true) {
+            long now = System.nanoTime();
+            long tat = client.theoreticalArrival.get();
+            long start = tat - now > 0 ? tat : now;
+            if (start - now > burstTolerance)
+                return false;
+            if (client.theoreticalArrival.compareAndSet(tat, start + emissionInterval))
+                return true;
+        }
+    }
+
+    /**
+    * 没有连接且令牌桶已恢复满的记录可以删除，连接数置为-1作为删除标记，防止与并发的tryAcquireConnection冲突
+    * @param client 客户端的记录
+ 	* @param now 当前的纳秒时间
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void removeIfIdle(Client client, long now) {
+        if (client.theoreticalArrival.get() - now > 0)
+            return;
+        if (client.connections.compareAndSet(0, -1))
+            clients.remove(client.address, client);
+    }
+
+    /**
+    * 定期清理连接关闭时令牌桶还未恢复满的记录，由接入新连接的线程顺带执行
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void sweepIfDue() {
+        long now = System.nanoTime();
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + sweepInterval))
+            return;
+        for (Client client : clients.values()) {
+            if (0 == client.connections.get())
+                this.removeIfIdle(client, now);
+        }
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+    * 一个客户端地址的计数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static class Client {
+        private final InetAddress address;
+        private final AtomicInteger connections;
+        private final AtomicInteger requests;
+        private final AtomicLong theoreticalArrival;
+
+        private Client(InetAddress address) {
+            this.address = address;
+            this.connections = new AtomicInteger();
+            this.requests = new AtomicInteger();
+            this.theoreticalArrival = new AtomicLong(System.nanoTime());
+        }
+
+        public InetAddress getAddress() {
+            return address;
+        }
+    }
+}
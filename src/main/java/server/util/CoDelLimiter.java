@@ -0,0 +1,56 @@
+package server.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* CoDel式的排队时间控制，工作线程取到任务时调用，根据任务在执行器中的排队时间决定是否丢弃。
+* 每个interval统计一次最短排队时间，连最快被执行的任务都等待超过target时说明积压不会自行消失，
+* 下一个interval内排队超过target的任务都被丢弃，使被接纳的请求的延迟保持在target附近；未过载时只丢弃排队超过interval的任务，
+* 它们大多已经超过了客户端的超时。判断只涉及几个原子变量，不加锁
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class CoDelLimiter {
+    private final long target;
+    private final long interval;
+    private final AtomicLong intervalEnd;
+    private final AtomicLong minSojourn;
+    private volatile boolean overloaded;
+
+    /**
+    * 创建排队时间控制
+    * @param target 目标排队毫秒数
+ 	* @param interval 统计周期的毫秒数，应大于target
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public CoDelLimiter(long target, long interval) {
+        this.target = TimeUnit.MILLISECONDS.toNanos(target);
+        this.interval = TimeUnit.MILLISECONDS.toNanos(Math.max(target, interval));
+        this.intervalEnd = new AtomicLong(System.nanoTime() + this.interval);
+        this.minSojourn = new AtomicLong(Long.MAX_VALUE);
+    }
+
+    /**
+    * 记录一个任务的排队时间并判断是否丢弃
+    * @param sojourn 任务从提交到开始执行的纳秒数
+    * @return boolean 是否丢弃该任务
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean isDrop(long sojourn) {
+        long now = System.nanoTime();
+        long end = intervalEnd.get();
+        if (now - end >= 0 && intervalEnd.compareAndSet(end, now + interval)) { //进入新的周期，由一个线程根据上个周期的最短排队时间切换状态
+            long min = minSojourn.getAndSet(Long.MAX_VALUE);
+            overloaded = Long.MAX_VALUE != min && min > target; //上个周期没有任务时视为未过载
+        }
+        minSojourn.accumulateAndGet(sojourn, Math::min);
+        return sojourn > (overloaded ? target : interval);
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+}
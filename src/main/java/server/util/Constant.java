@@ -13,6 +13,7 @@ public class Constant {
     public static final int CODE_302 = 302;
     public static final int CODE_404 = 404;
     public static final int CODE_500 = 500;
+    public static final int CODE_503 = 503;
 
     public static final String[] javaKeywords = {
             "abstract", "assert", "boolean", "break", "byte", "case", "catch",
@@ -25,17 +26,30 @@ public class Constant {
 
     public static final String response_head_200 =
             "HTTP/1.1 200 OK\r\n" +
-            "Content-Type: {}{}" +
+            "Content-Type: {}{}\r\n" +
+            "Content-Length: {}\r\n" +
+            "Connection: {}" +
             "\r\n\r\n";
     public static final String response_head_200_gzip =
             "HTTP/1.1 200 OK\r\nContent-Type: {}{}\r\n" +
-            "Content-Encoding:gzip" +
+            "Content-Encoding:gzip\r\n" +
+            "Content-Length: {}\r\n" +
+            "Connection: {}" +
             "\r\n\r\n";
     public static final String response_head_302 =
-            "HTTP/1.1 302 Found\r\nLocation: {}\r\n\r\n";
+            "HTTP/1.1 302 Found\r\nLocation: {}\r\n" +
+            "Content-Length: 0\r\n" +
+            "Connection: {}\r\n\r\n";
+    public static final String response_head_status =
+            "HTTP/1.1 {} {}\r\n" +
+            "Content-Type: {}{}\r\n" +
+            "Content-Length: {}\r\n" +
+            "Connection: {}\r\n\r\n";  //没有专门处理的状态码共用的模板
     public static final String response_head_404 =
             "HTTP/1.1 404 Not Found\r\n" +
-            "Content-Type: text/html\r\n\r\n";
+            "Content-Type: text/html\r\n" +
+            "Content-Length: {}\r\n" +
+            "Connection: {}\r\n\r\n";
 
     public static final String textFormat_404 =
             "<html><head><title>JavaServer-Alpha/1.0.1 - Error report</title><style>" +
@@ -52,7 +66,19 @@ public class Constant {
             "</body></html>";
     public static final String response_head_500 =
             "HTTP/1.1 500 Internal Server Error\r\n" +
-            "Content-Type: text/html\r\n\r\n";
+            "Content-Type: text/html\r\n" +
+            "Content-Length: {}\r\n" +
+            "Connection: {}\r\n\r\n";
+    public static final byte[] response_503 = (
+            "HTTP/1.1 503 Service Unavailable\r\n" +
+            "Retry-After: 1\r\n" +
+            "Content-Length: 0\r\n" +
+            "Connection: close\r\n\r\n").getBytes();  //执行器已满时直接写出，无需再生成
+    public static final byte[] response_429 = (
+            "HTTP/1.1 429 Too Many Requests\r\n" +
+            "Retry-After: 1\r\n" +
+            "Content-Length: 0\r\n" +
+            "Connection: close\r\n\r\n").getBytes();  //超过单个客户端的限制时直接写出，不处理请求
     public static final String textFormat_500 =
             "<html><head><title>DIY Tomcat/1.0.1 - Error report</title><style>" +
             "<!--H1 {font-family:Tahoma,Arial,sans-serif;color:white;background-color:#525D76;font-size:22px;} " +
@@ -77,4 +103,5 @@ public class Constant {
     public static final File contextXmlFile = new File(confFolder, "context.xml");
 
     public static final File workFolder = new File(SystemUtil.get("user.dir") + File.separator + "work");
+    public static final File controlTokenFile = new File(workFolder, "control.token");   //prefork控制通道的令牌，只有启动服务器的用户可读
 }
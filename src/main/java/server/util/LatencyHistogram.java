@@ -0,0 +1,91 @@
+package server.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+* 耗时的直方图，由多个线程并发记录，不加锁。以微秒为单位按对数分桶，每个2的幂区间再均分为4个桶，
+* 百分位数的误差不超过所在桶的宽度，即约25%
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class LatencyHistogram {
+    private static final int subBucketBits = 2;
+    private static final int subBuckets = 1 << subBucketBits;
+    private final AtomicLongArray buckets;
+
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray((64 - subBucketBits) * subBuckets + subBuckets);
+    }
+
+    /**
+    * 记录一次耗时
+    * @param nanos 纳秒数
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void record(long nanos) {
+        buckets.incrementAndGet(LatencyHistogram.indexOf(Math.max(0, nanos / 1000)));
+    }
+
+    /**
+    * 计算百分位数，返回所在桶的上界
+    * @param percentile 0到100之间的百分位
+    * @return long 微秒数，没有记录时返回0
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public long getPercentile(double percentile) {
+        long total = this.getCount();
+        if (0 == total)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank)
+                return LatencyHistogram.upperBoundOf(i);
+        }
+        return LatencyHistogram.upperBoundOf(buckets.length() - 1);
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++)
+            total += buckets.get(i);
+        return total;
+    }
+
+    /**
+    * 清空所有记录，例如按周期统计时在每个周期开始时调用
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++)
+            buckets.set(i, 0);
+    }
+
+    /**
+    * 小于subBuckets的值各占一个桶，更大的值按最高位所在的区间和其后两位分桶
+    * @param micros 微秒数
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static int indexOf(long micros) {
+        if (micros < subBuckets)
+            return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - subBucketBits)) & (subBuckets - 1);
+        return (exponent - subBucketBits + 1) * subBuckets + sub;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < subBuckets)
+            return index;
+        int exponent = index / subBuckets + subBucketBits - 1;
+        int sub = index % subBuckets;
+        long width = 1L << (exponent - subBucketBits);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}
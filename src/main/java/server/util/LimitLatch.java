@@ -0,0 +1,101 @@
+package server.util;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+* 限制同时打开的连接数，Acceptor接收连接前获取许可，连接关闭时归还许可，达到上限时Acceptor暂停接收
+* limit小于等于0时不做限制，但打开的连接数始终单独计数，供排空时判断连接是否已全部关闭
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class LimitLatch {
+    private final int limit;
+    private final Semaphore semaphore;
+    private final AtomicInteger count;  //已获得、尚未归还的许可数，不依赖semaphore，不限制时同样计数
+    private final AtomicReference<Runnable> waiter;    //异步端点登记的回调，有许可归还时调用一次
+
+    public LimitLatch(int limit) {
+        this.limit = limit;
+        this.semaphore = limit > 0 ? new Semaphore(limit) : null;
+        this.count = new AtomicInteger();
+        this.waiter = new AtomicReference<>();
+    }
+
+    /**
+    * 阻塞直到获得一个许可，供阻塞式的Acceptor线程使用
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void acquire() throws InterruptedException {
+        if (null != semaphore)
+            semaphore.acquire();
+        count.incrementAndGet();
+    }
+
+    /**
+    * 非阻塞地获取许可，获取失败时直接返回，供无法暂停接收的UDP端点使用，调用方丢弃新连接的首个数据包，由客户端重传
+    * @return boolean 是否获得了许可
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean tryAcquire() {
+        if (null != semaphore && !semaphore.tryAcquire())
+            return false;
+        count.incrementAndGet();
+        return true;
+    }
+
+    /**
+    * 非阻塞地获取许可，获取失败时登记回调，等有连接关闭后调用，供不能阻塞的异步端点使用
+    * @param callback 有许可归还时的回调
+    * @return boolean 是否获得了许可
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean acquireOrWait(Runnable callback) {
+        if (null == semaphore || semaphore.tryAcquire()) {
+            count.incrementAndGet();
+            return true;
+        }
+        waiter.set(callback);
+        if (semaphore.tryAcquire()) {   //登记期间恰好有连接关闭
+            if (waiter.compareAndSet(callback, null)) {
+                count.incrementAndGet();
+                return true;
+            }
+            semaphore.release();    //回调已被取走，由回调重新获取许可
+        }
+        return false;
+    }
+
+    /**
+    * 归还一个许可，唤醒等待的Acceptor或者登记的回调
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void release() {
+        count.decrementAndGet();
+        if (null == semaphore)
+            return;
+        semaphore.release();
+        Runnable callback = waiter.getAndSet(null);
+        if (null != callback)
+            callback.run();
+    }
+
+    /**
+    * 当前打开的连接数，包括Acceptor为下一个连接预先获取的许可，不做限制时同样有效
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public int getCount() {
+        return count.get();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -69,6 +69,17 @@ public class MiniBrowser {
     */
     public static byte[] getContentBytes(String url, boolean gzip, Map<String,Object> params, boolean isGet) {
         byte[] response = getHttpBytes(url,gzip,params,isGet);  //获取全部的http数据
+        return getContent(response);
+    }
+
+    /**
+    * 截取http响应中双换行之后的正文，若无正文则返回null
+    * @param response 完整的http响应
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    protected static byte[] getContent(byte[] response) {
         byte[] doubleReturn = "\r\n\r\n".getBytes();
 
         int pos = -1;
@@ -224,10 +235,13 @@ public class MiniBrowser {
             String path = uri.getPath();
             if(path.equals(""))
                 path = "/";
-            if(null!=params && isGet){
-                String paramsString = HttpUtil.toParams(params);
+            String paramsString = null;
+            if(null!=params)
+                paramsString = HttpUtil.toParams(params);
+            if(null!=paramsString && isGet)
                 path = path + "?" + paramsString;
-            }
+            if(null!=paramsString && !isGet)  //如果是post方法，声明报文体的长度
+                requestHeaders.put("Content-Length", String.valueOf(paramsString.getBytes(StandardCharsets.UTF_8).length));
             StringBuilder httpRequestString = new StringBuilder();
 
             String firstLine = method + " " + path + " HTTP/1.1\r\n";
@@ -236,15 +250,14 @@ public class MiniBrowser {
             requestHeaders.forEach( //新增http的请求报头
                     (key,value)-> httpRequestString.append(key).append(":").append(value).append("\r\n")
             );
+            httpRequestString.append("\r\n");   //空行结束请求报头
 
-            if(null!=params && !isGet){ //如果是post方法，新增Params报头
-                String paramsString = HttpUtil.toParams(params);
-                httpRequestString.append("\r\n");
+            if(null!=paramsString && !isGet) //如果是post方法，新增Params报文体
                 httpRequestString.append(paramsString);
-            }
 
             PrintWriter Writer = new PrintWriter(socket.getOutputStream(), true);
-            Writer.println(httpRequestString);  //向服务器发送http请求
+            Writer.print(httpRequestString);  //向服务器发送http请求
+            Writer.flush();
 
             InputStream is = socket.getInputStream();
             result = MiniBrowser.readBytes(is,true);    //接受服务器的http响应
@@ -7,9 +7,13 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import server.catalina.*;
+import server.net.SSLHostConfig;
+import server.net.SocketProperties;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
 * Server.xml文件的工具类
@@ -55,6 +59,58 @@ public class ServerXMLUtil {
         return host.attr("defaultHost");
     }
 
+    /**
+    * 获取prefork模式的工作进程数，Server元素上的workers属性，默认0即单进程运行
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static int getWorkers() {
+        String xml = FileUtil.readUtf8String(Constant.serverXmlFile);
+        Document d = Jsoup.parse(xml);
+        Element server = d.select("Server").first();
+        return null == server ? 0 : Convert.toInt(server.attr("workers"), 0);
+    }
+
+    /**
+    * 获取prefork模式下管理进程的控制端口，只监听回环地址，默认-1即不开启控制通道
+    * @return int
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static int getControlPort() {
+        String xml = FileUtil.readUtf8String(Constant.serverXmlFile);
+        Document d = Jsoup.parse(xml);
+        Element server = d.select("Server").first();
+        return null == server ? -1 : Convert.toInt(server.attr("controlPort"), -1);
+    }
+
+    /**
+    * 获取启动工作进程时追加的虚拟机参数，例如-Xmx4g，以空格分隔
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static String getWorkerOptions() {
+        String xml = FileUtil.readUtf8String(Constant.serverXmlFile);
+        Document d = Jsoup.parse(xml);
+        Element server = d.select("Server").first();
+        return null == server ? "" : server.attr("workerOptions");
+    }
+
+    /**
+    * 获取停止服务器时排空连接的最长毫秒数，Server元素上的drainTimeout属性，默认30秒
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static long getDrainTimeout() {
+        String xml = FileUtil.readUtf8String(Constant.serverXmlFile);
+        Document d = Jsoup.parse(xml);
+        Element server = d.select("Server").first();
+        return null == server ? 30 * 1000L : Convert.toLong(server.attr("drainTimeout"), 30 * 1000L);
+    }
+
     /**
     * 获取服务实例的名称，默认是Catalina
     * @return java.lang.String
@@ -89,6 +145,28 @@ public class ServerXMLUtil {
         return result;
     }
 
+    /**
+    * 获取服务实例下的执行器，Connector通过executor属性按名称引用
+    * @return java.util.Map<java.lang.String,server.catalina.StandardExecutor>
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static Map<String, StandardExecutor> getExecutors() {
+        Map<String, StandardExecutor> result = new HashMap<>();
+        String xml = FileUtil.readUtf8String(Constant.serverXmlFile);
+        Document d = Jsoup.parse(xml);
+        Elements es = d.select("Executor");
+        for (Element e : es) {
+            String name = e.attr("name");
+            int minThreads = Convert.toInt(e.attr("minThreads"), 10);
+            int maxThreads = Convert.toInt(e.attr("maxThreads"), 200);
+            int queueCapacity = Convert.toInt(e.attr("queueCapacity"), 100);
+            long keepAliveTime = Convert.toLong(e.attr("keepAliveTime"), 60 * 1000L);
+            result.put(name, new StandardExecutor(name, minThreads, Math.max(minThreads, maxThreads), queueCapacity, keepAliveTime));
+        }
+        return result;
+    }
+
     /**
     * 获取服务器实例下辖的服务器连接器
     * @param service 服务器实例
@@ -102,20 +180,117 @@ public class ServerXMLUtil {
         Document d = Jsoup.parse(xml);
         Elements es = d.select("Connector");
         for (Element e : es) {
-            int port = Convert.toInt(e.attr("port"));
+            int port = Convert.toInt(e.attr("port"), 0);
+            String path = e.attr("path");
+            String protocol = e.attr("protocol");
+            boolean h2c = Convert.toBool(e.attr("h2c"), false);
+            int acceptorThreadCount = Convert.toInt(e.attr("acceptorThreadCount"), 1);
+            int pollerThreadCount = Convert.toInt(e.attr("pollerThreadCount"), 0);
+            int maxKeepAliveRequests = Convert.toInt(e.attr("maxKeepAliveRequests"), 100);
+            int keepAliveTimeout = Convert.toInt(e.attr("keepAliveTimeout"), 20 * 1000);
+            int connectionTimeout = Convert.toInt(e.attr("connectionTimeout"), 20 * 1000);
+            int headerReadTimeout = Convert.toInt(e.attr("headerReadTimeout"), 20 * 1000);
+            int bodyReadTimeout = Convert.toInt(e.attr("bodyReadTimeout"), 60 * 1000);
+            int maxHttpHeaderSize = Convert.toInt(e.attr("maxHttpHeaderSize"), 8192);
+            int maxPostSize = Convert.toInt(e.attr("maxPostSize"), 2 * 1024 * 1024);
+            int webSocketIdleTimeout = Convert.toInt(e.attr("webSocketIdleTimeout"), 5 * 60 * 1000);
+            int webSocketMaxMessageSize = Convert.toInt(e.attr("webSocketMaxMessageSize"), 1024 * 1024);
+            int eventStreamMaxQueueSize = Convert.toInt(e.attr("eventStreamMaxQueueSize"), 64 * 1024);
+            int maxInflatedBodySize = Convert.toInt(e.attr("maxInflatedBodySize"), 10 * 1024 * 1024);
+            boolean useVirtualThreads = Convert.toBool(e.attr("useVirtualThreads"), false);
+            String executor = e.attr("executor");
             String compression = e.attr("compression");
             int compressionMinSize = Convert.toInt(e.attr("compressionMinSize"), 0);
             String noCompressionUserAgents = e.attr("noCompressionUserAgents");
             String compressibleMimeType = e.attr("compressibleMimeType");
+            int maxConnections = Convert.toInt(e.attr("maxConnections"), 10000);
+            int maxConnectionsPerClient = Convert.toInt(e.attr("maxConnectionsPerClient"), -1);
+            int maxRequestsPerClient = Convert.toInt(e.attr("maxRequestsPerClient"), -1);
+            int clientRequestRate = Convert.toInt(e.attr("clientRequestRate"), -1);
+            int clientRequestBurst = Convert.toInt(e.attr("clientRequestBurst"), clientRequestRate);
+            int admissionTarget = Convert.toInt(e.attr("admissionTarget"), -1);
+            int admissionInterval = Convert.toInt(e.attr("admissionInterval"), 100);
+            int acceptCount = Convert.toInt(e.attr("acceptCount"), 100);
+            boolean tcpNoDelay = Convert.toBool(e.attr("tcpNoDelay"), true);
+            int soRcvBuf = Convert.toInt(e.attr("soRcvBuf"), -1);
+            int soSndBuf = Convert.toInt(e.attr("soSndBuf"), -1);
+            int soLinger = Convert.toInt(e.attr("soLinger"), -1);
+            boolean secure = Convert.toBool(e.attr("secure"), false);
+            int sessionCacheSize = Convert.toInt(e.attr("sessionCacheSize"), 20480);
+            int sessionTimeout = Convert.toInt(e.attr("sessionTimeout"), 86400);
+            boolean sessionTickets = Convert.toBool(e.attr("sessionTickets"), true);
 
             Connector c = new Connector(service,port);
+            if (!path.isEmpty())    //监听Unix域套接字，忽略port
+                c.setPath(path);
+            if (!protocol.isEmpty())
+                c.setProtocol(protocol);
+            c.setH2c(h2c);
+            c.setAcceptorThreadCount(Math.max(1, acceptorThreadCount));
+            if (pollerThreadCount > 0)
+                c.setPollerThreadCount(pollerThreadCount);
+            c.setMaxKeepAliveRequests(maxKeepAliveRequests);
+            c.setKeepAliveTimeout(keepAliveTimeout);
+            c.setConnectionTimeout(connectionTimeout);
+            c.setHeaderReadTimeout(headerReadTimeout);
+            c.setBodyReadTimeout(bodyReadTimeout);
+            c.setMaxHttpHeaderSize(maxHttpHeaderSize);
+            c.setMaxPostSize(maxPostSize);
+            c.setWebSocketIdleTimeout(webSocketIdleTimeout);
+            c.setWebSocketMaxMessageSize(webSocketMaxMessageSize);
+            c.setEventStreamMaxQueueSize(eventStreamMaxQueueSize);
+            c.setMaxInflatedBodySize(maxInflatedBodySize);
+            c.setUseVirtualThreads(useVirtualThreads);
+            if (!executor.isEmpty())
+                c.setExecutorName(executor);
             c.setCompression(compression);
             c.setCompressibleMimeType(compressibleMimeType);
             c.setNoCompressionUserAgents(noCompressionUserAgents);
             c.setCompressibleMimeType(compressibleMimeType);
             c.setCompressionMinSize(compressionMinSize);
+            c.setMaxConnections(maxConnections);
+            c.setMaxConnectionsPerClient(maxConnectionsPerClient);
+            c.setMaxRequestsPerClient(maxRequestsPerClient);
+            c.setClientRequestRate(clientRequestRate);
+            c.setClientRequestBurst(clientRequestBurst);
+            c.setAdmissionTarget(admissionTarget);
+            c.setAdmissionInterval(admissionInterval);
+            SocketProperties socketProperties = c.getSocketProperties();
+            socketProperties.setAcceptCount(acceptCount);
+            socketProperties.setTcpNoDelay(tcpNoDelay);
+            socketProperties.setSoRcvBuf(soRcvBuf);
+            socketProperties.setSoSndBuf(soSndBuf);
+            socketProperties.setSoLinger(soLinger);
+            c.setSecure(secure);
+            c.setSessionCacheSize(sessionCacheSize);
+            c.setSessionTimeout(sessionTimeout);
+            c.setSessionTickets(sessionTickets);
+            if (secure) {   //Connector上的keystore是默认证书，SSLHostConfig按SNI主机名指定其他证书
+                c.addSslHostConfig(ServerXMLUtil.getSSLHostConfig(e, SSLHostConfig.DEFAULT_HOST_NAME));
+                for (Element hostConfig : e.select("SSLHostConfig"))
+                    c.addSslHostConfig(ServerXMLUtil.getSSLHostConfig(hostConfig, hostConfig.attr("hostName")));
+            }
             result.add(c);
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+    * 读取一个主机名的证书配置
+    * @param e Connector或者SSLHostConfig元素
+ 	* @param hostName 主机名
+    * @return server.net.SSLHostConfig
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static SSLHostConfig getSSLHostConfig(Element e, String hostName) {
+        SSLHostConfig sslHostConfig = new SSLHostConfig();
+        sslHostConfig.setHostName(hostName);
+        sslHostConfig.setKeystoreFile(e.attr("keystoreFile"));
+        if (e.hasAttr("keystorePass"))
+            sslHostConfig.setKeystorePass(e.attr("keystorePass"));
+        if (!e.attr("keystoreType").isEmpty())
+            sslHostConfig.setKeystoreType(e.attr("keystoreType"));
+        return sslHostConfig;
+    }
+}
@@ -0,0 +1,112 @@
+package server.util;
+
+import cn.hutool.log.LogFactory;
+import server.catalina.Supervisor;
+import server.net.SocketProperties;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.ServerSocket;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* 监听Socket的工具类，多个Acceptor时借助SO_REUSEPORT让每个Acceptor各自监听同一端口，由内核分配新连接；
+* prefork模式的工作进程总是开启SO_REUSEPORT，与其他工作进程监听同一端口
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class SocketUtil {
+
+    /**
+    * 打开阻塞式的监听Socket，count大于1且系统支持SO_REUSEPORT时打开count个，否则只打开一个供所有Acceptor共享
+    * @param port 监听端口
+ 	* @param count Acceptor的数量
+ 	* @param socketProperties Connector上配置的Socket参数，acceptCount作为监听队列长度
+    * @return java.util.List<java.net.ServerSocket>
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static List<ServerSocket> openServerSockets(int port, int count, SocketProperties socketProperties) throws IOException {
+        List<ServerSocket> result = new ArrayList<>();
+        do {
+            ServerSocket serverSocket = new ServerSocket();
+            boolean reusePort = (count > 1 || Supervisor.isWorker()) && serverSocket.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+            if (reusePort)
+                serverSocket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            socketProperties.setProperties(serverSocket);
+            serverSocket.bind(new InetSocketAddress(port), socketProperties.getAcceptCount());
+            result.add(serverSocket);
+            if (!reusePort)
+                break;
+        } while (result.size() < count);
+        SocketUtil.logReusePort(port, count, result.size());
+        return result;
+    }
+
+    /**
+    * 打开监听的ServerSocketChannel，规则同openServerSockets
+    * @param port 监听端口
+ 	* @param count Acceptor的数量
+ 	* @param socketProperties Connector上配置的Socket参数
+    * @return java.util.List<java.nio.channels.ServerSocketChannel>
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static List<ServerSocketChannel> openServerSocketChannels(int port, int count, SocketProperties socketProperties) throws IOException {
+        List<ServerSocketChannel> result = new ArrayList<>();
+        do {
+            ServerSocketChannel channel = ServerSocketChannel.open();
+            boolean reusePort = (count > 1 || Supervisor.isWorker()) && channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+            if (reusePort)
+                channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            socketProperties.setProperties(channel, true);
+            channel.bind(new InetSocketAddress(port), socketProperties.getAcceptCount());
+            result.add(channel);
+            if (!reusePort)
+                break;
+        } while (result.size() < count);
+        SocketUtil.logReusePort(port, count, result.size());
+        return result;
+    }
+
+    /**
+    * 打开监听Unix域套接字的ServerSocketChannel，上次未正常退出时遗留的套接字文件先删除，JVM退出时删除套接字文件
+    * Unix域套接字需要JDK 16及以上，通过反射调用，低版本的虚拟机上抛出IOException
+    * @param path 套接字文件的路径
+ 	* @param socketProperties Connector上配置的Socket参数，acceptCount作为监听队列长度
+    * @return java.nio.channels.ServerSocketChannel
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static ServerSocketChannel openUnixServerSocketChannel(String path, SocketProperties socketProperties) throws IOException {
+        Path file = Paths.get(path);
+        SocketAddress address;
+        ServerSocketChannel channel;
+        try {
+            ProtocolFamily unix = StandardProtocolFamily.valueOf("UNIX");
+            address = (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class).invoke(null, file);
+            channel = (ServerSocketChannel) ServerSocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, unix);
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            throw new IOException("当前虚拟机 [" + System.getProperty("java.version") + "] 不支持Unix域套接字", e);
+        }
+        Files.deleteIfExists(file);
+        socketProperties.setProperties(channel, true);
+        channel.bind(address, socketProperties.getAcceptCount());
+        file.toFile().deleteOnExit();
+        return channel;
+    }
+
+    private static void logReusePort(int port, int count, int opened) {
+        if (count > 1 && opened < count)
+            LogFactory.get().warn("端口 [{}] 不支持SO_REUSEPORT，{}个Acceptor共享同一个监听Socket", port, count);
+    }
+}
@@ -0,0 +1,59 @@
+package server.util;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+* 线程池的任务队列。ThreadPoolExecutor只有在队列放不下时才会创建核心线程以外的线程，
+* 该队列在线程数未达到上限且没有空闲线程时拒绝入队，使线程池先扩充到maximumPoolSize再排队
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class TaskQueue extends LinkedBlockingQueue<Runnable> {
+    private transient volatile ThreadPoolExecutor parent;
+
+    public TaskQueue(int capacity) {
+        super(capacity);
+    }
+
+    public void setParent(ThreadPoolExecutor parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public boolean offer(Runnable runnable) {
+        if (null == parent)
+            return super.offer(runnable);
+        if (parent.getActiveCount() < parent.getPoolSize()) //有空闲线程，入队等待即可
+            return super.offer(runnable);
+        if (parent.getPoolSize() < parent.getMaximumPoolSize()) //让线程池创建新线程
+            return false;
+        return super.offer(runnable);
+    }
+
+    /**
+    * 绕过线程数判断直接入队
+    * @param runnable 待执行的任务
+    * @return boolean 队列已满时返回false
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public boolean force(Runnable runnable) {
+        return super.offer(runnable);
+    }
+
+    /**
+    * 线程池拒绝任务时再尝试直接入队，线程数竞争导致的误拒绝不会丢弃任务，队列也满时才真正拒绝
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static class RetryPolicy implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (executor.isShutdown() || !((TaskQueue) executor.getQueue()).force(runnable))
+                throw new RejectedExecutionException("线程池和任务队列都已满");
+        }
+    }
+}
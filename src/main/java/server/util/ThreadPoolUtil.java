@@ -1,21 +1,66 @@
 package server.util;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import cn.hutool.log.LogFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
-* 线程池的工具类，提供最多20个线程在同时运行，任务队列里的等待线程最多存活60秒
+* 线程池的工具类，提供20到100个线程在同时运行，线程数达到100后任务才进入队列，空闲线程最多存活60秒
+* 运行时支持虚拟线程时，另外提供每个任务一个虚拟线程的执行器
 * @author cn-wumo
 * @since 2021/4/16
 */
 public class ThreadPoolUtil {
-    private static final ThreadPoolExecutor threadPool = new ThreadPoolExecutor(
-            20, 100, 60, TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>());
+    private static final ThreadPoolExecutor threadPool = ThreadPoolUtil.createThreadPool();
+    private static volatile ExecutorService virtualThreadExecutor;
+
+    private static ThreadPoolExecutor createThreadPool() {
+        TaskQueue taskQueue = new TaskQueue(Integer.MAX_VALUE);
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(20, 100, 60, TimeUnit.SECONDS, taskQueue,
+                Executors.defaultThreadFactory(), new TaskQueue.RetryPolicy());
+        taskQueue.setParent(threadPool);
+        return threadPool;
+    }
 
     public static void run(Runnable r) {
         threadPool.execute(r);
     }
 
-}
\ No newline at end of file
+    /**
+    * 获取每个任务一个虚拟线程的执行器，运行时不支持虚拟线程时退回到平台线程池
+    * @return java.util.concurrent.ExecutorService
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static ExecutorService getVirtualThreadExecutor() {
+        if (null == virtualThreadExecutor) {
+            synchronized (ThreadPoolUtil.class) {
+                if (null == virtualThreadExecutor)
+                    virtualThreadExecutor = ThreadPoolUtil.createVirtualThreadExecutor();
+            }
+        }
+        return virtualThreadExecutor;
+    }
+
+    /**
+    * 通过反射调用Executors.newVirtualThreadPerTaskExecutor，使代码在不支持虚拟线程的JDK上也能编译运行
+    * @return java.util.concurrent.ExecutorService
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LogFactory.get().warn("当前虚拟机 [{}] 不支持虚拟线程，使用平台线程池", System.getProperty("java.version"));
+            return threadPool;
+        }
+    }
+
+    public static ExecutorService getThreadPool() {
+        return threadPool;
+    }
+}
@@ -0,0 +1,241 @@
+package server.util;
+
+import cn.hutool.log.LogFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* 哈希时间轮，所有连接的超时由同一个后台线程按固定刻度推进检查，登记、延后和取消都是O(1)，
+* 不为每个连接创建定时器。延后超时只修改截止时间，时间轮转到旧格子时再把它挪到新的格子
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class TimingWheel implements Runnable {
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending;
+    private long tick;
+
+    /**
+    * 创建时间轮并启动推进线程
+    * @param tickDuration 每格的时长，单位毫秒
+ 	* @param ticksPerWheel 格子数，向上取整为2的幂
+ 	* @param name 推进线程的名称
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public TimingWheel(long tickDuration, int ticksPerWheel, String name) {
+        int size = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.tickDuration = tickDuration;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++)
+            this.wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.tick = TimingWheel.now() / tickDuration;
+        Thread thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+    * 创建一个未登记的超时，同一个连接在整个生命周期内复用它
+    * @param task 超时后在推进线程上执行的任务
+    * @return server.util.TimingWheel.Timeout
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public Timeout newTimeout(Runnable task) {
+        return new Timeout(task);
+    }
+
+    @Override
+    @SuppressWarnings("InfiniteLoopStatement")
+    public void run() {
+        while (true) {
+            long sleep = (tick + 1) * tickDuration - TimingWheel.now();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            this.transferPending();
+            long now = TimingWheel.now();
+            while ((tick + 1) * tickDuration <= now) {  //推进到当前时刻，补上线程被延迟时错过的格子
+                this.expire(wheel[(int) (tick & mask)], now);
+                tick++;
+            }
+        }
+    }
+
+    /**
+    * 把其他线程登记或提前的超时放入对应的格子
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void transferPending() {
+        Timeout timeout;
+        while (null != (timeout = pending.poll())) {
+            timeout.queued.set(false);
+            if (null != timeout.bucket)
+                timeout.bucket.remove(timeout);
+            long deadline = timeout.deadline.get();
+            if (0 != deadline && !timeout.cancelled)
+                this.place(timeout, deadline, tick);
+        }
+    }
+
+    /**
+    * 检查一个格子中的超时，已取消或者已撤销的移出时间轮，到期的执行任务，被延后的挪到新的格子
+    * @param bucket 当前刻度对应的格子
+ 	* @param now 当前时间
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void expire(Bucket bucket, long now) {
+        Timeout timeout = bucket.head;
+        while (null != timeout) {
+            Timeout next = timeout.next;
+            long deadline = timeout.deadline.get();
+            if (0 == deadline || timeout.cancelled) {
+                bucket.remove(timeout);
+            } else if (deadline <= now && timeout.deadline.compareAndSet(deadline, 0)) {
+                bucket.remove(timeout);
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    LogFactory.get().error(e);
+                }
+            } else if (deadline <= now || deadline / tickDuration != timeout.slot) {   //截止时间已被延后
+                bucket.remove(timeout);
+                deadline = timeout.deadline.get();
+                if (0 != deadline)
+                    this.place(timeout, deadline, tick + 1);
+            }
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout timeout, long deadline, long minSlot) {
+        long slot = Math.max(deadline / tickDuration, minSlot);
+        timeout.slot = slot;
+        wheel[(int) (slot & mask)].add(timeout);
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+    * 时间轮中的一个超时，截止时间可以被任意线程修改，链表指针只由推进线程访问
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public class Timeout {
+        private final Runnable task;
+        private final AtomicBoolean queued;
+        private final AtomicLong deadline;  //0表示未登记
+        private volatile long slot; //所在格子的刻度，-1表示不在时间轮中
+        private volatile boolean cancelled;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task) {
+            this.task = task;
+            this.queued = new AtomicBoolean();
+            this.deadline = new AtomicLong();
+            this.slot = -1;
+        }
+
+        /**
+        * 登记或者重新设置超时，截止时间早于所在格子时交给推进线程重新放置，晚于所在格子时只修改截止时间
+        * @param delay 距离超时的时长，单位毫秒
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        public void arm(long delay) {
+            long deadline = TimingWheel.now() + delay;
+            long previous = this.deadline.getAndSet(deadline);
+            long slot = this.slot;
+            if (0 != previous && slot >= 0 && deadline / tickDuration >= slot)
+                return;
+            if (queued.compareAndSet(false, true))
+                pending.offer(this);
+        }
+
+        /**
+        * 距离截止时间的剩余时长，未登记时返回-1
+        * @return long
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        public long getRemaining() {
+            long deadline = this.deadline.get();
+            return 0 == deadline ? -1 : Math.max(0, deadline - TimingWheel.now());
+        }
+
+        /**
+        * 暂停超时检查，例如请求正在工作线程中处理，推进线程转到它所在的格子时移出时间轮
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        public void disarm() {
+            this.deadline.set(0);
+        }
+
+        /**
+        * 永久取消，连接关闭时调用
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        public void cancel() {
+            this.cancelled = true;
+            this.deadline.set(0);
+        }
+    }
+
+    /**
+    * 时间轮的一个格子，保存落在同一刻度上的超时的双向链表
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (null == tail)
+                head = timeout;
+            else
+                tail.next = timeout;
+            tail = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            if (null == timeout.prev)
+                head = timeout.next;
+            else
+                timeout.prev.next = timeout.next;
+            if (null == timeout.next)
+                tail = timeout.prev;
+            else
+                timeout.next.prev = timeout.prev;
+            timeout.bucket = null;
+            timeout.slot = -1;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package server.websocket;
+
+import java.util.List;
+
+/**
+* WebSocket端点，由web应用程序实现并在web.xml的websocket-endpoint中按url-pattern注册，每个Context中一个路径对应一个实例，
+* 被该路径上的所有会话共用。回调在工作线程上执行，同一会话的回调不会并发，发送消息可以在任意线程上进行
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public interface WebSocketEndpoint {
+
+    /**
+    * 从客户端在Sec-WebSocket-Protocol中列出的子协议中选择一个，返回null表示不使用子协议
+    * @param requested 客户端请求的子协议，按客户端的偏好排列
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    default String selectSubprotocol(List<String> requested) {
+        return null;
+    }
+
+    /**
+    * 握手完成，会话已经可以发送消息
+    * @param session 会话
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    default void onOpen(WebSocketSession session) {
+    }
+
+    /**
+    * 收到一个完整的文本消息，分片已合并
+    * @param session 会话
+ 	* @param message 消息
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    default void onText(WebSocketSession session, String message) {
+    }
+
+    /**
+    * 收到一个完整的二进制消息，分片已合并
+    * @param session 会话
+ 	* @param message 消息
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    default void onBinary(WebSocketSession session, byte[] message) {
+    }
+
+    /**
+    * 收到客户端的pong，应用可以据此检测连接是否存活
+    * @param session 会话
+ 	* @param payload pong携带的数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    default void onPong(WebSocketSession session, byte[] payload) {
+    }
+
+    /**
+    * 会话已关闭，每个会话只调用一次，连接异常断开或者超时时状态码为1006
+    * @param session 会话
+ 	* @param code 关闭状态码
+ 	* @param reason 关闭原因
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    default void onClose(WebSocketSession session, int code, String reason) {
+    }
+
+    /**
+    * 回调中抛出了异常，之后会话以1011关闭
+    * @param session 会话
+ 	* @param e 异常
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    default void onError(WebSocketSession session, Throwable e) {
+    }
+}
@@ -0,0 +1,583 @@
+package server.websocket;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.log.LogFactory;
+import server.catalina.Connector;
+import server.http.Request;
+import server.http.Response;
+import server.net.SocketWrapper;
+import server.net.UpgradeHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+* WebSocket协议处理器（RFC 6455），负责握手和帧的解析。连接升级后只在缓冲区中有完整的帧时才占用工作线程，
+* 分片的消息在这里合并后交给端点；协商了permessage-deflate（RFC 7692）时双方都不保留压缩上下文，
+* 每个消息单独压缩解压，空闲的连接不持有Deflater和Inflater
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class WebSocketProcessor implements UpgradeHandler {
+    static final int OPCODE_CONTINUATION = 0x0;
+    static final int OPCODE_TEXT = 0x1;
+    static final int OPCODE_BINARY = 0x2;
+    static final int OPCODE_CLOSE = 0x8;
+    static final int OPCODE_PING = 0x9;
+    static final int OPCODE_PONG = 0xa;
+    static final int CLOSE_NORMAL = 1000;
+    static final int CLOSE_GOING_AWAY = 1001;
+    static final int CLOSE_PROTOCOL_ERROR = 1002;
+    static final int CLOSE_NO_STATUS = 1005;
+    static final int CLOSE_ABNORMAL = 1006;
+    static final int CLOSE_INVALID_DATA = 1007;
+    static final int CLOSE_TOO_BIG = 1009;
+    static final int CLOSE_INTERNAL_ERROR = 1011;
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final byte[] DEFLATE_TAIL = {0x00, 0x00, (byte) 0xff, (byte) 0xff};
+    private static final byte[] response_400 = ("HTTP/1.1 400 Bad Request\r\n" +
+            "Content-Length: 0\r\n" +
+            "Connection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] response_426 = ("HTTP/1.1 426 Upgrade Required\r\n" +
+            "Sec-WebSocket-Version: 13\r\n" +
+            "Content-Length: 0\r\n" +
+            "Connection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    private final WebSocketSession session;
+    private final WebSocketEndpoint endpoint;
+    private final int maxMessageSize;
+    private final long idleTimeout;
+    private final boolean deflate;
+    private int messageOpcode;  //正在接收的分片消息的操作码，0表示没有未完成的消息
+    private boolean messageCompressed;
+    private ByteArrayOutputStream fragments;
+    private boolean closeReceived;
+
+    private WebSocketProcessor(WebSocketSession session, WebSocketEndpoint endpoint, Connector connector, boolean deflate) {
+        this.session = session;
+        this.endpoint = endpoint;
+        this.maxMessageSize = connector.getWebSocketMaxMessageSize();
+        this.idleTimeout = connector.getWebSocketIdleTimeout();
+        this.deflate = deflate;
+    }
+
+    /**
+    * 判断请求是否要求升级为WebSocket，只在HTTP/1.1上支持
+    * @param request 客户端的请求
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static boolean isUpgradeRequest(Request request) {
+        if (!"HTTP/1.1".equals(request.getProtocol()))
+            return false;
+        return "websocket".equalsIgnoreCase(StrUtil.trim(request.getHeader("upgrade")));
+    }
+
+    /**
+    * 校验握手请求并回复101，之后连接交给WebSocketProcessor处理。请求不合法时回复400，版本不是13时回复426，
+    * 两者都在响应后关闭连接
+    * @param socketWrapper 客户端连接
+ 	* @param request 握手请求
+ 	* @param response 服务器的响应，用于保持连接
+ 	* @param endpoint 路径上注册的端点
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static void upgrade(SocketWrapper socketWrapper, Request request, Response response, WebSocketEndpoint endpoint)
+            throws IOException {
+        String key = StrUtil.trim(request.getHeader("sec-websocket-key"));
+        if (!"GET".equals(request.getMethod()) || !StrUtil.containsIgnoreCase(request.getHeader("connection"), "upgrade")
+                || !isValidKey(key)) {
+            response.setKeepAlive(false);
+            socketWrapper.write(response_400);
+            return;
+        }
+        if (!"13".equals(StrUtil.trim(request.getHeader("sec-websocket-version")))) {
+            response.setKeepAlive(false);
+            socketWrapper.write(response_426);
+            return;
+        }
+        String subprotocol = null;
+        String protocolHeader = request.getHeader("sec-websocket-protocol");
+        if (null != protocolHeader) {
+            List<String> requested = new ArrayList<>();
+            for (String protocol : protocolHeader.split(","))
+                if (StrUtil.isNotBlank(protocol))
+                    requested.add(protocol.trim());
+            subprotocol = endpoint.selectSubprotocol(requested);
+        }
+        boolean deflate = acceptDeflate(request.getHeader("sec-websocket-extensions"));
+
+        StringBuilder head = new StringBuilder("HTTP/1.1 101 Switching Protocols\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n");
+        head.append("Sec-WebSocket-Accept: ").append(accept(key)).append("\r\n");
+        if (null != subprotocol)
+            head.append("Sec-WebSocket-Protocol: ").append(subprotocol).append("\r\n");
+        if (deflate)
+            head.append("Sec-WebSocket-Extensions: permessage-deflate; server_no_context_takeover; client_no_context_takeover\r\n");
+        head.append("\r\n");
+        response.setKeepAlive(true);
+        socketWrapper.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        socketWrapper.flush();
+
+        WebSocketSession session = new WebSocketSession(socketWrapper, endpoint, request.getUri(), request.getParameterMap(),
+                subprotocol, deflate);
+        WebSocketProcessor processor = new WebSocketProcessor(session, endpoint, request.getConnector(), deflate);
+        socketWrapper.setUpgradeHandler(processor);
+        try {
+            endpoint.onOpen(session);
+        } catch (RuntimeException e) {
+            processor.onEndpointError(e);
+        }
+    }
+
+    /**
+    * Sec-WebSocket-Key必须是16字节随机数的base64编码
+    * @param key 客户端的Sec-WebSocket-Key
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static boolean isValidKey(String key) {
+        if (StrUtil.isEmpty(key))
+            return false;
+        try {
+            return 16 == Base64.getDecoder().decode(key).length;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String accept(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            return Base64.getEncoder().encodeToString(sha1.digest((key + GUID).getBytes(StandardCharsets.ISO_8859_1)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+    * 从客户端提供的扩展中选择permessage-deflate，服务端总是使用15位的窗口且不保留上下文，
+    * 因此要求更小server_max_window_bits或者带有未知参数的提议不被接受
+    * @param extensions 客户端的Sec-WebSocket-Extensions
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static boolean acceptDeflate(String extensions) {
+        if (null == extensions)
+            return false;
+        for (String offer : extensions.split(",")) {
+            String[] params = offer.split(";");
+            if (!"permessage-deflate".equalsIgnoreCase(params[0].trim()))
+                continue;
+            boolean acceptable = true;
+            for (int i = 1; i < params.length && acceptable; i++) {
+                String name = StrUtil.subBefore(params[i], '=', false).trim().toLowerCase();
+                String value = StrUtil.trim(StrUtil.unWrap(StrUtil.trim(StrUtil.subAfter(params[i], '=', false)), '"'));
+                switch (name) {
+                    case "server_no_context_takeover", "client_no_context_takeover", "client_max_window_bits" -> {
+                    }
+                    case "server_max_window_bits" -> acceptable = "15".equals(value);
+                    default -> acceptable = false;
+                }
+            }
+            if (acceptable)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+    * 缓冲区中是否有完整的帧，帧头声明的长度超过maxMessageSize时也返回true，由process拒绝
+    * @param buffered 缓冲区中尚未处理的数据
+    * @return boolean
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public boolean isReadable(ByteBuffer buffered) {
+        long frameLength = frameLength(buffered);
+        return -1 != frameLength && (frameLength > maxMessageSize || buffered.remaining() >= frameLength);
+    }
+
+    /**
+    * 计算缓冲区中第一个帧的总长度，帧头不完整时返回-1
+    * @param buffered 缓冲区
+    * @return long
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static long frameLength(ByteBuffer buffered) {
+        int start = buffered.position();
+        if (buffered.remaining() < 2)
+            return -1;
+        int second = buffered.get(start + 1) & 0xff;
+        int headerLength = 2 + (0 != (second & 0x80) ? 4 : 0);
+        long payloadLength = second & 0x7f;
+        if (126 == payloadLength) {
+            if (buffered.remaining() < 4)
+                return -1;
+            headerLength += 2;
+            payloadLength = buffered.getShort(start + 2) & 0xffff;
+        } else if (127 == payloadLength) {
+            if (buffered.remaining() < 10)
+                return -1;
+            headerLength += 8;
+            payloadLength = buffered.getLong(start + 2);
+            if (payloadLength < 0)
+                return Long.MAX_VALUE;
+        }
+        if (buffered.remaining() < headerLength)
+            return -1;
+        return headerLength + payloadLength;
+    }
+
+    /**
+    * 依次处理缓冲区中完整的帧，协议错误时发出对应状态码的关闭帧并关闭连接，端点回调抛出的异常以1011关闭会话
+    * @param socketWrapper 升级后的连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void process(SocketWrapper socketWrapper) throws IOException {
+        ByteBuffer buffered;
+        while (!socketWrapper.isClosed() && this.isReadable(buffered = socketWrapper.peek())) {
+            long frameLength = frameLength(buffered);
+            if (frameLength > maxMessageSize) {
+                this.fail(CLOSE_TOO_BIG, "消息超过了" + maxMessageSize + "字节");
+                return;
+            }
+            int first = buffered.get() & 0xff;
+            int second = buffered.get() & 0xff;
+            int length = second & 0x7f;
+            if (126 == length)
+                length = buffered.getShort() & 0xffff;
+            else if (127 == length)
+                length = (int) buffered.getLong();
+            if (0 == (second & 0x80)) {
+                this.fail(CLOSE_PROTOCOL_ERROR, "客户端的帧必须掩码");
+                return;
+            }
+            byte[] mask = new byte[4];
+            buffered.get(mask);
+            byte[] payload = new byte[length];
+            buffered.get(payload);
+            for (int i = 0; i < length; i++)
+                payload[i] ^= mask[i & 3];
+            socketWrapper.consume((int) frameLength);
+            if (closeReceived)  //关闭帧之后的数据直接丢弃
+                continue;
+            try {
+                this.onFrame(0 != (first & 0x80), first & 0x70, first & 0x0f, payload);
+            } catch (RuntimeException e) {
+                this.onEndpointError(e);
+            }
+        }
+    }
+
+    /**
+    * 处理一个帧，控制帧可以插在分片消息的中间
+    * @param fin 是否是消息的最后一个分片
+ 	* @param rsv 保留位，RSV1表示消息经过压缩
+ 	* @param opcode 操作码
+ 	* @param payload 去掉掩码后的数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void onFrame(boolean fin, int rsv, int opcode, byte[] payload) throws IOException {
+        if (opcode >= OPCODE_CLOSE) {
+            if (!fin || payload.length > 125 || 0 != rsv) {
+                this.fail(CLOSE_PROTOCOL_ERROR, "控制帧不合法");
+                return;
+            }
+            switch (opcode) {
+                case OPCODE_CLOSE -> this.onCloseFrame(payload);
+                case OPCODE_PING -> session.sendPong(payload);
+                case OPCODE_PONG -> endpoint.onPong(session, payload);
+                default -> this.fail(CLOSE_PROTOCOL_ERROR, "未知的操作码" + opcode);
+            }
+            return;
+        }
+        if (OPCODE_CONTINUATION == opcode) {
+            if (0 == messageOpcode || 0 != rsv) {
+                this.fail(CLOSE_PROTOCOL_ERROR, "意外的延续帧");
+                return;
+            }
+        } else if (OPCODE_TEXT == opcode || OPCODE_BINARY == opcode) {
+            if (0 != messageOpcode || 0 != (rsv & ~(deflate ? 0x40 : 0))) {
+                this.fail(CLOSE_PROTOCOL_ERROR, "消息的第一个帧不合法");
+                return;
+            }
+            if (fin) {  //不分片的消息不经过合并缓冲区
+                this.onMessage(opcode, 0 != rsv, payload);
+                return;
+            }
+            messageOpcode = opcode;
+            messageCompressed = 0 != rsv;
+            fragments = new ByteArrayOutputStream();
+        } else {
+            this.fail(CLOSE_PROTOCOL_ERROR, "未知的操作码" + opcode);
+            return;
+        }
+        if (fragments.size() + payload.length > maxMessageSize) {
+            this.fail(CLOSE_TOO_BIG, "消息超过了" + maxMessageSize + "字节");
+            return;
+        }
+        fragments.write(payload);
+        if (fin) {
+            byte[] message = fragments.toByteArray();
+            int messageType = messageOpcode;
+            messageOpcode = 0;
+            fragments = null;
+            this.onMessage(messageType, messageCompressed, message);
+        }
+    }
+
+    /**
+    * 把合并后的消息交给端点，压缩的消息先解压，文本消息必须是合法的UTF-8
+    * @param opcode 消息的类型
+ 	* @param compressed 是否经过压缩
+ 	* @param payload 消息的数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void onMessage(int opcode, boolean compressed, byte[] payload) throws IOException {
+        if (compressed) {
+            try {
+                payload = inflate(payload, maxMessageSize);
+            } catch (DataFormatException e) {
+                this.fail(CLOSE_INVALID_DATA, "压缩数据不合法");
+                return;
+            }
+            if (null == payload) {
+                this.fail(CLOSE_TOO_BIG, "消息超过了" + maxMessageSize + "字节");
+                return;
+            }
+        }
+        if (OPCODE_BINARY == opcode) {
+            endpoint.onBinary(session, payload);
+            return;
+        }
+        String text = decodeUtf8(payload);
+        if (null == text)
+            this.fail(CLOSE_INVALID_DATA, "文本消息不是合法的UTF-8");
+        else
+            endpoint.onText(session, text);
+    }
+
+    /**
+    * 收到客户端的关闭帧，回复关闭帧后关闭连接
+    * @param payload 关闭帧的数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void onCloseFrame(byte[] payload) throws IOException {
+        closeReceived = true;
+        int code = CLOSE_NO_STATUS;
+        String reason = "";
+        if (1 == payload.length) {
+            this.fail(CLOSE_PROTOCOL_ERROR, "关闭帧不合法");
+            return;
+        }
+        if (payload.length >= 2) {
+            code = ((payload[0] & 0xff) << 8) | (payload[1] & 0xff);
+            reason = decodeUtf8(Arrays.copyOfRange(payload, 2, payload.length));
+            if (!isValidCloseCode(code)) {
+                this.fail(CLOSE_PROTOCOL_ERROR, "关闭状态码不合法");
+                return;
+            }
+            if (null == reason) {
+                this.fail(CLOSE_INVALID_DATA, "关闭原因不是合法的UTF-8");
+                return;
+            }
+        }
+        SocketWrapper socketWrapper = session.getSocketWrapper();
+        try {
+            session.sendClose(CLOSE_NO_STATUS == code ? new byte[0] : Arrays.copyOf(payload, 2));
+        } catch (IOException ignored) { //客户端可能已经关闭了连接
+        }
+        session.fireClose(code, reason);
+        socketWrapper.close();
+    }
+
+    private static boolean isValidCloseCode(int code) {
+        return (code >= 1000 && code <= 1003) || (code >= 1007 && code <= 1011) || (code >= 3000 && code <= 4999);
+    }
+
+    /**
+    * 以给定的状态码关闭会话并关闭连接，不再等待客户端的关闭帧
+    * @param code 关闭状态码
+ 	* @param reason 关闭原因
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void fail(int code, String reason) {
+        closeReceived = true;
+        SocketWrapper socketWrapper = session.getSocketWrapper();
+        try {
+            session.close(code, reason);
+        } catch (IOException ignored) {
+        }
+        session.fireClose(code, reason);
+        socketWrapper.close();
+    }
+
+    /**
+    * 端点回调抛出异常时通知端点，然后以1011关闭会话
+    * @param e 回调抛出的异常
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private void onEndpointError(RuntimeException e) {
+        LogFactory.get().error(e);
+        try {
+            endpoint.onError(session, e);
+        } catch (RuntimeException ex) {
+            LogFactory.get().error(ex);
+        }
+        this.fail(CLOSE_INTERNAL_ERROR, "");
+    }
+
+    @Override
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+    * 服务器开始排空，以1001发出关闭帧，客户端回复关闭帧后关闭连接
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void onDrain() {
+        try {
+            session.close(CLOSE_GOING_AWAY, "");
+        } catch (IOException ignored) { //写出失败时连接已经关闭
+        }
+    }
+
+    /**
+    * 连接异常断开或者空闲超时，会话尚未通知关闭时以1006通知端点
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    @Override
+    public void onClose() {
+        try {
+            session.fireClose(CLOSE_ABNORMAL, "");
+        } catch (RuntimeException e) {
+            LogFactory.get().error(e);
+        }
+    }
+
+    /**
+    * 严格按UTF-8解码，包含非法字节序列时返回null
+    * @param bytes 待解码的数据
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static String decodeUtf8(byte[] bytes) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    /**
+    * 生成服务端的帧头，服务端发出的帧不掩码
+    * @param opcode 操作码
+ 	* @param length 数据长度
+ 	* @param compressed 是否设置RSV1
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static byte[] frameHeader(int opcode, int length, boolean compressed) {
+        ByteBuffer header;
+        if (length < 126) {
+            header = ByteBuffer.allocate(2);
+            header.put((byte) (0x80 | (compressed ? 0x40 : 0) | opcode)).put((byte) length);
+        } else if (length <= 0xffff) {
+            header = ByteBuffer.allocate(4);
+            header.put((byte) (0x80 | (compressed ? 0x40 : 0) | opcode)).put((byte) 126).putShort((short) length);
+        } else {
+            header = ByteBuffer.allocate(10);
+            header.put((byte) (0x80 | (compressed ? 0x40 : 0) | opcode)).put((byte) 127).putLong(length);
+        }
+        return header.array();
+    }
+
+    /**
+    * 压缩一个消息，以SYNC_FLUSH结束并去掉末尾的00 00 ff ff
+    * @param data 消息的数据
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+            byte[] buffer = new byte[8192];
+            int n;
+            do {
+                n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                out.write(buffer, 0, n);
+            } while (n == buffer.length || !deflater.needsInput());
+            byte[] compressed = out.toByteArray();
+            return Arrays.copyOf(compressed, compressed.length - DEFLATE_TAIL.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+    * 解压一个消息，先补回末尾的00 00 ff ff，解压后超过maxSize时返回null
+    * @param data 压缩的数据
+ 	* @param maxSize 解压后的最大长度
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static byte[] inflate(byte[] data, int maxSize) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        try {
+            byte[] input = Arrays.copyOf(data, data.length + DEFLATE_TAIL.length);
+            System.arraycopy(DEFLATE_TAIL, 0, input, data.length, DEFLATE_TAIL.length);
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 2);
+            byte[] buffer = new byte[8192];
+            while (true) {
+                int n = inflater.inflate(buffer);
+                if (n > 0) {
+                    out.write(buffer, 0, n);
+                    if (out.size() > maxSize)
+                        return null;
+                } else if (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()) {
+                    break;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
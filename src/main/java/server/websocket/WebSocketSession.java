@@ -0,0 +1,190 @@
+package server.websocket;
+
+import server.net.SocketWrapper;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+* WebSocket会话，对应一个升级后的连接。发送在会话上加锁，可以在任意线程上调用，帧写出后立即flush，
+* 协商了permessage-deflate时较大的消息压缩后发送，每个消息独立压缩，不保留压缩上下文
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class WebSocketSession {
+    private static final int compressionMinSize = 128;  //更短的消息压缩后几乎不会变小
+    private final SocketWrapper socketWrapper;
+    private final WebSocketEndpoint endpoint;
+    private final String requestURI;
+    private final Map<String, String[]> parameterMap;
+    private final String subprotocol;
+    private final boolean deflate;
+    private final Map<String, Object> attributes;
+    private final AtomicBoolean closed;
+    private boolean closeSent;
+
+    /**
+    * 握手成功后创建会话
+    * @param socketWrapper 升级后的连接
+ 	* @param endpoint 会话所属的端点
+ 	* @param requestURI 握手请求的uri，不含Context的路径
+ 	* @param parameterMap 握手请求的查询参数
+ 	* @param subprotocol 选定的子协议，没有时为null
+ 	* @param deflate 是否协商了permessage-deflate
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public WebSocketSession(SocketWrapper socketWrapper, WebSocketEndpoint endpoint, String requestURI, Map<String, String[]> parameterMap,
+                            String subprotocol, boolean deflate) {
+        this.socketWrapper = socketWrapper;
+        this.endpoint = endpoint;
+        this.requestURI = requestURI;
+        this.parameterMap = parameterMap;
+        this.subprotocol = subprotocol;
+        this.deflate = deflate;
+        this.attributes = new ConcurrentHashMap<>();
+        this.closed = new AtomicBoolean();
+    }
+
+    public void sendText(String message) throws IOException {
+        this.sendMessage(WebSocketProcessor.OPCODE_TEXT, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void sendBinary(byte[] message) throws IOException {
+        this.sendMessage(WebSocketProcessor.OPCODE_BINARY, message);
+    }
+
+    /**
+    * 发送ping，客户端的pong通过onPong通知端点
+    * @param payload 不超过125字节的数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void sendPing(byte[] payload) throws IOException {
+        if (payload.length > 125)
+            throw new IllegalArgumentException("控制帧的数据不能超过125字节");
+        this.sendFrame(WebSocketProcessor.OPCODE_PING, payload, false);
+    }
+
+    void sendPong(byte[] payload) throws IOException {
+        this.sendFrame(WebSocketProcessor.OPCODE_PONG, payload, false);
+    }
+
+    private void sendMessage(int opcode, byte[] payload) throws IOException {
+        if (deflate && payload.length >= compressionMinSize)
+            this.sendFrame(opcode, WebSocketProcessor.deflate(payload), true);
+        else
+            this.sendFrame(opcode, payload, false);
+    }
+
+    /**
+    * 写出一个不分片的帧，服务端发出的帧不掩码
+    * @param opcode 操作码
+ 	* @param payload 数据
+ 	* @param compressed 是否设置RSV1，即数据经过了压缩
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private synchronized void sendFrame(int opcode, byte[] payload, boolean compressed) throws IOException {
+        if (closeSent || socketWrapper.isClosed())
+            throw new IOException("WebSocket会话已关闭");
+        try {
+            socketWrapper.write(WebSocketProcessor.frameHeader(opcode, payload.length, compressed));
+            socketWrapper.write(payload);
+            socketWrapper.flush();
+        } catch (IOException e) {
+            socketWrapper.close();
+            throw e;
+        }
+    }
+
+    public void close() throws IOException {
+        this.close(WebSocketProcessor.CLOSE_NORMAL, "");
+    }
+
+    /**
+    * 发出关闭帧，之后不能再发送消息，连接在收到客户端的关闭帧后关闭
+    * @param code 关闭状态码
+ 	* @param reason 关闭原因，UTF-8编码后不超过123字节
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public void close(int code, String reason) throws IOException {
+        byte[] reasonBytes = reason.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[2 + Math.min(reasonBytes.length, 123)];
+        payload[0] = (byte) (code >>> 8);
+        payload[1] = (byte) code;
+        System.arraycopy(reasonBytes, 0, payload, 2, payload.length - 2);
+        this.sendClose(payload);
+    }
+
+    /**
+    * 发出关闭帧，多次调用只发送一次
+    * @param payload 关闭帧的数据，可以为空
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    synchronized void sendClose(byte[] payload) throws IOException {
+        if (closeSent)
+            return;
+        this.sendFrame(WebSocketProcessor.OPCODE_CLOSE, payload, false);
+        closeSent = true;
+    }
+
+    /**
+    * 通知端点会话已关闭，只生效一次
+    * @param code 关闭状态码
+ 	* @param reason 关闭原因
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    void fireClose(int code, String reason) {
+        if (closed.compareAndSet(false, true))
+            endpoint.onClose(this, code, reason);
+    }
+
+    public boolean isOpen() {
+        return !closed.get() && !socketWrapper.isClosed();
+    }
+
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    public String getParameter(String name) {
+        String[] values = parameterMap.get(name);
+        return null == values || 0 == values.length ? null : values[0];
+    }
+
+    public Map<String, String[]> getParameterMap() {
+        return parameterMap;
+    }
+
+    public String getSubprotocol() {
+        return subprotocol;
+    }
+
+    public InetSocketAddress getRemoteAddress() {
+        return socketWrapper.getRemoteAddress();
+    }
+
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    SocketWrapper getSocketWrapper() {
+        return socketWrapper;
+    }
+}
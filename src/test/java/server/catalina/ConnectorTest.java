@@ -0,0 +1,140 @@
+package server.catalina;
+
+import cn.hutool.core.net.NetUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import server.net.BioEndpoint;
+import server.net.LoopbackClient;
+import server.net.MockSocketWrapper;
+import server.net.NioEndpoint;
+import server.net.ProtocolHandler;
+import server.net.ProtocolStats;
+import server.net.UdsEndpoint;
+import server.util.Constant;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+public class ConnectorTest {
+
+    @Test
+    public void testBuiltinProtocols() {
+        Assert.assertEquals(BioEndpoint.class, this.init("bio", null).getProtocolHandler().getClass());
+        Assert.assertEquals(NioEndpoint.class, this.init("NIO", null).getProtocolHandler().getClass());   //不区分大小写
+        Assert.assertEquals(UdsEndpoint.class, this.init("bio", "/tmp/server.sock").getProtocolHandler().getClass());
+    }
+
+    @Test
+    public void testConnectionCount() {
+        Connector connector = this.init("nio", null);
+        Assert.assertEquals(0, connector.getProtocolHandler().getConnectionCount());
+        connector.getConnectionLimitLatch().tryAcquire();
+        Assert.assertEquals(1, connector.getProtocolHandler().getConnectionCount());
+    }
+
+    @Test
+    public void testStopClosesIdleConnections() throws IOException {
+        Connector connector = this.init(MockProtocolHandler.class.getName(), null);
+        MockSocketWrapper idle = new MockSocketWrapper(connector, "", 1024);
+        MockSocketWrapper reading = new MockSocketWrapper(connector, "GET / HTTP/1.1\r\nHost: a\r\n", 1024);
+        Assert.assertTrue(connector.admit(idle));
+        Assert.assertTrue(connector.admit(reading));
+        reading.fill(false);
+        connector.stop();
+        Assert.assertTrue(connector.isDraining());
+        Assert.assertTrue(idle.isClosed());    //保持连接不再等待keepAliveTimeout
+        Assert.assertFalse(reading.isClosed());    //报头读完后照常处理
+        MockSocketWrapper late = new MockSocketWrapper(connector, "", 1024);
+        Assert.assertFalse(connector.admit(late));
+        Assert.assertTrue(late.isClosed());
+    }
+
+    @Test
+    public void testExecutorFullRejected() throws IOException {
+        Service service = new Service(null);
+        service.addExecutor(new StandardExecutor("single", 1, 1, 1, 60 * 1000));
+        int port = NetUtil.getUsableLocalPort();
+        Connector connector = new Connector(service, port);
+        connector.setProtocol("bio");   //每个连接在工作线程上阻塞读取
+        connector.setExecutorName("single");
+        connector.init();
+        connector.start();
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        try (LoopbackClient first = new LoopbackClient(address);    //占用唯一的线程
+             LoopbackClient second = new LoopbackClient(address);   //占用唯一的队列位置
+             LoopbackClient third = new LoopbackClient(address)) {
+            LoopbackClient.Response rejected = third.read();
+            Assert.assertEquals(503, rejected.getStatus());
+            Assert.assertEquals(new String(Constant.response_503, StandardCharsets.ISO_8859_1),
+                    rejected.getHead() + new String(rejected.getBody(), StandardCharsets.ISO_8859_1));
+            Assert.assertNull(third.read());
+            Assert.assertEquals(1, connector.getStats().getRejectedCount().sum());
+            Assert.assertEquals(200, first.get("/a.html").getStatus());
+            Assert.assertTrue(second.isOpen());
+        } finally {
+            connector.stop();
+            connector.destroy();
+        }
+    }
+
+    @Test
+    public void testCustomProtocolHandler() {
+        Connector connector = this.init(MockProtocolHandler.class.getName(), null);
+        ProtocolHandler protocolHandler = connector.getProtocolHandler();
+        Assert.assertTrue(protocolHandler instanceof MockProtocolHandler);
+        Assert.assertSame(connector, ((MockProtocolHandler) protocolHandler).connector);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnknownProtocol() {
+        this.init("server.net.NoSuchEndpoint", null);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotProtocolHandler() {
+        this.init(String.class.getName(), null);
+    }
+
+    private Connector init(String protocol, String path) {
+        Connector connector = new Connector(null, 0);
+        connector.setProtocol(protocol);
+        connector.setPath(path);
+        connector.init();
+        return connector;
+    }
+
+    public static class MockProtocolHandler implements ProtocolHandler {
+        private final Connector connector;
+        private final ProtocolStats stats;
+
+        public MockProtocolHandler(Connector connector) {
+            this.connector = connector;
+            this.stats = new ProtocolStats();
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public String getName() {
+            return "http-mock-" + connector.getPort();
+        }
+
+        @Override
+        public int getConnectionCount() {
+            return -1;
+        }
+
+        @Override
+        public ProtocolStats getStats() {
+            return stats;
+        }
+    }
+}
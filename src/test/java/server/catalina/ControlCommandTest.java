@@ -0,0 +1,49 @@
+package server.catalina;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ControlCommandTest {
+    private static final String token = "0123456789abcdef";
+
+    @Test
+    public void testCommands() {
+        ControlCommand ready = ControlCommand.parse("ready 4242 " + token, token);
+        Assert.assertEquals(ControlCommand.READY, ready.getName());
+        Assert.assertEquals(4242, ready.getPid());
+        Assert.assertEquals(ControlCommand.STATUS, ControlCommand.parse("status " + token, token).getName());
+        Assert.assertEquals(ControlCommand.ROLL, ControlCommand.parse(" roll  " + token + " ", token).getName());
+        ControlCommand stop = ControlCommand.parse("stop " + token, token);
+        Assert.assertEquals(ControlCommand.STOP, stop.getName());
+        Assert.assertEquals(-1, stop.getPid());
+    }
+
+    @Test
+    public void testTokenRequired() {
+        assertRejected("status", "命令格式错误");
+        assertRejected("stop", "命令格式错误");
+        assertRejected("ready 4242", "命令格式错误");
+        assertRejected("status 0123456789abcdeX", "令牌不符");
+        assertRejected("status 0123456789abcdef0", "令牌不符");
+        assertRejected("ready 4242 wrong", "令牌不符");
+        assertRejected("ready " + token, "命令格式错误");  //缺少pid时令牌不能被当作pid
+    }
+
+    @Test
+    public void testMalformed() {
+        assertRejected("", "未知的命令");
+        assertRejected("restart " + token, "未知的命令");
+        assertRejected("STATUS " + token, "未知的命令");
+        assertRejected("status " + token + " extra", "命令格式错误");
+        assertRejected("ready abc " + token, "进程号不合法");
+    }
+
+    private static void assertRejected(String line, String message) {
+        try {
+            ControlCommand.parse(line, token);
+            Assert.fail(line);
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package server.catalina;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+* SupervisorTest使用的工作进程，报告就绪后一直运行到被管理进程停止
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class MockWorker {
+
+    public static void main(String[] args) throws InterruptedException {
+        Supervisor.workerStarted();
+        TimeUnit.DAYS.sleep(1);
+    }
+}
@@ -0,0 +1,31 @@
+package server.catalina;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RestartBackoffTest {
+
+    @Test
+    public void testCrashWindow() {
+        Assert.assertTrue(RestartBackoff.isCrash(1000, 1000));
+        Assert.assertTrue(RestartBackoff.isCrash(1000, 1000 + RestartBackoff.crashWindow - 1));
+        Assert.assertFalse(RestartBackoff.isCrash(1000, 1000 + RestartBackoff.crashWindow));
+    }
+
+    @Test
+    public void testDelayGrowsWithConsecutiveCrashes() {
+        Assert.assertEquals(1000, RestartBackoff.getDelay(true, 0));
+        Assert.assertEquals(2000, RestartBackoff.getDelay(true, 1));
+        Assert.assertEquals(30000, RestartBackoff.getDelay(true, 29));
+        Assert.assertEquals(30000, RestartBackoff.getDelay(true, 1000)); //最长30秒
+        Assert.assertEquals(1, RestartBackoff.nextRestarts(true, 0));
+        Assert.assertEquals(6, RestartBackoff.nextRestarts(true, 5));
+    }
+
+    @Test
+    public void testImmediateRestartAfterNormalRun() {
+        Assert.assertEquals(0, RestartBackoff.getDelay(false, 0));
+        Assert.assertEquals(0, RestartBackoff.getDelay(false, 7));
+        Assert.assertEquals(0, RestartBackoff.nextRestarts(false, 7));   //正常运行过后清零
+    }
+}
@@ -0,0 +1,123 @@
+package server.catalina;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.net.NetUtil;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SupervisorTest {
+    private static File tokenFile;
+    private static int controlPort;
+    private static Supervisor supervisor;
+
+    @BeforeClass
+    public static void startSupervisor() throws IOException {
+        tokenFile = new File(Files.createTempDirectory("supervisor").toFile(), "control.token");
+        controlPort = NetUtil.getUsableLocalPort();
+        supervisor = new Supervisor(2, 5000, controlPort, Collections.emptyList(), MockWorker.class.getName(), tokenFile);
+        supervisor.start();
+    }
+
+    @AfterClass
+    public static void stopSupervisor() {
+        supervisor.stopWorkers();
+        Assert.assertFalse(tokenFile.exists());
+        FileUtil.del(tokenFile.getParentFile());
+    }
+
+    @Test
+    public void testTokenFile() throws IOException {
+        Assert.assertEquals(32, token().length());
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+            Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile.toPath())));
+    }
+
+    @Test
+    public void testCommandsWithoutTokenRejected() throws Exception {
+        List<Long> pids = awaitReady();
+        Assert.assertEquals("令牌不符", send("status wrong").get(0));
+        Assert.assertTrue(send("status").get(0).startsWith("命令格式错误"));
+        Assert.assertTrue(send("roll").get(0).startsWith("命令格式错误"));
+        Assert.assertEquals("令牌不符", send("stop " + token().substring(1)).get(0));
+        Assert.assertEquals(pids, awaitReady());
+    }
+
+    @Test
+    public void testRoll() throws Exception {
+        List<Long> pids = awaitReady();
+        List<String> reply = send("roll " + token());
+        Assert.assertEquals("ok", reply.get(reply.size() - 1));
+        Assert.assertEquals("worker 0 pid " + pids.get(0) + " -> " + workerPids().get(0), reply.get(0));
+        List<Long> rolled = awaitReady();
+        Assert.assertNotEquals(pids.get(0), rolled.get(0));
+        Assert.assertNotEquals(pids.get(1), rolled.get(1));
+        for (Long pid : pids)
+            Assert.assertFalse(ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false));
+    }
+
+    @Test
+    public void testRestartAfterCrash() throws Exception {
+        List<Long> pids = awaitReady();
+        long start = System.currentTimeMillis();
+        ProcessHandle.of(pids.get(1)).ifPresent(ProcessHandle::destroyForcibly);
+        long deadline = start + 20 * 1000;
+        while (workerPids().get(1).equals(pids.get(1))) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start >= RestartBackoff.getDelay(true, 0));  //刚启动就退出，延迟重启
+        List<Long> restarted = awaitReady();
+        Assert.assertEquals(pids.get(0), restarted.get(0));
+        Assert.assertNotEquals(pids.get(1), restarted.get(1));
+    }
+
+    private static String token() {
+        return FileUtil.readString(tokenFile, StandardCharsets.ISO_8859_1);
+    }
+
+    private static List<String> send(String command) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), controlPort);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            socket.getOutputStream().write((command + "\n").getBytes(StandardCharsets.UTF_8));
+            List<String> lines = new ArrayList<>();
+            for (String line = in.readLine(); null != line; line = in.readLine())
+                lines.add(line);
+            return lines;
+        }
+    }
+
+    private static List<Long> workerPids() throws IOException {
+        List<Long> pids = new ArrayList<>();
+        for (String line : send("status " + token()))
+            pids.add(Long.parseLong(line.split(" ")[3]));
+        return pids;
+    }
+
+    private static List<Long> awaitReady() throws Exception {
+        long deadline = System.currentTimeMillis() + 20 * 1000;
+        while (true) {
+            List<String> status = send("status " + token());
+            if (status.size() == 2 && status.stream().allMatch(line -> line.contains(" ready ")))
+                return workerPids();
+            Assert.assertTrue(String.valueOf(status), System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+    }
+}
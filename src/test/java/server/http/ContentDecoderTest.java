@@ -0,0 +1,102 @@
+package server.http;
+
+import cn.hutool.core.util.ZipUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import server.exception.HttpStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+public class ContentDecoderTest {
+    private static final byte[] content = "hello hello hello hello".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testIdentity() throws IOException {
+        InputStream in = new ByteArrayInputStream(content);
+        Assert.assertSame(in, ContentDecoder.decode(in, null, 1024));
+        Assert.assertSame(in, ContentDecoder.decode(in, " identity ", 1024));
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        Assert.assertArrayEquals(content, decode(ZipUtil.gzip(content), "gzip", 1024));
+        Assert.assertArrayEquals(content, decode(ZipUtil.gzip(content), "X-GZIP", 1024));
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        Assert.assertArrayEquals(content, decode(deflate(content, false), "deflate", 1024));
+        Assert.assertArrayEquals(content, decode(deflate(content, true), "deflate", 1024));   //不带zlib头的裸deflate
+    }
+
+    @Test
+    public void testNothingReadUntilFirstRead() throws IOException {
+        AtomicInteger reads = new AtomicInteger();
+        InputStream body = new ByteArrayInputStream(ZipUtil.gzip(content)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                reads.incrementAndGet();
+                return super.read(b, off, len);
+            }
+        };
+        InputStream in = ContentDecoder.decode(body, "gzip", 1024);
+        Assert.assertEquals(0, reads.get());   //servlet取得输入流时不读取请求体，100 Continue推迟到真正读取时
+        Assert.assertEquals(content[0], in.read());
+        Assert.assertTrue(reads.get() > 0);
+    }
+
+    @Test
+    public void testEmptyBody() throws IOException {
+        Assert.assertEquals(0, decode(new byte[0], "gzip", 1024).length);
+        Assert.assertEquals(0, decode(new byte[0], "deflate", 1024).length);
+    }
+
+    @Test
+    public void testInflatedSizeLimit() throws IOException {
+        byte[] bomb = ZipUtil.gzip(new byte[1024 * 1024]);
+        try {
+            decode(bomb, "gzip", 64 * 1024);
+            Assert.fail();
+        } catch (HttpStatusException e) {
+            Assert.assertEquals(413, e.getStatus());
+        }
+    }
+
+    @Test
+    public void testUnsupportedEncoding() throws IOException {
+        try {
+            ContentDecoder.decode(new ByteArrayInputStream(content), "br", 1024);
+            Assert.fail();
+        } catch (HttpStatusException e) {
+            Assert.assertEquals(415, e.getStatus());
+        }
+    }
+
+    private static byte[] decode(byte[] encoded, String contentEncoding, long maxSize) throws IOException {
+        try (InputStream in = ContentDecoder.decode(new ByteArrayInputStream(encoded), contentEncoding, maxSize)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) != -1; )
+                out.write(buffer, 0, n);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] deflate(byte[] bytes, boolean nowrap) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+        try (DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater)) {
+            deflaterOut.write(bytes);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,116 @@
+package server.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+import server.net.MockSocketWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class RequestInputStreamTest {
+
+    @Test
+    public void testContentLengthStopsAtBodyEnd() throws IOException {
+        MockSocketWrapper socketWrapper = new MockSocketWrapper(
+                "POST /a HTTP/1.1\r\nContent-Length: 5\r\n\r\nhelloGET /next HTTP/1.1\r\nHost: h\r\n\r\n", 3);
+        RequestParser head = socketWrapper.readRequest();
+        Assert.assertEquals("/a", head.getUri());
+        RequestInputStream body = new RequestInputStream(socketWrapper, head.getContentLength(), head.isChunked());
+        Assert.assertEquals("hello", read(body, 2));
+        Assert.assertTrue(body.isFinished());
+        Assert.assertEquals(-1, body.read());
+        Assert.assertFalse(socketWrapper.isBodyPending());
+        Assert.assertEquals("/next", socketWrapper.readRequest().getUri());   //流水线上的下一个请求没有被请求体读走
+    }
+
+    @Test
+    public void testChunkedBody() throws IOException {
+        MockSocketWrapper socketWrapper = new MockSocketWrapper("POST /a HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "4\r\nWiki\r\n5;name=value\r\npedia\r\nE\r\n in\r\n\r\nchunks.\r\n0\r\nTrailer: x\r\n\r\n"
+                + "GET /next HTTP/1.1\r\n\r\n", 7);
+        RequestParser head = socketWrapper.readRequest();
+        Assert.assertTrue(head.isChunked());
+        RequestInputStream body = new RequestInputStream(socketWrapper, head.getContentLength(), head.isChunked());
+        Assert.assertEquals('W', body.read());
+        Assert.assertEquals("ikipedia in\r\n\r\nchunks.", read(body, 4));
+        Assert.assertTrue(body.isFinished());
+        Assert.assertEquals("/next", socketWrapper.readRequest().getUri());
+    }
+
+    @Test
+    public void testLargeBody() throws IOException {
+        byte[] content = new byte[100000];
+        for (int i = 0; i < content.length; i++)
+            content[i] = (byte) i;
+        String request = "POST /a HTTP/1.1\r\nContent-Length: " + content.length + "\r\n\r\n"
+                + new String(content, StandardCharsets.ISO_8859_1);
+        MockSocketWrapper socketWrapper = new MockSocketWrapper(request, 4096);
+        RequestParser head = socketWrapper.readRequest();
+        Assert.assertTrue(socketWrapper.isBodyPending());
+        InputStream body = new RequestInputStream(socketWrapper, head.getContentLength(), false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16384];   //大于内部缓冲区，直接从连接读取
+        for (int read = body.read(buffer); -1 != read; read = body.read(buffer))
+            out.write(buffer, 0, read);
+        Assert.assertArrayEquals(content, out.toByteArray());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidChunkSize() throws IOException {
+        MockSocketWrapper socketWrapper = new MockSocketWrapper(
+                "POST /a HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\nabc\r\n0\r\n\r\n", 1024);
+        socketWrapper.readRequest();
+        read(new RequestInputStream(socketWrapper, 0, true), 16);
+    }
+
+    @Test
+    public void testClientClosesBeforeSmallBody() throws IOException {
+        MockSocketWrapper socketWrapper = new MockSocketWrapper("POST /a HTTP/1.1\r\nContent-Length: 10\r\n\r\nabc", 1024);
+        Assert.assertNull(socketWrapper.readRequest());    //不超过64KB的请求体到齐后才交给servlet
+    }
+
+    @Test(expected = EOFException.class)
+    public void testClientClosesBeforeBodyEnd() throws IOException {
+        MockSocketWrapper socketWrapper = new MockSocketWrapper("POST /a HTTP/1.1\r\nContent-Length: 100000\r\n\r\nabc", 1024);
+        RequestParser head = socketWrapper.readRequest();
+        read(new RequestInputStream(socketWrapper, head.getContentLength(), false), 16);
+    }
+
+    @Test
+    public void testDiscardBuffered() throws IOException {
+        MockSocketWrapper socketWrapper = new MockSocketWrapper(
+                "POST /a HTTP/1.1\r\nContent-Length: 3\r\n\r\nabcGET /next HTTP/1.1\r\n\r\n", 1024);
+        RequestParser head = socketWrapper.readRequest();
+        RequestInputStream body = new RequestInputStream(socketWrapper, head.getContentLength(), false);
+        Assert.assertTrue(body.discardBuffered()); //servlet没有读取请求体
+        Assert.assertEquals("/next", socketWrapper.readRequest().getUri());
+
+        socketWrapper = new MockSocketWrapper("POST /a HTTP/1.1\r\nContent-Length: 100000\r\n\r\nabc", 1024);
+        head = socketWrapper.readRequest();
+        body = new RequestInputStream(socketWrapper, head.getContentLength(), false);
+        Assert.assertFalse(body.discardBuffered());    //余下的请求体还未到达，响应后应关闭连接
+    }
+
+    @Test
+    public void testExpectContinueOnFirstRead() throws IOException {
+        String head = "POST /a HTTP/1.1\r\nExpect: 100-continue\r\nContent-Length: 3\r\n\r\n";
+        MockSocketWrapper socketWrapper = new MockSocketWrapper(head + "abc", head.length());
+        RequestParser parser = socketWrapper.readRequest();
+        Assert.assertTrue(parser.isExpectContinue());
+        Assert.assertEquals("", socketWrapper.getWritten());  //servlet读取请求体之前不回复
+        InputStream body = new RequestInputStream(socketWrapper, parser.getContentLength(), false);
+        Assert.assertEquals("abc", read(body, 8));
+        Assert.assertEquals("HTTP/1.1 100 Continue\r\n\r\n", socketWrapper.getWritten());
+    }
+
+    private static String read(InputStream in, int bufferSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[bufferSize];
+        for (int read = in.read(buffer); -1 != read; read = in.read(buffer))
+            out.write(buffer, 0, read);
+        return out.toString(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,158 @@
+package server.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class RequestParserTest {
+
+    @Test
+    public void testRequestLineAndHeaders() {
+        String head = "GET /app/hello?a=1&b=2 HTTP/1.1\r\nHost: localhost\r\nX-Test:  value \t\r\n\r\n";
+        RequestParser parser = parse(head + "body", 0);
+        Assert.assertTrue(parser.isComplete());
+        Assert.assertEquals(0, parser.getErrorStatus());
+        Assert.assertEquals(head.length(), parser.getHeadLength());
+        Assert.assertEquals("GET", parser.getMethod());
+        Assert.assertEquals("/app/hello", parser.getUri());
+        Assert.assertEquals("a=1&b=2", parser.getQueryString());
+        Assert.assertEquals("HTTP/1.1", parser.getProtocol());
+        Assert.assertTrue(parser.isHttp11());
+        Assert.assertEquals(2, parser.getHeaderCount());
+        Assert.assertEquals("x-test", parser.getHeaderName(1));
+        Assert.assertEquals("value", parser.getHeaderValue(1));
+        Assert.assertEquals("localhost", parser.getHeader("HOST"));
+        Assert.assertNull(parser.getHeader("cookie"));
+    }
+
+    @Test
+    public void testIncrementalParse() {
+        String head = "POST /upload HTTP/1.1\r\nHost: localhost\r\nContent-Length: 3\r\n\r\n";
+        byte[] buffer = (head + "abc").getBytes(StandardCharsets.ISO_8859_1);
+        RequestParser parser = new RequestParser(8192);
+        for (int length = 1; length < head.length(); length++)
+            Assert.assertFalse(parser.parse(buffer, length));
+        Assert.assertTrue(parser.parse(buffer, head.length()));
+        Assert.assertTrue(parser.parse(buffer, buffer.length));    //报文头结束后不再扫描
+        parser.setBytes(Arrays.copyOf(buffer, parser.getHeadLength()));
+        Assert.assertEquals(head.length(), parser.getHeadLength());
+        Assert.assertEquals("/upload", parser.getUri());
+        Assert.assertNull(parser.getQueryString());
+        Assert.assertEquals(3, parser.getContentLength());
+    }
+
+    @Test
+    public void testBareLineFeed() {
+        RequestParser parser = parse("\r\nGET / HTTP/1.0\nHost: a\nX-Empty:\n\n", 0);
+        Assert.assertTrue(parser.isComplete());
+        Assert.assertEquals("GET", parser.getMethod());
+        Assert.assertEquals("/", parser.getUri());
+        Assert.assertFalse(parser.isHttp11());
+        Assert.assertEquals("a", parser.getHeader("host"));
+        Assert.assertEquals("", parser.getHeader("x-empty"));
+    }
+
+    @Test
+    public void testDuplicateHeaders() {
+        RequestParser parser = parse("GET / HTTP/1.1\r\nCookie: a=1\r\nHost: h\r\nCookie: b=2\r\n\r\n", 0);
+        int first = parser.findHeader("cookie", 0);
+        int second = parser.findHeader("cookie", first + 1);
+        Assert.assertEquals("a=1", parser.getHeaderValue(first));
+        Assert.assertEquals("b=2", parser.getHeaderValue(second));
+        Assert.assertEquals(-1, parser.findHeader("cookie", second + 1));
+        Assert.assertEquals("a=1", parser.getHeader("Cookie"));
+    }
+
+    @Test
+    public void testContentLength() {
+        Assert.assertEquals(42, parse(withContentLength("42"), 0).getContentLength());
+        Assert.assertEquals(5, parse(withContentLength("5, 5"), 0).getContentLength());
+        Assert.assertEquals(10000000000L, parse(withContentLength("10000000000"), 0).getContentLength());
+        RequestParser repeated = parse("POST / HTTP/1.1\r\nContent-Length: 7\r\nContent-Length: 7\r\n\r\n", 0);
+        Assert.assertEquals(0, repeated.getErrorStatus());
+        Assert.assertEquals(7, repeated.getContentLength());
+        Assert.assertEquals(0, parse("GET / HTTP/1.1\r\n\r\n", 0).getContentLength());
+    }
+
+    @Test
+    public void testInvalidContentLength() {
+        for (String value : new String[]{"", "+3", "-1", "3a", "0x10", "1 2", "5, 6", "5,", "9999999999999999999"})
+            Assert.assertEquals(value, 400, parse(withContentLength(value), 0).getErrorStatus());
+        RequestParser conflict = parse("POST / HTTP/1.1\r\nContent-Length: 3\r\nContent-Length: 30\r\n\r\n", 0);
+        Assert.assertTrue(conflict.isComplete());
+        Assert.assertEquals(400, conflict.getErrorStatus());
+    }
+
+    @Test
+    public void testTransferEncoding() {
+        Assert.assertTrue(parse(withTransferEncoding("chunked"), 0).isChunked());
+        Assert.assertTrue(parse(withTransferEncoding("Chunked ;ext"), 0).isChunked());
+        Assert.assertEquals(0, parse(withTransferEncoding(", chunked"), 0).getErrorStatus());
+        Assert.assertEquals(501, parse(withTransferEncoding("gzip, chunked"), 0).getErrorStatus());
+        for (String value : new String[]{"", "xchunked", "gzip", "chunked, gzip", "chunked, chunked"})
+            Assert.assertEquals(value, 400, parse(withTransferEncoding(value), 0).getErrorStatus());
+        RequestParser twice = parse("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\nTransfer-Encoding: chunked\r\n\r\n", 0);
+        Assert.assertEquals(400, twice.getErrorStatus());
+    }
+
+    @Test
+    public void testContentLengthWithTransferEncoding() {
+        RequestParser parser = parse("POST / HTTP/1.1\r\nContent-Length: 4\r\nTransfer-Encoding: chunked\r\n\r\n", 0);
+        Assert.assertEquals(0, parser.getErrorStatus());
+        Assert.assertTrue(parser.isChunked());
+        Assert.assertTrue(parser.isLengthConflict());
+        Assert.assertFalse(parse(withTransferEncoding("chunked"), 0).isLengthConflict());
+    }
+
+    @Test
+    public void testMalformedHeaderLines() {
+        String[] lines = {
+                "Transfer-Encoding : chunked",  //名称与冒号之间有空白
+                "Content-Length\t: 4",
+                "X-Test: a\r\n folded",         //obs-fold续行
+                "X-Test: a\r\n\tfolded",
+                "NoColon",
+                ": empty name",
+                "Bad Name: x"};
+        for (String line : lines) {
+            RequestParser parser = parse("POST / HTTP/1.1\r\nHost: h\r\n" + line + "\r\n\r\n", 0);
+            Assert.assertTrue(line, parser.isComplete());
+            Assert.assertEquals(line, 400, parser.getErrorStatus());
+            Assert.assertFalse(line, parser.isChunked());
+        }
+        RequestParser parser = parse("POST / HTTP/1.1\r\nTransfer-Encoding ", 0);
+        Assert.assertTrue(parser.isComplete()); //不等待该行结束
+        Assert.assertEquals(400, parser.getErrorStatus());
+    }
+
+    @Test
+    public void testHeaderTooLarge() {
+        String head = "GET / HTTP/1.1\r\nX-Large: " + "a".repeat(100);
+        byte[] buffer = head.getBytes(StandardCharsets.ISO_8859_1);
+        RequestParser parser = new RequestParser(64);
+        Assert.assertTrue(parser.parse(buffer, buffer.length));    //不再等待报文头结束
+        Assert.assertEquals(431, parser.getErrorStatus());
+
+        String small = "GET / HTTP/1.1\r\nHost: h\r\n\r\n";
+        Assert.assertEquals(0, parse(small, small.length()).getErrorStatus());
+        Assert.assertEquals(0, parse(head + "\r\n\r\n", 0).getErrorStatus());  //不大于0时不限制
+    }
+
+    private static String withContentLength(String value) {
+        return "POST / HTTP/1.1\r\nHost: h\r\nContent-Length: " + value + "\r\n\r\n";
+    }
+
+    private static String withTransferEncoding(String value) {
+        return "POST / HTTP/1.1\r\nHost: h\r\nTransfer-Encoding: " + value + "\r\n\r\n";
+    }
+
+    private static RequestParser parse(String request, int maxHeaderSize) {
+        byte[] buffer = request.getBytes(StandardCharsets.ISO_8859_1);
+        RequestParser parser = new RequestParser(maxHeaderSize);
+        parser.parse(buffer, buffer.length);
+        parser.setBytes(Arrays.copyOf(buffer, Math.max(0, parser.getHeadLength())));
+        return parser;
+    }
+}
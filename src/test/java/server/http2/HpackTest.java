@@ -0,0 +1,67 @@
+package server.http2;
+
+import cn.hutool.core.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import server.exception.Http2Exception;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+public class HpackTest {
+
+    @Test
+    public void testRoundTrip() throws Http2Exception {
+        List<String[]> headers = Arrays.asList(
+                new String[]{":status", "200"},                  //静态表完全匹配
+                new String[]{"content-type", "text/html; charset=utf-8"},  //复用静态表的名称
+                new String[]{"x-request-id", "abc-123"},         //名称和值都是字面值
+                new String[]{"x-empty", ""});
+        byte[] block = new HpackEncoder().encode(headers);
+        List<String[]> decoded = new HpackDecoder(4096).decode(ByteBuffer.wrap(block));
+        Assert.assertEquals(headers.size(), decoded.size());
+        for (int i = 0; i < headers.size(); i++)
+            Assert.assertArrayEquals(headers.get(i), decoded.get(i));
+    }
+
+    @Test
+    public void testDynamicTable() throws Http2Exception {
+        //RFC 7541 C.4.1和C.4.2，使用Huffman编码并带增量索引的两个请求
+        HpackDecoder decoder = new HpackDecoder(4096);
+        List<String[]> first = decoder.decode(block("828684418cf1e3c2e5f23a6ba0ab90f4ff"));
+        Assert.assertArrayEquals(new String[]{":method", "GET"}, first.get(0));
+        Assert.assertArrayEquals(new String[]{":authority", "www.example.com"}, first.get(3));
+        List<String[]> second = decoder.decode(block("828684be5886a8eb10649cbf"));
+        Assert.assertArrayEquals(new String[]{":authority", "www.example.com"}, second.get(3));   //来自动态表
+        Assert.assertArrayEquals(new String[]{"cache-control", "no-cache"}, second.get(4));
+    }
+
+    @Test
+    public void testEviction() throws Http2Exception {
+        HpackDecoder decoder = new HpackDecoder(64);
+        decoder.decode(block("400161016140016202627e"));   //两个条目合计超过64字节，第二个挤掉第一个
+        List<String[]> headers = decoder.decode(block("be"));
+        Assert.assertArrayEquals(new String[]{"b", "b~"}, headers.get(0));
+        try {
+            decoder.decode(block("bf"));
+            Assert.fail();
+        } catch (Http2Exception e) {
+            Assert.assertEquals(Http2Exception.COMPRESSION_ERROR, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testTableSizeUpdateOverLimit() {
+        try {
+            new HpackDecoder(4096).decode(block("3fe13f"));    //动态表大小更新为8192
+            Assert.fail();
+        } catch (Http2Exception e) {
+            Assert.assertEquals(Http2Exception.COMPRESSION_ERROR, e.getErrorCode());
+        }
+    }
+
+    private static ByteBuffer block(String hex) {
+        return ByteBuffer.wrap(HexUtil.decodeHex(hex));
+    }
+}
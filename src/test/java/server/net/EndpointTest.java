@@ -0,0 +1,133 @@
+package server.net;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.net.NetUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import server.catalina.Connector;
+import server.catalina.Service;
+import server.util.Constant;
+import server.util.Http3MiniBrowser;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class EndpointTest {
+    private static Service service;
+    private static byte[] page;
+    private Connector connector;
+
+    @BeforeClass
+    public static void createService() {
+        service = new Service(null);    //按conf/Server.xml部署webapps，Service本身不启动
+        page = FileUtil.readBytes(new File(Constant.rootFolder, "a.html"));
+    }
+
+    @After
+    public void stopConnector() {
+        if (null == connector)
+            return;
+        connector.stop();
+        connector.destroy();
+    }
+
+    @Test
+    public void testNioKeepAlive() throws IOException {
+        this.assertKeepAlive(this.start("nio"), NioEndpoint.class);
+    }
+
+    @Test
+    public void testNio2KeepAlive() throws IOException {
+        this.assertKeepAlive(this.start("nio2"), Nio2Endpoint.class);
+    }
+
+    @Test
+    public void testUdsKeepAlive() throws IOException {
+        Assume.assumeTrue("平台不支持Unix域套接字", isUnixDomainSocketSupported());
+        Path folder = Files.createTempDirectory("uds");
+        Path path = folder.resolve("server.sock");
+        try {
+            connector = new Connector(service, 0);
+            connector.setPath(path.toString());
+            connector.init();
+            connector.start();
+            this.assertKeepAlive(UnixDomainSocketAddress.of(path), UdsEndpoint.class);
+        } finally {
+            this.stopConnector();
+            connector = null;
+            FileUtil.del(folder);
+        }
+    }
+
+    @Test
+    public void testHttp3() throws IOException, InterruptedException {
+        File folder = Files.createTempDirectory("h3").toFile();
+        try {
+            SSLHostConfig sslHostConfig = new SSLHostConfig();
+            sslHostConfig.setHostName(SSLHostConfig.DEFAULT_HOST_NAME);
+            sslHostConfig.setKeystoreFile(SSLSupportTest.createKeystore(folder, "localhost.p12", "CN=localhost").getAbsolutePath());
+            sslHostConfig.setKeystorePass("changeit");
+            int port;
+            try (DatagramSocket socket = new DatagramSocket(0)) {   //h3只占用UDP端口
+                port = socket.getLocalPort();
+            }
+            connector = new Connector(service, port);
+            connector.setProtocol("h3");
+            connector.setSecure(true);
+            connector.addSslHostConfig(sslHostConfig);
+            connector.init();
+            connector.start();
+            Assert.assertEquals(QuicEndpoint.class, connector.getProtocolHandler().getClass());
+
+            String url = "https://localhost:" + port + "/a.html";
+            Assert.assertTrue(Http3MiniBrowser.getHttpString(url).startsWith("HTTP/3 200"));
+            Assert.assertArrayEquals(page, Http3MiniBrowser.getContentBytes(url));
+        } finally {
+            this.stopConnector();
+            connector = null;
+            FileUtil.del(folder);
+        }
+    }
+
+    private static boolean isUnixDomainSocketSupported() {
+        try {
+            SocketChannel.open(StandardProtocolFamily.UNIX).close();
+            return true;
+        } catch (UnsupportedOperationException | IOException e) {
+            return false;
+        }
+    }
+
+    private SocketAddress start(String protocol) {
+        int port = NetUtil.getUsableLocalPort();
+        connector = new Connector(service, port);
+        connector.setProtocol(protocol);
+        connector.init();
+        connector.start();
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    private void assertKeepAlive(SocketAddress address, Class<? extends ProtocolHandler> protocolHandler) throws IOException {
+        Assert.assertEquals(protocolHandler, connector.getProtocolHandler().getClass());
+        try (LoopbackClient client = new LoopbackClient(address)) {
+            for (int i = 0; i < 2; i++) {   //第二个请求复用同一个连接
+                LoopbackClient.Response response = client.get("/a.html");
+                Assert.assertEquals(200, response.getStatus());
+                Assert.assertArrayEquals(page, response.getBody());
+            }
+            Assert.assertEquals(1, connector.getStats().getAcceptedCount().sum());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package server.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+* 测试用的HTTP/1.1客户端，通过一个TCP或者Unix域套接字连接依次发送请求，按Content-Length读取响应，
+* 同一连接上的多个请求用于检查连接保持
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class LoopbackClient implements Closeable {
+    private final SocketChannel channel;
+    private final InputStream in;
+    private final OutputStream out;
+
+    public LoopbackClient(SocketAddress address) throws IOException {
+        this.channel = address instanceof UnixDomainSocketAddress ? SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open();
+        this.channel.connect(address);
+        this.in = Channels.newInputStream(channel);
+        this.out = Channels.newOutputStream(channel);
+    }
+
+    /**
+    * 发送一个GET请求并读取响应
+    * @param uri 请求的uri
+    * @return server.net.LoopbackClient.Response
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public Response get(String uri) throws IOException {
+        out.write(("GET " + uri + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+        return this.read();
+    }
+
+    /**
+    * 读取一个响应，没有Content-Length时读到连接关闭为止，连接已关闭时返回null
+    * @return server.net.LoopbackClient.Response
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public Response read() throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        while (!head.toString(StandardCharsets.ISO_8859_1).endsWith("\r\n\r\n")) {
+            int b = in.read();
+            if (-1 == b)
+                return 0 == head.size() ? null : new Response(head.toString(StandardCharsets.ISO_8859_1), new byte[0]);
+            head.write(b);
+        }
+        String headString = head.toString(StandardCharsets.ISO_8859_1);
+        int contentLength = -1;
+        for (String line : headString.split("\r\n")) {
+            if (line.toLowerCase(Locale.ROOT).startsWith("content-length:"))
+                contentLength = Integer.parseInt(line.substring(line.indexOf(':') + 1).trim());
+        }
+        byte[] body = -1 == contentLength ? in.readAllBytes() : in.readNBytes(contentLength);
+        return new Response(headString, body);
+    }
+
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+    * 响应的状态码、报文头和报文体
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static class Response {
+        private final String head;
+        private final byte[] body;
+
+        private Response(String head, byte[] body) {
+            this.head = head;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return Integer.parseInt(head.substring(9, 12));
+        }
+
+        public String getHead() {
+            return head;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package server.net;
+
+import server.catalina.Connector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+* 内存中的连接，读取时按固定大小分批返回预先给定的数据，模拟数据分多个TCP段到达，写出的数据全部记录下来。
+* 支持非阻塞写，stalled时模拟客户端不读取数据、通道写不下。没有经过Connector初始化，关闭时不归还连接数，只通知升级后的处理器
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class MockSocketWrapper extends SocketWrapper {
+    private final byte[] input;
+    private final int segmentSize;
+    private int position;
+    private final ByteArrayOutputStream written;
+    private volatile boolean stalled;
+    private volatile boolean closed;
+
+    public MockSocketWrapper(String input, int segmentSize) {
+        this(new Connector(null, 0), input, segmentSize);
+    }
+
+    public MockSocketWrapper(Connector connector, String input, int segmentSize) {
+        super(connector);
+        this.input = input.getBytes(StandardCharsets.ISO_8859_1);
+        this.segmentSize = segmentSize;
+        this.written = new ByteArrayOutputStream();
+    }
+
+    @Override
+    protected int read(byte[] bytes, int offset, int len, boolean block) {
+        if (position == input.length)
+            return -1;
+        int read = Math.min(Math.min(len, segmentSize), input.length - position);
+        System.arraycopy(input, position, bytes, offset, read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    protected void doWrite(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            written.writeBytes(bytes);
+        }
+    }
+
+    @Override
+    public boolean writeNonBlocking(ByteBuffer[] buffers) throws IOException {
+        if (stalled)
+            return false;
+        return super.writeNonBlocking(buffers);
+    }
+
+    @Override
+    public boolean isNonBlockingWrite() {
+        return true;
+    }
+
+    @Override
+    protected void doClose() {
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        UpgradeHandler upgradeHandler = this.getUpgradeHandler();
+        if (null != upgradeHandler)
+            upgradeHandler.onClose();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean awaitNextRequest() {
+        return false;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return new InetSocketAddress(0);
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return new InetSocketAddress(0);
+    }
+
+    public void setStalled(boolean stalled) {
+        this.stalled = stalled;
+    }
+
+    public String getWritten() {
+        return written.toString(StandardCharsets.UTF_8);
+    }
+
+    public void clearWritten() {
+        written.reset();
+    }
+}
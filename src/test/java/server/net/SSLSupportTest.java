@@ -0,0 +1,229 @@
+package server.net;
+
+import cn.hutool.core.io.FileUtil;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import server.catalina.Connector;
+
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SSLSupportTest {
+    private static File folder;
+    private static File defaultKeystore;
+    private static File wildcardKeystore;
+
+    @BeforeClass
+    public static void createKeystores() throws IOException, InterruptedException {
+        folder = Files.createTempDirectory("ssl").toFile();
+        defaultKeystore = createKeystore(folder, "default.p12", "CN=localhost");
+        wildcardKeystore = createKeystore(folder, "wildcard.p12", "CN=*.example.com");
+    }
+
+    @AfterClass
+    public static void deleteKeystores() {
+        FileUtil.del(folder);
+    }
+
+    @Test
+    public void testSniMatching() throws GeneralSecurityException, IOException {
+        SSLSupport sslSupport = init(false).getSslSupport();
+        Assert.assertTrue(sslSupport.chooseServerAlias("www.example.com", "EC").startsWith("*.example.com/"));
+        Assert.assertTrue(sslSupport.chooseServerAlias("WWW.Example.COM", "EC").startsWith("*.example.com/"));
+        Assert.assertTrue(sslSupport.chooseServerAlias("api.example.com", "EC").startsWith("api.example.com/"));   //完全匹配优先
+        Assert.assertTrue(sslSupport.chooseServerAlias("a.b.example.com", "EC").startsWith(SSLHostConfig.DEFAULT_HOST_NAME + "/")); //通配符只匹配一级
+        Assert.assertTrue(sslSupport.chooseServerAlias("example.com", "EC").startsWith(SSLHostConfig.DEFAULT_HOST_NAME + "/"));
+        Assert.assertTrue(sslSupport.chooseServerAlias(null, "EC").startsWith(SSLHostConfig.DEFAULT_HOST_NAME + "/"));
+        Assert.assertNull(sslSupport.chooseServerAlias("www.example.com", "RSA"));
+
+        Assert.assertEquals("CN=*.example.com", certificateName(handshake(sslSupport, clientContext(), "www.example.com")));
+        Assert.assertEquals("CN=localhost", certificateName(handshake(sslSupport, clientContext(), "other.test")));
+        Assert.assertEquals("CN=localhost", certificateName(handshake(sslSupport, clientContext(), null)));
+    }
+
+    @Test
+    public void testAlpn() throws GeneralSecurityException, IOException {
+        SSLSupport h2 = init(true).getSslSupport();
+        SSLSupport http11 = init(false).getSslSupport();
+        Assert.assertEquals("h2", handshake(h2, clientContext(), null, "h2", "http/1.1").getApplicationProtocol());
+        Assert.assertEquals("http/1.1", handshake(h2, clientContext(), null, "http/1.1").getApplicationProtocol());
+        Assert.assertEquals("http/1.1", handshake(http11, clientContext(), null, "h2", "http/1.1").getApplicationProtocol());   //未启用HTTP/2
+        Assert.assertEquals("", handshake(http11, clientContext(), null, "h2").getApplicationProtocol());   //没有可用的协议时不使用ALPN
+        Assert.assertEquals("", handshake(http11, clientContext(), null).getApplicationProtocol());
+    }
+
+    @Test
+    public void testSessionResumption() throws GeneralSecurityException, IOException {
+        Connector connector = init(false);
+        SSLSupport sslSupport = connector.getSslSupport();
+        SSLContext client = clientContext();
+        handshake(sslSupport, client, null);
+        Assert.assertEquals(1, connector.getStats().getFullHandshakeCount().sum());
+        Assert.assertEquals(0, connector.getStats().getResumedHandshakeCount().sum());
+        handshake(sslSupport, client, null);    //同一个客户端上下文，复用上次的会话
+        handshake(sslSupport, client, null);
+        Assert.assertEquals(1, connector.getStats().getFullHandshakeCount().sum());
+        Assert.assertEquals(2, connector.getStats().getResumedHandshakeCount().sum());
+        handshake(sslSupport, clientContext(), null);   //新的客户端没有可复用的会话
+        Assert.assertEquals(2, connector.getStats().getFullHandshakeCount().sum());
+        Assert.assertTrue(connector.getStats().getResumedHandshakeTime().sum() > 0);
+    }
+
+    private static Connector init(boolean h2c) {
+        Connector connector = new Connector(null, 0);
+        connector.setProtocol("nio");
+        connector.setSecure(true);
+        connector.setH2c(h2c);
+        connector.addSslHostConfig(hostConfig(SSLHostConfig.DEFAULT_HOST_NAME, defaultKeystore));
+        connector.addSslHostConfig(hostConfig("*.example.com", wildcardKeystore));
+        connector.addSslHostConfig(hostConfig("API.example.com", defaultKeystore));
+        connector.init();
+        return connector;
+    }
+
+    private static SSLHostConfig hostConfig(String hostName, File keystore) {
+        SSLHostConfig sslHostConfig = new SSLHostConfig();
+        sslHostConfig.setHostName(hostName);
+        sslHostConfig.setKeystoreFile(keystore.getAbsolutePath());
+        sslHostConfig.setKeystorePass("changeit");
+        return sslHostConfig;
+    }
+
+    /**
+    * 用keytool生成只含一张EC自签名证书的PKCS12密钥库，密码为changeit
+    * @param folder 密钥库所在的目录
+ 	* @param name 文件名
+ 	* @param dname 证书的主题
+    * @return java.io.File
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    static File createKeystore(File folder, String name, String dname) throws IOException, InterruptedException {
+        File keystore = new File(folder, name);
+        Process process = new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool",
+                "-genkeypair", "-alias", "server", "-keyalg", "EC", "-groupname", "secp256r1", "-dname", dname,
+                "-validity", "1", "-storetype", "PKCS12", "-keystore", keystore.getAbsolutePath(), "-storepass", "changeit")
+                .redirectErrorStream(true).start();
+        process.getInputStream().readAllBytes();
+        Assert.assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+        Assert.assertEquals(0, process.exitValue());
+        return keystore;
+    }
+
+    private static SSLContext clientContext() throws GeneralSecurityException {
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new TrustManager[]{new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        }}, null);
+        return sslContext;
+    }
+
+    private static String certificateName(SSLEngine server) {
+        return ((X509Certificate) server.getSession().getLocalCertificates()[0]).getSubjectX500Principal().getName();
+    }
+
+    /**
+    * 在内存中完成一次握手，按SecureChannel的方式向SSLSupport报告握手结果，TLS 1.3握手后发出的会话票据也交给客户端
+    * @param sslSupport 服务端
+ 	* @param client 客户端上下文，同一上下文的后续握手复用会话
+ 	* @param serverName SNI请求的主机名，可以为null
+ 	* @param protocols 客户端通过ALPN提供的协议
+    * @return javax.net.ssl.SSLEngine 握手完成的服务端SSLEngine
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static SSLEngine handshake(SSLSupport sslSupport, SSLContext client, String serverName, String... protocols) throws SSLException {
+        SSLEngine clientEngine = client.createSSLEngine("localhost", 8443);
+        clientEngine.setUseClientMode(true);
+        SSLParameters parameters = clientEngine.getSSLParameters();
+        parameters.setApplicationProtocols(protocols);
+        if (null != serverName)
+            parameters.setServerNames(List.of(new SNIHostName(serverName)));
+        clientEngine.setSSLParameters(parameters);
+        SSLEngine serverEngine = sslSupport.createSSLEngine();
+        ByteBuffer clientToServer = ByteBuffer.allocate(64 * 1024);
+        ByteBuffer serverToClient = ByteBuffer.allocate(64 * 1024);
+        long handshakeStartMillis = System.currentTimeMillis();
+        long handshakeStart = System.nanoTime();
+        clientEngine.beginHandshake();
+        serverEngine.beginHandshake();
+        boolean reported = false;
+        for (int i = 0; i < 100; i++) {
+            boolean progress = pump(clientEngine, serverToClient, clientToServer);
+            progress |= pump(serverEngine, clientToServer, serverToClient);
+            if (!reported && isHandshakeDone(serverEngine) && isHandshakeDone(clientEngine)) {
+                sslSupport.handshakeCompleted(serverEngine.getSession(), handshakeStartMillis, System.nanoTime() - handshakeStart);
+                reported = true;
+            }
+            if (reported && !progress)
+                return serverEngine;
+        }
+        throw new AssertionError("握手没有完成");
+    }
+
+    private static boolean isHandshakeDone(SSLEngine engine) {
+        return SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING == engine.getHandshakeStatus();
+    }
+
+    /**
+    * 推进一端的状态：先解密对端发来的全部记录，再按需要写出握手消息
+    * @param engine 一端的SSLEngine
+ 	* @param in 对端写出的密文，写模式
+ 	* @param out 本端写出的密文，写模式
+    * @return boolean 是否消费或者产生了数据
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static boolean pump(SSLEngine engine, ByteBuffer in, ByteBuffer out) throws SSLException {
+        boolean progress = false;
+        ByteBuffer app = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+        in.flip();
+        while (in.hasRemaining()) {
+            SSLEngineResult result = engine.unwrap(in, app);
+            runDelegatedTasks(engine);
+            if (0 == result.bytesConsumed())
+                break;
+            progress = true;
+        }
+        in.compact();
+        while (SSLEngineResult.HandshakeStatus.NEED_WRAP == engine.getHandshakeStatus()) {
+            SSLEngineResult result = engine.wrap(ByteBuffer.allocate(0), out);
+            runDelegatedTasks(engine);
+            progress |= result.bytesProduced() > 0;
+        }
+        return progress;
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine) {
+        Runnable task;
+        while (null != (task = engine.getDelegatedTask()))
+            task.run();
+    }
+}
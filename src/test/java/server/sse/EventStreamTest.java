@@ -0,0 +1,98 @@
+package server.sse;
+
+import org.junit.Assert;
+import org.junit.Test;
+import server.catalina.Connector;
+import server.net.MockSocketWrapper;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventStreamTest {
+
+    @Test
+    public void testEventFormat() throws IOException {
+        MockSocketWrapper socketWrapper = EventStreamTest.mock(64 * 1024);
+        EventStream eventStream = EventStream.start(socketWrapper);
+        Assert.assertTrue(socketWrapper.getWritten().startsWith("HTTP/1.1 200 OK\r\nContent-Type: text/event-stream"));
+        socketWrapper.clearWritten();
+        Assert.assertTrue(eventStream.send("update", "7", "a\r\nb"));
+        Assert.assertTrue(eventStream.sendComment("ping"));
+        Assert.assertTrue(eventStream.sendRetry(3000));
+        Assert.assertEquals("id: 7\nevent: update\ndata: a\ndata: b\n\n: ping\n\nretry: 3000\n\n", socketWrapper.getWritten());
+        Assert.assertEquals(0, eventStream.getQueuedBytes());
+    }
+
+    @Test
+    public void testResumeWhenWritable() throws IOException {
+        MockSocketWrapper socketWrapper = EventStreamTest.mock(64 * 1024);
+        EventStream eventStream = EventStream.start(socketWrapper);
+        socketWrapper.clearWritten();
+        socketWrapper.setStalled(true);
+        Assert.assertTrue(eventStream.send("a"));
+        Assert.assertTrue(eventStream.send("b"));
+        Assert.assertEquals(18, eventStream.getQueuedBytes());  //发送方不等待客户端
+        Assert.assertEquals("", socketWrapper.getWritten());
+        socketWrapper.setStalled(false);
+        socketWrapper.onWritable();
+        Assert.assertEquals("data: a\n\ndata: b\n\n", socketWrapper.getWritten());
+        Assert.assertEquals(0, eventStream.getQueuedBytes());
+    }
+
+    @Test
+    public void testSlowClientDisconnected() throws IOException {
+        MockSocketWrapper socketWrapper = EventStreamTest.mock(32);
+        EventStream eventStream = EventStream.start(socketWrapper);
+        AtomicInteger closed = new AtomicInteger();
+        eventStream.onClose(closed::incrementAndGet);
+        socketWrapper.setStalled(true);
+        Assert.assertTrue(eventStream.send("0123456789"));  //20字节
+        Assert.assertFalse(eventStream.send("0123456789")); //超过队列上限
+        Assert.assertTrue(socketWrapper.isClosed());
+        Assert.assertFalse(eventStream.isOpen());
+        Assert.assertEquals(0, eventStream.getQueuedBytes());
+        Assert.assertEquals(1, closed.get());
+        Assert.assertFalse(eventStream.send("a"));
+        eventStream.onClose(closed::incrementAndGet);  //已关闭时立即执行
+        Assert.assertEquals(2, closed.get());
+    }
+
+    @Test
+    public void testCloseAfterQueuedEvents() throws IOException {
+        MockSocketWrapper socketWrapper = EventStreamTest.mock(64 * 1024);
+        EventStream eventStream = EventStream.start(socketWrapper);
+        socketWrapper.clearWritten();
+        socketWrapper.setStalled(true);
+        eventStream.send("last");
+        eventStream.close();
+        Assert.assertFalse(eventStream.isOpen());
+        Assert.assertFalse(socketWrapper.isClosed());  //先写完队列中的事件
+        Assert.assertFalse(eventStream.send("dropped"));
+        socketWrapper.setStalled(false);
+        socketWrapper.onWritable();
+        Assert.assertEquals("data: last\n\n", socketWrapper.getWritten());
+        Assert.assertTrue(socketWrapper.isClosed());
+    }
+
+    @Test
+    public void testDrainEndsStream() throws IOException {
+        MockSocketWrapper socketWrapper = EventStreamTest.mock(64 * 1024);
+        EventStream eventStream = EventStream.start(socketWrapper);
+        socketWrapper.clearWritten();
+        socketWrapper.setStalled(true);
+        eventStream.send("last");
+        socketWrapper.drain();
+        Assert.assertFalse(eventStream.isOpen());
+        Assert.assertFalse(socketWrapper.isClosed());
+        socketWrapper.setStalled(false);
+        socketWrapper.onWritable();
+        Assert.assertEquals("data: last\n\n", socketWrapper.getWritten());
+        Assert.assertTrue(socketWrapper.isClosed());
+    }
+
+    private static MockSocketWrapper mock(int maxQueueSize) {
+        Connector connector = new Connector(null, 0);
+        connector.setEventStreamMaxQueueSize(maxQueueSize);
+        return new MockSocketWrapper(connector, "", 1024);
+    }
+}
@@ -0,0 +1,91 @@
+package server.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ArrayMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        Map<String, Integer> map = new ArrayMap<>();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.put("a", 1));
+        Assert.assertNull(map.put("b", 2));
+        Assert.assertNull(map.put(null, 0));
+        Assert.assertEquals(Integer.valueOf(1), map.put("a", 10));
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(Integer.valueOf(10), map.get("a"));
+        Assert.assertEquals(Integer.valueOf(0), map.get(null));
+        Assert.assertTrue(map.containsKey(null));
+        Assert.assertNull(map.get("c"));
+        Assert.assertEquals(Integer.valueOf(2), map.remove("b"));
+        Assert.assertNull(map.remove("b"));
+        Assert.assertEquals(Arrays.asList("a", null), new ArrayList<>(map.keySet()));
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get("a"));
+    }
+
+    @Test
+    public void testInsertionOrder() {
+        Map<String, Integer> map = new ArrayMap<>();
+        for (int i = 0; i < 6; i++)
+            map.put("k" + i, i);
+        map.remove("k2");
+        map.put("k2", 2);
+        Assert.assertEquals(Arrays.asList("k0", "k1", "k3", "k4", "k5", "k2"), new ArrayList<>(map.keySet()));
+    }
+
+    @Test
+    public void testIteratorRemoveAndSetValue() {
+        Map<String, Integer> map = new ArrayMap<>();
+        for (int i = 0; i < 5; i++)
+            map.put("k" + i, i);
+        Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Integer> entry = iterator.next();
+            if (0 == entry.getValue() % 2)
+                iterator.remove();
+            else
+                entry.setValue(entry.getValue() * 10);
+        }
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("k1", 10);
+        expected.put("k3", 30);
+        Assert.assertEquals(expected, map);
+        Assert.assertEquals(map, expected);
+        Assert.assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testGrowsIntoHashMap() {
+        Map<String, Integer> map = new ArrayMap<>();
+        Set<Map.Entry<String, Integer>> entries = map.entrySet();  //改用LinkedHashMap之前取得的视图
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put("k" + i, i);
+            keys.add("k" + i);
+        }
+        Assert.assertEquals(1000, map.size());
+        Assert.assertEquals(1000, entries.size());
+        Assert.assertEquals(keys, new ArrayList<>(map.keySet()));
+        for (int i = 0; i < 1000; i++)
+            Assert.assertEquals(Integer.valueOf(i), map.get("k" + i));
+        Assert.assertEquals(Integer.valueOf(5), map.remove("k5"));
+        Assert.assertFalse(map.containsKey("k5"));
+        Assert.assertEquals(999, map.size());
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        map.put("a", 1);   //清空后重新使用数组
+        Assert.assertEquals(Integer.valueOf(1), map.get("a"));
+        Assert.assertEquals(1, entries.size());
+    }
+}
@@ -0,0 +1,72 @@
+package server.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+public class ClientLimiterTest {
+
+    @Test
+    public void testConnectionsPerClient() throws UnknownHostException {
+        ClientLimiter limiter = new ClientLimiter(2, -1, -1, -1);
+        InetAddress address = InetAddress.getByName("10.0.0.1");
+        ClientLimiter.Client first = limiter.tryAcquireConnection(address);
+        ClientLimiter.Client second = limiter.tryAcquireConnection(address);
+        Assert.assertNotNull(first);
+        Assert.assertSame(first, second);
+        Assert.assertNull(limiter.tryAcquireConnection(address));
+        Assert.assertNotNull(limiter.tryAcquireConnection(InetAddress.getByName("10.0.0.2")));   //其他客户端不受影响
+        limiter.releaseConnection(first);
+        Assert.assertNotNull(limiter.tryAcquireConnection(address));
+    }
+
+    @Test
+    public void testIdleClientRemoved() throws UnknownHostException {
+        ClientLimiter limiter = new ClientLimiter(2, -1, -1, -1);
+        ClientLimiter.Client client = limiter.tryAcquireConnection(InetAddress.getByName("10.0.0.1"));
+        Assert.assertEquals(1, limiter.getClientCount());
+        limiter.releaseConnection(client);
+        Assert.assertEquals(0, limiter.getClientCount());
+    }
+
+    @Test
+    public void testRequestsPerClient() throws UnknownHostException {
+        ClientLimiter limiter = new ClientLimiter(-1, 1, -1, -1);
+        ClientLimiter.Client client = limiter.tryAcquireConnection(InetAddress.getByName("10.0.0.1"));
+        Assert.assertTrue(limiter.tryAcquireRequest(client));
+        Assert.assertFalse(limiter.tryAcquireRequest(client));
+        limiter.releaseRequest(client);
+        Assert.assertTrue(limiter.tryAcquireRequest(client));
+    }
+
+    @Test
+    public void testRequestRate() throws UnknownHostException, InterruptedException {
+        ClientLimiter limiter = new ClientLimiter(-1, -1, 10, 3);   //每100毫秒一个令牌，可以突发3个
+        ClientLimiter.Client client = limiter.tryAcquireConnection(InetAddress.getByName("10.0.0.1"));
+        for (int i = 0; i < 3; i++)
+            Assert.assertTrue(limiter.tryAcquireRequest(client));
+        Assert.assertFalse(limiter.tryAcquireRequest(client));
+        Thread.sleep(150);
+        Assert.assertTrue(limiter.tryAcquireRequest(client));
+        Assert.assertFalse(limiter.tryAcquireRequest(client));
+    }
+
+    @Test
+    public void testRejectedRateDoesNotHoldRequest() throws UnknownHostException, InterruptedException {
+        ClientLimiter limiter = new ClientLimiter(-1, 1, 10, 1);
+        ClientLimiter.Client client = limiter.tryAcquireConnection(InetAddress.getByName("10.0.0.1"));
+        Assert.assertTrue(limiter.tryAcquireRequest(client));
+        limiter.releaseRequest(client);
+        Assert.assertFalse(limiter.tryAcquireRequest(client)); //速率超限，占用的请求数随之归还
+        Thread.sleep(150);
+        Assert.assertTrue(limiter.tryAcquireRequest(client));
+    }
+
+    @Test
+    public void testEnabled() {
+        Assert.assertFalse(ClientLimiter.isEnabled(-1, -1, -1));
+        Assert.assertTrue(ClientLimiter.isEnabled(-1, 1, -1));
+    }
+}
@@ -0,0 +1,46 @@
+package server.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class CoDelLimiterTest {
+    private static final long target = 20;
+    private static final long interval = 100;
+
+    @Test
+    public void testDropOnlyStaleTasksWhenNotOverloaded() {
+        CoDelLimiter limiter = new CoDelLimiter(target, interval);
+        Assert.assertFalse(limiter.isDrop(millis(0)));
+        Assert.assertFalse(limiter.isDrop(millis(50)));    //超过target但还未过载
+        Assert.assertTrue(limiter.isDrop(millis(150)));    //超过interval，客户端多半已经超时
+        Assert.assertFalse(limiter.isOverloaded());
+    }
+
+    @Test
+    public void testOverloadedAfterSlowInterval() throws InterruptedException {
+        CoDelLimiter limiter = new CoDelLimiter(target, interval);
+        Assert.assertFalse(limiter.isDrop(millis(50)));
+        Assert.assertFalse(limiter.isDrop(millis(30)));
+        Thread.sleep(interval + 20);
+        Assert.assertTrue(limiter.isDrop(millis(30))); //上个周期的最短排队时间超过target，进入过载
+        Assert.assertTrue(limiter.isOverloaded());
+        Assert.assertFalse(limiter.isDrop(millis(5)));
+        Thread.sleep(interval + 20);
+        Assert.assertFalse(limiter.isDrop(millis(30))); //有任务很快被执行，积压已经消失
+        Assert.assertFalse(limiter.isOverloaded());
+    }
+
+    @Test
+    public void testEmptyIntervalIsNotOverloaded() throws InterruptedException {
+        CoDelLimiter limiter = new CoDelLimiter(target, interval);
+        Thread.sleep(interval + 20);
+        Assert.assertFalse(limiter.isDrop(millis(50)));
+        Assert.assertFalse(limiter.isOverloaded());
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
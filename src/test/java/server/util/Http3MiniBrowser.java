@@ -0,0 +1,249 @@
+package server.util;
+
+import server.exception.Http3Exception;
+import server.http3.Http3;
+import server.http3.QpackDecoder;
+import server.http3.QpackEncoder;
+import server.http3.Quic;
+import server.http3.QuicConnection;
+import server.http3.QuicStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* 简易版的HTTP/3浏览器，用于h3连接器的数据测试，每次请求新建一个QUIC连接，在第一条请求流上发送GET，
+* 和MiniBrowser一样不校验服务端的证书链。响应还原成"HTTP/3 状态码"开头的文本格式，以便沿用MiniBrowser的解析方法，
+* 这些静态方法隐藏MiniBrowser中同名的TCP版本
+* @author cn-wumo
+* @since 2026/10/18
+*/
+public class Http3MiniBrowser extends MiniBrowser {
+    private static final int timeout = 10 * 1000;
+
+    /**
+    * 返回http的正文内容，若无正文则返回null
+    * @param url 服务器资源地址，默认端口443
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static byte[] getContentBytes(String url) {
+        return getContent(getHttpBytes(url));
+    }
+
+    /**
+    * 以UTF-8编码返回http的正文内容，若无正文则返回null
+    * @param url 服务器资源地址，默认端口443
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static String getContentString(String url) {
+        byte[] result = getContentBytes(url);
+        if(null==result)
+            return null;
+        return new String(result, StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+    * 从url中获取服务器的Http数据，通过String返回结果
+    * @param url 服务器资源地址，默认端口443
+    * @return java.lang.String
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static String getHttpString(String url) {
+        return new String(getHttpBytes(url)).trim();
+    }
+
+    /**
+    * 从url中获取服务器的Http数据，通过byte数组返回结果，单个线程驱动QUIC连接：
+    * 收到数据报时交给连接处理，接收超时时触发连接的计时器
+    * @param url 服务器资源地址，默认端口443
+    * @return byte[]
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    public static byte[] getHttpBytes(String url) {
+        byte[] result;
+        try(
+                DatagramSocket socket = new DatagramSocket()
+                ){
+            URI uri = new URI(url);
+            int port = uri.getPort();
+            if(-1==port)
+                port = 443;
+            socket.connect(new InetSocketAddress(uri.getHost(), port));
+            String path = uri.getRawPath();
+            if(null==path || path.equals(""))
+                path = "/";
+            if(null!=uri.getRawQuery())
+                path = path + "?" + uri.getRawQuery();
+            Client client = new Client(socket, uri.getHost(), uri.getHost() + ":" + port, path);
+            client.connect();
+            byte[] buffer = new byte[65527];
+            long deadline = System.currentTimeMillis() + timeout;
+            while(!client.isDone() && !client.isClosed()) {
+                long now = System.currentTimeMillis();
+                if(now >= deadline)
+                    throw new SocketTimeoutException("HTTP/3请求超时");
+                socket.setSoTimeout((int) Math.max(1, Math.min(client.getTimerDeadline() - now, deadline - now)));
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                try {
+                    socket.receive(packet);
+                    client.receive(ByteBuffer.wrap(buffer, 0, packet.getLength()));
+                } catch (SocketTimeoutException e) {
+                    if(System.currentTimeMillis() >= client.getTimerDeadline())
+                        client.onTimeout();
+                }
+            }
+            if(!client.isDone())
+                throw new IOException("HTTP/3连接已关闭");
+            result = client.getResponse();
+            client.close(Http3Exception.H3_NO_ERROR, true, "");
+        } catch (Exception e) {
+            e.printStackTrace();
+            result = e.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    /**
+    * 客户端的HTTP/3连接，握手完成后打开控制流和一条请求流，请求流收到FIN后一次性解析其中的帧
+    * @author cn-wumo
+    * @since 2026/10/18
+    */
+    private static class Client extends QuicConnection {
+        private final DatagramSocket socket;
+        private final String authority;
+        private final String path;
+        private QuicStream requestStream;
+        private final ByteArrayOutputStream responseFrames;
+        private long timerDeadline;
+        private boolean done;
+        private byte[] response;
+
+        private Client(DatagramSocket socket, String serverName, String authority, String path) throws GeneralSecurityException {
+            super(serverName, timeout);
+            this.socket = socket;
+            this.authority = authority;
+            this.path = path;
+            this.responseFrames = new ByteArrayOutputStream();
+            this.timerDeadline = Long.MAX_VALUE;
+        }
+
+        @Override
+        protected void sendDatagram(ByteBuffer datagram) throws IOException {
+            socket.send(new DatagramPacket(datagram.array(), datagram.arrayOffset() + datagram.position(), datagram.remaining()));
+        }
+
+        @Override
+        protected void armTimer(long delay) {
+            timerDeadline = System.currentTimeMillis() + delay;
+        }
+
+        @Override
+        protected void onHandshakeComplete() {
+            try {
+                ByteArrayOutputStream control = new ByteArrayOutputStream();
+                Quic.writeVarInt(control, Http3.STREAM_CONTROL);
+                Http3.writeFrame(control, Http3.FRAME_SETTINGS, Http3.settings(64 * 1024));
+                this.write(this.openStream(false), control.toByteArray(), false);
+
+                List<String[]> headers = new ArrayList<>();
+                headers.add(new String[]{":method", "GET"});
+                headers.add(new String[]{":scheme", "https"});
+                headers.add(new String[]{":authority", authority});
+                headers.add(new String[]{":path", path});
+                headers.add(new String[]{"accept", "text/html"});
+                headers.add(new String[]{"user-agent", "mini browser"});
+                ByteArrayOutputStream request = new ByteArrayOutputStream();
+                Http3.writeFrame(request, Http3.FRAME_HEADERS, new QpackEncoder().encode(headers));
+                requestStream = this.openStream(true);
+                this.write(requestStream, request.toByteArray(), true);
+            } catch (IOException e) {
+                this.close(Http3Exception.H3_INTERNAL_ERROR, true, e.getMessage());
+            }
+        }
+
+        @Override
+        protected void onStreamData(QuicStream stream) throws Http3Exception {
+            ByteBuffer in = stream.getInbound();
+            if (stream == requestStream)
+                responseFrames.write(in.array(), 0, in.remaining());
+            stream.consume(in.remaining());    //服务端的控制流和QPACK流不需要处理
+            if (stream == requestStream && stream.isFinReceived())
+                this.parseResponse();
+        }
+
+        /**
+        * 把请求流上的HEADERS和DATA帧还原成文本格式的响应
+        * @author cn-wumo
+        * @since 2026/10/18
+        */
+        private void parseResponse() throws Http3Exception {
+            ByteBuffer in = ByteBuffer.wrap(responseFrames.toByteArray());
+            StringBuilder head = new StringBuilder();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            long[] header;
+            while (null != (header = Http3.readFrameHeader(in))) {
+                int start = in.position() + (int) header[2];
+                if (header[1] > in.limit() - start)
+                    break;
+                int length = (int) header[1];
+                if (Http3.FRAME_HEADERS == header[0] && 0 == head.length()) {
+                    for (String[] field : new QpackDecoder().decode(ByteBuffer.wrap(in.array(), start, length).slice())) {
+                        if (":status".equals(field[0]))
+                            head.insert(0, "HTTP/3 " + field[1] + "\r\n");
+                        else
+                            head.append(field[0]).append(": ").append(field[1]).append("\r\n");
+                    }
+                } else if (Http3.FRAME_DATA == header[0]) {
+                    body.write(in.array(), start, length);
+                }
+                in.position(start + length);
+            }
+            head.append("\r\n");
+            byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+            response = new byte[headBytes.length + body.size()];
+            System.arraycopy(headBytes, 0, response, 0, headBytes.length);
+            System.arraycopy(body.toByteArray(), 0, response, headBytes.length, body.size());
+            done = true;
+        }
+
+        @Override
+        protected void onStreamReset(QuicStream stream, long errorCode) {
+            if (stream == requestStream) {
+                response = ("HTTP/3 请求流被重置，错误码" + errorCode).getBytes(StandardCharsets.UTF_8);
+                done = true;
+            }
+        }
+
+        @Override
+        protected void onClosed(boolean idleTimeout) {
+        }
+
+        private long getTimerDeadline() {
+            return timerDeadline;
+        }
+
+        private boolean isDone() {
+            return done;
+        }
+
+        private byte[] getResponse() {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package server.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 1000; micros++)
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        Assert.assertEquals(1000, histogram.getCount());
+        assertWithinBucket(500, histogram.getPercentile(50));
+        assertWithinBucket(990, histogram.getPercentile(99));
+        assertWithinBucket(1000, histogram.getPercentile(100));
+        Assert.assertTrue(histogram.getPercentile(50) <= histogram.getPercentile(99));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(2));
+        histogram.record(-1);  //时钟回拨等异常值按0记录
+        Assert.assertEquals(2, histogram.getCount());
+        Assert.assertEquals(2, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getPercentile(50));
+    }
+
+    private static void assertWithinBucket(long expected, long actual) {
+        Assert.assertTrue(expected + " -> " + actual, actual >= expected && actual <= expected * 5 / 4);
+    }
+}
@@ -0,0 +1,71 @@
+package server.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LimitLatchTest {
+
+    @Test
+    public void testUnlimitedStillCounts() throws InterruptedException {
+        LimitLatch latch = new LimitLatch(-1);
+        latch.acquire();
+        Assert.assertTrue(latch.tryAcquire());
+        Assert.assertTrue(latch.acquireOrWait(() -> Assert.fail("不限制时不应登记回调")));
+        Assert.assertEquals(3, latch.getCount());  //排空依据这个计数等待连接关闭
+        latch.release();
+        latch.release();
+        latch.release();
+        Assert.assertEquals(0, latch.getCount());
+    }
+
+    @Test
+    public void testLimit() throws InterruptedException {
+        LimitLatch latch = new LimitLatch(2);
+        latch.acquire();
+        Assert.assertTrue(latch.tryAcquire());
+        Assert.assertFalse(latch.tryAcquire());
+        Assert.assertEquals(2, latch.getCount());
+        latch.release();
+        Assert.assertEquals(1, latch.getCount());
+        Assert.assertTrue(latch.tryAcquire());
+        Assert.assertEquals(2, latch.getCount());
+    }
+
+    @Test
+    public void testAcquireOrWaitCallback() {
+        LimitLatch latch = new LimitLatch(1);
+        Assert.assertTrue(latch.acquireOrWait(Assert::fail));
+        AtomicInteger calls = new AtomicInteger();
+        Assert.assertFalse(latch.acquireOrWait(calls::incrementAndGet));
+        Assert.assertEquals(1, latch.getCount());
+        latch.release();
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(0, latch.getCount());
+        Assert.assertTrue(latch.acquireOrWait(Assert::fail));  //回调中重新获取许可
+        latch.release();
+        Assert.assertEquals(1, calls.get());   //回调只调用一次
+    }
+
+    @Test
+    public void testAcquireBlocksUntilRelease() throws InterruptedException {
+        LimitLatch latch = new LimitLatch(1);
+        latch.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try {
+                latch.acquire();
+                acquired.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        thread.start();
+        Assert.assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        latch.release();
+        Assert.assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, latch.getCount());
+    }
+}
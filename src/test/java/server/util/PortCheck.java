@@ -1,5 +1,6 @@
 package server.util;
 
+import cn.hutool.core.convert.Convert;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.date.TimeInterval;
 import cn.hutool.core.io.IoUtil;
@@ -10,9 +11,12 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.Socket;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -171,6 +175,49 @@ public class PortCheck {
         System.out.println(html);
     }
 
+    @Test
+    public void testKeepAlive() throws IOException {
+        try (Socket socket = new Socket(ip, port)) {
+            OutputStream os = socket.getOutputStream();
+            InputStream is = socket.getInputStream();
+            for (int i = 0; i < 2; i++) {   //同一连接上依次发送两个请求
+                os.write("GET /a.html HTTP/1.1\r\nHost: 127.0.0.1\r\n\r\n".getBytes());
+                String head = readHead(is);
+                Assert.assertTrue(StrUtil.containsAny(head, "Connection: keep-alive"));
+                int contentLength = Convert.toInt(StrUtil.subBetween(head, "Content-Length: ", "\r\n"));
+                Assert.assertEquals("Hello World from a.html", new String(is.readNBytes(contentLength)));
+            }
+        }
+    }
+
+    @Test
+    public void testPipelining() throws IOException {
+        try (Socket socket = new Socket(ip, port)) {
+            String request = "GET /a.html HTTP/1.1\r\nHost: 127.0.0.1\r\n\r\n";
+            String lastRequest = "GET /not_exist.html HTTP/1.1\r\nHost: 127.0.0.1\r\n\r\n";
+            socket.getOutputStream().write((request + request + lastRequest).getBytes());  //一次发出三个请求
+            InputStream is = socket.getInputStream();
+            String[] statusLines = {"HTTP/1.1 200 OK", "HTTP/1.1 200 OK", "HTTP/1.1 404 Not Found"};
+            for (String statusLine : statusLines) { //响应的顺序与请求一致
+                String head = readHead(is);
+                Assert.assertTrue(head.startsWith(statusLine));
+                int contentLength = Convert.toInt(StrUtil.subBetween(head, "Content-Length: ", "\r\n"));
+                is.readNBytes(contentLength);
+            }
+        }
+    }
+
+    private String readHead(InputStream is) throws IOException {
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            int b = is.read();
+            if (b == -1)    //连接被提前关闭，避免死循环
+                throw new EOFException(head.toString());
+            head.append((char) b);
+        }
+        return head.toString();
+    }
+
     private byte[] getContentBytes(String uri) {
         return getContentBytes(uri,false);
     }
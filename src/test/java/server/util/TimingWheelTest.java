@@ -0,0 +1,75 @@
+package server.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TimingWheelTest {
+    private static final TimingWheel wheel = new TimingWheel(10, 16, "TimingWheelTest");
+
+    @Test
+    public void testExpire() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = wheel.newTimeout(expired::countDown);
+        long start = System.nanoTime();
+        timeout.arm(50);
+        Assert.assertTrue(expired.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        Assert.assertEquals(-1, timeout.getRemaining());
+    }
+
+    @Test
+    public void testLongerThanOneRound() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        wheel.newTimeout(expired::countDown).arm(400);  //超过一圈的160毫秒
+        Assert.assertTrue(expired.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 400);
+    }
+
+    @Test
+    public void testRearmDelays() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = wheel.newTimeout(expired::countDown);
+        timeout.arm(100);
+        for (int i = 0; i < 5; i++) {   //连接一直有数据到达，超时不断被延后
+            Thread.sleep(50);
+            timeout.arm(100);
+        }
+        Assert.assertEquals(1, expired.getCount());
+        Assert.assertTrue(expired.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRearmEarlier() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = wheel.newTimeout(expired::countDown);
+        timeout.arm(TimeUnit.MINUTES.toMillis(1));
+        timeout.arm(50);
+        Assert.assertTrue(expired.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDisarmAndCancel() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        TimingWheel.Timeout disarmed = wheel.newTimeout(calls::incrementAndGet);
+        disarmed.arm(30);
+        disarmed.disarm();
+        Assert.assertEquals(-1, disarmed.getRemaining());
+        TimingWheel.Timeout cancelled = wheel.newTimeout(calls::incrementAndGet);
+        cancelled.arm(30);
+        cancelled.cancel();
+        cancelled.arm(30);  //取消后不再登记
+        Thread.sleep(200);
+        Assert.assertEquals(0, calls.get());
+        CountDownLatch expired = new CountDownLatch(1);
+        TimingWheel.Timeout rearmed = wheel.newTimeout(expired::countDown);
+        rearmed.arm(30);
+        rearmed.disarm();
+        rearmed.arm(30);    //暂停后可以重新登记
+        Assert.assertTrue(expired.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,47 @@
+package server.websocket;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.RandomUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+
+public class WebSocketProcessorTest {
+
+    @Test
+    public void testFrameHeader() {
+        Assert.assertEquals("8105", HexUtil.encodeHexStr(WebSocketProcessor.frameHeader(WebSocketProcessor.OPCODE_TEXT, 5, false)));
+        Assert.assertEquals("c27e0100", HexUtil.encodeHexStr(WebSocketProcessor.frameHeader(WebSocketProcessor.OPCODE_BINARY, 256, true)));
+        ByteBuffer header = ByteBuffer.wrap(WebSocketProcessor.frameHeader(WebSocketProcessor.OPCODE_BINARY, 65536, false));
+        Assert.assertEquals(10, header.remaining());
+        Assert.assertEquals((byte) 0x82, header.get());
+        Assert.assertEquals(127, header.get());
+        Assert.assertEquals(65536, header.getLong());   //超过65535时使用8字节长度
+    }
+
+    @Test
+    public void testInflateRfcExample() throws DataFormatException {
+        //RFC 7692 7.2.3.1，压缩后的"Hello"
+        byte[] hello = WebSocketProcessor.inflate(HexUtil.decodeHex("f248cdc9c90700"), 1024);
+        Assert.assertEquals("Hello", new String(hello, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDeflateRoundTrip() throws DataFormatException {
+        byte[] text = "hello websocket ".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = WebSocketProcessor.deflate(text);
+        Assert.assertTrue(compressed.length < text.length);
+        Assert.assertArrayEquals(text, WebSocketProcessor.inflate(compressed, text.length));
+        byte[] random = RandomUtil.randomBytes(100000);  //不可压缩的数据需要多次输出
+        Assert.assertArrayEquals(random, WebSocketProcessor.inflate(WebSocketProcessor.deflate(random), random.length));
+    }
+
+    @Test
+    public void testInflateLimit() throws DataFormatException {
+        byte[] compressed = WebSocketProcessor.deflate(new byte[1024 * 1024]);
+        Assert.assertNull(WebSocketProcessor.inflate(compressed, 64 * 1024));
+    }
+}